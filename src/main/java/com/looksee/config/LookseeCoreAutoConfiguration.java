@@ -22,6 +22,7 @@ import com.looksee.gcp.GoogleCloudStorageProperties;
 @Import({
     LookseeCoreComponentConfiguration.class,
     LookseeCoreRepositoryConfiguration.class,
+    Neo4jSchemaConfiguration.class,
     PusherConfiguration.class,
     SeleniumConfiguration.class
 })
@@ -33,8 +34,9 @@ public class LookseeCoreAutoConfiguration {
      * The configuration is split into focused components:
      * 1. LookseeCoreComponentConfiguration - handles component scanning
      * 2. LookseeCoreRepositoryConfiguration - handles Neo4j repository configuration
-     * 3. PusherConfiguration - handles Pusher client configuration
-     * 4. SeleniumConfiguration - handles Selenium WebDriver configuration (optional)
+     * 3. Neo4jSchemaConfiguration - creates the Neo4j indexes and constraints (optional)
+     * 4. PusherConfiguration - handles Pusher client configuration
+     * 5. SeleniumConfiguration - handles Selenium WebDriver configuration (optional)
      * 
      * This approach prevents circular dependencies and provides better separation of concerns.
      * 
@@ -28,6 +28,7 @@ import org.springframework.context.annotation.Configuration;
     "com.looksee.models.rules",
     "com.looksee.services",
     "com.looksee.gcp",
+    "com.looksee.storage",
     "com.looksee.integrations",
     "com.looksee.browsing",
     "com.looksee.browsing.form",
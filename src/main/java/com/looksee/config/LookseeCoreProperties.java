@@ -15,6 +15,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *     neo4j:
  *       connection-timeout: 30000
  *       max-connection-pool-size: 50
+ *       schema-bootstrap: true
+ *       verify-query-plans: false
 
  */
 @ConfigurationProperties(prefix = "looksee.core")
@@ -90,6 +92,19 @@ public class LookseeCoreProperties {
          */
         private boolean connectionPoolingEnabled = true;
         
+        /**
+         * Whether to create the indexes and constraints of the graph on startup.
+         * Default is true.
+         */
+        private boolean schemaBootstrap = true;
+        
+        /**
+         * Whether to EXPLAIN every repository query on startup and log the
+         * queries that scan a label or expand an unbounded path.
+         * Default is false.
+         */
+        private boolean verifyQueryPlans = false;
+        
         /**
          * Gets the connection timeout
          * @return the connection timeout
@@ -137,6 +152,38 @@ public class LookseeCoreProperties {
         public void setConnectionPoolingEnabled(boolean connectionPoolingEnabled) {
             this.connectionPoolingEnabled = connectionPoolingEnabled;
         }
+        
+        /**
+         * Checks if the schema bootstrap is enabled
+         * @return true if indexes and constraints are created on startup, false otherwise
+         */
+        public boolean isSchemaBootstrap() {
+            return schemaBootstrap;
+        }
+        
+        /**
+         * Sets the schema bootstrap enabled
+         * @param schemaBootstrap the schema bootstrap enabled
+         */
+        public void setSchemaBootstrap(boolean schemaBootstrap) {
+            this.schemaBootstrap = schemaBootstrap;
+        }
+        
+        /**
+         * Checks if repository query plans are verified on startup
+         * @return true if repository queries are explained on startup, false otherwise
+         */
+        public boolean isVerifyQueryPlans() {
+            return verifyQueryPlans;
+        }
+        
+        /**
+         * Sets the verification of repository query plans
+         * @param verifyQueryPlans the verification of repository query plans
+         */
+        public void setVerifyQueryPlans(boolean verifyQueryPlans) {
+            this.verifyQueryPlans = verifyQueryPlans;
+        }
     }
     
 
@@ -0,0 +1,274 @@
+package com.looksee.config;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.summary.Plan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.data.neo4j.repository.query.Query;
+
+/**
+ * Creates and verifies the indexes and constraints that the repository
+ * queries rely on.
+ *
+ * Lookups by {@code key}, {@code url}, {@code host}, {@code user_id} and
+ * {@code username} are backed by an index on the label they are matched with.
+ * Keys that identify a node across the graph, and that the services look up
+ * globally or MERGE on before saving, are created as uniqueness constraints.
+ * Keys that may repeat, such as those of domains copied per account or of
+ * element states kept per page, only get an index. When a
+ * constraint can't be created, for example because the graph already holds
+ * duplicates, a plain index is created instead and a warning is logged.
+ * Lookups by {@code id()} use the internal node id and need no index.
+ *
+ * The bootstrap can also EXPLAIN repository queries and report plans that
+ * scan a whole label or expand a path of unbounded length.
+ */
+public class Neo4jSchemaBootstrap implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(Neo4jSchemaBootstrap.class);
+
+    /** Properties whose values identify a node, by label */
+    static final Map<String, List<String>> UNIQUE_PROPERTIES = new LinkedHashMap<>();
+
+    /** Properties that are looked up but may repeat, by label */
+    static final Map<String, List<String>> INDEXED_PROPERTIES = new LinkedHashMap<>();
+
+    static {
+        //only keys whose nodes are saved through a global lookup or MERGE by key
+        UNIQUE_PROPERTIES.put("Account", List.of("user_id"));
+        UNIQUE_PROPERTIES.put("PageState", List.of("key"));
+        UNIQUE_PROPERTIES.put("Element", List.of("key"));
+
+        //domains and pages are copied per account and user, element states
+        //are kept per page, and page audit record keys are derived from a
+        //millisecond timestamp
+        INDEXED_PROPERTIES.put("Account", List.of("username", "email"));
+        INDEXED_PROPERTIES.put("ElementState", List.of("key"));
+        INDEXED_PROPERTIES.put("Domain", List.of("key", "url", "host"));
+        INDEXED_PROPERTIES.put("PageState", List.of("url"));
+        INDEXED_PROPERTIES.put("Page", List.of("key", "url"));
+        INDEXED_PROPERTIES.put("AuditRecord", List.of("key"));
+        INDEXED_PROPERTIES.put("PageAuditRecord", List.of("key"));
+        INDEXED_PROPERTIES.put("Audit", List.of("key"));
+        INDEXED_PROPERTIES.put("Form", List.of("key"));
+        INDEXED_PROPERTIES.put("Rule", List.of("key"));
+        INDEXED_PROPERTIES.put("Test", List.of("key"));
+        INDEXED_PROPERTIES.put("SimpleStep", List.of("key"));
+        INDEXED_PROPERTIES.put("PerformanceInsight", List.of("key"));
+    }
+
+    /** Variable length relationships without an upper bound, such as [*], [:HAS*] or [*2..] */
+    private static final Pattern UNBOUNDED_EXPANSION = Pattern.compile("\\*\\s*(\\d*\\s*\\.\\.\\s*)?\\]");
+
+    private static final Set<String> SCAN_OPERATORS = Set.of("AllNodesScan", "NodeByLabelScan");
+
+    private final Neo4jClient neo4jClient;
+    private final boolean verifyQueryPlans;
+    private final Collection<Class<?>> repositories;
+
+    /**
+     * Constructs a Neo4jSchemaBootstrap
+     *
+     * @param neo4jClient the client used to run schema statements
+     * @param verifyQueryPlans whether to EXPLAIN the repository queries after the schema is created
+     * @param repositories the repository interfaces whose queries are explained
+     */
+    public Neo4jSchemaBootstrap(Neo4jClient neo4jClient, boolean verifyQueryPlans, Collection<Class<?>> repositories) {
+        assert neo4jClient != null;
+        assert repositories != null;
+
+        this.neo4jClient = neo4jClient;
+        this.verifyQueryPlans = verifyQueryPlans;
+        this.repositories = repositories;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            createSchema();
+            List<String> missing = missingIndexes();
+            if (missing.isEmpty()) {
+                log.info("Neo4j schema verified: all lookup properties are indexed");
+            } else {
+                log.error("Neo4j schema is missing indexes for: {}", missing);
+            }
+
+            if (verifyQueryPlans) {
+                for (Class<?> repository : repositories) {
+                    for (Map.Entry<String, String> query : queries(repository).entrySet()) {
+                        List<String> problems = explain(query.getValue());
+                        if (!problems.isEmpty()) {
+                            log.warn("{} : {}", query.getKey(), problems);
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Neo4j schema bootstrap failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the uniqueness constraints and indexes that don't exist yet
+     */
+    public void createSchema() {
+        for (Map.Entry<String, List<String>> label : UNIQUE_PROPERTIES.entrySet()) {
+            for (String property : label.getValue()) {
+                try {
+                    neo4jClient.query(constraintStatement(label.getKey(), property)).run();
+                } catch (RuntimeException e) {
+                    log.warn("Could not create a uniqueness constraint on {}.{}, creating an index instead: {}",
+                             label.getKey(), property, e.getMessage());
+                    neo4jClient.query(indexStatement(label.getKey(), property)).run();
+                }
+            }
+        }
+        for (Map.Entry<String, List<String>> label : INDEXED_PROPERTIES.entrySet()) {
+            for (String property : label.getValue()) {
+                neo4jClient.query(indexStatement(label.getKey(), property)).run();
+            }
+        }
+    }
+
+    /**
+     * Lists the lookup properties that have no online index
+     *
+     * @return the missing indexes as {@code Label.property}
+     */
+    public List<String> missingIndexes() {
+        Set<String> indexed = new HashSet<>();
+        Collection<Map<String, Object>> indexes = neo4jClient.query("SHOW INDEXES YIELD labelsOrTypes, properties, state")
+                                                             .fetch()
+                                                             .all();
+        for (Map<String, Object> index : indexes) {
+            List<?> labels = (List<?>) index.get("labelsOrTypes");
+            List<?> properties = (List<?>) index.get("properties");
+            if ("ONLINE".equals(index.get("state")) && labels != null && labels.size() == 1
+                    && properties != null && properties.size() == 1) {
+                indexed.add(labels.get(0) + "." + properties.get(0));
+            }
+        }
+
+        List<String> missing = new ArrayList<>();
+        for (Map<String, List<String>> required : Arrays.asList(UNIQUE_PROPERTIES, INDEXED_PROPERTIES)) {
+            for (Map.Entry<String, List<String>> label : required.entrySet()) {
+                for (String property : label.getValue()) {
+                    if (!indexed.contains(label.getKey() + "." + property)) {
+                        missing.add(label.getKey() + "." + property);
+                    }
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Explains a query without running it
+     *
+     * @param cypher the query
+     * @return the label scans and unbounded expansions of its plan
+     */
+    public List<String> explain(String cypher) {
+        assert cypher != null;
+
+        Plan plan = neo4jClient.query("EXPLAIN " + cypher).run().plan();
+        return plan == null ? Collections.emptyList() : planProblems(plan);
+    }
+
+    /**
+     * Finds the operators of a plan that scan a whole label or expand a path
+     * of unbounded length
+     *
+     * @param plan the plan of a query
+     * @return one description per offending operator
+     */
+    static List<String> planProblems(Plan plan) {
+        assert plan != null;
+
+        List<String> problems = new ArrayList<>();
+        collectPlanProblems(plan, problems);
+        return problems;
+    }
+
+    private static void collectPlanProblems(Plan plan, List<String> problems) {
+        //operator types are suffixed with the runtime in Neo4j 4, e.g. NodeByLabelScan@neo4j
+        String operator = plan.operatorType().split("@")[0];
+        if (SCAN_OPERATORS.contains(operator)) {
+            problems.add(operator + " " + argument(plan, "Details", "LabelName"));
+        } else if (operator.startsWith("VarLengthExpand")) {
+            String expression = argument(plan, "ExpandExpression", "Details");
+            if (hasUnboundedExpansion(expression)) {
+                problems.add(operator + " " + expression);
+            }
+        }
+        for (Plan child : plan.children()) {
+            collectPlanProblems(child, problems);
+        }
+    }
+
+    private static String argument(Plan plan, String... names) {
+        Map<String, Value> arguments = plan.arguments();
+        for (String name : names) {
+            Value value = arguments.get(name);
+            if (value != null && !value.isNull()) {
+                return value.asString();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Checks whether a query or plan expression expands a path of unbounded length
+     *
+     * @param cypher the query or expression
+     * @return true if a variable length relationship has no upper bound
+     */
+    static boolean hasUnboundedExpansion(String cypher) {
+        return cypher != null && UNBOUNDED_EXPANSION.matcher(cypher).find();
+    }
+
+    /**
+     * Reads the Cypher of the {@link Query} methods of a repository
+     *
+     * @param repository the repository interface
+     * @return the queries by method name
+     */
+    static Map<String, String> queries(Class<?> repository) {
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (Method method : repository.getDeclaredMethods()) {
+            Query query = method.getAnnotation(Query.class);
+            if (query != null && !query.value().isEmpty()) {
+                queries.put(repository.getSimpleName() + "." + method.getName(), query.value());
+            }
+        }
+        return queries;
+    }
+
+    static String constraintStatement(String label, String property) {
+        return "CREATE CONSTRAINT " + schemaName(label, property, "unique") + " IF NOT EXISTS "
+                + "FOR (n:" + label + ") REQUIRE n." + property + " IS UNIQUE";
+    }
+
+    static String indexStatement(String label, String property) {
+        return "CREATE INDEX " + schemaName(label, property, "index") + " IF NOT EXISTS "
+                + "FOR (n:" + label + ") ON (n." + property + ")";
+    }
+
+    private static String schemaName(String label, String property, String kind) {
+        return label.toLowerCase() + "_" + property.toLowerCase() + "_" + kind;
+    }
+}
@@ -0,0 +1,62 @@
+package com.looksee.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.data.neo4j.repository.Neo4jRepository;
+
+/**
+ * Configuration class for the Neo4j schema bootstrap.
+ * 
+ * Creates the indexes and constraints used by the repository queries when the
+ * application starts. Set looksee.core.neo4j.schema-bootstrap=false to manage
+ * the schema outside of the application, and
+ * looksee.core.neo4j.verify-query-plans=true to log repository queries whose
+ * plans scan a label or expand an unbounded path.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "looksee.core.neo4j", name = "schema-bootstrap", havingValue = "true", matchIfMissing = true)
+public class Neo4jSchemaConfiguration {
+
+    /** Package of the repositories whose queries are verified */
+    private static final String REPOSITORY_PACKAGE = "com.looksee.models.repository";
+
+    /**
+     * Creates the schema bootstrap
+     * 
+     * @param neo4jClient the client used to run schema statements
+     * @param properties the LookseeCore properties
+     * @param context the application context, used to find the repositories
+     * @return the schema bootstrap
+     */
+    @Bean
+    public Neo4jSchemaBootstrap neo4jSchemaBootstrap(Neo4jClient neo4jClient,
+                                                     LookseeCoreProperties properties,
+                                                     ApplicationContext context) {
+        boolean verifyQueryPlans = properties.getNeo4j().isVerifyQueryPlans();
+        Collection<Class<?>> repositories = new ArrayList<>();
+        if (verifyQueryPlans) {
+            for (Object repository : context.getBeansOfType(Neo4jRepository.class).values()) {
+                repositories.addAll(lookseeRepositories(AopProxyUtils.proxiedUserInterfaces(repository)));
+            }
+        }
+        return new Neo4jSchemaBootstrap(neo4jClient, verifyQueryPlans, repositories);
+    }
+
+    private static List<Class<?>> lookseeRepositories(Class<?>[] interfaces) {
+        List<Class<?>> repositories = new ArrayList<>();
+        for (Class<?> type : interfaces) {
+            if (type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                repositories.add(type);
+            }
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,474 @@
+package com.looksee.gcp;
+
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.gax.core.FixedExecutorProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.ChannelPoolSettings;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.language.v1.LanguageServiceSettings;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.cloud.vision.v1.ImageAnnotatorSettings;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the Google Cloud clients used by the GCP utilities once and hands
+ * out shared instances.
+ *
+ * <p>gRPC clients share one background executor of
+ * {@code gcp.clients.executor_threads} threads and each use a pool of
+ * {@code gcp.clients.channels} channels. HTTP based APIs share one transport.
+ * Clients created here are closed when the context shuts down. Clients that
+ * are registered, such as the Vision and Storage beans of the Spring Cloud GCP
+ * starters or fakes registered by tests, are handed out as they are and left
+ * to their owner.</p>
+ *
+ * <p>Emulators are used by setting {@code gcp.vision.endpoint},
+ * {@code gcp.language.endpoint} or {@code gcp.storage.host}. Clients for an
+ * overridden endpoint connect without TLS or credentials.</p>
+ *
+ * <p>Static utilities that run outside of Spring use {@link #getShared()},
+ * which returns the registry bean once it exists.</p>
+ */
+@Component
+public class GcpClientRegistry {
+	private static Logger log = LoggerFactory.getLogger(GcpClientRegistry.class);
+
+	/** Default number of gRPC channels per client */
+	public static final int DEFAULT_CHANNELS = 2;
+
+	/** Default number of threads shared by the gRPC clients */
+	public static final int DEFAULT_EXECUTOR_THREADS = 4;
+
+	/** Name calls to the Vision API are recorded under */
+	public static final String VISION = "vision";
+
+	/** Name calls to the Natural Language API are recorded under */
+	public static final String LANGUAGE = "language";
+
+	/** Name calls to the PageSpeed Insights API are recorded under */
+	public static final String PAGESPEED = "pagespeed";
+
+	private static volatile GcpClientRegistry shared;
+
+	private final int channels;
+	private final String vision_endpoint;
+	private final String language_endpoint;
+	private final String storage_host;
+	private final ScheduledExecutorService executor;
+	private final Map<Class<?>, Object> clients = new ConcurrentHashMap<>();
+	private final List<AutoCloseable> owned_clients = new ArrayList<>();
+	private final Map<String, CallStats> call_stats = new ConcurrentHashMap<>();
+
+	/** True for the registry {@link #getShared()} creates when there is no bean */
+	private volatile boolean fallback;
+
+	/**
+	 * A call to a Google Cloud API
+	 */
+	@FunctionalInterface
+	public interface Call<T, E extends Exception> {
+		T call() throws E;
+	}
+
+	/**
+	 * Constructs a {@link GcpClientRegistry} with the default settings and no
+	 * registered clients
+	 */
+	public GcpClientRegistry() {
+		this(DEFAULT_CHANNELS, DEFAULT_EXECUTOR_THREADS, null, null, null);
+	}
+
+	/**
+	 * Constructs the registry bean, registering the Vision and Storage
+	 * clients of the Spring Cloud GCP starters when they exist
+	 *
+	 * @param environment source of the client settings
+	 * @param image_annotator_client Vision client bean, if any
+	 * @param storage Storage bean, if any
+	 *
+	 * precondition: environment != null
+	 */
+	@Autowired
+	public GcpClientRegistry(Environment environment,
+							 ObjectProvider<ImageAnnotatorClient> image_annotator_client,
+							 ObjectProvider<Storage> storage) {
+		this(environment.getProperty("gcp.clients.channels", Integer.class, DEFAULT_CHANNELS),
+			 environment.getProperty("gcp.clients.executor_threads", Integer.class, DEFAULT_EXECUTOR_THREADS),
+			 environment.getProperty("gcp.vision.endpoint"),
+			 environment.getProperty("gcp.language.endpoint"),
+			 environment.getProperty("gcp.storage.host"));
+
+		image_annotator_client.ifAvailable(client -> register(ImageAnnotatorClient.class, client));
+		storage.ifAvailable(client -> register(Storage.class, client));
+
+		GcpClientRegistry replaced;
+		synchronized(GcpClientRegistry.class) {
+			replaced = shared;
+			shared = this;
+		}
+		//the default registry created before the bean existed would otherwise keep its clients and threads
+		if(replaced != null && replaced.fallback) {
+			log.info("Shutting down the default GCP client registry replaced by the registry bean");
+			replaced.shutdown();
+		}
+	}
+
+	/**
+	 * Constructs a {@link GcpClientRegistry}
+	 *
+	 * @param channels number of gRPC channels per client
+	 * @param executor_threads number of threads shared by the gRPC clients
+	 * @param vision_endpoint Vision emulator endpoint, or null for the API
+	 * @param language_endpoint Natural Language emulator endpoint, or null for the API
+	 * @param storage_host Storage emulator host, or null for the API
+	 *
+	 * precondition: channels > 0
+	 * precondition: executor_threads > 0
+	 */
+	public GcpClientRegistry(int channels,
+							 int executor_threads,
+							 String vision_endpoint,
+							 String language_endpoint,
+							 String storage_host) {
+		assert channels > 0;
+		assert executor_threads > 0;
+
+		this.channels = channels;
+		this.vision_endpoint = emptyToNull(vision_endpoint);
+		this.language_endpoint = emptyToNull(language_endpoint);
+		this.storage_host = emptyToNull(storage_host);
+
+		AtomicInteger thread_count = new AtomicInteger();
+		this.executor = Executors.newScheduledThreadPool(executor_threads, runnable -> {
+			Thread thread = new Thread(runnable, "gcp-client-"+thread_count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the registry bean, or a registry with the default settings when
+	 * running outside of Spring. The default registry is shut down once the
+	 * bean replaces it, so callers that outlive the application context
+	 * startup call this method on every use instead of keeping the result.
+	 *
+	 * @return the shared registry
+	 */
+	public static GcpClientRegistry getShared() {
+		GcpClientRegistry registry = shared;
+		if(registry == null) {
+			synchronized(GcpClientRegistry.class) {
+				if(shared == null) {
+					GcpClientRegistry created = new GcpClientRegistry();
+					created.fallback = true;
+					shared = created;
+				}
+				registry = shared;
+			}
+		}
+		return registry;
+	}
+
+	/**
+	 * Registers a client, replacing the client this registry would create.
+	 * Registered clients are not closed by the registry.
+	 *
+	 * @param type the type the client is looked up by
+	 * @param client the client
+	 *
+	 * precondition: type != null
+	 * precondition: client != null
+	 */
+	public <T> void register(Class<T> type, T client) {
+		assert type != null;
+		assert client != null;
+
+		clients.put(type, client);
+	}
+
+	/**
+	 * @return the shared Vision client
+	 * @throws IOException if the client can't be created
+	 */
+	public ImageAnnotatorClient getImageAnnotatorClient() throws IOException {
+		ImageAnnotatorClient client = (ImageAnnotatorClient)clients.get(ImageAnnotatorClient.class);
+		if(client != null) {
+			return client;
+		}
+		synchronized(this) {
+			client = (ImageAnnotatorClient)clients.get(ImageAnnotatorClient.class);
+			if(client == null) {
+				ImageAnnotatorSettings.Builder settings = ImageAnnotatorSettings.newBuilder()
+						.setBackgroundExecutorProvider(FixedExecutorProvider.create(executor))
+						.setTransportChannelProvider(channelProvider(ImageAnnotatorSettings.defaultGrpcTransportProviderBuilder(), vision_endpoint));
+				if(vision_endpoint != null) {
+					settings.setCredentialsProvider(NoCredentialsProvider.create());
+				}
+				client = own(ImageAnnotatorClient.class, ImageAnnotatorClient.create(settings.build()));
+			}
+			return client;
+		}
+	}
+
+	/**
+	 * @return the shared Natural Language client
+	 * @throws IOException if the client can't be created
+	 */
+	public LanguageServiceClient getLanguageServiceClient() throws IOException {
+		LanguageServiceClient client = (LanguageServiceClient)clients.get(LanguageServiceClient.class);
+		if(client != null) {
+			return client;
+		}
+		synchronized(this) {
+			client = (LanguageServiceClient)clients.get(LanguageServiceClient.class);
+			if(client == null) {
+				LanguageServiceSettings.Builder settings = LanguageServiceSettings.newBuilder()
+						.setBackgroundExecutorProvider(FixedExecutorProvider.create(executor))
+						.setTransportChannelProvider(channelProvider(LanguageServiceSettings.defaultGrpcTransportProviderBuilder(), language_endpoint));
+				if(language_endpoint != null) {
+					settings.setCredentialsProvider(NoCredentialsProvider.create());
+				}
+				client = own(LanguageServiceClient.class, LanguageServiceClient.create(settings.build()));
+			}
+			return client;
+		}
+	}
+
+	/**
+	 * @return the shared Storage client
+	 */
+	public Storage getStorage() {
+		Storage storage = (Storage)clients.get(Storage.class);
+		if(storage != null) {
+			return storage;
+		}
+		synchronized(this) {
+			storage = (Storage)clients.get(Storage.class);
+			if(storage == null) {
+				if(storage_host != null) {
+					storage = StorageOptions.newBuilder()
+											.setHost(storage_host)
+											.setProjectId("local")
+											.setCredentials(NoCredentials.getInstance())
+											.build()
+											.getService();
+				}
+				else {
+					storage = StorageOptions.getDefaultInstance().getService();
+				}
+				clients.put(Storage.class, storage);
+				if(storage instanceof AutoCloseable) {
+					owned_clients.add((AutoCloseable)storage);
+				}
+			}
+			return storage;
+		}
+	}
+
+	/**
+	 * @return the HTTP transport shared by the HTTP based APIs
+	 * @throws IOException if the transport can't be created
+	 * @throws GeneralSecurityException if the trusted certificates can't be loaded
+	 */
+	public HttpTransport getHttpTransport() throws IOException, GeneralSecurityException {
+		HttpTransport transport = (HttpTransport)clients.get(HttpTransport.class);
+		if(transport != null) {
+			return transport;
+		}
+		synchronized(this) {
+			transport = (HttpTransport)clients.get(HttpTransport.class);
+			if(transport == null) {
+				HttpTransport created = GoogleNetHttpTransport.newTrustedTransport();
+				clients.put(HttpTransport.class, created);
+				owned_clients.add(created::shutdown);
+				transport = created;
+			}
+			return transport;
+		}
+	}
+
+	/**
+	 * Runs a call to an API and records its latency under the name of the API
+	 *
+	 * @param client_name name the call is recorded under
+	 * @param call the call
+	 * @return the result of the call
+	 * @throws E if the call fails
+	 *
+	 * precondition: client_name != null
+	 * precondition: call != null
+	 */
+	public <T, E extends Exception> T call(String client_name, Call<T, E> call) throws E {
+		assert client_name != null;
+		assert call != null;
+
+		long start = System.nanoTime();
+		boolean succeeded = false;
+		try {
+			T result = call.call();
+			succeeded = true;
+			return result;
+		} finally {
+			record(client_name, System.nanoTime() - start, succeeded);
+		}
+	}
+
+	/**
+	 * Records a call that was made without {@link #call(String, Call)}
+	 *
+	 * @param client_name name the call is recorded under
+	 * @param latency_nanos duration of the call
+	 * @param succeeded whether the call succeeded
+	 *
+	 * precondition: client_name != null
+	 * precondition: latency_nanos >= 0
+	 */
+	public void record(String client_name, long latency_nanos, boolean succeeded) {
+		assert client_name != null;
+		assert latency_nanos >= 0;
+
+		call_stats.computeIfAbsent(client_name, name -> new CallStats()).record(latency_nanos, succeeded);
+	}
+
+	/**
+	 * @return call statistics by client name
+	 */
+	public Map<String, CallStats> getCallStats() {
+		return Collections.unmodifiableMap(new TreeMap<>(call_stats));
+	}
+
+	/**
+	 * Closes the clients created by this registry and stops the shared executor
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		for(Map.Entry<String, CallStats> stats : getCallStats().entrySet()) {
+			log.info(stats.getKey()+" : "+stats.getValue());
+		}
+		for(AutoCloseable client : owned_clients) {
+			try {
+				client.close();
+			} catch (Exception e) {
+				log.warn("Could not close GCP client : "+e.getMessage());
+			}
+		}
+		owned_clients.clear();
+		clients.clear();
+		executor.shutdown();
+		try {
+			if(!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		if(shared == this) {
+			shared = null;
+		}
+	}
+
+	/**
+	 * @return true once {@link #shutdown()} has been called
+	 */
+	boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	private <T extends AutoCloseable> T own(Class<T> type, T client) {
+		clients.put(type, client);
+		owned_clients.add(client);
+		return client;
+	}
+
+	private InstantiatingGrpcChannelProvider channelProvider(InstantiatingGrpcChannelProvider.Builder builder, String endpoint) {
+		builder.setChannelPoolSettings(ChannelPoolSettings.staticallySized(channels));
+		if(endpoint != null) {
+			builder.setEndpoint(endpoint)
+					.setChannelConfigurator(channel_builder -> channel_builder.usePlaintext());
+		}
+		return builder.build();
+	}
+
+	private static String emptyToNull(String value) {
+		return value == null || value.trim().isEmpty() ? null : value;
+	}
+
+	/**
+	 * Number, failures and latency of the calls made to one API
+	 */
+	public static final class CallStats {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder error_count = new LongAdder();
+		private final LongAdder total_latency_nanos = new LongAdder();
+		private final LongAccumulator max_latency_nanos = new LongAccumulator(Long::max, 0);
+
+		private void record(long latency_nanos, boolean succeeded) {
+			count.increment();
+			if(!succeeded) {
+				error_count.increment();
+			}
+			total_latency_nanos.add(latency_nanos);
+			max_latency_nanos.accumulate(latency_nanos);
+		}
+
+		/**
+		 * @return number of calls
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * @return number of calls that failed
+		 */
+		public long getErrorCount() {
+			return error_count.sum();
+		}
+
+		/**
+		 * @return mean latency of the calls in milliseconds
+		 */
+		public double getMeanLatencyMillis() {
+			long calls = count.sum();
+			return calls == 0 ? 0 : total_latency_nanos.sum() / (calls * 1_000_000.0);
+		}
+
+		/**
+		 * @return longest latency of the calls in milliseconds
+		 */
+		public double getMaxLatencyMillis() {
+			return max_latency_nanos.get() / 1_000_000.0;
+		}
+
+		@Override
+		public String toString() {
+			return getCount()+" calls, "+getErrorCount()+" failed, mean "+getMeanLatencyMillis()+"ms, max "+getMaxLatencyMillis()+"ms";
+		}
+	}
+}
@@ -1,39 +1,82 @@
 package com.looksee.gcp;
 
-import com.google.cloud.WriteChannel;
-import com.google.cloud.storage.Blob;
-import com.google.cloud.storage.BlobId;
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Bucket;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.storage.Storage;
-import com.google.cloud.storage.StorageOptions;
 import com.looksee.models.enums.BrowserType;
+import com.looksee.models.enums.ScreenshotResolution;
+import com.looksee.storage.CachingObjectStore;
+import com.looksee.storage.GcsObjectStore;
+import com.looksee.storage.LocalObjectStore;
+import com.looksee.storage.ObjectStore;
+import com.looksee.utils.ScreenshotPyramid;
 import io.github.resilience4j.retry.annotation.Retry;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
 import javax.imageio.ImageIO;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.stereotype.Service;
 
 /**
  * Handles uploading files to Google Cloud Storage
+ *
+ * <p>All blob I/O goes through an {@link ObjectStore}. In the application it
+ * is a {@link GcsObjectStore}, optionally behind a {@link LocalObjectStore}
+ * read cache when {@code gcs.bucket.local-cache-directory} is set. The cache
+ * holds at most {@code gcs.bucket.local-cache-max-bytes}. Benchmarks
+ * and local runs can pass any other store.</p>
+ *
+ * <p>Images are written with a single conditional write, so an image that is
+ * already stored costs one rejected request instead of metadata lookups before
+ * and after the write.
+ * Asynchronous uploads run on a bounded pool of {@value #UPLOAD_THREADS}
+ * threads. When {@value #UPLOAD_QUEUE_CAPACITY} uploads are waiting, the
+ * submitting thread performs the upload itself, which keeps memory held by
+ * queued images bounded.</p>
  */
 @Retry(name = "gcp")
 @Service
 @ConditionalOnClass(name = "com.google.cloud.storage.Storage")
 @ConditionalOnBean(Storage.class)
 public class GoogleCloudStorage {
+	/** Width and height of the tiles written by {@link #saveTiledImage} */
+	public static final int DEFAULT_TILE_SIZE = 512;
+
+	/** Number of threads uploading asynchronously */
+	public static final int UPLOAD_THREADS = 8;
+
+	/** Number of uploads that may wait for a thread before callers upload themselves */
+	public static final int UPLOAD_QUEUE_CAPACITY = 64;
+
+	/** Bucket used by {@link #getShared()} when running outside of Spring */
+	public static final String DEFAULT_BUCKET_NAME = "web-images";
+
+	private static final String TILE_MANIFEST_NAME = "manifest.json";
+
+	private static volatile GoogleCloudStorage shared;
 	
-	private final Storage storage;
-    private final String bucketName;
-    private final String publicUrl;
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final ObjectStore store;
+	private final ThreadPoolExecutor upload_executor;
 
 	/**
 	 * Constructor for {@link GoogleCloudStorage}
@@ -44,14 +87,106 @@ public class GoogleCloudStorage {
 	 * precondition: storage != null
 	 * precondition: gcsProperties != null
 	 */
+	@Autowired
 	public GoogleCloudStorage(Storage storage, GoogleCloudStorageProperties gcsProperties) {
+		this(createStore(storage, gcsProperties));
+		GoogleCloudStorage replaced;
+		synchronized(GoogleCloudStorage.class) {
+			replaced = shared;
+			shared = this;
+		}
+		if(replaced != null) {
+			replaced.upload_executor.shutdown();
+		}
+	}
+
+	/**
+	 * Constructor for {@link GoogleCloudStorage} storing blobs in any {@link ObjectStore}
+	 *
+	 * @param store the store to use
+	 *
+	 * precondition: store != null
+	 */
+	public GoogleCloudStorage(ObjectStore store) {
+		assert store != null;
+
+		this.store = store;
+
+		AtomicInteger thread_count = new AtomicInteger();
+		this.upload_executor = new ThreadPoolExecutor(UPLOAD_THREADS,
+													UPLOAD_THREADS,
+													30,
+													TimeUnit.SECONDS,
+													new ArrayBlockingQueue<>(UPLOAD_QUEUE_CAPACITY),
+													runnable -> {
+														Thread thread = new Thread(runnable, "gcs-upload-"+thread_count.incrementAndGet());
+														thread.setDaemon(true);
+														return thread;
+													},
+													new ThreadPoolExecutor.CallerRunsPolicy());
+		//idle instances don't keep threads alive
+		this.upload_executor.allowCoreThreadTimeOut(true);
+    }
+
+	private static ObjectStore createStore(Storage storage, GoogleCloudStorageProperties gcsProperties) {
 		assert storage != null;
 		assert gcsProperties != null;
 
-        this.storage = storage;
-        this.bucketName = gcsProperties.getBucketName();
-        this.publicUrl = gcsProperties.getPublicUrl();
-    }
+		ObjectStore gcs_store = new GcsObjectStore(storage, gcsProperties.getBucketName(), gcsProperties.getPublicUrl());
+		if(gcsProperties.getLocalCacheDirectory() == null || gcsProperties.getLocalCacheDirectory().isEmpty()) {
+			return gcs_store;
+		}
+		try {
+			long max_cached_bytes = gcsProperties.getLocalCacheMaxBytes() != null
+										? gcsProperties.getLocalCacheMaxBytes()
+										: CachingObjectStore.DEFAULT_MAX_CACHED_BYTES;
+			return new CachingObjectStore(new LocalObjectStore(Paths.get(gcsProperties.getLocalCacheDirectory())),
+										  gcs_store,
+										  max_cached_bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create local cache directory", e);
+		}
+	}
+
+	/**
+	 * Returns the storage bean, or storage for the {@value #DEFAULT_BUCKET_NAME}
+	 * bucket when running outside of Spring, so static utilities share one
+	 * upload pool instead of creating their own
+	 *
+	 * @return the shared storage
+	 */
+	public static GoogleCloudStorage getShared() {
+		GoogleCloudStorage storage = shared;
+		if(storage == null) {
+			synchronized(GoogleCloudStorage.class) {
+				if(shared == null) {
+					shared = new GoogleCloudStorage(new GcsObjectStore(GcpClientRegistry.getShared().getStorage(),
+																		DEFAULT_BUCKET_NAME,
+																		"https://storage.googleapis.com/"+DEFAULT_BUCKET_NAME));
+				}
+				storage = shared;
+			}
+		}
+		return storage;
+	}
+
+	/**
+	 * @return the store all blobs are read from and written to
+	 */
+	public ObjectStore getObjectStore() {
+		return store;
+	}
+
+	/**
+	 * Waits for queued uploads to finish and stops the upload threads
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		upload_executor.shutdown();
+		upload_executor.awaitTermination(30, TimeUnit.SECONDS);
+	}
 
 	/**
 	 * Uploads HTML content to Google Cloud Storage
@@ -71,22 +206,15 @@ public class GoogleCloudStorage {
 		assert key != null;
 		assert !key.isEmpty();
 
-        BlobId blobId = BlobId.of(bucketName, key);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-            .setContentType("text/html")
-            .setCacheControl("public, max-age=31536000")
-            .build();
-        
-        try (WriteChannel writer = storage.writer(blobInfo)) {
-            writer.write(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
-        }
-        return publicUrl + "/" + key;
+        store.put(key, content.getBytes(StandardCharsets.UTF_8), "text/html");
+        return store.getPublicUrl(key);
     }
 
 	/**
 	 * Retrieves HTML content from Google Cloud Storage
 	 * @param gcsUrl the URL of the content to retrieve
 	 * @return the content
+	 * @throws UncheckedIOException if the content can't be read
 	 *
 	 * precondition: gcsUrl != null
 	 * precondition: !gcsUrl.isEmpty()
@@ -95,9 +223,15 @@ public class GoogleCloudStorage {
 		assert gcsUrl != null;
 		assert !gcsUrl.isEmpty();
 
-        String key = gcsUrl.replace(publicUrl + "/", "");
-        Blob blob = storage.get(bucketName, key);
-        return new String(blob.getContent(), StandardCharsets.UTF_8);
+		try {
+			byte[] content = store.get(keyOf(gcsUrl));
+			if(content == null) {
+				throw new IOException("No content stored at "+gcsUrl);
+			}
+			return new String(content, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
     }
 	
 	/**
@@ -127,35 +261,392 @@ public class GoogleCloudStorage {
 		assert !checksum.isEmpty();
 		assert browser != null;
 		
-		Storage storage = StorageOptions.getDefaultInstance().getService();
-		Bucket bucket = storage.get(bucketName);
+		return writeImage(image, imageKey(domain, checksum, browser)+".png");
+    }
+
+	/**
+	 * Saves an image to Google Cloud Storage without blocking the caller,
+	 * unless the upload queue is full
+	 *
+	 * @param image the image to save. It must not be modified until the upload completes
+	 * @param domain the domain of the image
+	 * @param checksum the checksum of the image
+	 * @param browser the browser of the image
+	 * @return the upload, located at the URL
+	 * 			{@link #saveImage(BufferedImage, String, String, BrowserType)} returns
+	 *
+	 * precondition: image != null
+	 * precondition: domain != null
+	 * precondition: !domain.isEmpty()
+	 * precondition: checksum != null
+	 * precondition: !checksum.isEmpty()
+	 * precondition: browser != null
+	 */
+	public PendingUpload<String> saveImageAsync(BufferedImage image,
+												String domain,
+												String checksum,
+												BrowserType browser
+	) {
+		assert image != null;
+		assert domain != null;
+		assert !domain.isEmpty();
+		assert checksum != null;
+		assert !checksum.isEmpty();
+		assert browser != null;
+
+		String file_name = imageKey(domain, checksum, browser)+".png";
+		return new PendingUpload<>(store.getPublicUrl(file_name), writeImageAsync(image, file_name).thenApply(url -> null));
+	}
+
+	/**
+	 * Saves a screenshot pyramid. The full resolution level is stored exactly as
+	 * {@link #saveImage(BufferedImage, String, String, BrowserType)} would
+	 * store it and every other level is stored next to it with the resolution
+	 * appended to the file name.
+	 *
+	 * @param pyramid the pyramid to save
+	 * @param domain the domain of the image
+	 * @param checksum the checksum of the full resolution image
+	 * @param browser the browser of the image
+	 * @return the URL of each level keyed by resolution
+	 * @throws IOException if an error occurs
+	 *
+	 * precondition: pyramid != null
+	 * precondition: domain != null
+	 * precondition: !domain.isEmpty()
+	 * precondition: checksum != null
+	 * precondition: !checksum.isEmpty()
+	 * precondition: browser != null
+	 */
+	public Map<ScreenshotResolution, String> saveImagePyramid(ScreenshotPyramid pyramid,
+															  String domain,
+															  String checksum,
+															  BrowserType browser
+	) throws IOException {
+		assert pyramid != null;
+
+		return saveImagePyramid(domain, checksum, browser, CompletableFuture.completedFuture(pyramid)).await();
+	}
+
+	/**
+	 * Builds and saves the screenshot pyramid of an image without blocking the
+	 * caller, unless the upload queue is full. The levels are stored as
+	 * {@link #saveImagePyramid(ScreenshotPyramid, String, String, BrowserType)}
+	 * stores them.
+	 *
+	 * @param image the full resolution image. It must not be modified until the upload completes
+	 * @param domain the domain of the image
+	 * @param checksum the checksum of the image
+	 * @param browser the browser of the image
+	 * @return the upload, located at the URL of each level keyed by resolution
+	 *
+	 * precondition: image != null
+	 * precondition: domain != null
+	 * precondition: !domain.isEmpty()
+	 * precondition: checksum != null
+	 * precondition: !checksum.isEmpty()
+	 * precondition: browser != null
+	 */
+	public PendingUpload<Map<ScreenshotResolution, String>> saveImagePyramidAsync(BufferedImage image,
+																				  String domain,
+																				  String checksum,
+																				  BrowserType browser
+	) {
+		assert image != null;
+
+		return saveImagePyramid(domain, checksum, browser,
+								CompletableFuture.supplyAsync(() -> ScreenshotPyramid.build(image), upload_executor));
+	}
+
+	private PendingUpload<Map<ScreenshotResolution, String>> saveImagePyramid(String domain,
+																			  String checksum,
+																			  BrowserType browser,
+																			  CompletableFuture<ScreenshotPyramid> pyramid
+	) {
+		assert domain != null;
+		assert !domain.isEmpty();
+		assert checksum != null;
+		assert !checksum.isEmpty();
+		assert browser != null;
+
+		Map<ScreenshotResolution, String> file_names = new EnumMap<>(ScreenshotResolution.class);
+		Map<ScreenshotResolution, String> urls = new EnumMap<>(ScreenshotResolution.class);
+		String key = imageKey(domain, checksum, browser);
+		for(ScreenshotResolution resolution : ScreenshotResolution.values()) {
+			String file_name = resolution == ScreenshotResolution.FULL
+								? key+".png"
+								: key+"_"+resolution.getShortName()+".png";
+			file_names.put(resolution, file_name);
+			urls.put(resolution, store.getPublicUrl(file_name));
+		}
+
+		//levels are uploaded in parallel
+		CompletableFuture<Void> completion = pyramid.thenCompose(levels -> {
+			List<CompletableFuture<String>> uploads = new ArrayList<>(file_names.size());
+			for(Map.Entry<ScreenshotResolution, String> file_name : file_names.entrySet()) {
+				uploads.add(writeImageAsync(levels.getLevel(file_name.getKey()), file_name.getValue()));
+			}
+			return CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0]));
+		});
+		return new PendingUpload<>(urls, completion);
+	}
+
+	/**
+	 * Returns the key of a URL returned by this class. URLs of another store
+	 * are assumed to be keys already.
+	 */
+	private String keyOf(String url) {
+		String key = store.getKey(url);
+		return key != null ? key : url;
+	}
+
+	private static String imageKey(String domain, String checksum, BrowserType browser) {
+		String stripped_domain = domain.replace(".", "").replace("/", "").replace(":", "").replace("https", "").replace("http", "");
+		return stripped_domain+checksum+browser;
+	}
+
+	/**
+	 * Writes an image to the store as a PNG unless a blob with the same name
+	 * already exists
+	 */
+	private String writeImage(BufferedImage image, String file_name) throws IOException {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		ImageIO.write( image, "png", baos );
-		byte[] imageInByte = baos.toByteArray();
-		baos.close();
-		String stripped_domain = domain.replace(".", "").replace("/", "").replace(":", "").replace("https", "").replace("http", "");
-		String key = stripped_domain+checksum+browser;
-		String file_name = key+".png";
-		Blob blob = bucket.get(file_name);
-		if(blob != null && blob.exists()) {
-			return blob.getMediaLink();
-        }
-		
-		//blob = bucket.create(key+".png", imageInByte);
-		BlobId blobId = BlobId.of(bucketName, file_name);
-		BlobInfo blobInfo = BlobInfo.newBuilder(blobId).setContentType("image/png").build();
-		try (WriteChannel writer = storage.writer(blobInfo)) {
-			writer.write(ByteBuffer.wrap(imageInByte, 0, imageInByte.length));
+
+		store.putIfAbsent(file_name, baos.toByteArray(), "image/png");
+		return store.getPublicUrl(file_name);
+    }
+
+	private CompletableFuture<String> writeImageAsync(BufferedImage image, String file_name) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return writeImage(image, file_name);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, upload_executor);
+	}
+
+	/**
+	 * Waits for an upload started by this class and rethrows its failure
+	 *
+	 * @param upload the upload
+	 * @param <T> the result of the upload
+	 * @return the result of the upload
+	 * @throws IOException if the upload failed with an IOException
+	 *
+	 * precondition: upload != null
+	 */
+	public static <T> T awaitUpload(CompletableFuture<T> upload) throws IOException {
+		assert upload != null;
+
+		try {
+			return upload.join();
 		}
-		
-		blob = bucket.get(file_name);
-		if(blob != null && blob.exists()) {
-			return blob.getMediaLink();
-        }
-		else {
-			throw new IOException("Couldn't find blob after upload");
+		catch(CompletionException e) {
+			if(e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException)e.getCause()).getCause();
+			}
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw e;
 		}
-    }
+	}
+	
+	/**
+	 * Saves an image as a grid of fixed-size PNG tiles plus a manifest, so that
+	 * consumers can later fetch only the tiles covering the region they need.
+	 * The manifest is written last, so its presence means every tile exists.
+	 * @deprecated Use {@link #startTiledImage(int, int, String, String, BrowserType)}
+	 * as the sink of a {@link com.looksee.utils.TiledCompositeRenderer}, which
+	 * never holds the full image in memory
+	 *
+	 * @param image the image to save
+	 * @param domain the domain of the image
+	 * @param checksum the checksum of the image
+	 * @param browser the browser of the image
+	 * @return the URL of the manifest
+	 * @throws IOException if an error occurs
+	 *
+	 * precondition: image != null
+	 * precondition: domain != null
+	 * precondition: !domain.isEmpty()
+	 * precondition: checksum != null
+	 * precondition: !checksum.isEmpty()
+	 * precondition: browser != null
+	 */
+	@Deprecated
+	public String saveTiledImage(BufferedImage image,
+								 String domain,
+								 String checksum,
+								 BrowserType browser
+	) throws IOException {
+		return saveTiledImageAsync(image, domain, checksum, browser).await();
+	}
+
+	/**
+	 * Saves an image as tiles plus a manifest, as
+	 * {@link #saveTiledImage(BufferedImage, String, String, BrowserType)} does,
+	 * without blocking the caller unless the upload queue is full
+	 * @deprecated Use {@link #startTiledImage(int, int, String, String, BrowserType)}
+	 * as the sink of a {@link com.looksee.utils.TiledCompositeRenderer}, which
+	 * never holds the full image in memory
+	 *
+	 * @param image the image to save. It must not be modified until the upload completes
+	 * @param domain the domain of the image
+	 * @param checksum the checksum of the image
+	 * @param browser the browser of the image
+	 * @return the upload, located at the URL of the manifest
+	 *
+	 * precondition: image != null
+	 * precondition: domain != null
+	 * precondition: !domain.isEmpty()
+	 * precondition: checksum != null
+	 * precondition: !checksum.isEmpty()
+	 * precondition: browser != null
+	 */
+	@Deprecated
+	public PendingUpload<String> saveTiledImageAsync(BufferedImage image,
+													 String domain,
+													 String checksum,
+													 BrowserType browser
+	) {
+		assert image != null;
+		assert domain != null;
+		assert !domain.isEmpty();
+		assert checksum != null;
+		assert !checksum.isEmpty();
+		assert browser != null;
+
+		String key = imageKey(domain, checksum, browser);
+		String manifest_key = key+"/"+TILE_MANIFEST_NAME;
+		TiledImageManifest manifest = new TiledImageManifest(image.getWidth(),
+															 image.getHeight(),
+															 DEFAULT_TILE_SIZE,
+															 DEFAULT_TILE_SIZE,
+															 "png",
+															 key+"/tiles/");
+
+		CompletableFuture<Void> completion = CompletableFuture.supplyAsync(() -> {
+			try {
+				return store.exists(manifest_key);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, upload_executor).thenCompose(exists -> {
+			if(exists) {
+				return CompletableFuture.completedFuture(null);
+			}
+			List<CompletableFuture<Void>> tile_uploads = new ArrayList<>(manifest.getRows() * manifest.getColumns());
+			for(int row = 0; row < manifest.getRows(); row++) {
+				for(int column = 0; column < manifest.getColumns(); column++) {
+					Rectangle bounds = manifest.tileBounds(row, column);
+					BufferedImage tile = image.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height);
+					String tile_key = manifest.tileKey(row, column);
+					tile_uploads.add(CompletableFuture.runAsync(() -> {
+						try {
+							ByteArrayOutputStream baos = new ByteArrayOutputStream();
+							ImageIO.write(tile, manifest.getFormat(), baos);
+							store.put(tile_key, baos.toByteArray(), "image/png");
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}, upload_executor));
+				}
+			}
+			//the manifest is only written once every tile is stored
+			return CompletableFuture.allOf(tile_uploads.toArray(new CompletableFuture[0]))
+									.thenRunAsync(() -> {
+										try {
+											store.put(manifest_key, mapper.writeValueAsBytes(manifest), "application/json");
+										} catch (IOException e) {
+											throw new UncheckedIOException(e);
+										}
+									}, upload_executor);
+		});
+		return new PendingUpload<>(store.getPublicUrl(manifest_key), completion);
+	}
+
+	/**
+	 * Starts storing an image as tiles plus a manifest, in the same layout as
+	 * {@link #saveTiledImage(BufferedImage, String, String, BrowserType)}, from
+	 * the tiles of a {@link com.looksee.utils.TiledCompositeRenderer}. The
+	 * renderer's tile height must be a multiple of {@value #DEFAULT_TILE_SIZE}.
+	 * Nothing is written when the image is stored already.
+	 *
+	 * @param width width of the image
+	 * @param height height of the image
+	 * @param domain the domain of the image
+	 * @param checksum the checksum of the image
+	 * @param browser the browser of the image
+	 * @return the sink to render the image into. {@link TiledImageUpload#finish()}
+	 *			writes the manifest once rendering is done
+	 * @throws IOException if the store can't be checked for the image
+	 *
+	 * precondition: width > 0
+	 * precondition: height > 0
+	 * precondition: domain != null
+	 * precondition: !domain.isEmpty()
+	 * precondition: checksum != null
+	 * precondition: !checksum.isEmpty()
+	 * precondition: browser != null
+	 */
+	public TiledImageUpload startTiledImage(int width,
+											int height,
+											String domain,
+											String checksum,
+											BrowserType browser
+	) throws IOException {
+		assert width > 0;
+		assert height > 0;
+		assert domain != null;
+		assert !domain.isEmpty();
+		assert checksum != null;
+		assert !checksum.isEmpty();
+		assert browser != null;
+
+		String key = imageKey(domain, checksum, browser);
+		String manifest_key = key+"/"+TILE_MANIFEST_NAME;
+		TiledImageManifest manifest = new TiledImageManifest(width,
+															 height,
+															 DEFAULT_TILE_SIZE,
+															 DEFAULT_TILE_SIZE,
+															 "png",
+															 key+"/tiles/");
+		return new TiledImageUpload(store, mapper, upload_executor, manifest, manifest_key, store.exists(manifest_key));
+	}
+
+	/**
+	 * Opens a tiled image for region reads
+	 * @param manifest_url the URL of the tiled image manifest
+	 * @return a reader that only fetches the tiles intersecting requested regions
+	 * @throws IOException if the manifest cannot be read
+	 *
+	 * precondition: manifest_url != null
+	 * precondition: !manifest_url.isEmpty()
+	 */
+	public TiledImageReader getTiledImage(String manifest_url) throws IOException {
+		assert manifest_url != null;
+		assert !manifest_url.isEmpty();
+
+		TiledImageManifest manifest = mapper.readValue(readExisting(keyOf(manifest_url)), TiledImageManifest.class);
+
+		return new TiledImageReader(manifest,
+									this::readExisting,
+									TiledImageReader.DEFAULT_CACHED_TILES);
+	}
+
+	/**
+	 * Reads a blob that is expected to exist
+	 */
+	private byte[] readExisting(String key) throws IOException {
+		byte[] bytes = store.get(key);
+		if(bytes == null) {
+			throw new IOException("No blob stored at "+key);
+		}
+		return bytes;
+	}
 	
 	/**
 	 * Retrieves an image from Google Cloud Storage
@@ -180,15 +671,10 @@ public class GoogleCloudStorage {
 		assert !element_key.isEmpty();
 		assert browser != null;
 		
-		Storage storage = StorageOptions.getDefaultInstance().getService();
-		Bucket bucket = storage.get(bucketName);
-
-
 		String host_key = org.apache.commons.codec.digest.DigestUtils.sha256Hex(domain);
-		Blob blob = bucket.get(host_key+""+element_key+browser+".png");
-		InputStream inputStream = Channels.newInputStream(blob.reader());
+		byte[] image_bytes = readExisting(host_key+""+element_key+browser+".png");
 
-        return ImageIO.read(inputStream);
+        return ImageIO.read(new ByteArrayInputStream(image_bytes));
     }
 	
 	/**
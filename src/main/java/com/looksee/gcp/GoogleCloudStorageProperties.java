@@ -20,4 +20,10 @@ public class GoogleCloudStorageProperties {
 
     private String bucketName;
     private String publicUrl;
+
+    /** Directory of a local read cache in front of the bucket, disabled when empty */
+    private String localCacheDirectory;
+
+    /** Largest number of bytes kept in the local read cache, {@link com.looksee.storage.CachingObjectStore#DEFAULT_MAX_CACHED_BYTES} when unset */
+    private Long localCacheMaxBytes;
 }
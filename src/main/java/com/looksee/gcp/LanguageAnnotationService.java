@@ -0,0 +1,357 @@
+package com.looksee.gcp;
+
+import com.google.cloud.language.v1.AnnotateTextRequest;
+import com.google.cloud.language.v1.AnnotateTextResponse;
+import com.google.cloud.language.v1.Document;
+import com.google.cloud.language.v1.Document.Type;
+import com.google.cloud.language.v1.EncodingType;
+import com.google.cloud.language.v1.Entity;
+import com.google.cloud.language.v1.EntityMention;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.Sentiment;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Analyzes text with the Google Cloud Natural Language API through the
+ * {@link LanguageServiceClient} shared by the {@link GcpClientRegistry}.
+ *
+ * <p>Sentences, syntax, entities and sentiment are requested together with a
+ * single {@code annotateText} call. Results are cached by the SHA-256 of the
+ * text, up to {@value #MAX_CACHED_TEXTS} texts, so repeated headings, footers
+ * and navigation labels are only analyzed once.</p>
+ *
+ * <p>{@link #annotateAll(List)} combines short texts, such as the text of the
+ * elements of one page, into documents of up to {@value #MAX_COMBINED_LENGTH}
+ * characters and splits each response back into one result per text.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: cache.size() &lt;= MAX_CACHED_TEXTS</li>
+ * </ul>
+ */
+@Service
+public class LanguageAnnotationService {
+	/** Largest number of texts whose annotations are kept in memory */
+	public static final int MAX_CACHED_TEXTS = 4096;
+
+	/** Texts shorter than this are combined with other texts by {@link #annotateAll(List)} */
+	public static final int SHORT_TEXT_LENGTH = 1000;
+
+	/** Largest document built by combining short texts */
+	public static final int MAX_COMBINED_LENGTH = 20000;
+
+	/** Placed between combined texts so that sentences don't span two texts */
+	static final String SEPARATOR = "\n\n";
+
+	private static final AnnotateTextRequest.Features ALL_FEATURES = AnnotateTextRequest.Features.newBuilder()
+																			.setExtractSyntax(true)
+																			.setExtractEntities(true)
+																			.setExtractDocumentSentiment(true)
+																			.build();
+
+	/** The registry, or null to use {@link GcpClientRegistry#getShared()} */
+	private final GcpClientRegistry registry;
+
+	/** The client used for all requests, or null to use the client of the registry */
+	private final LanguageServiceClient client;
+	private final Map<String, LanguageAnnotations> cache;
+
+	/**
+	 * Constructs a {@link LanguageAnnotationService} that uses the client of
+	 * the shared {@link GcpClientRegistry}
+	 */
+	public LanguageAnnotationService() {
+		this(null, null);
+	}
+
+	/**
+	 * Constructs a {@link LanguageAnnotationService}. Latency is recorded by
+	 * the shared {@link GcpClientRegistry}.
+	 *
+	 * @param client the client used for all requests. Its lifecycle is managed by the caller
+	 *
+	 * precondition: client != null
+	 */
+	public LanguageAnnotationService(LanguageServiceClient client) {
+		this(null, client);
+		assert client != null;
+	}
+
+	/**
+	 * Constructs a {@link LanguageAnnotationService}
+	 *
+	 * @param registry provides the client used for all requests and records their latency
+	 *
+	 * precondition: registry != null
+	 */
+	@Autowired
+	public LanguageAnnotationService(GcpClientRegistry registry) {
+		this(registry, null);
+		assert registry != null;
+	}
+
+	private LanguageAnnotationService(GcpClientRegistry registry, LanguageServiceClient client) {
+		this.registry = registry;
+		this.client = client;
+		this.cache = new LinkedHashMap<String, LanguageAnnotations>(256, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, LanguageAnnotations> eldest) {
+				return size() > MAX_CACHED_TEXTS;
+			}
+		};
+	}
+
+	/**
+	 * Retrieves sentences, syntax, entities and sentiment of a text in one request
+	 *
+	 * @param text the text to analyze
+	 * @return the annotations of the text
+	 * @throws IOException if the client can't be created
+	 *
+	 * precondition: text != null
+	 * precondition: !text.isEmpty()
+	 */
+	public LanguageAnnotations annotate(String text) throws IOException {
+		assert text != null;
+		assert !text.isEmpty();
+
+		String key = DigestUtils.sha256Hex(text);
+		LanguageAnnotations annotations = cached(key);
+		if(annotations == null) {
+			annotations = new LanguageAnnotations(send(text));
+			cache(key, annotations);
+		}
+		return annotations;
+	}
+
+	/**
+	 * Retrieves sentences, syntax, entities and sentiment of several texts.
+	 * Short texts are combined into as few requests as possible.
+	 *
+	 * <p>For combined texts, entity salience is relative to the combined
+	 * document and the sentiment is derived from the sentences of the text:
+	 * the score is the mean sentence score and the magnitude is the sum of
+	 * the sentence magnitudes.</p>
+	 *
+	 * @param texts the texts to analyze
+	 * @return the annotations of every text, in the order of the texts
+	 * @throws IOException if the client can't be created
+	 *
+	 * precondition: texts != null
+	 * precondition: no text is null or empty
+	 */
+	public List<LanguageAnnotations> annotateAll(List<String> texts) throws IOException {
+		assert texts != null;
+
+		LanguageAnnotations[] results = new LanguageAnnotations[texts.size()];
+		String[] keys = new String[texts.size()];
+		List<Integer> combined = new ArrayList<>();
+		int combined_length = 0;
+
+		for(int idx = 0; idx < texts.size(); idx++) {
+			String text = texts.get(idx);
+			assert text != null && !text.isEmpty();
+
+			keys[idx] = DigestUtils.sha256Hex(text);
+			results[idx] = cached(keys[idx]);
+			if(results[idx] != null) {
+				continue;
+			}
+			if(text.length() >= SHORT_TEXT_LENGTH) {
+				results[idx] = new LanguageAnnotations(send(text));
+				cache(keys[idx], results[idx]);
+				continue;
+			}
+
+			if(!combined.isEmpty() && combined_length + SEPARATOR.length() + text.length() > MAX_COMBINED_LENGTH) {
+				annotateCombined(texts, combined, keys, results);
+				combined.clear();
+				combined_length = 0;
+			}
+			combined_length += (combined.isEmpty() ? 0 : SEPARATOR.length()) + text.length();
+			combined.add(idx);
+		}
+		if(!combined.isEmpty()) {
+			annotateCombined(texts, combined, keys, results);
+		}
+
+		List<LanguageAnnotations> annotations = new ArrayList<>(results.length);
+		for(LanguageAnnotations result : results) {
+			annotations.add(result);
+		}
+		return annotations;
+	}
+
+	private void annotateCombined(List<String> texts, List<Integer> indexes, String[] keys, LanguageAnnotations[] results) throws IOException {
+		if(indexes.size() == 1) {
+			int idx = indexes.get(0);
+			results[idx] = new LanguageAnnotations(send(texts.get(idx)));
+			cache(keys[idx], results[idx]);
+			return;
+		}
+
+		StringBuilder document = new StringBuilder();
+		int[] starts = new int[indexes.size()];
+		for(int i = 0; i < indexes.size(); i++) {
+			if(i > 0) {
+				document.append(SEPARATOR);
+			}
+			starts[i] = document.length();
+			document.append(texts.get(indexes.get(i)));
+		}
+
+		List<LanguageAnnotations> split = split(send(document.toString()), starts);
+		for(int i = 0; i < indexes.size(); i++) {
+			int idx = indexes.get(i);
+			results[idx] = split.get(i);
+			cache(keys[idx], results[idx]);
+		}
+	}
+
+	/**
+	 * Splits the response for a combined document into one result per text.
+	 * Offsets and dependency edges are rebased to the start of each text.
+	 *
+	 * @param response the response for the combined document
+	 * @param starts offset of every text in the combined document, in increasing order
+	 * @return the annotations of every text
+	 */
+	static List<LanguageAnnotations> split(AnnotateTextResponse response, int[] starts) {
+		int count = starts.length;
+		List<List<Sentence>> sentences = new ArrayList<>(count);
+		List<List<Token>> tokens = new ArrayList<>(count);
+		List<List<Entity>> entities = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			sentences.add(new ArrayList<>());
+			tokens.add(new ArrayList<>());
+			entities.add(new ArrayList<>());
+		}
+
+		for(Sentence sentence : response.getSentencesList()) {
+			int i = textAt(starts, sentence.getText().getBeginOffset());
+			sentences.get(i).add(sentence.toBuilder().setText(rebase(sentence.getText(), starts[i])).build());
+		}
+		int[] first_tokens = new int[count];
+		List<Token> document_tokens = response.getTokensList();
+		for(int idx = 0; idx < document_tokens.size(); idx++) {
+			Token token = document_tokens.get(idx);
+			int i = textAt(starts, token.getText().getBeginOffset());
+			if(tokens.get(i).isEmpty()) {
+				first_tokens[i] = idx;
+			}
+			//head token indexes refer to the tokens of the whole document
+			tokens.get(i).add(token.toBuilder()
+									.setText(rebase(token.getText(), starts[i]))
+									.setDependencyEdge(token.getDependencyEdge().toBuilder()
+															.setHeadTokenIndex(token.getDependencyEdge().getHeadTokenIndex() - first_tokens[i]))
+									.build());
+		}
+		for(Entity entity : response.getEntitiesList()) {
+			Entity.Builder[] builders = new Entity.Builder[count];
+			for(EntityMention mention : entity.getMentionsList()) {
+				int i = textAt(starts, mention.getText().getBeginOffset());
+				if(builders[i] == null) {
+					builders[i] = entity.toBuilder().clearMentions();
+				}
+				builders[i].addMentions(mention.toBuilder().setText(rebase(mention.getText(), starts[i])));
+			}
+			for(int i = 0; i < count; i++) {
+				if(builders[i] != null) {
+					entities.get(i).add(builders[i].build());
+				}
+			}
+		}
+
+		List<LanguageAnnotations> results = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			results.add(new LanguageAnnotations(sentences.get(i), tokens.get(i), entities.get(i), sentimentOf(sentences.get(i))));
+		}
+		return results;
+	}
+
+	/**
+	 * @return index of the last text starting at or before the offset
+	 */
+	private static int textAt(int[] starts, int offset) {
+		int low = 0;
+		int high = starts.length - 1;
+		while(low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if(starts[mid] <= offset) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private static TextSpan rebase(TextSpan span, int start) {
+		return span.toBuilder().setBeginOffset(span.getBeginOffset() - start).build();
+	}
+
+	private static Sentiment sentimentOf(List<Sentence> sentences) {
+		if(sentences.isEmpty()) {
+			return Sentiment.getDefaultInstance();
+		}
+		float score = 0;
+		float magnitude = 0;
+		for(Sentence sentence : sentences) {
+			score += sentence.getSentiment().getScore();
+			magnitude += sentence.getSentiment().getMagnitude();
+		}
+		return Sentiment.newBuilder()
+						.setScore(score / sentences.size())
+						.setMagnitude(magnitude)
+						.build();
+	}
+
+	private AnnotateTextResponse send(String text) throws IOException {
+		Document doc = Document.newBuilder()
+								.setContent(text)
+								.setType(Type.PLAIN_TEXT)
+								.setLanguage("en")
+								.build();
+		AnnotateTextRequest request = AnnotateTextRequest.newBuilder()
+															.setDocument(doc)
+															.setFeatures(ALL_FEATURES)
+															.setEncodingType(EncodingType.UTF16)
+															.build();
+		GcpClientRegistry registry = registry();
+		LanguageServiceClient language_client = client != null ? client : registry.getLanguageServiceClient();
+		return registry.call(GcpClientRegistry.LANGUAGE, () -> language_client.annotateText(request));
+	}
+
+	/**
+	 * Resolves the shared registry on every request, so a registry bean that
+	 * replaces the default one is picked up
+	 */
+	private GcpClientRegistry registry() {
+		return registry != null ? registry : GcpClientRegistry.getShared();
+	}
+
+	private LanguageAnnotations cached(String key) {
+		synchronized(cache) {
+			return cache.get(key);
+		}
+	}
+
+	private void cache(String key, LanguageAnnotations annotations) {
+		synchronized(cache) {
+			cache.put(key, annotations);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.looksee.gcp;
+
+import com.google.cloud.language.v1.AnnotateTextResponse;
+import com.google.cloud.language.v1.Entity;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.Sentiment;
+import com.google.cloud.language.v1.Token;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sentences, tokens, entities and sentiment of one text, as returned by a
+ * single Natural Language {@code annotateText} call. Offsets are UTF-16 code
+ * unit offsets into the text, which are the same as Java string indexes.
+ *
+ * <p>Instances are immutable.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: sentences != null</li>
+ *   <li>invariant: tokens != null</li>
+ *   <li>invariant: entities != null</li>
+ *   <li>invariant: sentiment != null</li>
+ * </ul>
+ */
+public class LanguageAnnotations {
+	private final List<Sentence> sentences;
+	private final List<Token> tokens;
+	private final List<Entity> entities;
+	private final Sentiment sentiment;
+
+	/**
+	 * Constructs {@link LanguageAnnotations} from a response for a single text
+	 *
+	 * @param response the Natural Language API response
+	 *
+	 * precondition: response != null
+	 */
+	public LanguageAnnotations(AnnotateTextResponse response) {
+		this(response.getSentencesList(),
+			response.getTokensList(),
+			response.getEntitiesList(),
+			response.getDocumentSentiment());
+	}
+
+	/**
+	 * Constructs {@link LanguageAnnotations}
+	 *
+	 * @param sentences the sentences of the text
+	 * @param tokens the tokens of the text
+	 * @param entities the entities mentioned in the text
+	 * @param sentiment the overall sentiment of the text
+	 *
+	 * precondition: sentences != null
+	 * precondition: tokens != null
+	 * precondition: entities != null
+	 * precondition: sentiment != null
+	 */
+	public LanguageAnnotations(List<Sentence> sentences,
+								List<Token> tokens,
+								List<Entity> entities,
+								Sentiment sentiment) {
+		assert sentences != null;
+		assert tokens != null;
+		assert entities != null;
+		assert sentiment != null;
+
+		this.sentences = Collections.unmodifiableList(sentences);
+		this.tokens = Collections.unmodifiableList(tokens);
+		this.entities = Collections.unmodifiableList(entities);
+		this.sentiment = sentiment;
+	}
+
+	/**
+	 * @return the sentences of the text
+	 */
+	public List<Sentence> getSentences() {
+		return sentences;
+	}
+
+	/**
+	 * @return the tokens of the text
+	 */
+	public List<Token> getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * @return the entities mentioned in the text
+	 */
+	public List<Entity> getEntities() {
+		return entities;
+	}
+
+	/**
+	 * @return the overall sentiment of the text
+	 */
+	public Sentiment getSentiment() {
+		return sentiment;
+	}
+
+	/**
+	 * Collects the grammatical moods and voices used in the text
+	 *
+	 * @return the syntax analysis of the text
+	 */
+	public SyntaxAnalysis getSyntaxAnalysis() {
+		Map<String, Boolean> moods = new HashMap<>();
+		Map<String, Boolean> voices = new HashMap<>();
+		for(Token token : tokens) {
+			if( !token.getPartOfSpeech().getMood().name().contains("UNKNOWN") ) {
+				moods.put(token.getPartOfSpeech().getMood().name(), Boolean.TRUE);
+			}
+
+			if( !token.getPartOfSpeech().getVoice().name().contains("UNKNOWN") ) {
+				voices.put(token.getPartOfSpeech().getVoice().name(), Boolean.TRUE);
+			}
+		}
+		return new SyntaxAnalysis(moods, voices);
+	}
+}
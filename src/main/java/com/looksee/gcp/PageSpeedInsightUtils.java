@@ -1,8 +1,6 @@
 package com.looksee.gcp;
 
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.http.HttpRequestInitializer;
-import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.ArrayMap;
 import com.google.api.services.pagespeedonline.v5.PagespeedInsights;
@@ -14,26 +12,159 @@ import com.looksee.models.enums.AuditCategory;
 import com.looksee.models.enums.ObservationType;
 import com.looksee.models.enums.Priority;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * Utility class for interacting with the Google PageSpeed Insights API
+ *
+ * <p>One client is shared by every request and uses the HTTP transport of
+ * the {@link GcpClientRegistry}, so connections are reused. Requests run on a pool of
+ * {@code pagespeed.max_concurrent_requests} threads and are spaced so no more
+ * than {@code pagespeed.requests_per_100_seconds} start in any 100 seconds,
+ * which is how the API quota is expressed. Responses are cached by URL for
+ * {@code pagespeed.freshness_minutes}, so auditing a page again within that
+ * window doesn't run Lighthouse again. Concurrent requests for the same URL
+ * share one API call.</p>
  */
 @Component
 public class PageSpeedInsightUtils {
 	private static Logger log = LoggerFactory.getLogger(PageSpeedInsightUtils.class.getName());
 
-	@Value("${gcp.api.key}")
-	private static String API_KEY;
+	/** Default number of requests run at the same time */
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+	/** Default request quota of the API per 100 seconds */
+	public static final int DEFAULT_REQUESTS_PER_100_SECONDS = 400;
+
+	/** Default time a response is reused for */
+	public static final long DEFAULT_FRESHNESS_MINUTES = 60;
+
+	/** Largest number of cached responses */
+	public static final int MAX_CACHED_RESPONSES = 1024;
+
+	/**
+	 * Runs a PageSpeed Insights request
+	 */
+	@FunctionalInterface
+	interface InsightsFetcher {
+		PagespeedApiPagespeedResponseV5 fetch(String url) throws IOException, GeneralSecurityException;
+	}
+
+	private final InsightsFetcher fetcher;
+	private final long freshness_nanos;
+	private final long request_interval_nanos;
+	private final LongSupplier clock;
+	private final ExecutorService request_executor;
+	private final Map<String, CachedInsights> cache;
+	private final Object rate_lock = new Object();
+	private long next_request_nanos;
+	private String apiKey;
+	/** The registry, or null to use {@link GcpClientRegistry#getShared()} */
+	private GcpClientRegistry registry;
+	private PagespeedInsights client;
+
+	/**
+	 * Constructs a {@link PageSpeedInsightUtils} with the default settings and
+	 * no API key
+	 */
+	public PageSpeedInsightUtils() {
+		this(null, DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_REQUESTS_PER_100_SECONDS,
+			 TimeUnit.MINUTES.toNanos(DEFAULT_FRESHNESS_MINUTES), System::nanoTime);
+		this.apiKey = "";
+	}
+
+	/**
+	 * Constructs a {@link PageSpeedInsightUtils}
+	 *
+	 * @param api_key key of the PageSpeed Insights API
+	 * @param max_concurrent_requests number of requests run at the same time
+	 * @param requests_per_100_seconds number of requests started in any 100 seconds
+	 * @param freshness_minutes time a response is reused for
+	 * @param registry provides the shared HTTP transport and records request latency
+	 *
+	 * precondition: max_concurrent_requests > 0
+	 * precondition: requests_per_100_seconds > 0
+	 * precondition: freshness_minutes >= 0
+	 * precondition: registry != null
+	 */
+	@Autowired
+	public PageSpeedInsightUtils(@Value("${gcp.api.key:}") String api_key,
+								 @Value("${pagespeed.max_concurrent_requests:"+DEFAULT_MAX_CONCURRENT_REQUESTS+"}") int max_concurrent_requests,
+								 @Value("${pagespeed.requests_per_100_seconds:"+DEFAULT_REQUESTS_PER_100_SECONDS+"}") int requests_per_100_seconds,
+								 @Value("${pagespeed.freshness_minutes:"+DEFAULT_FRESHNESS_MINUTES+"}") long freshness_minutes,
+								 GcpClientRegistry registry) {
+		this(null, max_concurrent_requests, requests_per_100_seconds, TimeUnit.MINUTES.toNanos(freshness_minutes), System::nanoTime);
+		assert registry != null;
+
+		this.apiKey = api_key;
+		this.registry = registry;
+	}
+
+	/**
+	 * Constructs a {@link PageSpeedInsightUtils} running requests with the
+	 * given fetcher. A null fetcher uses the PageSpeed Insights API.
+	 */
+	PageSpeedInsightUtils(InsightsFetcher fetcher,
+						  int max_concurrent_requests,
+						  int requests_per_100_seconds,
+						  long freshness_nanos,
+						  LongSupplier clock) {
+		assert max_concurrent_requests > 0;
+		assert requests_per_100_seconds > 0;
+		assert freshness_nanos >= 0;
+		assert clock != null;
+
+		this.fetcher = fetcher != null ? fetcher : this::runPageSpeed;
+		this.freshness_nanos = freshness_nanos;
+		this.request_interval_nanos = TimeUnit.SECONDS.toNanos(100) / requests_per_100_seconds;
+		this.clock = clock;
+		this.next_request_nanos = clock.getAsLong();
+
+		AtomicInteger thread_count = new AtomicInteger();
+		this.request_executor = Executors.newFixedThreadPool(max_concurrent_requests, runnable -> {
+			Thread thread = new Thread(runnable, "pagespeed-"+thread_count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.cache = new LinkedHashMap<String, CachedInsights>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedInsights> eldest) {
+				return size() > MAX_CACHED_RESPONSES;
+			}
+		};
+	}
+
+	/**
+	 * Stops the request threads
+	 */
+	@PreDestroy
+	public void shutdown() {
+		request_executor.shutdownNow();
+	}
 
 	/**
 	 * Retrieves Google PageSpeed Insights result from their API
@@ -50,14 +181,117 @@ public class PageSpeedInsightUtils {
 	public PagespeedApiPagespeedResponseV5 getPageInsights(String url) throws IOException, GeneralSecurityException {
 	    assert url != null;
 	    assert !url.isEmpty();
-	    
-		JacksonFactory jsonFactory = new JacksonFactory();
-	    NetHttpTransport transport = GoogleNetHttpTransport.newTrustedTransport();
 
-	    HttpRequestInitializer httpRequestInitializer = null; //this can be null here!
-	    PagespeedInsights p = new PagespeedInsights.Builder(transport, jsonFactory, httpRequestInitializer).setApplicationName("CrawlerApi").build();
-	    
-	    PagespeedInsights.Pagespeedapi.Runpagespeed runpagespeed  = p.pagespeedapi().runpagespeed().setUrl(url).setKey(API_KEY);
+		try {
+			return getPageInsightsAsync(url).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for page insights of "+url);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			if(cause instanceof GeneralSecurityException) {
+				throw (GeneralSecurityException)cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Retrieves Google PageSpeed Insights result without blocking. A fresh
+	 * cached response or a request already running for the url is reused.
+	 *
+	 * @param url url to get page insights for
+	 * @return future completed with the page insights
+	 *
+	 * precondition: url != null
+	 * precondition: !url.isEmpty()
+	 */
+	public CompletableFuture<PagespeedApiPagespeedResponseV5> getPageInsightsAsync(String url) {
+		assert url != null;
+		assert !url.isEmpty();
+
+		CachedInsights entry;
+		synchronized(cache) {
+			entry = cache.get(url);
+			if(entry == null || !entry.isFresh(clock.getAsLong(), freshness_nanos)) {
+				entry = new CachedInsights(clock.getAsLong(), new CompletableFuture<>());
+				cache.put(url, entry);
+				submit(url, entry);
+			}
+		}
+		return entry.response;
+	}
+
+	/**
+	 * Retrieves Google PageSpeed Insights results for many pages in parallel
+	 *
+	 * @param urls urls to get page insights for
+	 * @return future of the page insights of each url. Each url completes or
+	 * 			fails on its own
+	 *
+	 * precondition: urls != null
+	 */
+	public Map<String, CompletableFuture<PagespeedApiPagespeedResponseV5>> getAllPageInsights(Collection<String> urls) {
+		assert urls != null;
+
+		Map<String, CompletableFuture<PagespeedApiPagespeedResponseV5>> insights = new LinkedHashMap<>();
+		for(String url : urls) {
+			insights.computeIfAbsent(url, this::getPageInsightsAsync);
+		}
+		return insights;
+	}
+
+	private void submit(String url, CachedInsights entry) {
+		try {
+			request_executor.execute(() -> {
+				try {
+					awaitRequestSlot();
+					entry.response.complete(fetcher.fetch(url));
+				} catch (Throwable e) {
+					fail(url, entry, e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			fail(url, entry, e);
+		}
+	}
+
+	/**
+	 * Completes a request exceptionally and removes it from the cache so the
+	 * next request for the url runs again
+	 */
+	private void fail(String url, CachedInsights entry, Throwable e) {
+		synchronized(cache) {
+			cache.remove(url, entry);
+		}
+		log.warn("PageSpeed Insights request for "+url+" failed : "+e.getMessage());
+		entry.response.completeExceptionally(e);
+	}
+
+	/**
+	 * Waits until starting another request stays within the request quota
+	 */
+	private void awaitRequestSlot() throws InterruptedException {
+		long wait_nanos;
+		synchronized(rate_lock) {
+			long now = clock.getAsLong();
+			long start = Math.max(now, next_request_nanos);
+			next_request_nanos = start + request_interval_nanos;
+			wait_nanos = start - now;
+		}
+		if(wait_nanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait_nanos);
+		}
+	}
+
+	private PagespeedApiPagespeedResponseV5 runPageSpeed(String url) throws IOException, GeneralSecurityException {
+	    PagespeedInsights.Pagespeedapi.Runpagespeed runpagespeed  = getClient().pagespeedapi().runpagespeed().setUrl(url).setKey(apiKey);
 	    List<String> category = new ArrayList<>();
 	    category.add("performance");
 	    category.add("accessibility");
@@ -66,7 +300,42 @@ public class PageSpeedInsightUtils {
 	    category.add("seo");
 	    runpagespeed.setCategory(category);
 	    
-	    return runpagespeed.execute();
+	    return registry().call(GcpClientRegistry.PAGESPEED, runpagespeed::execute);
+	}
+
+	private synchronized PagespeedInsights getClient() throws IOException, GeneralSecurityException {
+		if(client == null) {
+			HttpRequestInitializer httpRequestInitializer = null; //this can be null here!
+			client = new PagespeedInsights.Builder(registry().getHttpTransport(), JacksonFactory.getDefaultInstance(), httpRequestInitializer)
+											.setApplicationName("CrawlerApi")
+											.build();
+		}
+		return client;
+	}
+
+	/**
+	 * Resolves the shared registry on every request, so a registry bean that
+	 * replaces the default one is picked up
+	 */
+	private GcpClientRegistry registry() {
+		return registry != null ? registry : GcpClientRegistry.getShared();
+	}
+
+	/**
+	 * Response of a url and the time it was requested
+	 */
+	private static final class CachedInsights {
+		private final long requested_at;
+		private final CompletableFuture<PagespeedApiPagespeedResponseV5> response;
+
+		private CachedInsights(long requested_at, CompletableFuture<PagespeedApiPagespeedResponseV5> response) {
+			this.requested_at = requested_at;
+			this.response = response;
+		}
+
+		private boolean isFresh(long now, long freshness_nanos) {
+			return !response.isDone() || now - requested_at < freshness_nanos;
+		}
 	}
 	
 	/**
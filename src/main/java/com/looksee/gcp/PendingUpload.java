@@ -0,0 +1,65 @@
+package com.looksee.gcp;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An upload started by {@link GoogleCloudStorage} that may still be running.
+ * Blob names are derived from the content, so the location of the upload is
+ * known before it completes and can be stored right away. Readers of the
+ * location wait for {@link #getCompletion()} first.
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: location != null</li>
+ *   <li>invariant: completion != null</li>
+ * </ul>
+ *
+ * @param <T> the type of the location, a URL or URLs keyed by variant
+ */
+public final class PendingUpload<T> {
+	private final T location;
+	private final CompletableFuture<Void> completion;
+
+	/**
+	 * Constructs a {@link PendingUpload}
+	 *
+	 * @param location where the content is stored once the upload completes
+	 * @param completion completed when the content is stored
+	 *
+	 * precondition: location != null
+	 * precondition: completion != null
+	 */
+	PendingUpload(T location, CompletableFuture<Void> completion) {
+		assert location != null;
+		assert completion != null;
+
+		this.location = location;
+		this.completion = completion;
+	}
+
+	/**
+	 * @return where the content is stored once the upload completes
+	 */
+	public T getLocation() {
+		return location;
+	}
+
+	/**
+	 * @return future completed when the content is stored, or exceptionally if the upload failed
+	 */
+	public CompletableFuture<Void> getCompletion() {
+		return completion;
+	}
+
+	/**
+	 * Waits for the upload and returns its location
+	 *
+	 * @return where the content is stored
+	 * @throws IOException if the upload failed
+	 */
+	public T await() throws IOException {
+		GoogleCloudStorage.awaitUpload(completion);
+		return location;
+	}
+}
@@ -1,8 +1,26 @@
 package com.looksee.gcp;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
 
@@ -10,12 +28,50 @@ import lombok.NoArgsConstructor;
 
 /**
  * Abstract class for publishing to PubSub.
+ *
+ * <p>Messages are handed to the {@link PubSubTemplate} without waiting for
+ * the publish to complete, so the client library can batch messages that are
+ * published close together. Batching thresholds are set with the
+ * {@code spring.cloud.gcp.pubsub.publisher.batching.*} properties.</p>
+ *
+ * <p>Each publisher limits the messages and bytes it has in flight. When a
+ * limit is reached {@link #publishAsync(String)} blocks until earlier
+ * publishes complete. Limits are read from
+ * {@code pubsub.publisher.<topic name>.max_outstanding_messages} and
+ * {@code pubsub.publisher.<topic name>.max_outstanding_bytes}, falling back
+ * to {@code pubsub.publisher.max_outstanding_messages} and
+ * {@code pubsub.publisher.max_outstanding_bytes}.</p>
  */
 @NoArgsConstructor
 public abstract class PubSubPublisher {
+    private static Logger log = LoggerFactory.getLogger(PubSubPublisher.class);
+
+    /** Default limit of messages in flight per topic */
+    public static final int DEFAULT_MAX_OUTSTANDING_MESSAGES = 1000;
+
+    /** Default limit of message bytes in flight per topic */
+    public static final int DEFAULT_MAX_OUTSTANDING_BYTES = 10 * 1024 * 1024;
+
+    /** Longest time shutdown waits for messages in flight */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
     @Autowired
     private PubSubTemplate pubSubTemplate;
 
+    @Autowired(required = false)
+    private Environment environment;
+
+    private final Set<CompletableFuture<String>> outstanding = ConcurrentHashMap.newKeySet();
+    private final LongAdder published_count = new LongAdder();
+    private final LongAdder failed_count = new LongAdder();
+    private final LongAdder total_latency_nanos = new LongAdder();
+    private final LongAccumulator max_latency_nanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong outstanding_bytes = new AtomicLong();
+
+    private volatile Semaphore message_permits;
+    private volatile Semaphore byte_permits;
+    private int max_outstanding_bytes;
+
     /**
      * Returns the topic for the PubSub publisher.
      * @return the topic for the PubSub publisher
@@ -25,7 +81,44 @@ public abstract class PubSubPublisher {
     protected abstract String topic();
 
     /**
-     * Publishes a message to the PubSub topic.
+     * Reads the in flight limits of the topic
+     */
+    @PostConstruct
+    public void configureFlowControl() {
+        String prefix = "pubsub.publisher.";
+        String topic_prefix = prefix + topicName(topic()) + ".";
+
+        int max_messages = DEFAULT_MAX_OUTSTANDING_MESSAGES;
+        int max_bytes = DEFAULT_MAX_OUTSTANDING_BYTES;
+        if(environment != null) {
+            max_messages = environment.getProperty(topic_prefix + "max_outstanding_messages", Integer.class,
+                                environment.getProperty(prefix + "max_outstanding_messages", Integer.class, max_messages));
+            max_bytes = environment.getProperty(topic_prefix + "max_outstanding_bytes", Integer.class,
+                                environment.getProperty(prefix + "max_outstanding_bytes", Integer.class, max_bytes));
+        }
+        configureFlowControl(max_messages, max_bytes);
+    }
+
+    /**
+     * Sets the in flight limits of the topic
+     *
+     * @param max_messages largest number of messages in flight
+     * @param max_bytes largest number of message bytes in flight
+     *
+     * precondition: max_messages > 0
+     * precondition: max_bytes > 0
+     */
+    void configureFlowControl(int max_messages, int max_bytes) {
+        assert max_messages > 0;
+        assert max_bytes > 0;
+
+        this.max_outstanding_bytes = max_bytes;
+        this.message_permits = new Semaphore(max_messages);
+        this.byte_permits = new Semaphore(max_bytes);
+    }
+
+    /**
+     * Publishes a message to the PubSub topic and waits for it to be accepted.
      * @param audit_record_json the message to publish
      *
      * precondition: audit_record_json != null
@@ -34,10 +127,170 @@ public abstract class PubSubPublisher {
      * @throws InterruptedException if the thread is interrupted
      *
      * precondition: pubSubTemplate != null
+     *
+     * @deprecated waits a full round trip to PubSub for every message, which
+     *              keeps the client from batching messages published in a loop.
+     *              Use {@link #publishAsync(String)}, and {@link #flush(long, TimeUnit)}
+     *              where every message must be accepted before continuing
      */
+    @Deprecated
     public void publish(String audit_record_json) throws ExecutionException, InterruptedException {
+        publishAsync(audit_record_json).get();
+    }
+
+    /**
+     * Publishes a message to the PubSub topic without waiting for it to be
+     * accepted. Blocks while the in flight limits of the topic are reached.
+     * @param audit_record_json the message to publish
+     * @return future completed with the id of the published message
+     * @throws InterruptedException if the thread is interrupted while waiting
+     *          for earlier messages
+     *
+     * precondition: audit_record_json != null
+     * precondition: !audit_record_json.isEmpty()
+     * precondition: pubSubTemplate != null
+     */
+    public CompletableFuture<String> publishAsync(String audit_record_json) throws InterruptedException {
         assert audit_record_json != null;
         assert !audit_record_json.isEmpty();
-        pubSubTemplate.publish(topic(), audit_record_json).get();
+        assert pubSubTemplate != null;
+
+        if(message_permits == null) {
+            configureFlowControl();
+        }
+        //a message larger than the byte limit only waits for the other messages
+        int bytes = Math.min(audit_record_json.getBytes(StandardCharsets.UTF_8).length, max_outstanding_bytes);
+        Semaphore messages = message_permits;
+        Semaphore byte_limit = byte_permits;
+        messages.acquire();
+        try {
+            byte_limit.acquire(bytes);
+        } catch(InterruptedException e) {
+            messages.release();
+            throw e;
+        }
+        outstanding_bytes.addAndGet(bytes);
+
+        long start = System.nanoTime();
+        CompletableFuture<String> future;
+        try {
+            future = pubSubTemplate.publish(topic(), audit_record_json).completable();
+        } catch(RuntimeException e) {
+            release(messages, byte_limit, bytes);
+            failed_count.increment();
+            throw e;
+        }
+
+        outstanding.add(future);
+        future.whenComplete((message_id, error) -> {
+            outstanding.remove(future);
+            release(messages, byte_limit, bytes);
+            if(error != null) {
+                failed_count.increment();
+                log.warn("Publishing to "+topic()+" failed : "+error.getMessage());
+            } else {
+                long latency = System.nanoTime() - start;
+                published_count.increment();
+                total_latency_nanos.add(latency);
+                max_latency_nanos.accumulate(latency);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits for all messages in flight to be published
+     *
+     * @param timeout longest time to wait
+     * @param unit unit of the timeout
+     * @return true if every message completed before the timeout
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        List<CompletableFuture<String>> pending = new ArrayList<>(outstanding);
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                                .exceptionally(e -> null)
+                                .get(timeout, unit);
+            return true;
+        } catch(ExecutionException e) {
+            return true;
+        } catch(TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Waits for messages in flight before the application stops
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if(!flush(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn(outstanding.size()+" messages to "+topic()+" were still in flight at shutdown");
+        }
+        log.info("Published "+getPublishedCount()+" messages to "+topic()+" ("+getFailedCount()+" failed), mean latency "
+                    +getMeanLatencyMillis()+"ms, max latency "+getMaxLatencyMillis()+"ms");
+    }
+
+    /**
+     * @return number of messages published successfully
+     */
+    public long getPublishedCount() {
+        return published_count.sum();
+    }
+
+    /**
+     * @return number of messages that failed to publish
+     */
+    public long getFailedCount() {
+        return failed_count.sum();
+    }
+
+    /**
+     * @return number of messages in flight
+     */
+    public int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    /**
+     * @return number of message bytes in flight
+     */
+    public long getOutstandingBytes() {
+        return outstanding_bytes.get();
+    }
+
+    /**
+     * @return mean time between handing a message to the client and it being
+     *          published, in milliseconds
+     */
+    public double getMeanLatencyMillis() {
+        long count = published_count.sum();
+        return count == 0 ? 0 : total_latency_nanos.sum() / (count * 1_000_000.0);
+    }
+
+    /**
+     * @return longest time between handing a message to the client and it
+     *          being published, in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        return max_latency_nanos.get() / 1_000_000.0;
+    }
+
+    private void release(Semaphore messages, Semaphore byte_limit, int bytes) {
+        outstanding_bytes.addAndGet(-bytes);
+        byte_limit.release(bytes);
+        messages.release();
+    }
+
+    /**
+     * Returns the last segment of a topic such as
+     * {@code projects/<project>/topics/<name>}
+     */
+    static String topicName(String topic) {
+        if(topic == null) {
+            return "";
+        }
+        return topic.substring(topic.lastIndexOf('/') + 1);
     }
 }
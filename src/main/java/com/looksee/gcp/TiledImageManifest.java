@@ -0,0 +1,117 @@
+package com.looksee.gcp;
+
+import java.awt.Rectangle;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Describes an image that is stored as a grid of fixed-size tiles. The
+ * manifest is uploaded next to the tiles and is the only object that needs to
+ * be read before any region of the image can be fetched.
+ *
+ * <p>Tile keys have the form {@code <tilePrefix><row>_<column>.<format>}</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: width &gt; 0 and height &gt; 0</li>
+ *   <li>invariant: tileWidth &gt; 0 and tileHeight &gt; 0</li>
+ *   <li>invariant: columns == ceil(width / tileWidth)</li>
+ *   <li>invariant: rows == ceil(height / tileHeight)</li>
+ * </ul>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class TiledImageManifest {
+	/** Current version of the manifest layout */
+	public static final int CURRENT_VERSION = 1;
+
+	private int version;
+	private int width;
+	private int height;
+	private int tileWidth;
+	private int tileHeight;
+	private int columns;
+	private int rows;
+	private String format;
+	private String tilePrefix;
+
+	/**
+	 * Constructs a new {@link TiledImageManifest}
+	 *
+	 * @param width width of the full image
+	 * @param height height of the full image
+	 * @param tile_width width of a tile
+	 * @param tile_height height of a tile
+	 * @param format image format of the tiles, for example png
+	 * @param tile_prefix storage key prefix shared by all tiles
+	 *
+	 * precondition: width > 0
+	 * precondition: height > 0
+	 * precondition: tile_width > 0
+	 * precondition: tile_height > 0
+	 * precondition: format != null
+	 * precondition: tile_prefix != null
+	 */
+	public TiledImageManifest(int width,
+							  int height,
+							  int tile_width,
+							  int tile_height,
+							  String format,
+							  String tile_prefix) {
+		assert width > 0;
+		assert height > 0;
+		assert tile_width > 0;
+		assert tile_height > 0;
+		assert format != null;
+		assert tile_prefix != null;
+
+		setVersion(CURRENT_VERSION);
+		setWidth(width);
+		setHeight(height);
+		setTileWidth(tile_width);
+		setTileHeight(tile_height);
+		setColumns((width + tile_width - 1) / tile_width);
+		setRows((height + tile_height - 1) / tile_height);
+		setFormat(format);
+		setTilePrefix(tile_prefix);
+	}
+
+	/**
+	 * Returns the storage key of a tile
+	 *
+	 * @param row row of the tile
+	 * @param column column of the tile
+	 * @return the key of the tile
+	 *
+	 * precondition: row >= 0 && row < rows
+	 * precondition: column >= 0 && column < columns
+	 */
+	public String tileKey(int row, int column) {
+		assert row >= 0 && row < rows;
+		assert column >= 0 && column < columns;
+
+		return tilePrefix + row + "_" + column + "." + format;
+	}
+
+	/**
+	 * Returns the bounds of a tile in image coordinates. Tiles in the last row
+	 * and column may be smaller than the nominal tile size.
+	 *
+	 * @param row row of the tile
+	 * @param column column of the tile
+	 * @return the bounds of the tile
+	 *
+	 * precondition: row >= 0 && row < rows
+	 * precondition: column >= 0 && column < columns
+	 */
+	public Rectangle tileBounds(int row, int column) {
+		assert row >= 0 && row < rows;
+		assert column >= 0 && column < columns;
+
+		int x = column * tileWidth;
+		int y = row * tileHeight;
+		return new Rectangle(x, y, Math.min(tileWidth, width - x), Math.min(tileHeight, height - y));
+	}
+}
@@ -0,0 +1,160 @@
+package com.looksee.gcp;
+
+import com.looksee.utils.ImageRegionReader;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ * Reads regions of a tiled image, fetching and decoding only the tiles that
+ * intersect the requested region. Recently decoded tiles are kept in a small
+ * LRU cache so that reading many neighbouring elements from the same page
+ * doesn't fetch the same tile repeatedly.
+ *
+ * <p>Instances are not thread safe.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: manifest != null</li>
+ *   <li>invariant: loader != null</li>
+ * </ul>
+ */
+public class TiledImageReader implements ImageRegionReader {
+	/** Default number of decoded tiles kept in memory */
+	public static final int DEFAULT_CACHED_TILES = 8;
+
+	private final TiledImageManifest manifest;
+	private final TileLoader loader;
+	private final Map<String, BufferedImage> tile_cache;
+
+	/**
+	 * Loads the encoded bytes of a tile
+	 */
+	@FunctionalInterface
+	public interface TileLoader {
+		/**
+		 * Loads the tile stored at the given key
+		 *
+		 * @param key storage key of the tile
+		 * @return the encoded tile
+		 * @throws IOException if the tile cannot be loaded
+		 */
+		byte[] load(String key) throws IOException;
+	}
+
+	/**
+	 * Constructs a new {@link TiledImageReader}
+	 *
+	 * @param manifest manifest describing the tiled image
+	 * @param loader loads encoded tiles by key
+	 * @param cached_tiles maximum number of decoded tiles to keep in memory
+	 *
+	 * precondition: manifest != null
+	 * precondition: loader != null
+	 * precondition: cached_tiles >= 0
+	 */
+	public TiledImageReader(TiledImageManifest manifest, TileLoader loader, int cached_tiles) {
+		assert manifest != null;
+		assert loader != null;
+		assert cached_tiles >= 0;
+
+		this.manifest = manifest;
+		this.loader = loader;
+		this.tile_cache = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+				return size() > cached_tiles;
+			}
+		};
+	}
+
+	/**
+	 * @return the manifest of the tiled image
+	 */
+	public TiledImageManifest getManifest() {
+		return manifest;
+	}
+
+	@Override
+	public int getWidth() {
+		return manifest.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+		return manifest.getHeight();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * precondition: region != null
+	 * precondition: !region.isEmpty()
+	 */
+	@Override
+	public BufferedImage readRegion(Rectangle region) throws IOException {
+		assert region != null;
+		assert !region.isEmpty();
+
+		Rectangle clipped = region.intersection(new Rectangle(0, 0, manifest.getWidth(), manifest.getHeight()));
+		if(clipped.isEmpty()) {
+			throw new IOException("Region "+region+" is outside of the image bounds");
+		}
+
+		int first_column = clipped.x / manifest.getTileWidth();
+		int last_column = (clipped.x + clipped.width - 1) / manifest.getTileWidth();
+		int first_row = clipped.y / manifest.getTileHeight();
+		int last_row = (clipped.y + clipped.height - 1) / manifest.getTileHeight();
+
+		BufferedImage result = null;
+		Graphics2D graphics = null;
+		try {
+			for(int row = first_row; row <= last_row; row++) {
+				for(int column = first_column; column <= last_column; column++) {
+					BufferedImage tile = getTile(row, column);
+
+					//regions are always copied, so callers can't modify cached tiles
+					if(result == null) {
+						int type = tile.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_ARGB : tile.getType();
+						result = new BufferedImage(clipped.width, clipped.height, type);
+						graphics = result.createGraphics();
+					}
+					Rectangle bounds = manifest.tileBounds(row, column);
+					graphics.drawImage(tile, bounds.x - clipped.x, bounds.y - clipped.y, null);
+				}
+			}
+		}
+		finally {
+			if(graphics != null) {
+				graphics.dispose();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the decoded tile, loading it if it isn't cached
+	 */
+	private BufferedImage getTile(int row, int column) throws IOException {
+		String key = manifest.tileKey(row, column);
+		BufferedImage tile = tile_cache.get(key);
+		if(tile != null) {
+			return tile;
+		}
+
+		byte[] bytes = loader.load(key);
+		tile = ImageIO.read(new ByteArrayInputStream(bytes));
+		if(tile == null) {
+			throw new IOException("Unable to decode tile "+key);
+		}
+		tile_cache.put(key, tile);
+		return tile;
+	}
+}
@@ -0,0 +1,145 @@
+package com.looksee.gcp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.looksee.storage.ObjectStore;
+import com.looksee.utils.TiledCompositeRenderer;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.imageio.ImageIO;
+
+/**
+ * Stores the tiles of a {@link TiledCompositeRenderer} as a tiled image while
+ * the page is being rendered. Each renderer tile is cut into the tiles of the
+ * {@link TiledImageManifest} and encoded before {@link #accept} returns, so
+ * the renderer can reuse its buffer, and the encoded tiles are uploaded on the
+ * upload pool of {@link GoogleCloudStorage}. The manifest is written by
+ * {@link #finish()} once every tile is stored.
+ *
+ * <p>Instances are created by
+ * {@link GoogleCloudStorage#startTiledImage(int, int, String, String, com.looksee.models.enums.BrowserType)}.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: manifest != null</li>
+ *   <li>invariant: renderer tiles start on a row of the manifest</li>
+ * </ul>
+ */
+public final class TiledImageUpload implements TiledCompositeRenderer.TileSink {
+	private final ObjectStore store;
+	private final ObjectMapper mapper;
+	private final Executor upload_executor;
+	private final TiledImageManifest manifest;
+	private final String manifest_key;
+	private final boolean already_stored;
+	private final List<CompletableFuture<Void>> tile_uploads = new ArrayList<>();
+
+	/**
+	 * Constructs a {@link TiledImageUpload}
+	 *
+	 * @param store the store tiles are written to
+	 * @param mapper serializes the manifest
+	 * @param upload_executor runs the uploads
+	 * @param manifest layout of the tiled image
+	 * @param manifest_key key the manifest is written to
+	 * @param already_stored true if the image is stored already, in which case nothing is written
+	 *
+	 * precondition: store != null
+	 * precondition: mapper != null
+	 * precondition: upload_executor != null
+	 * precondition: manifest != null
+	 * precondition: manifest_key != null
+	 */
+	TiledImageUpload(ObjectStore store,
+					 ObjectMapper mapper,
+					 Executor upload_executor,
+					 TiledImageManifest manifest,
+					 String manifest_key,
+					 boolean already_stored) {
+		assert store != null;
+		assert mapper != null;
+		assert upload_executor != null;
+		assert manifest != null;
+		assert manifest_key != null;
+
+		this.store = store;
+		this.mapper = mapper;
+		this.upload_executor = upload_executor;
+		this.manifest = manifest;
+		this.manifest_key = manifest_key;
+		this.already_stored = already_stored;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * precondition: tile != null
+	 * precondition: y_offset % manifest.getTileHeight() == 0
+	 * precondition: tile.getWidth() == manifest.getWidth()
+	 */
+	@Override
+	public void accept(int tile_index, int y_offset, BufferedImage tile) throws IOException {
+		assert tile != null;
+		assert y_offset % manifest.getTileHeight() == 0;
+		assert tile.getWidth() == manifest.getWidth();
+
+		if(already_stored) {
+			return;
+		}
+
+		int first_row = y_offset / manifest.getTileHeight();
+		int last_row = Math.min(manifest.getRows(), (y_offset + tile.getHeight() + manifest.getTileHeight() - 1) / manifest.getTileHeight());
+		for(int row = first_row; row < last_row; row++) {
+			for(int column = 0; column < manifest.getColumns(); column++) {
+				Rectangle bounds = manifest.tileBounds(row, column);
+				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				ImageIO.write(tile.getSubimage(bounds.x, bounds.y - y_offset, bounds.width, bounds.height), manifest.getFormat(), baos);
+
+				byte[] bytes = baos.toByteArray();
+				String tile_key = manifest.tileKey(row, column);
+				tile_uploads.add(CompletableFuture.runAsync(() -> {
+					try {
+						store.put(tile_key, bytes, "image/"+manifest.getFormat());
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, upload_executor));
+			}
+		}
+	}
+
+	/**
+	 * @return true if the image is stored already, in which case tiles don't need to be rendered
+	 */
+	public boolean isAlreadyStored() {
+		return already_stored;
+	}
+
+	/**
+	 * Writes the manifest once every tile accepted so far is stored
+	 *
+	 * @return the upload, located at the URL of the manifest
+	 */
+	public PendingUpload<String> finish() {
+		if(already_stored) {
+			return new PendingUpload<>(store.getPublicUrl(manifest_key), CompletableFuture.completedFuture(null));
+		}
+
+		//the manifest is only written once every tile is stored
+		CompletableFuture<Void> completion = CompletableFuture.allOf(tile_uploads.toArray(new CompletableFuture[0]))
+															  .thenRunAsync(() -> {
+																  try {
+																	  store.put(manifest_key, mapper.writeValueAsBytes(manifest), "application/json");
+																  } catch (IOException e) {
+																	  throw new UncheckedIOException(e);
+																  }
+															  }, upload_executor);
+		return new PendingUpload<>(store.getPublicUrl(manifest_key), completion);
+	}
+}
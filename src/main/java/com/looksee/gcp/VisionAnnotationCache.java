@@ -0,0 +1,231 @@
+package com.looksee.gcp;
+
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.Feature;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.looksee.models.VisionAnnotationRecord;
+import com.looksee.models.repository.VisionAnnotationRecordRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Two tier cache of Cloud Vision annotations keyed by image content and
+ * requested features.
+ *
+ * <p>Recently used annotations are kept in memory, up to {@value #MAX_ENTRIES}
+ * entries. Every annotation is also stored as a {@link VisionAnnotationRecord}
+ * so that images repeated across pages, audits and service instances are only
+ * annotated once per {@link #TTL}. Images the Vision API reported an error for
+ * are cached for {@link #NEGATIVE_TTL} so that broken images aren't retried on
+ * every page.</p>
+ *
+ * <p>Failures of the persistent tier are logged and treated as cache misses,
+ * they never fail an annotation.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: entries.size() &lt;= MAX_ENTRIES</li>
+ * </ul>
+ */
+@Component
+public class VisionAnnotationCache {
+	private static Logger log = LoggerFactory.getLogger(VisionAnnotationCache.class);
+
+	/** Largest number of annotations kept in memory */
+	public static final int MAX_ENTRIES = 2048;
+
+	/** How long successful annotations are reused */
+	public static final Duration TTL = Duration.ofDays(30);
+
+	/** How long error responses are reused */
+	public static final Duration NEGATIVE_TTL = Duration.ofHours(1);
+
+	private final VisionAnnotationRecordRepository repository;
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Constructs a {@link VisionAnnotationCache}
+	 *
+	 * @param repository repository of the persistent tier, or null to only cache in memory
+	 */
+	@Autowired
+	public VisionAnnotationCache(VisionAnnotationRecordRepository repository) {
+		this.repository = repository;
+		this.entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+	}
+
+	/**
+	 * Computes the cache key of an image and a set of features. The order and
+	 * duplicates of the features don't change the key.
+	 *
+	 * @param image_content the encoded image sent to the Vision API
+	 * @param features the requested features
+	 * @return SHA-256 of the image content followed by the sorted feature names
+	 *
+	 * precondition: image_content != null
+	 * precondition: features != null
+	 * precondition: features.length > 0
+	 */
+	public static String key(ByteString image_content, Feature.Type... features) {
+		assert image_content != null;
+		assert features != null;
+		assert features.length > 0;
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+
+		byte[] buffer = new byte[8192];
+		try(InputStream input = image_content.newInput()) {
+			int read;
+			while((read = input.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read image content", e);
+		}
+
+		Set<Feature.Type> feature_set = EnumSet.noneOf(Feature.Type.class);
+		for(Feature.Type feature : features) {
+			feature_set.add(feature);
+		}
+
+		StringBuilder key = new StringBuilder(Hex.encodeHexString(digest.digest()));
+		for(Feature.Type feature : feature_set) {
+			key.append(':').append(feature.name());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Looks up cached annotations, first in memory and then in the persistent tier
+	 *
+	 * @param key the cache key, see {@link #key(ByteString, Feature.Type...)}
+	 * @return the annotations, or null if none are cached or they expired
+	 *
+	 * precondition: key != null
+	 */
+	public VisionAnnotations get(String key) {
+		assert key != null;
+
+		LocalDateTime now = LocalDateTime.now();
+		synchronized(entries) {
+			Entry entry = entries.get(key);
+			if(entry != null) {
+				if(entry.expires_at.isAfter(now)) {
+					return entry.annotations;
+				}
+				entries.remove(key);
+			}
+		}
+
+		if(repository == null) {
+			return null;
+		}
+
+		try {
+			VisionAnnotationRecord record = repository.findUnexpiredByKey(VisionAnnotationRecord.keyOf(key), now);
+			if(record == null) {
+				return null;
+			}
+			VisionAnnotations annotations = new VisionAnnotations(AnnotateImageResponse.parseFrom(record.getResponse()));
+			synchronized(entries) {
+				entries.put(key, new Entry(annotations, record.getExpiresAt()));
+			}
+			return annotations;
+		}
+		catch(InvalidProtocolBufferException e) {
+			log.warn("Discarding unreadable cached Vision annotation "+key);
+		}
+		catch(RuntimeException e) {
+			log.warn("Could not read cached Vision annotation : "+e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Caches annotations in memory and in the persistent tier. Annotations
+	 * with an error are cached for {@link #NEGATIVE_TTL}, all others for {@link #TTL}.
+	 *
+	 * @param key the cache key, see {@link #key(ByteString, Feature.Type...)}
+	 * @param annotations the annotations to cache
+	 *
+	 * precondition: key != null
+	 * precondition: annotations != null
+	 */
+	public void put(String key, VisionAnnotations annotations) {
+		assert key != null;
+		assert annotations != null;
+
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime expires_at = now.plus(annotations.hasError() ? NEGATIVE_TTL : TTL);
+		synchronized(entries) {
+			entries.put(key, new Entry(annotations, expires_at));
+		}
+
+		if(repository == null) {
+			return;
+		}
+
+		try {
+			repository.upsert(VisionAnnotationRecord.keyOf(key),
+							key,
+							annotations.getResponse().toByteArray(),
+							annotations.hasError(),
+							now,
+							expires_at);
+		}
+		catch(RuntimeException e) {
+			log.warn("Could not store Vision annotation : "+e.getMessage());
+		}
+	}
+
+	/**
+	 * Deletes expired annotations from the persistent tier
+	 *
+	 * @return the number of deleted annotations
+	 */
+	public int purgeExpired() {
+		if(repository == null) {
+			return 0;
+		}
+		return repository.deleteExpired(LocalDateTime.now());
+	}
+
+	/**
+	 * Cached annotations and the time they expire
+	 */
+	private static final class Entry {
+		private final VisionAnnotations annotations;
+		private final LocalDateTime expires_at;
+
+		Entry(VisionAnnotations annotations, LocalDateTime expires_at) {
+			this.annotations = annotations;
+			this.expires_at = expires_at;
+		}
+	}
+}
@@ -0,0 +1,486 @@
+package com.looksee.gcp;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.BatchAnnotateImagesRequest;
+import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
+import com.google.cloud.vision.v1.Feature;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.looksee.models.PageState;
+import com.looksee.models.enums.ScreenshotResolution;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Annotates images with the Google Cloud Vision API through one long-lived
+ * {@link ImageAnnotatorClient}. The bean takes the client from the
+ * {@link GcpClientRegistry} when the first request is sent, so the
+ * application starts without Vision credentials, and records the latency of
+ * every batch with the registry.
+ *
+ * <p>Every image is scaled and encoded once and all requested features are
+ * sent in a single {@link AnnotateImageRequest}. Requests from concurrent
+ * callers are queued and sent together, up to {@value #MAX_BATCH_SIZE} images
+ * per {@code batchAnnotateImages} call. A partial batch is sent after
+ * {@value #BATCH_DELAY_MILLIS} milliseconds. Calls are asynchronous, so
+ * callers can continue with other work until they need the annotations.</p>
+ *
+ * <p>When a {@link VisionAnnotationCache} is configured, images are looked up
+ * by content and features before they are queued, so repeated images are only
+ * sent once. Concurrent requests for the same image share one request.
+ * Annotations are written back to the cache on the batch thread, and the bean
+ * purges expired annotations from the cache every
+ * {@code vision.cache.purge_interval_minutes} minutes
+ * ({@value #DEFAULT_PURGE_INTERVAL_MINUTES} by default, 0 disables it).</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: client != null || registry != null</li>
+ *   <li>invariant: pending.size() &lt; MAX_BATCH_SIZE outside of synchronized blocks</li>
+ * </ul>
+ */
+@Service
+public class VisionAnnotationService {
+	private static Logger log = LoggerFactory.getLogger(VisionAnnotationService.class);
+
+	/** Largest number of images the Vision API accepts in one synchronous batch request */
+	public static final int MAX_BATCH_SIZE = 16;
+
+	/** Resolution of the stored page screenshot that pages are annotated from */
+	public static final ScreenshotResolution PAGE_RESOLUTION = ScreenshotResolution.QUARTER;
+
+	/** Longest time a request waits for other requests to fill its batch */
+	public static final long BATCH_DELAY_MILLIS = 20;
+
+	/** Default time between purges of expired cached annotations */
+	public static final long DEFAULT_PURGE_INTERVAL_MINUTES = 60;
+
+	private final ImageAnnotatorClient client;
+	private final GcpClientRegistry registry;
+	private final VisionAnnotationCache cache;
+	private final ScheduledExecutorService scheduler;
+	private final ConcurrentHashMap<String, CompletableFuture<VisionAnnotations>> in_flight = new ConcurrentHashMap<>();
+	private final List<PendingRequest> pending = new ArrayList<>();
+	private boolean flush_scheduled = false;
+
+	/**
+	 * Constructs a {@link VisionAnnotationService} that doesn't cache annotations
+	 *
+	 * @param client the client used for all requests. Its lifecycle is managed by the caller
+	 *
+	 * precondition: client != null
+	 */
+	public VisionAnnotationService(ImageAnnotatorClient client) {
+		this(client, null);
+	}
+
+	/**
+	 * Constructs a {@link VisionAnnotationService}
+	 *
+	 * @param client the client used for all requests. Its lifecycle is managed by the caller
+	 * @param cache cache of annotations by image content, or null to always call the Vision API
+	 *
+	 * precondition: client != null
+	 */
+	public VisionAnnotationService(ImageAnnotatorClient client, VisionAnnotationCache cache) {
+		this(client, null, cache, 0);
+		assert client != null;
+	}
+
+	/**
+	 * Constructs a {@link VisionAnnotationService} that purges expired
+	 * annotations from its cache at a fixed interval
+	 *
+	 * @param client the client used for all requests. Its lifecycle is managed by the caller
+	 * @param cache cache of annotations by image content
+	 * @param purge_interval_millis time between purges of the cache
+	 *
+	 * precondition: client != null
+	 * precondition: cache != null
+	 * precondition: purge_interval_millis > 0
+	 */
+	VisionAnnotationService(ImageAnnotatorClient client, VisionAnnotationCache cache, long purge_interval_millis) {
+		this(client, null, cache, purge_interval_millis);
+		assert client != null;
+		assert cache != null;
+		assert purge_interval_millis > 0;
+	}
+
+	/**
+	 * Constructs the service bean, which sends requests with the Vision client
+	 * of the registry
+	 *
+	 * @param registry registry the client is taken from and calls are recorded with
+	 * @param cache cache of annotations by image content, or null to always call the Vision API
+	 *
+	 * precondition: registry != null
+	 */
+	public VisionAnnotationService(GcpClientRegistry registry, VisionAnnotationCache cache) {
+		this(null, registry, cache, 0);
+		assert registry != null;
+	}
+
+	/**
+	 * Constructs the service bean, which sends requests with the Vision client
+	 * of the registry and purges expired annotations from the cache
+	 *
+	 * @param registry registry the client is taken from and calls are recorded with
+	 * @param cache cache of annotations by image content, or null to always call the Vision API
+	 * @param purge_interval_minutes time between purges of the cache, 0 to never purge
+	 *
+	 * precondition: registry != null
+	 * precondition: purge_interval_minutes >= 0
+	 */
+	@Autowired
+	public VisionAnnotationService(GcpClientRegistry registry,
+								   VisionAnnotationCache cache,
+								   @Value("${vision.cache.purge_interval_minutes:"+DEFAULT_PURGE_INTERVAL_MINUTES+"}") long purge_interval_minutes) {
+		this(null, registry, cache, TimeUnit.MINUTES.toMillis(purge_interval_minutes));
+		assert registry != null;
+		assert purge_interval_minutes >= 0;
+	}
+
+	private VisionAnnotationService(ImageAnnotatorClient client,
+									GcpClientRegistry registry,
+									VisionAnnotationCache cache,
+									long purge_interval_millis) {
+		this.client = client;
+		this.registry = registry;
+		this.cache = cache;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "vision-batch");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if(cache != null && purge_interval_millis > 0) {
+			scheduler.scheduleWithFixedDelay(this::purgeExpiredAnnotations,
+											 purge_interval_millis,
+											 purge_interval_millis,
+											 TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Requests the given features for an image. The image is scaled to fit
+	 * within {@link CloudVisionUtils#VISION_MAX_WIDTH} x
+	 * {@link CloudVisionUtils#VISION_MAX_HEIGHT} and encoded on the calling
+	 * thread.
+	 *
+	 * @param image the image to annotate
+	 * @param features the features to detect
+	 * @return future completed with the annotations of the image, or
+	 * 			exceptionally if the request could not be sent
+	 * @throws IOException if the image can't be encoded
+	 *
+	 * precondition: image != null
+	 * precondition: features != null
+	 * precondition: features.length > 0
+	 */
+	public CompletableFuture<VisionAnnotations> annotate(BufferedImage image, Feature.Type... features) throws IOException {
+		assert image != null;
+		assert features != null;
+		assert features.length > 0;
+
+		List<PendingRequest> requests = new ArrayList<>(1);
+		CompletableFuture<VisionAnnotations> future = submit(image, features, requests);
+		for(PendingRequest pending_request : requests) {
+			enqueue(pending_request);
+		}
+		return future;
+	}
+
+	/**
+	 * Requests the given features for the full page screenshot of a page,
+	 * read from the {@link #PAGE_RESOLUTION} level of its screenshot pyramid
+	 * so the full size screenshot is neither downloaded nor scaled down here
+	 *
+	 * @param page_state the page to annotate
+	 * @param features the features to detect
+	 * @return future completed with the annotations of the page screenshot
+	 * @throws IOException if the screenshot can't be read or encoded
+	 *
+	 * precondition: page_state != null
+	 * precondition: features != null
+	 * precondition: features.length > 0
+	 */
+	public CompletableFuture<VisionAnnotations> annotate(PageState page_state, Feature.Type... features) throws IOException {
+		assert page_state != null;
+
+		String screenshot_url = page_state.getFullPageScreenshotUrl(PAGE_RESOLUTION);
+		BufferedImage screenshot = ImageIO.read(new URL(screenshot_url));
+		if(screenshot == null) {
+			throw new IOException("Could not decode page screenshot "+screenshot_url);
+		}
+		return annotate(screenshot, features);
+	}
+
+	/**
+	 * Requests the same features for several images. Images are sent in
+	 * batches of up to {@value #MAX_BATCH_SIZE} without waiting for other
+	 * callers.
+	 *
+	 * @param images the images to annotate
+	 * @param features the features to detect
+	 * @return one future per image, in the order of the images
+	 * @throws IOException if an image can't be encoded
+	 *
+	 * precondition: images != null
+	 * precondition: features != null
+	 * precondition: features.length > 0
+	 */
+	public List<CompletableFuture<VisionAnnotations>> annotateAll(List<BufferedImage> images,
+																	Feature.Type... features) throws IOException {
+		assert images != null;
+		assert features != null;
+		assert features.length > 0;
+
+		List<PendingRequest> requests = new ArrayList<>(images.size());
+		List<CompletableFuture<VisionAnnotations>> futures = new ArrayList<>(images.size());
+		try {
+			for(BufferedImage image : images) {
+				futures.add(submit(image, features, requests));
+			}
+		}
+		catch(IOException e) {
+			//release requests other callers may already be waiting on
+			fail(requests, e);
+			throw e;
+		}
+
+		for(int start = 0; start < requests.size(); start += MAX_BATCH_SIZE) {
+			send(new ArrayList<>(requests.subList(start, Math.min(start + MAX_BATCH_SIZE, requests.size()))));
+		}
+		return futures;
+	}
+
+	/**
+	 * Deletes expired annotations from the cache. Failures are logged so that
+	 * later purges still run.
+	 */
+	private void purgeExpiredAnnotations() {
+		try {
+			int purged = cache.purgeExpired();
+			log.debug("Purged "+purged+" expired Vision annotations");
+		}
+		catch(RuntimeException e) {
+			log.warn("Could not purge expired Vision annotations : "+e.getMessage());
+		}
+	}
+
+	/**
+	 * Sends all queued requests and stops the batch scheduler. The client is
+	 * not closed.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		flush();
+		scheduler.shutdown();
+	}
+
+	private static AnnotateImageRequest buildRequest(BufferedImage image, Feature.Type... features) throws IOException {
+		AnnotateImageRequest.Builder request = AnnotateImageRequest.newBuilder()
+																	.setImage(CloudVisionUtils.toVisionImage(image));
+		for(Feature.Type feature : features) {
+			request.addFeatures(Feature.newBuilder().setType(feature));
+		}
+		return request.build();
+	}
+
+	/**
+	 * Resolves an image from the cache or from a request that is already in
+	 * flight. Otherwise creates a request and adds it to requests, the caller
+	 * is responsible for sending it.
+	 */
+	private CompletableFuture<VisionAnnotations> submit(BufferedImage image,
+														Feature.Type[] features,
+														List<PendingRequest> requests) throws IOException {
+		AnnotateImageRequest request = buildRequest(image, features);
+		if(cache == null) {
+			PendingRequest pending_request = new PendingRequest(request, null);
+			requests.add(pending_request);
+			return pending_request.future;
+		}
+
+		String key = VisionAnnotationCache.key(request.getImage().getContent(), features);
+		CompletableFuture<VisionAnnotations> requested = in_flight.get(key);
+		if(requested != null) {
+			return requested;
+		}
+		VisionAnnotations cached = cache.get(key);
+		if(cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+
+		PendingRequest pending_request = new PendingRequest(request, key);
+		requested = in_flight.putIfAbsent(key, pending_request.future);
+		if(requested != null) {
+			return requested;
+		}
+		requests.add(pending_request);
+		return pending_request.future;
+	}
+
+	private void enqueue(PendingRequest pending_request) {
+		List<PendingRequest> batch = null;
+		synchronized(this) {
+			pending.add(pending_request);
+			if(pending.size() >= MAX_BATCH_SIZE) {
+				batch = drain();
+			}
+			else if(!flush_scheduled) {
+				flush_scheduled = true;
+				scheduler.schedule(this::flush, BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+			}
+		}
+		if(batch != null) {
+			send(batch);
+		}
+	}
+
+	private void flush() {
+		List<PendingRequest> batch;
+		synchronized(this) {
+			flush_scheduled = false;
+			batch = drain();
+		}
+		if(!batch.isEmpty()) {
+			send(batch);
+		}
+	}
+
+	/**
+	 * Removes all queued requests. Must be called while holding the lock
+	 */
+	private List<PendingRequest> drain() {
+		List<PendingRequest> batch = new ArrayList<>(pending);
+		pending.clear();
+		return batch;
+	}
+
+	private void send(List<PendingRequest> batch) {
+		BatchAnnotateImagesRequest.Builder request = BatchAnnotateImagesRequest.newBuilder();
+		for(PendingRequest pending_request : batch) {
+			request.addRequests(pending_request.request);
+		}
+
+		long start = System.nanoTime();
+		ApiFuture<BatchAnnotateImagesResponse> response;
+		try {
+			response = client().batchAnnotateImagesCallable().futureCall(request.build());
+		}
+		catch(IOException | RuntimeException e) {
+			record(start, false);
+			fail(batch, e);
+			return;
+		}
+
+		ApiFutures.addCallback(response, new ApiFutureCallback<BatchAnnotateImagesResponse>() {
+			@Override
+			public void onSuccess(BatchAnnotateImagesResponse result) {
+				record(start, true);
+				List<AnnotateImageResponse> responses = result.getResponsesList();
+				for(int idx = 0; idx < batch.size(); idx++) {
+					if(idx < responses.size()) {
+						VisionAnnotations annotations = new VisionAnnotations(responses.get(idx));
+						if(annotations.hasError()) {
+							log.warn("Vision API could not annotate image : "+annotations.getErrorMessage());
+						}
+						complete(batch.get(idx), annotations);
+					}
+					else {
+						fail(batch.get(idx), new IllegalStateException("Vision API returned "+responses.size()+" responses for "+batch.size()+" images"));
+					}
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				record(start, false);
+				fail(batch, t);
+			}
+		}, MoreExecutors.directExecutor());
+	}
+
+	private ImageAnnotatorClient client() throws IOException {
+		return client != null ? client : registry.getImageAnnotatorClient();
+	}
+
+	private void record(long start, boolean succeeded) {
+		if(registry != null) {
+			registry.record(GcpClientRegistry.VISION, System.nanoTime() - start, succeeded);
+		}
+	}
+
+	/**
+	 * Completes a request and caches its annotations on the batch thread. The
+	 * request stays in flight until the annotations are cached so that
+	 * concurrent requests for the same image don't miss both.
+	 */
+	private void complete(PendingRequest pending_request, VisionAnnotations annotations) {
+		pending_request.future.complete(annotations);
+		if(pending_request.key != null) {
+			Runnable write_back = () -> {
+				cache.put(pending_request.key, annotations);
+				in_flight.remove(pending_request.key, pending_request.future);
+			};
+			try {
+				scheduler.execute(write_back);
+			}
+			catch(RejectedExecutionException e) {
+				//the service is shutting down
+				write_back.run();
+			}
+		}
+	}
+
+	/**
+	 * Fails a request. Failures are not cached
+	 */
+	private void fail(PendingRequest pending_request, Throwable t) {
+		pending_request.future.completeExceptionally(t);
+		if(pending_request.key != null) {
+			in_flight.remove(pending_request.key, pending_request.future);
+		}
+	}
+
+	private void fail(List<PendingRequest> batch, Throwable t) {
+		log.warn("Vision API batch request failed : "+t.getMessage());
+		for(PendingRequest pending_request : batch) {
+			fail(pending_request, t);
+		}
+	}
+
+	/**
+	 * A queued request, its cache key and the future waiting for its response
+	 */
+	private static final class PendingRequest {
+		private final AnnotateImageRequest request;
+		private final String key;
+		private final CompletableFuture<VisionAnnotations> future = new CompletableFuture<>();
+
+		PendingRequest(AnnotateImageRequest request, String key) {
+			this.request = request;
+			this.key = key;
+		}
+	}
+}
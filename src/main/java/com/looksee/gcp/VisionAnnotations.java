@@ -0,0 +1,225 @@
+package com.looksee.gcp;
+
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.ColorInfo;
+import com.google.cloud.vision.v1.EntityAnnotation;
+import com.google.cloud.vision.v1.FaceAnnotation;
+import com.google.cloud.vision.v1.LocationInfo;
+import com.google.cloud.vision.v1.SafeSearchAnnotation;
+import com.google.cloud.vision.v1.WebDetection;
+import com.google.cloud.vision.v1.WebDetection.WebImage;
+import com.google.cloud.vision.v1.WebDetection.WebLabel;
+import com.google.cloud.vision.v1.WebDetection.WebPage;
+import com.looksee.models.ColorUsageStat;
+import com.looksee.models.ImageFaceAnnotation;
+import com.looksee.models.ImageLandmarkInfo;
+import com.looksee.models.ImageSearchAnnotation;
+import com.looksee.models.Label;
+import com.looksee.models.LatLng;
+import com.looksee.models.Logo;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts the response of a single Vision API image annotation into Look-see
+ * models. Only the features that were requested are populated, the others are
+ * empty.
+ *
+ * <p>When the Vision API reported an error for the image every collection
+ * getter returns an empty collection and the single value getters return
+ * null.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: response != null</li>
+ * </ul>
+ */
+public class VisionAnnotations {
+	private final AnnotateImageResponse response;
+
+	/**
+	 * Constructs {@link VisionAnnotations}
+	 *
+	 * @param response the Vision API response for one image
+	 *
+	 * precondition: response != null
+	 */
+	public VisionAnnotations(AnnotateImageResponse response) {
+		assert response != null;
+		this.response = response;
+	}
+
+	/**
+	 * @return the Vision API response
+	 */
+	public AnnotateImageResponse getResponse() {
+		return response;
+	}
+
+	/**
+	 * @return true if the Vision API could not annotate the image
+	 */
+	public boolean hasError() {
+		return response.hasError();
+	}
+
+	/**
+	 * @return the error reported by the Vision API, or an empty string
+	 */
+	public String getErrorMessage() {
+		return response.hasError() ? response.getError().getMessage() : "";
+	}
+
+	/**
+	 * @return text detected in the image
+	 */
+	public List<String> getText() {
+		List<String> text_values = new ArrayList<>();
+		if(hasError()) {
+			return text_values;
+		}
+		for(EntityAnnotation annotation : response.getTextAnnotationsList()) {
+			text_values.add(annotation.getDescription());
+		}
+		return text_values;
+	}
+
+	/**
+	 * @return labels describing the image
+	 */
+	public Set<Label> getLabels() {
+		Set<Label> labels = new HashSet<>();
+		if(hasError()) {
+			return labels;
+		}
+		for(EntityAnnotation annotation : response.getLabelAnnotationsList()) {
+			labels.add(new Label(annotation.getDescription(), annotation.getScore()));
+		}
+		return labels;
+	}
+
+	/**
+	 * @return landmarks recognized in the image
+	 */
+	public Set<ImageLandmarkInfo> getLandmarks() {
+		Set<ImageLandmarkInfo> landmark_info_set = new HashSet<>();
+		if(hasError()) {
+			return landmark_info_set;
+		}
+		for(EntityAnnotation annotation : response.getLandmarkAnnotationsList()) {
+			Set<LatLng> locations = new HashSet<>();
+			for(LocationInfo info: annotation.getLocationsList()) {
+				locations.add(new LatLng(info.getLatLng().getLatitude(), info.getLatLng().getLongitude()));
+			}
+			landmark_info_set.add(new ImageLandmarkInfo(locations, annotation.getDescription(), annotation.getScore()));
+		}
+		return landmark_info_set;
+	}
+
+	/**
+	 * @return faces detected in the image
+	 */
+	public Set<ImageFaceAnnotation> getFaces() {
+		Set<ImageFaceAnnotation> face_annotations = new HashSet<>();
+		if(hasError()) {
+			return face_annotations;
+		}
+		for(FaceAnnotation annotation : response.getFaceAnnotationsList()) {
+			face_annotations.add(new ImageFaceAnnotation(annotation.getAngerLikelihood(),
+															annotation.getJoyLikelihood(),
+															annotation.getBlurredLikelihood(),
+															annotation.getHeadwearLikelihood(),
+															annotation.getSorrowLikelihood(),
+															annotation.getSurpriseLikelihood(),
+															annotation.getUnderExposedLikelihood(),
+															annotation.getBoundingPoly()));
+		}
+		return face_annotations;
+	}
+
+	/**
+	 * @return logos detected in the image
+	 */
+	public Set<Logo> getLogos() {
+		Set<Logo> logos = new HashSet<>();
+		if(hasError()) {
+			return logos;
+		}
+		for(EntityAnnotation annotation : response.getLogoAnnotationsList()) {
+			logos.add(new Logo(annotation.getDescription(),
+								annotation.getLocale(),
+								annotation.getScore(),
+								annotation.getBoundingPoly()));
+		}
+		return logos;
+	}
+
+	/**
+	 * @return usages of the image found on the web, or null if the image could not be annotated
+	 */
+	public ImageSearchAnnotation getImageSearch() {
+		if(hasError()) {
+			return null;
+		}
+
+		WebDetection annotation = response.getWebDetection();
+		Set<String> best_guess_labels = new HashSet<>();
+		for(WebLabel label : annotation.getBestGuessLabelsList()) {
+			best_guess_labels.add(label.getLabel());
+		}
+
+		Set<String> similar_images = new HashSet<>();
+		for(WebPage page : annotation.getPagesWithMatchingImagesList()) {
+			similar_images.add(page.getUrl());
+		}
+		for(WebImage image : annotation.getPartialMatchingImagesList()) {
+			similar_images.add(image.getUrl());
+		}
+		for(WebImage image : annotation.getVisuallySimilarImagesList()) {
+			similar_images.add(image.getUrl());
+		}
+
+		Set<String> fully_matching_images = new HashSet<>();
+		for(WebImage image : annotation.getFullMatchingImagesList()) {
+			fully_matching_images.add(image.getUrl());
+		}
+
+		return new ImageSearchAnnotation(best_guess_labels, fully_matching_images, similar_images);
+	}
+
+	/**
+	 * @return the safe search likelihoods, or null if the image could not be annotated
+	 */
+	public ImageSafeSearchAnnotation getSafeSearch() {
+		if(hasError()) {
+			return null;
+		}
+
+		SafeSearchAnnotation annotation = response.getSafeSearchAnnotation();
+		return new ImageSafeSearchAnnotation(annotation.getSpoof().name(),
+												annotation.getMedical().name(),
+												annotation.getAdult().name(),
+												annotation.getViolence().name(),
+												annotation.getRacy().name());
+	}
+
+	/**
+	 * @return the dominant colors of the image
+	 */
+	public List<ColorUsageStat> getColorUsageStats() {
+		List<ColorUsageStat> color_usage_stats = new ArrayList<>();
+		if(hasError()) {
+			return color_usage_stats;
+		}
+		for(ColorInfo color : response.getImagePropertiesAnnotation().getDominantColors().getColorsList()) {
+			color_usage_stats.add(new ColorUsageStat(color.getColor().getRed(),
+													 color.getColor().getGreen(),
+													 color.getColor().getBlue(),
+													 color.getPixelFraction(),
+													 color.getScore()));
+		}
+		return color_usage_stats;
+	}
+}
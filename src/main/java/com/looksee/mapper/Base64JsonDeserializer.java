@@ -1,38 +1,66 @@
 package com.looksee.mapper;
 
-import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.BeanProperty;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Custom JSON deserializer that handles base64 encoded JSON strings.
  * This deserializer decodes base64 strings and then deserializes them as JSON
  * into the target class type. It implements ContextualDeserializer to access
  * the target class information during deserialization.
+ *
+ * The encoded value is decoded while it is parsed, straight from the text
+ * buffer of the enclosing parser, so the payload is never copied into a
+ * String or a decoded byte array. Readers are created once per target type.
  */
 public class Base64JsonDeserializer extends JsonDeserializer<Object> implements ContextualDeserializer {
 
-    private Class<?> resultClass;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<JavaType, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private final ObjectReader reader;
 
     /**
-     * 
+     * Creates a deserializer that is configured for a property by
+     * {@link #createContextual(DeserializationContext, BeanProperty)}
+     */
+    public Base64JsonDeserializer() {
+        this.reader = null;
+    }
+
+    private Base64JsonDeserializer(ObjectReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Creates a deserializer for the type of the annotated property
+     *
+     * @param context the deserialization context
+     * @param property the property to deserialize
+     *
+     * @return the contextual deserializer
      */
     @Override
     public JsonDeserializer<?> createContextual(DeserializationContext context, BeanProperty property) throws JsonMappingException {
         assert context != null : "context must not be null";
         assert property != null : "property must not be null";
 
-        this.resultClass = property.getType().getRawClass();
-        return this;
+        return new Base64JsonDeserializer(READERS.computeIfAbsent(property.getType(), MAPPER::readerFor));
     }
 
     /**
@@ -51,24 +79,76 @@ public class Base64JsonDeserializer extends JsonDeserializer<Object> implements
     public Object deserialize(JsonParser parser, DeserializationContext context) throws IOException, JsonProcessingException {
         assert parser != null : "parser must not be null";
         assert context != null : "context must not be null";
-        String value = parser.getValueAsString();
-        Base64.Decoder decoder = Base64.getDecoder();
+        assert reader != null : "deserializer must be contextualized";
 
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            byte[] decodedValue = decoder.decode(value);
-
-            return objectMapper.readValue(decodedValue, this.resultClass);
-        } catch (IllegalArgumentException | JsonParseException e) {
+            if (parser.hasToken(JsonToken.VALUE_STRING)) {
+                //the text buffer stays valid until the enclosing parser advances
+                InputStream encoded = new CharArrayAsciiInputStream(parser.getTextCharacters(),
+                                                                     parser.getTextOffset(),
+                                                                     parser.getTextLength());
+                return reader.readValue(Base64.getDecoder().wrap(encoded));
+            }
+            return reader.readValue(Base64.getDecoder().decode(parser.getValueAsString()));
+        } catch (JsonMappingException e) {
+            throw e;
+        } catch (IOException | IllegalArgumentException e) {
             String fieldName = parser.getParsingContext().getCurrentName();
-            Class<?> wrapperClass = parser.getParsingContext().getCurrentValue().getClass();
+            Object wrapper = parser.getParsingContext().getCurrentValue();
+            Class<?> wrapperClass = wrapper != null ? wrapper.getClass() : reader.getValueType().getRawClass();
 
             throw new InvalidFormatException(
                 parser,
                 String.format("Value for '%s' is not a base64 encoded JSON", fieldName),
-                value,
+                parser.getValueAsString(),
                 wrapperClass
             );
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the characters of a base64 string as the bytes of their ASCII
+     * codes. Characters outside ASCII are passed on as an invalid byte so
+     * the decoder rejects them.
+     */
+    private static final class CharArrayAsciiInputStream extends InputStream {
+        private final char[] chars;
+        private final int end;
+        private int position;
+
+        private CharArrayAsciiInputStream(char[] chars, int offset, int length) {
+            this.chars = chars;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() {
+            return position < end ? toByte(chars[position++]) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            int count = Math.min(length, end - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) toByte(chars[position++]);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return end - position;
+        }
+
+        private static int toByte(char c) {
+            return c < 0x80 ? c : '!';
+        }
+    }
+}
@@ -420,6 +420,18 @@ public class Browser {
 		getViewportScrollOffset();
 	}
 
+	/**
+	 * Scrolls to the given position, or as close to it as the page allows.
+	 *
+	 * @param x_offset the horizontal position to scroll to
+	 * @param y_offset the vertical position to scroll to
+	 */
+	public void scrollToOffset(long x_offset, long y_offset) {
+		((JavascriptExecutor) driver)
+				.executeScript("window.scrollTo(" + x_offset + ", " + y_offset + ")");
+		getViewportScrollOffset();
+	}
+
 	/**
 	 * Scrolls down a percentage of the viewport height.
 	 *
@@ -1,14 +1,24 @@
 package com.looksee.models;
 
+import com.looksee.utils.ContrastSolver;
+import com.looksee.utils.CssColorParser;
 import java.awt.Color;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.Getter;
-import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Represents an both rgb and hsb and luminosity values.
  *
+ * <p>Hsb, luminosity and Lab values are computed the first time they are
+ * requested. Instances returned by {@link #valueOf(String)} and
+ * {@link #valueOf(int, int, int)} are shared between callers and their
+ * mutators throw {@link IllegalStateException}; use {@link #clone()} to obtain
+ * a modifiable copy.</p>
+ *
  * <p><b>Class Invariants:</b>
  * <ul>
  *   <li>invariant: red is between 0 and 255 inclusive</li>
@@ -17,14 +27,20 @@ import org.slf4j.LoggerFactory;
  *   <li>invariant: hue is between 0 and 360 inclusive</li>
  *   <li>invariant: saturation is between 0 and 100 inclusive</li>
  *   <li>invariant: brightness is between 0 and 100 inclusive</li>
+ *   <li>invariant: shared instances are never modified</li>
  * </ul>
  */
 public class ColorData extends LookseeObject{
 	@SuppressWarnings("unused")
 	private static Logger log = LoggerFactory.getLogger(ColorData.class);
 
+	/** Maximum number of shared instances kept by {@link #valueOf(String)} */
+	private static final int MAX_SHARED_COLORS = 4096;
+
+	/** Shared instances keyed by packed RGBA value */
+	private static final Map<Integer, ColorData> shared_colors = new ConcurrentHashMap<>();
+
 	@Getter
-	@Setter
 	private double usagePercent;
 
 	@Getter
@@ -37,21 +53,13 @@ public class ColorData extends LookseeObject{
 	private int blue;
 
 	@Getter
-	@Setter
 	private double transparency;
 
-	@Getter
-	private double brightness;
-
-	@Getter
-	private double hue;
-
-	@Getter
-	private double saturation;
-
-	@Getter
-	@Setter
-	private double luminosity;
+	/** Packed hue, saturation and brightness, or -1 until computed */
+	private int hsb = -1;
+	private volatile double luminosity = Double.NaN;
+	private volatile CIEColorSpace lab;
+	private boolean shared;
 	
 	/**
 	 * Constructs a new {@link ColorData}
@@ -65,39 +73,100 @@ public class ColorData extends LookseeObject{
 		assert color_string != null;
 		assert !color_string.isEmpty();
 		
-		if(color_string.startsWith("#")) {
-			Color color = Color.decode(color_string);
-			this.red = color.getRed();
-			this.green = color.getGreen();
-			this.blue = color.getBlue();
+		int rgba = CssColorParser.parse(color_string);
+		this.red = CssColorParser.red(rgba);
+		this.green = CssColorParser.green(rgba);
+		this.blue = CssColorParser.blue(rgba);
+		this.transparency = CssColorParser.alpha(rgba) / 255.0;
+	}
+
+	/**
+	 * Returns the shared instance for the given css color value
+	 *
+	 * @param color_string the color string
+	 * @return the shared, unmodifiable {@link ColorData}
+	 *
+	 * precondition: color_string != null
+	 * precondition: !color_string.isEmpty()
+	 */
+	public static ColorData valueOf(String color_string) {
+		assert color_string != null;
+		assert !color_string.isEmpty();
+		
+		return valueOf(CssColorParser.parse(color_string));
+	}
+
+	/**
+	 * Returns the shared instance of the opaque color with the given rgb values
+	 *
+	 * @param red the red value of the color
+	 * @param green the green value of the color
+	 * @param blue the blue value of the color
+	 * @return the shared, unmodifiable {@link ColorData}
+	 *
+	 * precondition: red, green and blue are between 0 and 255 inclusive
+	 */
+	public static ColorData valueOf(int red, int green, int blue) {
+		return valueOf(CssColorParser.pack(red, green, blue, 255));
+	}
+
+	/**
+	 * Returns the shared instance for a packed RGBA value. Once the cache is
+	 * full new colors are returned as unshared instances.
+	 */
+	private static ColorData valueOf(int rgba) {
+		ColorData color = shared_colors.get(rgba);
+		if(color != null) {
+			return color;
 		}
-		else {
-			//extract r,g,b,a from color_str
-			String tmp_color_str = color_string.replace(")", "");
-			tmp_color_str = tmp_color_str.replace("rgba(", "");
-			tmp_color_str = tmp_color_str.replace("rgb(", "");
-			tmp_color_str = tmp_color_str.replaceAll(" ", "");
-			String[] rgba = tmp_color_str.split(",");
-			
-			this.red = (int)Float.parseFloat(rgba[0]);
-			this.green = (int)Float.parseFloat(rgba[1]);
-			this.blue = (int)Float.parseFloat(rgba[2]);
-			if(rgba.length == 4) {
-				setTransparency(Double.parseDouble(rgba[3]));
-			}
-			else {
-				setTransparency(1);
-			}
+
+		color = new ColorData(CssColorParser.red(rgba), CssColorParser.green(rgba), CssColorParser.blue(rgba));
+		color.transparency = CssColorParser.alpha(rgba) / 255.0;
+		if(shared_colors.size() >= MAX_SHARED_COLORS) {
+			return color;
+		}
+		color.shared = true;
+		ColorData existing = shared_colors.putIfAbsent(rgba, color);
+		return existing != null ? existing : color;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalStateException if this color is shared
+	 */
+	@Override
+	public void setId(Long id) {
+		checkNotShared();
+		super.setId(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalStateException if this color is shared
+	 */
+	@Override
+	public void setKey(String key) {
+		checkNotShared();
+		super.setKey(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalStateException if this color is shared
+	 */
+	@Override
+	public void setCreatedAt(LocalDateTime created_at) {
+		checkNotShared();
+		super.setCreatedAt(created_at);
+	}
+
+	private void checkNotShared() {
+		if(shared) {
+			throw new IllegalStateException("Shared color "+rgb()+" can't be modified, modify a clone() instead");
 		}
-		
-		
-		//convert rgb to hsl, store all as Color object
-		float[] hsb = Color.RGBtoHSB(red, green, blue, null);
-		this.hue = Math.round(hsb[0]*360);
-		this.saturation = Math.round(hsb[1]*100);
-		this.brightness = Math.round(hsb[2]*100);
-		
-		this.setLuminosity(calculatePercievedLightness(red, green, blue));
 	}
 
 	/**
@@ -113,15 +182,7 @@ public class ColorData extends LookseeObject{
 		this.red = (int)color_usage_stat.getRed();
 		this.green = (int)color_usage_stat.getGreen();
 		this.blue = (int)color_usage_stat.getBlue();
-		setTransparency(Double.parseDouble("1.0"));
-	
-		//convert rgb to hsl, store all as Color object
-		float[] hsb = Color.RGBtoHSB(red, green, blue, null);
-		this.hue = Math.round(hsb[0]*360);
-		this.saturation = Math.round(hsb[1]*100);
-		this.brightness = Math.round(hsb[2]*100);
-		
-		this.setLuminosity(calculatePercievedLightness(red, green, blue));
+		this.transparency = 1.0;
 		setUsagePercent(color_usage_stat.getPixelPercent());
 	}
 
@@ -136,16 +197,106 @@ public class ColorData extends LookseeObject{
 		this.red = red;
 		this.green = green;
 		this.blue = blue;
-		
-		setTransparency(Double.parseDouble("1.0"));
+		this.transparency = 1.0;
+	}
 
-		//convert rgb to hsl, store all as Color object
-		float[] hsb = Color.RGBtoHSB(red, green, blue, null);
-		this.hue = Math.round(hsb[0]*360);
-		this.saturation = Math.round(hsb[1]*100);
-		this.brightness = Math.round(hsb[2]*100);
-		
-		this.setLuminosity(calculatePercievedLightness(red, green, blue));
+	/**
+	 * Sets the share of pixels using this color
+	 *
+	 * @param usage_percent the usage percent
+	 *
+	 * @throws IllegalStateException if this color is shared
+	 */
+	public void setUsagePercent(double usage_percent) {
+		checkNotShared();
+		this.usagePercent = usage_percent;
+	}
+
+	/**
+	 * Sets the opacity of the color
+	 *
+	 * @param transparency opacity between 0 and 1
+	 *
+	 * @throws IllegalStateException if this color is shared
+	 */
+	public void setTransparency(double transparency) {
+		checkNotShared();
+		this.transparency = transparency;
+	}
+
+	/**
+	 * Returns the WCAG relative luminance of the color
+	 *
+	 * @return the luminosity of the color
+	 */
+	public double getLuminosity() {
+		if(Double.isNaN(luminosity)) {
+			luminosity = calculatePercievedLightness(red, green, blue);
+		}
+		return luminosity;
+	}
+
+	/**
+	 * Overrides the luminosity of the color
+	 *
+	 * @param luminosity the luminosity
+	 *
+	 * @throws IllegalStateException if this color is shared
+	 */
+	public void setLuminosity(double luminosity) {
+		checkNotShared();
+		this.luminosity = luminosity;
+	}
+
+	/**
+	 * @return the hue of the color in degrees
+	 */
+	public double getHue() {
+		return computeHsb() >>> 14;
+	}
+
+	/**
+	 * @return the saturation of the color as a percentage
+	 */
+	public double getSaturation() {
+		return (computeHsb() >>> 7) & 0x7f;
+	}
+
+	/**
+	 * @return the brightness of the color as a percentage
+	 */
+	public double getBrightness() {
+		return computeHsb() & 0x7f;
+	}
+
+	/**
+	 * Returns the CIE Lab representation of the color relative to the D65
+	 * white point. The returned instance is cached and must not be modified.
+	 *
+	 * @return the Lab values of the color
+	 */
+	public CIEColorSpace lab() {
+		CIEColorSpace cached = lab;
+		if(cached == null) {
+			double[] values = ContrastSolver.toLab(red, green, blue);
+			cached = new CIEColorSpace(values[0], values[1], values[2]);
+			lab = cached;
+		}
+		return cached;
+	}
+
+	/**
+	 * Returns the hue, saturation and brightness packed as
+	 * {@code hue << 14 | saturation << 7 | brightness}, computing them on first use
+	 */
+	private int computeHsb() {
+		int packed = hsb;
+		if(packed < 0) {
+			float[] values = Color.RGBtoHSB(red, green, blue, null);
+			packed = (Math.round(values[0]*360) << 14) | (Math.round(values[1]*100) << 7) | Math.round(values[2]*100);
+			hsb = packed;
+		}
+		return packed;
 	}
 
 	/**
@@ -276,7 +427,7 @@ public class ColorData extends LookseeObject{
 	 * @return the hsb values separated by a comma
 	 */
 	public String hsb() {
-		return hue+" , "+saturation+" , "+brightness;
+		return getHue()+" , "+getSaturation()+" , "+getBrightness();
 	}
 	
 	/**
@@ -323,21 +474,20 @@ public class ColorData extends LookseeObject{
 	 *
 	 * @param background_color_data the background color data
 	 *
+	 * @throws IllegalStateException if this color is shared
+	 *
 	 * precondition: background_color_data != null
 	 */
 	public void alphaBlend(ColorData background_color_data) {
 		assert background_color_data != null;
+		checkNotShared();
 		this.red = (int) (((1 - getTransparency()) * background_color_data.getRed()) + (getTransparency() * getRed()));
 		this.green = (int) (((1 - getTransparency()) * background_color_data.getGreen()) + (getTransparency() * getGreen()));
 		this.blue = (int) (((1 - getTransparency()) * background_color_data.getBlue()) + (getTransparency() * getBlue()));
 	
-		//convert rgb to hsl, store all as Color object
-		float[] hsb = Color.RGBtoHSB(red, green, blue, null);
-		this.hue = hsb[0];
-		this.saturation = hsb[1];
-		this.brightness = hsb[2];
-		
-		this.setLuminosity(calculatePercievedLightness(red, green, blue));
+		this.hsb = -1;
+		this.luminosity = Double.NaN;
+		this.lab = null;
 	}
 
 	
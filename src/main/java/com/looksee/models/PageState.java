@@ -2,8 +2,8 @@ package com.looksee.models;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.looksee.gcp.GoogleCloudStorage;
 import com.looksee.models.enums.BrowserType;
+import com.looksee.models.enums.ScreenshotResolution;
 import com.looksee.services.BrowserService;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
@@ -13,8 +13,10 @@ import java.net.URL;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.imageio.ImageIO;
 import lombok.Getter;
@@ -22,7 +24,8 @@ import lombok.Setter;
 import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.neo4j.core.schema.CompositeProperty;
 import org.springframework.data.neo4j.core.schema.Node;
 import org.springframework.data.neo4j.core.schema.Relationship;
 import org.springframework.data.neo4j.core.schema.Relationship.Direction;
@@ -37,6 +40,16 @@ import org.springframework.data.neo4j.core.schema.Relationship.Direction;
  * - elements list is not null
  * - all elements in elements list are not null
  * - src is not null if page has content
+ * - srcKey is null or the key of the source in the {@link com.looksee.storage.PageSourceStore}
+ * - srcLength is the length in bytes of the UTF-8 encoded source
+ *
+ * The source and generalized source are stored once per distinct content in
+ * the {@link com.looksee.storage.PageSourceStore}. Nodes only hold their keys
+ * and lengths. {@link com.looksee.services.PageStateService} writes the
+ * sources to the store when a page state is saved and reads them back when it
+ * is loaded.
+ * The sources aren't serialized either, so services that exchange page states
+ * in messages must share the same store to read them.
  */
 @Getter
 @Setter
@@ -45,16 +58,27 @@ public class PageState extends LookseeObject {
 	@SuppressWarnings("unused")
 	private static Logger log = LoggerFactory.getLogger(PageState.class);
 
-	@Autowired
-	private GoogleCloudStorage googleCloudStorage;
-
 	private long auditRecordId;
+
+	@Transient
+	@JsonIgnore
 	private String src;
+	private String srcKey;
+	private long srcLength;
+
+	@Transient
+	@JsonIgnore
 	private String generalizedSrc;
+	private String generalizedSrcKey;
+	private long generalizedSrcLength;
 	private String url;
 	private String urlAfterLoading;
 	private String viewportScreenshotUrl;
 	private String fullPageScreenshotUrl;
+	private String fullPageScreenshotManifestUrl;
+
+	@CompositeProperty
+	private Map<String, String> fullPageScreenshotPyramid = new HashMap<>();
 	private String pageName;
 	private BrowserType browser;
 	private String title;
@@ -261,12 +285,47 @@ public class PageState extends LookseeObject {
 											getScriptUrls(),
 											getFaviconUrl());
 			page.setElements(elements);
+			page.setFullPageScreenshotManifestUrl(getFullPageScreenshotManifestUrl());
+			page.setFullPageScreenshotPyramid(new HashMap<>(getFullPageScreenshotPyramid()));
 			return page;
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to clone PageState", e);
 		}
 	}
 
+	/**
+	 * Returns the url of the full page screenshot at the requested resolution,
+	 * falling back to the full resolution screenshot if that level wasn't stored
+	 *
+	 * @param resolution the resolution needed by the caller
+	 * @return the url of the screenshot
+	 *
+	 * precondition: resolution != null
+	 */
+	public String getFullPageScreenshotUrl(ScreenshotResolution resolution) {
+		assert resolution != null;
+
+		String url = fullPageScreenshotPyramid != null ? fullPageScreenshotPyramid.get(resolution.getShortName()) : null;
+		return url != null ? url : getFullPageScreenshotUrl();
+	}
+
+	/**
+	 * Records the urls of a stored screenshot pyramid
+	 *
+	 * @param urls url of each level keyed by resolution
+	 *
+	 * precondition: urls != null
+	 */
+	public void setFullPageScreenshotPyramidUrls(Map<ScreenshotResolution, String> urls) {
+		assert urls != null;
+
+		Map<String, String> pyramid = new HashMap<>();
+		for(Map.Entry<ScreenshotResolution, String> entry : urls.entrySet()) {
+			pyramid.put(entry.getKey().getShortName(), entry.getValue());
+		}
+		setFullPageScreenshotPyramid(pyramid);
+	}
+
 	/**
 	 * Adds an element to the page state
 	 *
@@ -364,24 +423,4 @@ public class PageState extends LookseeObject {
 	public String toString() {
 		return "(page => { key = "+getKey()+"; url = "+getUrl();
 	}
-
-	/**
-	 * Custom getter and setter for src
-	 *
-	 * @return src
-	 */
-	public String getSrc() {
-		return googleCloudStorage.getHtmlContent(src);
-	}
-
-	/**
-	 * Custom setter for src
-	 *
-	 * @param src src
-	 * @throws IOException if the src is not found
-	 */
-	public void setSrc(String src) throws IOException {
-		String path_key = BrowserService.extractHost(this.getUrl()) + "/pages/" + getKey();
-		this.src = googleCloudStorage.uploadHtmlContent(src, path_key);
-	}
-}
\ No newline at end of file
+}
@@ -6,7 +6,7 @@ import lombok.Setter;
 
 /**
  * A simplified data set for page consisting of full page and viewport screenshots, url and the height and width
- * of the full page screenshot.
+ * of the full page screenshot. Previews show the thumbnail instead of downloading the full page screenshot.
  *
  * invariant: url != null
  * invariant: screenshotUrl != null
@@ -23,6 +23,7 @@ public class SimplePage {
 	private String url;
 	private String screenshotUrl;
 	private String fullPageScreenshotUrl;
+	private String thumbnailUrl;
 	private long width;
 	private long height;
 	private String htmlSource;
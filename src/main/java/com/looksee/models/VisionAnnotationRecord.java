@@ -0,0 +1,79 @@
+package com.looksee.models;
+
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Stores the Cloud Vision response for an image and a set of features so that
+ * repeated images aren't sent to the Vision API again. The key is derived from
+ * the image content and the requested features, never from the image url.
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: response != null</li>
+ *   <li>invariant: expiresAt != null</li>
+ * </ul>
+ */
+@Getter
+@Setter
+public class VisionAnnotationRecord extends LookseeObject {
+	private String contentKey;
+	private byte[] response;
+	private boolean failed;
+	private LocalDateTime expiresAt;
+
+	/**
+	 * Constructs a new {@link VisionAnnotationRecord}
+	 */
+	public VisionAnnotationRecord() {
+		setResponse(new byte[0]);
+		setExpiresAt(LocalDateTime.now());
+	}
+
+	/**
+	 * Constructs a new {@link VisionAnnotationRecord}
+	 *
+	 * @param content_key hash of the image content and requested features
+	 * @param response the serialized Vision API response
+	 * @param failed true if the Vision API reported an error for the image
+	 * @param expires_at time after which the record must not be used
+	 *
+	 * precondition: content_key != null
+	 * precondition: !content_key.isEmpty()
+	 * precondition: response != null
+	 * precondition: expires_at != null
+	 */
+	public VisionAnnotationRecord(String content_key, byte[] response, boolean failed, LocalDateTime expires_at) {
+		assert content_key != null;
+		assert !content_key.isEmpty();
+		assert response != null;
+		assert expires_at != null;
+
+		setContentKey(content_key);
+		setResponse(response);
+		setFailed(failed);
+		setExpiresAt(expires_at);
+		setKey(generateKey());
+	}
+
+	/**
+	 * Generates a key for the record
+	 *
+	 * @return the key for the record
+	 */
+	@Override
+	public String generateKey() {
+		return keyOf(getContentKey());
+	}
+
+	/**
+	 * Returns the key of the record for the given content key
+	 *
+	 * @param content_key hash of the image content and requested features
+	 * @return the key of the record
+	 */
+	public static String keyOf(String content_key) {
+		return "visionannotation::"+content_key;
+	}
+}
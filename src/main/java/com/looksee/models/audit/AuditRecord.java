@@ -1,6 +1,7 @@
 package com.looksee.models.audit;
 
 import com.looksee.models.LookseeObject;
+import com.looksee.models.audit.stats.ColorHistogram;
 import com.looksee.models.enums.AuditLevel;
 import com.looksee.models.enums.AuditName;
 import com.looksee.models.enums.ExecutionStatus;
@@ -12,6 +13,7 @@ import java.util.Set;
 import java.util.UUID;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.neo4j.core.schema.Node;
 
 /**
@@ -57,6 +59,12 @@ public class AuditRecord extends LookseeObject {
 	private List<String> colors;
 	private String targetUserEducation;
 
+	//sparse color histogram, only written by AuditRecordRepository queries
+	@ReadOnlyProperty
+	private int[] colorHistogramBins;
+	@ReadOnlyProperty
+	private long[] colorHistogramCounts;
+
 	
 	/**
 	 * Constructs an empty {@link AuditRecord}
@@ -256,4 +264,15 @@ public class AuditRecord extends LookseeObject {
 		
 		return true;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the color histogram stored with this record. Page records hold
+	 * the histogram of their page and domain records the sum of the histograms
+	 * of their pages.
+	 *
+	 * @return the color histogram, empty if none was stored
+	 */
+	public ColorHistogram getColorHistogram() {
+		return ColorHistogram.of(colorHistogramBins, colorHistogramCounts);
+	}
+}
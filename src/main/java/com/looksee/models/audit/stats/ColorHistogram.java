@@ -0,0 +1,332 @@
+package com.looksee.models.audit.stats;
+
+import com.looksee.models.ColorData;
+import com.looksee.models.ColorUsageStat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact, mergeable color histogram.
+ *
+ * <p>Every channel is quantized to {@value #LEVELS} evenly spaced levels
+ * (0, 17, 34, ... 255), giving {@value #BIN_COUNT} bins. Only bins with a non
+ * zero count are stored, as a sorted array of bin indexes and a parallel
+ * array of counts, which is also how histograms are persisted on
+ * {@link com.looksee.models.audit.AuditRecord audit records}. Histograms of
+ * several pages are merged by adding counts, so a domain histogram can be kept
+ * up to date as pages finish without revisiting earlier pages.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: bins are strictly increasing and between 0 and BIN_COUNT - 1</li>
+ *   <li>invariant: bins.length == counts.length</li>
+ *   <li>invariant: every count is greater than 0</li>
+ *   <li>invariant: total is the sum of counts</li>
+ * </ul>
+ */
+public final class ColorHistogram {
+	/** Number of quantization levels per channel */
+	public static final int LEVELS = 16;
+
+	/** Number of bins of the histogram */
+	public static final int BIN_COUNT = LEVELS * LEVELS * LEVELS;
+
+	private static final ColorHistogram EMPTY = new ColorHistogram(new int[0], new long[0], 0);
+
+	private final int[] bins;
+	private final long[] counts;
+	private final long total;
+
+	private ColorHistogram(int[] bins, long[] counts, long total) {
+		this.bins = bins;
+		this.counts = counts;
+		this.total = total;
+	}
+
+	/**
+	 * @return a histogram without any counts
+	 */
+	public static ColorHistogram empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Creates a histogram from persisted bins and counts. The arrays are copied.
+	 *
+	 * @param bins strictly increasing bin indexes, or null for an empty histogram
+	 * @param counts the count of every bin, or null for an empty histogram
+	 * @return the histogram
+	 * @throws IllegalArgumentException if the arrays don't describe a valid histogram
+	 */
+	public static ColorHistogram of(int[] bins, long[] counts) {
+		if(bins == null || counts == null) {
+			if(bins != null || counts != null) {
+				throw new IllegalArgumentException("Histogram bins and counts must both be present");
+			}
+			return EMPTY;
+		}
+		if(bins.length != counts.length) {
+			throw new IllegalArgumentException("Histogram has "+bins.length+" bins but "+counts.length+" counts");
+		}
+
+		long total = 0;
+		for(int idx = 0; idx < bins.length; idx++) {
+			if(bins[idx] < 0 || bins[idx] >= BIN_COUNT || (idx > 0 && bins[idx] <= bins[idx - 1])) {
+				throw new IllegalArgumentException("Histogram bins must be increasing and less than "+BIN_COUNT);
+			}
+			if(counts[idx] <= 0) {
+				throw new IllegalArgumentException("Histogram counts must be positive");
+			}
+			total += counts[idx];
+		}
+		return new ColorHistogram(bins.clone(), counts.clone(), total);
+	}
+
+	/**
+	 * Creates a histogram from color usage statistics. Percentages are
+	 * converted to counts relative to the given number of pixels.
+	 *
+	 * @param stats the color usage statistics
+	 * @param pixel_count number of pixels the percentages are relative to
+	 * @return the histogram
+	 *
+	 * precondition: stats != null
+	 * precondition: pixel_count >= 0
+	 */
+	public static ColorHistogram of(List<ColorUsageStat> stats, long pixel_count) {
+		assert stats != null;
+		assert pixel_count >= 0;
+
+		Accumulator accumulator = new Accumulator();
+		for(ColorUsageStat stat : stats) {
+			long count = Math.round(stat.getPixelPercent() * pixel_count);
+			if(count > 0) {
+				accumulator.add((int)stat.getRed(), (int)stat.getGreen(), (int)stat.getBlue(), count);
+			}
+		}
+		return accumulator.build();
+	}
+
+	/**
+	 * Quantizes a channel value to the nearest level
+	 *
+	 * @param channel channel value between 0 and 255
+	 * @return the level index between 0 and LEVELS - 1
+	 */
+	public static int quantize(int channel) {
+		return (channel * (LEVELS - 1) + 127) / 255;
+	}
+
+	/**
+	 * @param level level index between 0 and LEVELS - 1
+	 * @return the channel value the level represents
+	 */
+	public static int levelValue(int level) {
+		return level * 255 / (LEVELS - 1);
+	}
+
+	/**
+	 * Returns the bin of a color
+	 *
+	 * @param red red channel between 0 and 255
+	 * @param green green channel between 0 and 255
+	 * @param blue blue channel between 0 and 255
+	 * @return the bin index
+	 */
+	public static int binOf(int red, int green, int blue) {
+		return (quantize(red) * LEVELS + quantize(green)) * LEVELS + quantize(blue);
+	}
+
+	/**
+	 * Adds the counts of two histograms
+	 *
+	 * @param other the histogram to add
+	 * @return a new histogram holding the summed counts
+	 *
+	 * precondition: other != null
+	 */
+	public ColorHistogram merge(ColorHistogram other) {
+		assert other != null;
+
+		if(other.bins.length == 0) {
+			return this;
+		}
+		if(bins.length == 0) {
+			return other;
+		}
+
+		int[] merged_bins = new int[bins.length + other.bins.length];
+		long[] merged_counts = new long[merged_bins.length];
+		int size = 0;
+		int left = 0;
+		int right = 0;
+		while(left < bins.length || right < other.bins.length) {
+			if(right == other.bins.length || (left < bins.length && bins[left] < other.bins[right])) {
+				merged_bins[size] = bins[left];
+				merged_counts[size++] = counts[left++];
+			}
+			else if(left == bins.length || other.bins[right] < bins[left]) {
+				merged_bins[size] = other.bins[right];
+				merged_counts[size++] = other.counts[right++];
+			}
+			else {
+				merged_bins[size] = bins[left];
+				merged_counts[size++] = counts[left++] + other.counts[right++];
+			}
+		}
+		return new ColorHistogram(Arrays.copyOf(merged_bins, size), Arrays.copyOf(merged_counts, size), total + other.total);
+	}
+
+	/**
+	 * @return the number of non empty bins
+	 */
+	public int size() {
+		return bins.length;
+	}
+
+	/**
+	 * @return the sum of all counts
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return a copy of the non empty bin indexes in increasing order
+	 */
+	public int[] getBins() {
+		return bins.clone();
+	}
+
+	/**
+	 * @return a copy of the counts, parallel to {@link #getBins()}
+	 */
+	public long[] getCounts() {
+		return counts.clone();
+	}
+
+	/**
+	 * Returns the count of a color's bin
+	 *
+	 * @param red red channel between 0 and 255
+	 * @param green green channel between 0 and 255
+	 * @param blue blue channel between 0 and 255
+	 * @return the count of the bin the color falls into
+	 */
+	public long getCount(int red, int green, int blue) {
+		int idx = Arrays.binarySearch(bins, binOf(red, green, blue));
+		return idx >= 0 ? counts[idx] : 0;
+	}
+
+	/**
+	 * Converts the histogram to colors at the center of every non empty bin,
+	 * with the usage percent set to the share of the total count
+	 *
+	 * @return the colors, in bin order
+	 */
+	public List<ColorData> toColors() {
+		List<ColorData> colors = new ArrayList<>(bins.length);
+		for(int idx = 0; idx < bins.length; idx++) {
+			int bin = bins[idx];
+			ColorData color = new ColorData(levelValue(bin / (LEVELS * LEVELS)),
+											levelValue((bin / LEVELS) % LEVELS),
+											levelValue(bin % LEVELS));
+			color.setUsagePercent(counts[idx] / (double)total);
+			colors.add(color);
+		}
+		return colors;
+	}
+
+	/**
+	 * Converts the histogram to color usage statistics, with the pixel percent
+	 * set to the share of the total count
+	 *
+	 * @return the color usage statistics, in bin order
+	 */
+	public List<ColorUsageStat> toColorUsageStats() {
+		List<ColorUsageStat> stats = new ArrayList<>(bins.length);
+		for(int idx = 0; idx < bins.length; idx++) {
+			int bin = bins[idx];
+			stats.add(new ColorUsageStat(levelValue(bin / (LEVELS * LEVELS)),
+										 levelValue((bin / LEVELS) % LEVELS),
+										 levelValue(bin % LEVELS),
+										 counts[idx] / (double)total,
+										 0));
+		}
+		return stats;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(!(o instanceof ColorHistogram)) {
+			return false;
+		}
+		ColorHistogram that = (ColorHistogram)o;
+		return Arrays.equals(bins, that.bins) && Arrays.equals(counts, that.counts);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(bins) + Arrays.hashCode(counts);
+	}
+
+	/**
+	 * Counts colors into a dense array of bins. Not thread safe.
+	 */
+	public static final class Accumulator {
+		private final long[] dense = new long[BIN_COUNT];
+
+		/**
+		 * Counts one pixel
+		 *
+		 * @param rgb packed 0xRRGGBB color, higher bits are ignored
+		 */
+		public void add(int rgb) {
+			dense[binOf((rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff)]++;
+		}
+
+		/**
+		 * Counts several pixels of the same color
+		 *
+		 * @param red red channel between 0 and 255
+		 * @param green green channel between 0 and 255
+		 * @param blue blue channel between 0 and 255
+		 * @param count number of pixels
+		 *
+		 * precondition: count >= 0
+		 */
+		public void add(int red, int green, int blue, long count) {
+			assert count >= 0;
+			dense[binOf(red, green, blue)] += count;
+		}
+
+		/**
+		 * @return the histogram of the colors counted so far
+		 */
+		public ColorHistogram build() {
+			int size = 0;
+			for(long count : dense) {
+				if(count > 0) {
+					size++;
+				}
+			}
+
+			int[] bins = new int[size];
+			long[] counts = new long[size];
+			long total = 0;
+			int idx = 0;
+			for(int bin = 0; bin < BIN_COUNT; bin++) {
+				if(dense[bin] > 0) {
+					bins[idx] = bin;
+					counts[idx++] = dense[bin];
+					total += dense[bin];
+				}
+			}
+			return size == 0 ? EMPTY : new ColorHistogram(bins, counts, total);
+		}
+	}
+}
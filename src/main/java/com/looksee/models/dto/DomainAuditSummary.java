@@ -0,0 +1,33 @@
+package com.looksee.models.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Counts, progress totals and scores of the most recent audit of a domain,
+ * read with a single aggregate query instead of loading the audit records,
+ * audits and page states themselves
+ *
+ * Scores are -1 when no audit of the category has possible points. Progress
+ * values are totals over the page audit records of the domain audit.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class DomainAuditSummary {
+	private long auditRecordId;
+	private String status;
+	private String statusMessage;
+	private double dataExtractionProgress;
+	private int pageCount;
+	private int pageAuditCount;
+	private int auditedPages;
+	private double contentProgressTotal;
+	private double infoArchitectureProgressTotal;
+	private double aestheticProgressTotal;
+	private double contentScore;
+	private double infoArchitectureScore;
+	private double accessibilityScore;
+	private double aestheticsScore;
+}
@@ -1,6 +1,7 @@
 package com.looksee.models.dto;
 
 import com.looksee.models.PageState;
+import com.looksee.models.enums.ScreenshotResolution;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -17,6 +18,7 @@ public class PageStateDto {
 	private String key;
 	private String url;
 	private String type;
+	private String thumbnailUrl;
 	
 	/**
 	 * Constructor for PageStateDto
@@ -29,5 +31,6 @@ public class PageStateDto {
 
 		setKey(page.getKey());
 		setUrl(page.getUrl());
+		setThumbnailUrl(page.getFullPageScreenshotUrl(ScreenshotResolution.THUMBNAIL));
 	}
 }
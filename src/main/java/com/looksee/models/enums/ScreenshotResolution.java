@@ -0,0 +1,95 @@
+package com.looksee.models.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Defines the {@link ScreenshotResolution resolutions} stored for each full page
+ * screenshot. Consumers declare the resolution they need instead of
+ * downscaling the full screenshot themselves. Element screenshots are cropped
+ * from {@link #FULL}, page colors are extracted from {@link #HALF}, Vision
+ * annotates pages at {@link #QUARTER} and UI previews show {@link #THUMBNAIL}.
+ */
+public enum ScreenshotResolution {
+    /**
+     * The screenshot as captured.
+     */
+	FULL("full", 1, 0),
+
+    /**
+     * Half the width and height of the captured screenshot.
+     */
+	HALF("half", 2, 0),
+
+    /**
+     * A quarter of the width and height of the captured screenshot.
+     */
+	QUARTER("quarter", 4, 0),
+
+    /**
+     * A small preview scaled to a fixed width.
+     */
+	THUMBNAIL("thumbnail", 0, 320);
+	
+	private String shortName;
+	private int divisor;
+	private int maxWidth;
+
+	ScreenshotResolution(String shortName, int divisor, int maxWidth) {
+        this.shortName = shortName;
+        this.divisor = divisor;
+        this.maxWidth = maxWidth;
+    }
+
+    /**
+     * Returns the short name of the resolution.
+     * @return the short name of the resolution
+     */
+    @Override
+    public String toString() {
+        return shortName;
+    }
+
+    /**
+     * Creates a ScreenshotResolution from a string.
+     * @param value the string to create the ScreenshotResolution from
+     * @return the ScreenshotResolution
+     */
+    @JsonCreator
+    public static ScreenshotResolution create(String value) {
+        if(value == null) {
+            throw new IllegalArgumentException();
+        }
+        for(ScreenshotResolution v : values()) {
+            if(value.equalsIgnoreCase(v.getShortName())) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+
+    /**
+     * Returns the short name of the resolution.
+     * @return the short name of the resolution
+     */
+    public String getShortName() {
+        return shortName;
+    }
+
+    /**
+     * Returns the factor the full width and height are divided by, or 0 if the
+     * resolution is defined by a fixed width instead.
+     * @return the scale divisor
+     */
+    public int getDivisor() {
+        return divisor;
+    }
+
+    /**
+     * Returns the fixed width of the resolution, or 0 if the resolution is
+     * defined by a divisor instead.
+     * @return the maximum width in pixels
+     */
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+}
@@ -151,7 +151,7 @@ public interface AccountRepository extends Neo4jRepository<Account, Long> {
 	 * @param audit_record_id the id of the audit record
 	 * @return the account
 	 */
-	@Query("MATCH (account:Account)-[*]->(audit_record:AuditRecord) WHERE id(audit_record)=$audit_record_id RETURN account LIMIT 1")
+	@Query("MATCH (audit_record:AuditRecord) WHERE id(audit_record)=$audit_record_id MATCH (account:Account)-[:HAS|HAS_DOMAIN*1..3]->(audit_record) RETURN account LIMIT 1")
 	public Optional<Account> getAccount(@Param("audit_record_id") long audit_record_id);
 
 	/**
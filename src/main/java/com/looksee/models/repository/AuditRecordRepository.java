@@ -422,7 +422,7 @@ public interface AuditRecordRepository extends Neo4jRepository<AuditRecord, Long
 	 * @param audit_record_id the ID of the audit record
 	 * @return set of all associated labels
 	 */
-	@Query("MATCH (audit_record:AuditRecord) WITH audit_record WHERE id(audit_record)=$audit_record_id MATCH (audit_record)-[*]->(element:ImageElementState) MATCH (element)-[]->(label:Label) RETURN label")
+	@Query("MATCH (audit_record:AuditRecord) WITH audit_record WHERE id(audit_record)=$audit_record_id MATCH (audit_record)-[:HAS|FOR*1..2]->(:PageState)-[:HAS]->(element:ImageElementState) MATCH (element)-[]->(label:Label) RETURN label")
 	public Set<Label> getLabelsForImageElements(@Param("audit_record_id") long audit_record_id);
 
 	/**
@@ -624,4 +624,38 @@ public interface AuditRecordRepository extends Neo4jRepository<AuditRecord, Long
 	 */
 	@Query("MATCH (acct:Account)-[:HAS]->(audit_record:AuditRecord) WHERE id(acct)=$account_id RETURN audit_record")
     public List<AuditRecord> findAuditRecordByAccountId(@Param("account_id") long account_id);
+
+	/**
+	 * Stores the color histogram of a page audit record unless one was already stored.
+	 *
+	 * @param page_audit_id the ID of the page audit record
+	 * @param bins the non empty histogram bins in increasing order
+	 * @param counts the count of every bin
+	 * @return 1 if the histogram was stored, 0 if the record already had one or doesn't exist
+	 */
+	@Query("MATCH (par:PageAuditRecord) WHERE id(par)=$page_audit_id AND par.colorHistogramBins IS NULL SET par.colorHistogramBins=$bins, par.colorHistogramCounts=$counts RETURN count(par)")
+	public int setPageColorHistogram(@Param("page_audit_id") long page_audit_id,
+									@Param("bins") int[] bins,
+									@Param("counts") long[] counts);
+
+	/**
+	 * Adds a page color histogram to the histogram of the domain audit records
+	 * containing the page audit record. The domain record is locked by
+	 * incrementing its merged page count before its histogram is read, so
+	 * concurrent merges are serialized instead of overwriting each other.
+	 *
+	 * @param page_audit_id the ID of the page audit record
+	 * @param bins the non empty histogram bins in increasing order
+	 * @param counts the count of every bin
+	 */
+	@Query("MATCH (dar:DomainAuditRecord)-[:HAS]->(par:PageAuditRecord) WHERE id(par)=$page_audit_id "
+			+ "SET dar.colorHistogramPageCount = coalesce(dar.colorHistogramPageCount, 0) + 1 "
+			+ "WITH dar, coalesce(dar.colorHistogramBins, []) + $bins AS bins, coalesce(dar.colorHistogramCounts, []) + $counts AS counts "
+			+ "UNWIND range(0, size(bins) - 1) AS idx "
+			+ "WITH dar, bins[idx] AS bin, sum(counts[idx]) AS count ORDER BY bin "
+			+ "WITH dar, collect(bin) AS merged_bins, collect(count) AS merged_counts "
+			+ "SET dar.colorHistogramBins=merged_bins, dar.colorHistogramCounts=merged_counts")
+	public void mergeDomainColorHistogram(@Param("page_audit_id") long page_audit_id,
+										@Param("bins") int[] bins,
+										@Param("counts") long[] counts);
 }
@@ -365,6 +365,6 @@ public interface AuditRepository extends Neo4jRepository<Audit, Long> {
 	 * @param page_state_key the key of the page state
 	 * @return the audit if found, null otherwise
 	 */
-	@Query("MATCH (p:PageState{key:$page_state_key})-[*]->(a:Audit{subcategory:$subcategory}) RETURN a")
+	@Query("MATCH (p:PageState{key:$page_state_key})<-[:FOR]-(:PageAuditRecord)-[:HAS]->(a:Audit{subcategory:$subcategory}) RETURN a")
 	public Audit findAuditBySubCategory(@Param("subcategory") String subcategory, @Param("page_state_key") String page_state_key);
 }
@@ -193,7 +193,7 @@ public interface DomainRepository extends Neo4jRepository<Domain, Long> {
 	 * @param page_state_key the key of the page state
 	 * @return the domain
 	 */
-	@Query("MATCH (d:Domain)-[*]->(:PageState{key:$page_state_key}) RETURN d LIMIT 1")
+	@Query("MATCH (d:Domain)-[:HAS*1..2]->(:PageState{key:$page_state_key}) RETURN d LIMIT 1")
 	public Domain findByPageState(@Param("page_state_key") String page_state_key);
 
 	/**
@@ -34,7 +34,7 @@ public interface ElementRepository extends Neo4jRepository<Element, Long> {
 	 * @param key the key
 	 * @return the element
 	 */
-	@Query("MATCH (account:Account)-[*]->(e:Element{key:$key}) OPTIONAL MATCH z=(e)-->(x) WHERE id(account)=$account_id RETURN e LIMIT 1")
+	@Query("MATCH (account:Account)-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:Page)-[:HAS]->(e:Element{key:$key}) OPTIONAL MATCH z=(e)-->(x) WHERE id(account)=$account_id RETURN e LIMIT 1")
 	public Element findByKeyAndUserId(@Param("account_id") long account_id, @Param("key") String key);
 
 	/**
@@ -82,7 +82,7 @@ public interface ElementRepository extends Neo4jRepository<Element, Long> {
 	 * @param outerHtml the outer HTML
 	 * @return the element
 	 */
-	@Query("MATCH (:Account{user_id:$user_key})-[*]->(e:Element{outer_html:$outer_html}) RETURN e LIMIT 1")
+	@Query("MATCH (:Account{user_id:$user_key})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:Page)-[:HAS]->(e:Element{outer_html:$outer_html}) RETURN e LIMIT 1")
 	public Element findByOuterHtml(@Param("user_id") String user_id, @Param("outer_html") String outerHtml);
 
 	/**
@@ -91,7 +91,7 @@ public interface ElementRepository extends Neo4jRepository<Element, Long> {
 	 * @param user_id the user ID
 	 * @param element_key the element key
 	 */
-	@Query("MATCH (:Account{user_id:$user_key})-[*]->(es:Element{key:$element_key}) Match (es)-[hbm:HAS]->(b:BugMessage) DETACH DELETE b")
+	@Query("MATCH (:Account{user_id:$user_key})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:Page)-[:HAS]->(es:Element{key:$element_key}) Match (es)-[hbm:HAS]->(b:BugMessage) DETACH DELETE b")
 	public void clearBugMessages(@Param("user_id") String user_id, @Param("element_key") String element_key);
 
 	/**
@@ -101,7 +101,7 @@ public interface ElementRepository extends Neo4jRepository<Element, Long> {
 	 * @param element_key the element key
 	 * @return the child elements
 	 */
-	@Query("MATCH (:Account{user_id:$user_key})-[]-(d:Domain) MATCH (d)-[]->(page:PageVersion) MATCH (page)-[*]->(e:Element{key:$element_key}) MATCH (e)-[:HAS_CHILD]->(es:Element) RETURN es")
+	@Query("MATCH (:Account{user_id:$user_key})-[]-(d:Domain) MATCH (d)-[]->(page:PageVersion) MATCH (page)-[:HAS*1..2]->(e:Element{key:$element_key}) MATCH (e)-[:HAS_CHILD]->(es:Element) RETURN es")
 	public List<Element> getChildElementsForUser(@Param("user_id") String user_id, @Param("element_key") String element_key);
 
 	/**
@@ -132,7 +132,7 @@ public interface ElementRepository extends Neo4jRepository<Element, Long> {
 	 * @param element_key the element key
 	 * @return the parent element
 	 */
-	@Query("MATCH (:Account{user_id:$user_key})-[]->(d:Domain{url:$url}) MATCH (d)-[*]->(p:PageVersion{key:$page_state_key}) MATCH (p)-[]->(parent_elem:Element) MATCH (parent_elem)-[:HAS]->(e:Element{key:$element_key}) RETURN parent_elem LIMIT 1")
+	@Query("MATCH (:Account{user_id:$user_key})-[]->(d:Domain{url:$url}) MATCH (d)-[:HAS*1..2]->(p:PageVersion{key:$page_state_key}) MATCH (p)-[]->(parent_elem:Element) MATCH (parent_elem)-[:HAS]->(e:Element{key:$element_key}) RETURN parent_elem LIMIT 1")
 	public Element getParentElement(@Param("user_id") String user_id, @Param("url") Domain url, @Param("page_state_key") String page_state_key, @Param("element_key") String element_key);
 
 	/**
@@ -142,7 +142,7 @@ public interface ElementRepository extends Neo4jRepository<Element, Long> {
 	 * @param element_state_key the element state key
 	 * @return the parent element
 	 */
-	@Query("MATCH (p:PageVersion{key:$page_state_key})-[*]->(parent_elem:Element) MATCH (parent_elem)-[:HAS_CHILD]->(e:Element{key:$element_state_key}) RETURN parent_elem LIMIT 1")
+	@Query("MATCH (p:PageVersion{key:$page_state_key})-[:HAS*1..2]->(parent_elem:Element) MATCH (parent_elem)-[:HAS_CHILD]->(e:Element{key:$element_state_key}) RETURN parent_elem LIMIT 1")
 	public Element getParentElement(@Param("page_state_key") String page_state_key, @Param("element_state_key") String element_state_key);
 
 	/**
@@ -6,6 +6,7 @@ import com.looksee.models.ElementState;
 import com.looksee.models.rules.Rule;
 import io.github.resilience4j.retry.annotation.Retry;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.springframework.data.neo4j.repository.Neo4jRepository;
@@ -37,7 +38,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param element_key the key of the element state
 	 * @param key the key of the rule
 	 */
-	@Query("MATCH (:Account{user_id:$user_id})-[*]->(e:ElementState{key:$element_key}) MATCH (e)-[hr:HAS]->(:Rule{key:$key}) DELETE hr")
+	@Query("MATCH (:Account{user_id:$user_id})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{key:$element_key}) MATCH (e)-[hr:HAS]->(:Rule{key:$key}) DELETE hr")
 	public void removeRule(@Param("user_id") String user_id, @Param("element_key") String element_key, @Param("key") String key);
 
 	/**
@@ -47,7 +48,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param element_key the key of the element state
 	 * @return the rules
 	 */
-	@Query("MATCH (:Account{user_id:$user_id})-[*]->(e:ElementState{key:$element_key}) MATCH (e)-[hr:HAS]->(r) RETURN r")
+	@Query("MATCH (:Account{user_id:$user_id})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{key:$element_key}) MATCH (e)-[hr:HAS]->(r) RETURN r")
 	public Set<Rule> getRules(@Param("user_id") String user_id, @Param("element_key") String element_key);
 
 	/**
@@ -58,7 +59,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param rule_key the key of the rule
 	 * @return the rule
 	 */
-	@Query("MATCH (:Account{username:$username})-[*]->(e:ElementState{key:$element_key}),(r:Rule{key:$rule_key}) MERGE element=(e)-[hr:HAS]->(r) RETURN r")
+	@Query("MATCH (:Account{username:$username})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{key:$element_key}),(r:Rule{key:$rule_key}) MERGE element=(e)-[hr:HAS]->(r) RETURN r")
 	public Rule addRuleToFormElement(@Param("username") String username, @Param("element_key") String element_key, @Param("rule_key") String rule_key);
 
 	/**
@@ -69,7 +70,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param rule_key the key of the rule
 	 * @return the rule
 	 */
-	@Query("MATCH (:Account{username:$username})-[*]->(e:ElementState{key:$element_key}) MATCH (e)-[:HAS]->(r:Rule{key:$rule_key}) RETURN r LIMIT 1")
+	@Query("MATCH (:Account{username:$username})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{key:$element_key}) MATCH (e)-[:HAS]->(r:Rule{key:$rule_key}) RETURN r LIMIT 1")
 	public Rule getElementRule(@Param("username") String username, @Param("element_key") String element_key, @Param("rule_key") String rule_key);
 
 	/**
@@ -79,7 +80,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param snippet the outer HTML of the element state
 	 * @return the element state
 	 */
-	@Query("MATCH (account:Account)-[*]->(e:ElementState{outer_html:$outer_html}) WHERE id(account)=$account_id RETURN e LIMIT 1")
+	@Query("MATCH (account:Account)-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{outer_html:$outer_html}) WHERE id(account)=$account_id RETURN e LIMIT 1")
 	public ElementState findByOuterHtml(@Param("account_id") long account_id, @Param("outer_html") String snippet);
 
 	/**
@@ -88,7 +89,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param account_id the ID of the account
 	 * @param element_key the key of the element state
 	 */
-	@Query("MATCH (account:Account)-[*]->(es:ElementState{key:$element_key}) Match (es)-[:HAS]->(b:BugMessage) WHERE id(account)=$account_id DETACH DELETE b")
+	@Query("MATCH (account:Account)-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(es:ElementState{key:$element_key}) Match (es)-[:HAS]->(b:BugMessage) WHERE id(account)=$account_id DETACH DELETE b")
 	public void clearBugMessages(@Param("account_id") long account_id, @Param("element_key") String element_key);
 
 	/**
@@ -98,7 +99,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param element_key the key of the element state
 	 * @return the child elements
 	 */
-	@Query("MATCH (:Account{user_id:$user_id})-[]-(d:Domain) MATCH (d)-[]->(page:PageVersion) MATCH (page)-[*]->(e:ElementState{key:$element_key}) MATCH (e)-[:HAS_CHILD]->(es:ElementState) RETURN es")
+	@Query("MATCH (:Account{user_id:$user_id})-[:HAS|HAS_DOMAIN]->(d:Domain) MATCH (d)-[:HAS]->(page:PageVersion) MATCH (page)-[:HAS*1..2]->(e:ElementState{key:$element_key}) MATCH (e)-[:HAS_CHILD]->(es:ElementState) RETURN es")
 	public List<ElementState> getChildElementsForUser(@Param("user_id") String user_id, @Param("element_key") String element_key);
 
 	/**
@@ -129,7 +130,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param element_state_key the key of the element state
 	 * @return the parent element
 	 */
-	@Query("MATCH (:Account{user_id:$user_id})-[]->(d:Domain{url:$url}) MATCH (d)-[*]->(p:PageState{key:$page_state_key}) MATCH (p)-[]->(parent_elem:ElementState) MATCH (parent_elem)-[:HAS]->(e:ElementState{key:$element_state_key}) RETURN parent_elem LIMIT 1")
+	@Query("MATCH (:Account{user_id:$user_id})-[:HAS|HAS_DOMAIN]->(d:Domain{url:$url}) MATCH (d)-[:HAS*1..2]->(p:PageState{key:$page_state_key}) MATCH (p)-[:HAS]->(parent_elem:ElementState) MATCH (parent_elem)-[:HAS]->(e:ElementState{key:$element_state_key}) RETURN parent_elem LIMIT 1")
 	public ElementState getParentElement(@Param("user_id") String user_id, @Param("url") Domain url, @Param("page_state_key") String page_state_key, @Param("element_state_key") String element_state_key);
 
 	/**
@@ -139,7 +140,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param element_state_key the key of the element state
 	 * @return the parent element
 	 */
-	@Query("MATCH (p:PageState{key:$page_state_key})-[*]->(parent_elem:ElementState) MATCH (parent_elem)-[:HAS_CHILD]->(e:ElementState{key:$element_state_key}) RETURN parent_elem LIMIT 1")
+	@Query("MATCH (p:PageState{key:$page_state_key})-[:HAS]->(parent_elem:ElementState) MATCH (parent_elem)-[:HAS_CHILD]->(e:ElementState{key:$element_state_key}) RETURN parent_elem LIMIT 1")
 	public ElementState getParentElement(@Param("page_state_key") String page_state_key, @Param("element_state_key") String element_state_key);
 
 	/**
@@ -158,7 +159,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param element_state_key the key of the element state
 	 * @return the parent element
 	 */
-	@Query("MATCH (p:PageState{key:$page_state_key})-[*]->(parent_elem:ElementState) MATCH (parent_elem)-[:HAS_CHILD]->(e:ElementState{key:$element_state_key}) RETURN parent_elem LIMIT 1")
+	@Query("MATCH (p:PageState{key:$page_state_key})-[:HAS]->(parent_elem:ElementState) MATCH (parent_elem)-[:HAS_CHILD]->(e:ElementState{key:$element_state_key}) RETURN parent_elem LIMIT 1")
 	public ElementState findByPageStateAndChild(@Param("page_state_key") String page_state_key, @Param("element_state_key") String element_state_key);
 
 	/**
@@ -168,7 +169,7 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	 * @param xpath the xpath of the element state
 	 * @return the element state
 	 */
-	@Query("MATCH (p:PageState{key:$page_state_key})-[*]->(element:ElementState{xpath:$xpath}) RETURN element LIMIT 1")
+	@Query("MATCH (p:PageState{key:$page_state_key})-[:HAS]->(element:ElementState{xpath:$xpath}) RETURN element LIMIT 1")
 	public ElementState findByPageStateAndXpath(@Param("page_state_key") String page_state_key, @Param("xpath") String xpath);
 
 	/**
@@ -255,6 +256,26 @@ public interface ElementStateRepository extends Neo4jRepository<ElementState, Lo
 	@Query("MATCH (p:PageState) WITH p MATCH (element:ElementState) WHERE id(p)=$page_id AND id(element)=$element_id MERGE (p)-[:HAS]->(element) RETURN element LIMIT 1")
 	public ElementState addElement(@Param("page_id") long page_id, @Param("element_id") long element_id);
 
+	/**
+	 * Creates or updates the element states of a page state, in one
+	 * statement. Element states are matched by key among the element states
+	 * of the page only, since the key is derived from the markup and the same
+	 * markup on another page has its own location, size and styles. Element
+	 * states that already exist on the page take the new properties.
+	 *
+	 * @param page_state_id the ID of the page state
+	 * @param elements one map per element state with its {@code key} and its
+	 *          node {@code properties}
+	 * @return the element states, in no particular order
+	 */
+	@Query("MATCH (p:PageState) WHERE id(p)=$page_state_id "
+			+ "UNWIND $elements AS element "
+			+ "MERGE (p)-[:HAS]->(e:ElementState{key:element.key}) "
+			+ "ON CREATE SET e:LookseeObject "
+			+ "SET e += element.properties "
+			+ "RETURN e")
+	public List<ElementState> upsertAll(@Param("page_state_id") long page_state_id, @Param("elements") List<Map<String, Object>> elements);
+
 	/**
 	 * Finds an element state by its domain audit ID and key
 	 *
@@ -35,6 +35,6 @@ public interface LabelRepository extends Neo4jRepository<Label, Long> {
 	 *
 	 * precondition: audit_record_id > 0
 	 */
-	@Query("MATCH (audit_record:AuditRecord) WITH audit_record WHERE id(audit_record)=$audit_record_id MATCH (audit_record)-[*]->(element:ImageElementState) MATCH (element)-[]->(label:Label) RETURN label")
+	@Query("MATCH (audit_record:AuditRecord) WITH audit_record WHERE id(audit_record)=$audit_record_id MATCH (audit_record)-[:HAS|FOR*1..2]->(:PageState)-[:HAS]->(element:ImageElementState) MATCH (element)-[]->(label:Label) RETURN label")
 	public Set<Label> getLabelsForImageElements(@Param("audit_record_id") long audit_record_id);
 }
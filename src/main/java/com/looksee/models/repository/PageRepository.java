@@ -25,7 +25,7 @@ public interface PageRepository extends Neo4jRepository<Page, Long> {
 	 * @return the page if found
 	 */
 	@Deprecated
-	@Query("MATCH(:Account{user_id:{user_id}})-[*]->(p:Page{key:{page_key}}) RETURN p LIMIT 1")
+	@Query("MATCH(:Account{user_id:{user_id}})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS]->(p:Page{key:{page_key}}) RETURN p LIMIT 1")
 	public Page findByKeyAndUser(@Param("user_id") String user_id, @Param("page_key") String key);
 	
 	/**
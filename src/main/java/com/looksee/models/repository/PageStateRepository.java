@@ -28,7 +28,7 @@ public interface PageStateRepository extends Neo4jRepository<PageState, Long> {
 	 * @param key the key of the page state
 	 * @return the page state
 	 */
-	@Query("MATCH (:Account{username:$user_id})-[*]->(p:PageState{key:$key}) RETURN p LIMIT 1")
+	@Query("MATCH (:Account{username:$user_id})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(p:PageState{key:$key}) RETURN p LIMIT 1")
 	public PageState findByKeyAndUsername(@Param("user_id") String user_id, @Param("key") String key);
 
 	/**
@@ -66,7 +66,7 @@ public interface PageStateRepository extends Neo4jRepository<PageState, Long> {
 	 * @param page_key the key of the page state
 	 * @return the screenshots
 	 */
-	@Query("MATCH (:Account{username:$user_id})-[*]->(p:PageState{key:$page_key}) MATCH (p)-[h:HAS]->(s:Screenshot) RETURN s")
+	@Query("MATCH (:Account{username:$user_id})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(p:PageState{key:$page_key}) MATCH (p)-[h:HAS]->(s:Screenshot) RETURN s")
 	public List<Screenshot> getScreenshots(@Param("user_id") String user_id, @Param("page_key") String page_key);
 
 	/**
@@ -76,7 +76,7 @@ public interface PageStateRepository extends Neo4jRepository<PageState, Long> {
 	 * @param screenshot_checksum the checksum of the animated image
 	 * @return the page state
 	 */
-	@Query("MATCH (:Account{username:$user_id})-[*]->(p:PageState{key:$page_key}) WHERE $screenshot_checksum IN p.animated_image_checksums RETURN p LIMIT 1")
+	@Query("MATCH (:Account{username:$user_id})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(p:PageState) WHERE $screenshot_checksum IN p.animated_image_checksums RETURN p LIMIT 1")
 	public PageState findByAnimationImageChecksum(@Param("user_id") String user_id, @Param("screenshot_checksum") String screenshot_checksum);
 
 	/**
@@ -116,7 +116,7 @@ public interface PageStateRepository extends Neo4jRepository<PageState, Long> {
 	 * @param page_state_key the key of the page state
 	 * @return the audit
 	 */
-	@Query("MATCH (p:PageState{key:$page_state_key})-[*]->(a:Audit{subcategory:$subcategory}) RETURN a")
+	@Query("MATCH (p:PageState{key:$page_state_key})<-[:FOR]-(:PageAuditRecord)-[:HAS]->(a:Audit{subcategory:$subcategory}) RETURN a")
 	public Audit findAuditBySubCategory(@Param("subcategory") String subcategory, @Param("page_state_key") String page_state_key);
 	
 	/**
@@ -46,7 +46,7 @@ public interface RuleRepository extends Neo4jRepository<Rule, Long> {
 	 * precondition: element_key != null
 	 * precondition: !element_key.isEmpty()
 	 */
-	@Query("MATCH (:Account{user_id:$user_id})-[*]->(e:ElementState{key:$element_key}) MATCH (e)-[hr:HAS]->(r) RETURN r")
+	@Query("MATCH (:Account{user_id:$user_id})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{key:$element_key}) MATCH (e)-[hr:HAS]->(r) RETURN r")
 	public Set<Rule> getRules(@Param("user_id") String user_id, @Param("element_key") String element_key);
 
 	/**
@@ -64,7 +64,7 @@ public interface RuleRepository extends Neo4jRepository<Rule, Long> {
 	 * precondition: rule_key != null
 	 * precondition: !rule_key.isEmpty()
 	 */
-	@Query("MATCH (:Account{username:$username})-[*]->(e:ElementState{key:$element_key}),(r:Rule{key:$rule_key}) MERGE element=(e)-[hr:HAS]->(r) RETURN r")
+	@Query("MATCH (:Account{username:$username})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{key:$element_key}),(r:Rule{key:$rule_key}) MERGE element=(e)-[hr:HAS]->(r) RETURN r")
 	public Rule addRuleToFormElement(@Param("username") String username, @Param("element_key") String element_key, @Param("rule_key") String rule_key);
 
 	/**
@@ -82,6 +82,6 @@ public interface RuleRepository extends Neo4jRepository<Rule, Long> {
 	 * precondition: rule_key != null
 	 * precondition: !rule_key.isEmpty()
 	 */
-	@Query("MATCH (:Account{username:$username})-[*]->(e:ElementState{key:$element_key}) MATCH (e)-[:HAS]->(r:Rule{key:$rule_key}) RETURN r LIMIT 1")
+	@Query("MATCH (:Account{username:$username})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(:PageState)-[:HAS]->(e:ElementState{key:$element_key}) MATCH (e)-[:HAS]->(r:Rule{key:$rule_key}) RETURN r LIMIT 1")
 	public Rule getElementRule(@Param("username") String username, @Param("element_key") String element_key, @Param("rule_key") String rule_key);
 }
@@ -26,6 +26,6 @@ public interface ScreenshotRepository extends Neo4jRepository<Screenshot, Long>
 	 * @param page_key the key of the page state
 	 * @return the screenshots
 	 */
-	@Query("MATCH (:Account{username:$user_id})-[*]->(p:PageState{key:$page_key}) MATCH (p)-[h:HAS]->(s:Screenshot) RETURN s")
+	@Query("MATCH (:Account{username:$user_id})-[:HAS|HAS_DOMAIN]->(:Domain)-[:HAS*1..2]->(p:PageState{key:$page_key}) MATCH (p)-[h:HAS]->(s:Screenshot) RETURN s")
 	public List<Screenshot> getScreenshots(@Param("user_id") String user_id, @Param("page_key") String page_key);
 }
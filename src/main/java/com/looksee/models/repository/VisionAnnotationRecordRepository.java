@@ -0,0 +1,58 @@
+package com.looksee.models.repository;
+
+import com.looksee.models.VisionAnnotationRecord;
+import io.github.resilience4j.retry.annotation.Retry;
+import java.time.LocalDateTime;
+import org.springframework.data.neo4j.repository.Neo4jRepository;
+import org.springframework.data.neo4j.repository.query.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for {@link VisionAnnotationRecord}s
+ */
+@Repository
+@Retry(name = "neoforj")
+public interface VisionAnnotationRecordRepository extends Neo4jRepository<VisionAnnotationRecord, Long> {
+
+	/**
+	 * Finds a record that hasn't expired yet
+	 *
+	 * @param key the key of the record
+	 * @param now the current time
+	 * @return the record, or null if there is no unexpired record
+	 *
+	 * precondition: key != null
+	 * precondition: now != null
+	 */
+	@Query("MATCH (r:VisionAnnotationRecord{key:$key}) WHERE r.expiresAt > $now RETURN r LIMIT 1")
+	public VisionAnnotationRecord findUnexpiredByKey(@Param("key") String key, @Param("now") LocalDateTime now);
+
+	/**
+	 * Creates or replaces the record with the given key
+	 *
+	 * @param key the key of the record
+	 * @param content_key hash of the image content and requested features
+	 * @param response the serialized Vision API response
+	 * @param failed true if the Vision API reported an error for the image
+	 * @param created_at the current time
+	 * @param expires_at time after which the record must not be used
+	 * @return 1 once the record is stored
+	 */
+	@Query("MERGE (r:VisionAnnotationRecord{key:$key}) SET r.contentKey=$content_key, r.response=$response, r.failed=$failed, r.createdAt=$created_at, r.expiresAt=$expires_at RETURN count(r)")
+	public int upsert(@Param("key") String key,
+					@Param("content_key") String content_key,
+					@Param("response") byte[] response,
+					@Param("failed") boolean failed,
+					@Param("created_at") LocalDateTime created_at,
+					@Param("expires_at") LocalDateTime expires_at);
+
+	/**
+	 * Deletes records that expired before the given time
+	 *
+	 * @param now the current time
+	 * @return the number of deleted records
+	 */
+	@Query("MATCH (r:VisionAnnotationRecord) WHERE r.expiresAt <= $now WITH r LIMIT 10000 DELETE r RETURN count(r)")
+	public int deleteExpired(@Param("now") LocalDateTime now);
+}
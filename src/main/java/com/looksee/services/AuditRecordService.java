@@ -1,13 +1,16 @@
 package com.looksee.services;
 
 import com.looksee.models.Account;
+import com.looksee.models.ElementState;
 import com.looksee.models.Label;
 import com.looksee.models.PageState;
+import com.looksee.models.PaletteColor;
 import com.looksee.models.audit.Audit;
 import com.looksee.models.audit.AuditRecord;
 import com.looksee.models.audit.DomainAuditRecord;
 import com.looksee.models.audit.PageAuditRecord;
 import com.looksee.models.audit.messages.UXIssueMessage;
+import com.looksee.models.audit.stats.ColorHistogram;
 import com.looksee.models.designsystem.DesignSystem;
 import com.looksee.models.dto.AuditRecordDto;
 import com.looksee.models.enums.AuditCategory;
@@ -17,7 +20,9 @@ import com.looksee.models.repository.AccountRepository;
 import com.looksee.models.repository.AuditRecordRepository;
 import com.looksee.models.repository.AuditRepository;
 import com.looksee.utils.AuditUtils;
+import com.looksee.utils.ColorUtils;
 import io.github.resilience4j.retry.annotation.Retry;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -117,6 +122,90 @@ public class AuditRecordService {
 		return audit_record_repo.findByKey(key);
 	}
 
+	/**
+	 * Stores the color histogram of a page audit record and adds it to the
+	 * histogram of its domain audit record. A page contributes to the domain
+	 * histogram only once, repeated calls for the same page are ignored.
+	 *
+	 * @param page_audit_id the id of the page audit record
+	 * @param histogram the color histogram of the page
+	 * @return true if the histogram was stored, false if the page already had one
+	 *
+	 * precondition: page_audit_id > 0
+	 * precondition: histogram != null
+	 */
+	public boolean addColorHistogram(long page_audit_id, ColorHistogram histogram) {
+		assert page_audit_id > 0;
+		assert histogram != null;
+
+		int[] bins = histogram.getBins();
+		long[] counts = histogram.getCounts();
+		if(audit_record_repo.setPageColorHistogram(page_audit_id, bins, counts) == 0) {
+			return false;
+		}
+		if(histogram.size() > 0) {
+			audit_record_repo.mergeDomainColorHistogram(page_audit_id, bins, counts);
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the colors of a page screenshot, ignoring image elements, and
+	 * stores the histogram with the page audit record and its domain audit
+	 * record. See {@link #addColorHistogram(long, ColorHistogram)}.
+	 *
+	 * @param page_audit_id the id of the page audit record
+	 * @param page_state the audited page
+	 * @param elements the elements of the page
+	 * @return true if the histogram was stored, false if the page already had one
+	 * @throws IOException if the screenshot can't be read
+	 *
+	 * precondition: page_audit_id > 0
+	 * precondition: page_state != null
+	 * precondition: elements != null
+	 */
+	public boolean addColorHistogram(long page_audit_id,
+									 PageState page_state,
+									 List<ElementState> elements) throws IOException {
+		assert page_audit_id > 0;
+		assert page_state != null;
+		assert elements != null;
+
+		return addColorHistogram(page_audit_id, ColorUtils.extractColorHistogram(page_state, elements));
+	}
+
+	/**
+	 * Retrieves the color histogram of an audit record. For domain audit
+	 * records this is the sum of the histograms of all pages added so far, so
+	 * domain palettes can be built without loading page audits or screenshots.
+	 *
+	 * @param audit_record_id the id of the audit record
+	 * @return the color histogram, empty if the record has none
+	 *
+	 * precondition: audit_record_id > 0
+	 */
+	public ColorHistogram getColorHistogram(long audit_record_id) {
+		assert audit_record_id > 0;
+
+		return findById(audit_record_id).map(AuditRecord::getColorHistogram)
+										.orElse(ColorHistogram.empty());
+	}
+
+	/**
+	 * Builds the color palette of an audit record from its stored color
+	 * histogram, without loading page audits or screenshots
+	 *
+	 * @param audit_record_id the id of the audit record
+	 * @return the palette colors, empty if the record has no histogram
+	 *
+	 * precondition: audit_record_id > 0
+	 */
+	public List<PaletteColor> getColorPalette(long audit_record_id) {
+		assert audit_record_id > 0;
+
+		return AuditUtils.extractPalette(getColorHistogram(audit_record_id).toColors());
+	}
+
 	/**
 	 * Find all audit records
 	 *
@@ -14,6 +14,7 @@ import org.apache.commons.collections4.IterableUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
 import com.looksee.models.ElementState;
@@ -29,6 +30,7 @@ import com.looksee.models.enums.AuditName;
 import com.looksee.models.enums.AuditSubcategory;
 import com.looksee.models.enums.JourneyStatus;
 import com.looksee.models.enums.ObservationType;
+import com.looksee.models.enums.ScreenshotResolution;
 import com.looksee.models.repository.AuditRepository;
 import com.looksee.models.repository.JourneyRepository;
 
@@ -45,6 +47,16 @@ public class AuditService {
 	@SuppressWarnings("unused")
 	private static Logger log = LoggerFactory.getLogger(AuditService.class);
 
+	/**
+	 * Reads the issue messages of a set of audits that didn't get full points
+	 * together with the element each one is for, as distinct rows of
+	 * {@code issue_key}, {@code element_key} and {@code type}
+	 */
+	static final String ISSUE_ELEMENT_PAIRS = "MATCH (audit:Audit)-[:HAS]-(issue:UXIssueMessage) "
+			+ "WHERE id(audit) IN $audit_ids AND coalesce(issue.points, 0) <> coalesce(issue.maxPoints, 0) "
+			+ "MATCH (issue)-[:FOR]->(element:ElementState) "
+			+ "RETURN DISTINCT issue.key AS issue_key, element.key AS element_key, issue.type AS type";
+
 	@Autowired
 	private AuditRepository audit_repo;
 	
@@ -57,6 +69,9 @@ public class AuditService {
 	@Autowired
 	private JourneyRepository journey_repo;
 
+	@Autowired
+	private Neo4jClient neo4j_client;
+
 	/**
 	 * Saves an audit
 	 *
@@ -199,6 +214,7 @@ public class AuditService {
 											page_state.getSrc(),
 											page_state.getKey(),
 											page_state.getId());
+			simple_page.setThumbnailUrl(page_state.getFullPageScreenshotUrl(ScreenshotResolution.THUMBNAIL));
 			PageStateAudits page_state_audits = new PageStateAudits(simple_page, audit_url_map.get(url));
 			page_audits.add( page_state_audits ) ;
 		}
@@ -219,33 +235,7 @@ public class AuditService {
 	public Map<String, Set<String>> generateElementIssuesMap(Set<Audit> audits)  {
 		assert audits != null;
 
-		Map<String, Set<String>> element_issues = new HashMap<>();
-				
-		for(Audit audit : audits) {
-			Set<UXIssueMessage> issues = getIssues(audit.getId());
-
-			for(UXIssueMessage issue_msg : issues ) {
-				
-				ElementState element = ux_issue_service.getElement(issue_msg.getId());
-				if(element == null) {
-					continue;
-				}
-				
-				//associate issue with element
-				if(!element_issues.containsKey(element.getKey())) {	
-					Set<String> issue_keys = new HashSet<>();
-					issue_keys.add(issue_msg.getKey());
-					
-					element_issues.put(element.getKey(), issue_keys);
-				}
-				else {
-					element_issues.get(element.getKey()).add(issue_msg.getKey());
-				}
-
-			}
-		}
-
-		return element_issues;
+		return elementIssuesMap(findIssueElementPairs(audits));
 	}
 	
 	/**
@@ -260,33 +250,81 @@ public class AuditService {
 	public Map<String, String> generateIssueElementMap(Set<Audit> audits)  {
 		assert audits != null;
 
-		Map<String, String> issue_element_map = new HashMap<>();
-				
-		for(Audit audit : audits) {	
-			Set<UXIssueMessage> issues = getIssues(audit.getId());
-
-			for(UXIssueMessage issue_msg : issues ) {
-				if(issue_msg.getType().equals(ObservationType.COLOR_CONTRAST) ||
-						issue_msg.getType().equals(ObservationType.ELEMENT) ) {
-					ElementState element = ux_issue_service.getElement(issue_msg.getId());
-					if(element == null) {
-						log.warn("element issue map:: element is null for issue msg ... "+issue_msg.getId());
-						continue;
-					}
-					
-					//associate issue with element
-					issue_element_map.put(issue_msg.getKey(), element.getKey());
-				}
-				else {
-					// DO NOTHING FOR NOW
-				}
-			
+		return issueElementMap(findIssueElementPairs(audits));
+	}
+
+	/**
+	 * Reads the issue and element keys of a set of audits with a single query
+	 *
+	 * @param audits the {@link Set} of {@link Audit}s
+	 * @return rows of {@link #ISSUE_ELEMENT_PAIRS}
+	 *
+	 * precondition: audits != null
+	 */
+	Collection<Map<String, Object>> findIssueElementPairs(Set<Audit> audits) {
+		assert audits != null;
+
+		List<Long> audit_ids = new ArrayList<>(audits.size());
+		for(Audit audit : audits) {
+			if(audit.getId() != null) {
+				audit_ids.add(audit.getId());
 			}
 		}
+		if(audit_ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		return neo4j_client.query(ISSUE_ELEMENT_PAIRS)
+							.bind(audit_ids).to("audit_ids")
+							.fetch()
+							.all();
+	}
 
+	/**
+	 * Groups the issue keys of rows of {@link #ISSUE_ELEMENT_PAIRS} by element key
+	 *
+	 * @param rows the rows
+	 * @return issue keys by element key
+	 *
+	 * precondition: rows != null
+	 */
+	static Map<String, Set<String>> elementIssuesMap(Collection<Map<String, Object>> rows) {
+		assert rows != null;
+
+		Map<String, Set<String>> element_issues = new HashMap<>(capacity(rows.size()));
+		for(Map<String, Object> row : rows) {
+			element_issues.computeIfAbsent((String)row.get("element_key"), key -> new HashSet<>(4))
+							.add((String)row.get("issue_key"));
+		}
+		return element_issues;
+	}
+
+	/**
+	 * Maps the issue keys of rows of {@link #ISSUE_ELEMENT_PAIRS} for element and
+	 * color contrast issues to their element key
+	 *
+	 * @param rows the rows
+	 * @return element key by issue key
+	 *
+	 * precondition: rows != null
+	 */
+	static Map<String, String> issueElementMap(Collection<Map<String, Object>> rows) {
+		assert rows != null;
+
+		Map<String, String> issue_element_map = new HashMap<>(capacity(rows.size()));
+		for(Map<String, Object> row : rows) {
+			ObservationType type = ObservationType.create((String)row.get("type"));
+			if(ObservationType.COLOR_CONTRAST.equals(type) || ObservationType.ELEMENT.equals(type)) {
+				issue_element_map.put((String)row.get("issue_key"), (String)row.get("element_key"));
+			}
+		}
 		return issue_element_map;
 	}
 
+	private static int capacity(int size) {
+		return (int)(size / 0.75f) + 1;
+	}
+
 	/**
 	 * Add an issue message to an audit
 	 *
@@ -1,12 +1,16 @@
 package com.looksee.services;
 
 import com.google.cloud.storage.StorageException;
+import com.google.cloud.vision.v1.Feature;
 import com.looksee.browsing.form.ElementRuleExtractor;
 import com.looksee.browsing.helpers.BrowserConnectionHelper;
 import com.looksee.exceptions.ServiceUnavailableException;
-import com.looksee.gcp.CloudVisionUtils;
 import com.looksee.gcp.GoogleCloudStorage;
 import com.looksee.gcp.ImageSafeSearchAnnotation;
+import com.looksee.gcp.PendingUpload;
+import com.looksee.gcp.TiledImageUpload;
+import com.looksee.gcp.VisionAnnotationService;
+import com.looksee.gcp.VisionAnnotations;
 import com.looksee.models.Browser;
 import com.looksee.models.Domain;
 import com.looksee.utils.CssUtils;
@@ -25,26 +29,40 @@ import com.looksee.models.PageState;
 import com.looksee.models.Template;
 import com.looksee.models.enums.BrowserEnvironment;
 import com.looksee.models.enums.BrowserType;
+import com.looksee.models.enums.ScreenshotResolution;
 import com.looksee.models.enums.ElementClassification;
 import com.looksee.models.enums.TemplateType;
 import com.looksee.utils.BrowserUtils;
+import com.looksee.utils.BufferedImageRegionReader;
 import com.looksee.utils.ElementStateUtils;
+import com.looksee.utils.ImageRegionReader;
 import com.looksee.utils.ImageUtils;
+import com.looksee.utils.TiledCompositeRenderer;
+import com.looksee.utils.ViewportCaptures;
 import cz.vutbr.web.css.RuleSet;
 import io.github.resilience4j.retry.annotation.Retry;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -89,7 +107,19 @@ import us.codecraft.xsoup.Xsoup;
 @ConditionalOnBean(GoogleCloudStorage.class)
 public class BrowserService {
 	private static Logger log = LoggerFactory.getLogger(BrowserService.class);
+
+	/** Vision features requested for image elements */
+	private static final Feature.Type[] IMAGE_ELEMENT_FEATURES = {
+		Feature.Type.LABEL_DETECTION,
+		Feature.Type.WEB_DETECTION,
+		Feature.Type.SAFE_SEARCH_DETECTION
+	};
 	
+	/** Number of threads image element screenshots are downloaded on */
+	public static final int IMAGE_DOWNLOAD_THREADS = 8;
+
+	private static final ThreadPoolExecutor image_download_executor = createImageDownloadExecutor();
+
 	private static String[] valid_xpath_attributes = {"class", "id", "name", "title"};
 
 	@Autowired
@@ -100,6 +130,12 @@ public class BrowserService {
 	
 	@Autowired
 	private GoogleCloudStorage googleCloudStorage;
+
+	/** Screenshot uploads of built page states that are running or failed and haven't been awaited */
+	private final Map<PageState, CompletableFuture<Void>> screenshot_uploads = Collections.synchronizedMap(new IdentityHashMap<>());
+
+	@Autowired
+	private VisionAnnotationService vision_service;
 	
 	@Autowired
 	private PageService page_service;
@@ -412,25 +448,33 @@ public class BrowserService {
 
 		BufferedImage viewport_screenshot = browser.getViewportScreenshot();
 		String screenshot_checksum = ImageUtils.getChecksum(viewport_screenshot);
-		String viewport_screenshot_url = googleCloudStorage.saveImage(viewport_screenshot,
+		//upload the viewport screenshot while the full page screenshot is taken
+		PendingUpload<String> viewport_screenshot_upload = googleCloudStorage.saveImageAsync(viewport_screenshot,
 																		current_url.getHost(),
 																		screenshot_checksum,
 																		BrowserType.create(browser.getBrowserName()));
-		viewport_screenshot.flush();
 		
 		BufferedImage full_page_screenshot = browser.getFullPageScreenshotShutterbug();
 		String full_page_screenshot_checksum = ImageUtils.getChecksum(full_page_screenshot);
-		String full_page_screenshot_url = googleCloudStorage.saveImage(full_page_screenshot,
+		PendingUpload<Map<ScreenshotResolution, String>> full_page_screenshot_upload = googleCloudStorage.saveImagePyramidAsync(full_page_screenshot,
 																		current_url.getHost(),
 																		full_page_screenshot_checksum,
 																		BrowserType.create(browser.getBrowserName()));
-		full_page_screenshot.flush();
+		PendingUpload<String> full_page_tiles_upload = saveTiledScreenshot(browser,
+																		full_page_screenshot.getWidth(),
+																		full_page_screenshot.getHeight(),
+																		current_url.getHost(),
+																		full_page_screenshot_checksum);
+		Map<ScreenshotResolution, String> full_page_screenshot_urls = full_page_screenshot_upload.getLocation();
+		String full_page_screenshot_url = full_page_screenshot_urls.get(ScreenshotResolution.FULL);
+		String full_page_manifest_url = full_page_tiles_upload.getLocation();
+		String viewport_screenshot_url = viewport_screenshot_upload.getLocation();
 		
 		long x_offset = browser.getXScrollOffset();
 		long y_offset = browser.getYScrollOffset();
 		Dimension size = browser.getDriver().manage().window().getSize();
 		
-		return new PageState(viewport_screenshot_url,
+		PageState page_state = new PageState(viewport_screenshot_url,
 							source,
 							x_offset,
 							y_offset,
@@ -450,6 +494,154 @@ public class BrowserService {
 							stylesheets,
 							script_urls,
 							fav_icon_links);
+		page_state.setFullPageScreenshotManifestUrl(full_page_manifest_url);
+		page_state.setFullPageScreenshotPyramidUrls(full_page_screenshot_urls);
+		trackScreenshotUploads(page_state,
+							   viewport_screenshot_upload,
+							   full_page_screenshot_upload,
+							   full_page_tiles_upload);
+		return page_state;
+	}
+
+	/**
+	 * Waits until the screenshots of a page state built by this service are
+	 * stored. Page states are built before their screenshots finish uploading,
+	 * so callers wait here, with the instance returned by buildPageState, before
+	 * saving the page state or handing its screenshot URLs to another service.
+	 * A failed upload is kept until it is awaited here and rethrown.
+	 *
+	 * @param page_state the page state
+	 * @throws IOException if a screenshot upload failed
+	 *
+	 * precondition: page_state != null
+	 */
+	public void awaitScreenshotUploads(PageState page_state) throws IOException {
+		assert page_state != null;
+
+		CompletableFuture<Void> uploads = screenshot_uploads.get(page_state);
+		if(uploads == null) {
+			return;
+		}
+		try {
+			GoogleCloudStorage.awaitUpload(uploads);
+		}
+		finally {
+			screenshot_uploads.remove(page_state, uploads);
+		}
+	}
+
+	/**
+	 * Opens the full page screenshot of a page state for region reads. Tiled
+	 * screenshots are read one tile at a time; page states stored before
+	 * screenshots were tiled fall back to decoding the whole screenshot.
+	 *
+	 * @param page_state the page state
+	 * @return reader for the full page screenshot
+	 * @throws IOException if the screenshot can't be read
+	 *
+	 * precondition: page_state != null
+	 */
+	public ImageRegionReader openFullPageScreenshot(PageState page_state) throws IOException {
+		assert page_state != null;
+
+		awaitScreenshotUploads(page_state);
+		if(page_state.getFullPageScreenshotManifestUrl() != null) {
+			return googleCloudStorage.getTiledImage(page_state.getFullPageScreenshotManifestUrl());
+		}
+		return new BufferedImageRegionReader(ImageIO.read(new URL(page_state.getFullPageScreenshotUrl())));
+	}
+
+	/**
+	 * Keeps the uploads of a page state's screenshots so
+	 * {@link #awaitScreenshotUploads(PageState)} can wait for them
+	 */
+	private void trackScreenshotUploads(PageState page_state, PendingUpload<?>... uploads) {
+		CompletableFuture<?>[] completions = new CompletableFuture<?>[uploads.length];
+		for(int index = 0; index < uploads.length; index++) {
+			completions[index] = uploads[index].getCompletion();
+		}
+		trackScreenshotUploads(page_state, completions);
+	}
+
+	/**
+	 * Stores the full page as a tiled image rendered from viewport captures
+	 * taken while scrolling down the page, so the tiles are never cut from a
+	 * full page image. The scroll position is restored afterwards.
+	 *
+	 * @param browser the browser showing the page
+	 * @param page_width width of the full page
+	 * @param page_height height of the full page
+	 * @param host host of the page
+	 * @param checksum checksum of the full page screenshot, which names the tiled image
+	 * @return the upload, located at the URL of the manifest
+	 * @throws IOException if the viewport can't be captured or a tile can't be encoded
+	 *
+	 * precondition: browser != null
+	 * precondition: page_width > 0
+	 * precondition: page_height > 0
+	 * precondition: host != null
+	 * precondition: checksum != null
+	 */
+	private PendingUpload<String> saveTiledScreenshot(Browser browser,
+													  int page_width,
+													  int page_height,
+													  String host,
+													  String checksum) throws IOException
+	{
+		assert browser != null;
+		assert page_width > 0;
+		assert page_height > 0;
+		assert host != null;
+		assert checksum != null;
+
+		TiledImageUpload tiles_upload = googleCloudStorage.startTiledImage(page_width,
+																		   page_height,
+																		   host,
+																		   checksum,
+																		   BrowserType.create(browser.getBrowserName()));
+		if(!tiles_upload.isAlreadyStored()) {
+			long x_offset = browser.getXScrollOffset();
+			long y_offset = browser.getYScrollOffset();
+			try {
+				ViewportCaptures captures = new ViewportCaptures(page_height, offset -> {
+					browser.scrollToOffset(0, offset);
+					return browser.getViewportScreenshot();
+				});
+				new TiledCompositeRenderer().render(captures, Collections.emptyList(), page_width, page_height, tiles_upload);
+			}
+			finally {
+				browser.scrollToOffset(x_offset, y_offset);
+			}
+		}
+		return tiles_upload.finish();
+	}
+
+	/**
+	 * Keeps the uploads of a page state's screenshots, keyed by the page state
+	 * instance since identical pages share content addressed screenshot URLs.
+	 * Uploads that succeed are dropped once they complete. Failed uploads are
+	 * kept until {@link #awaitScreenshotUploads(PageState)} rethrows them.
+	 *
+	 * @param page_state the page state the screenshots belong to
+	 * @param completions completions of the uploads
+	 *
+	 * precondition: page_state != null
+	 * precondition: completions != null
+	 */
+	void trackScreenshotUploads(PageState page_state, CompletableFuture<?>... completions) {
+		assert page_state != null;
+		assert completions != null;
+
+		CompletableFuture<Void> all = CompletableFuture.allOf(completions);
+		screenshot_uploads.put(page_state, all);
+		all.whenComplete((ignored, error) -> {
+			if(error == null) {
+				screenshot_uploads.remove(page_state, all);
+			}
+			else {
+				log.error("Screenshot upload for {} failed : {}", page_state.getUrl(), error.getMessage());
+			}
+		});
 	}
 	
 	/**
@@ -480,7 +672,7 @@ public class BrowserService {
 		
 		List<ElementState> visited_elements = new ArrayList<>();
 		String body_src = extractBody(page_state.getSrc());
-		BufferedImage full_page_screenshot = ImageIO.read(new URL(page_state.getFullPageScreenshotUrl()));
+		ImageRegionReader full_page_screenshot = openFullPageScreenshot(page_state);
 
 		Document html_doc = Jsoup.parse(body_src);
 		String host = (new URL(browser.getDriver().getCurrentUrl())).getHost();
@@ -1964,7 +2156,7 @@ public class BrowserService {
 		assert browser != null;
 		assert host != null;
 		
-		BufferedImage full_page_screenshot = ImageIO.read(new URL(page_state.getFullPageScreenshotUrl()));
+		ImageRegionReader full_page_screenshot = openFullPageScreenshot(page_state);
 
 		/*
 		 * THE FOLLOWING BLOCK OF CODE IS FOR EXTRACTING ELEMENT SCREENSHOTS
@@ -2012,6 +2204,37 @@ public class BrowserService {
 											ElementState element_state,
 											BufferedImage page_screenshot,
 											String host) throws IOException
+	{
+		assert page_screenshot != null;
+
+		return enrichElementState(browser, web_element, element_state, new BufferedImageRegionReader(page_screenshot), host);
+	}
+
+	/**
+	 * Enrich an element state with screenshot, rendered css values, and
+	 * attributes. Screenshots of elements larger than the viewport are read
+	 * from the region of the page screenshot they cover.
+	 *
+	 * @param browser the browser
+	 * @param web_element the web element
+	 * @param element_state the element state
+	 * @param page_screenshot reader for the full page screenshot
+	 * @param host the host
+	 * 
+	 * @return the enriched element state
+	 * @throws IOException if an error occurs while extracting the screenshot
+	 *
+	 * precondition:: browser != null
+	 * precondition:: web_element != null
+	 * precondition:: element_state != null
+	 * precondition:: page_screenshot != null
+	 * precondition:: host != null
+	 */
+	public ElementState enrichElementState(Browser browser,
+											WebElement web_element,
+											ElementState element_state,
+											ImageRegionReader page_screenshot,
+											String host) throws IOException
 	{
 		assert browser != null;
 		assert web_element != null;
@@ -2104,38 +2327,17 @@ public class BrowserService {
 			BufferedImage element_screenshot;
 			try {
 				element_screenshot = ImageIO.read(new URL(element_state.getScreenshotUrl()));
+				if(element_screenshot == null) {
+					log.warn("Could not decode element screenshot {}", element_state.getScreenshotUrl());
+					return element_state;
+				}
 
-				//retrieve image landmark properties from google cloud vision
-				//Set<ImageLandmarkInfo> landmark_info_set = CloudVisionUtils.extractImageLandmarks(element_screenshot);
-				Set<ImageLandmarkInfo> landmark_info_set = null;
-				//retrieve image faces properties from google cloud vision
-				//Set<ImageFaceAnnotation> faces = CloudVisionUtils.extractImageFaces(element_screenshot);
-				Set<ImageFaceAnnotation> faces = null;
-				//retrieve image reverse image search properties from google cloud vision
-				ImageSearchAnnotation image_search_set = CloudVisionUtils.searchWebForImageUsage(element_screenshot);
-				ImageSafeSearchAnnotation img_safe_search_annotation = CloudVisionUtils.detectSafeSearch(element_screenshot);
-				
-				//retrieve image logos from google cloud vision
-				Set<Logo> logos = new HashSet<>();//CloudVisionUtils.extractImageLogos(element_screenshot);
-
-				//retrieve image labels
-				Set<Label> labels = CloudVisionUtils.extractImageLabels(element_screenshot);
-
-				ImageElementState image_element = (ImageElementState)element_state;
-				//image_element.setScreenshotUrl(element_screenshot_url);
-				image_element.setFaces(faces);
-				image_element.setLandmarkInfoSet(landmark_info_set);
-				image_element.setImageSearchSet(image_search_set);
-
-				image_element.setAdult(img_safe_search_annotation.getAdult());
-				image_element.setRacy(img_safe_search_annotation.getRacy());
-				image_element.setViolence(img_safe_search_annotation.getViolence());
-				image_element.setLogos(logos);
-				image_element.setLabels(labels);
-				return image_element;
+				//labels, reverse image search and safe search from google cloud vision in a single request
+				VisionAnnotations annotations = vision_service.annotate(element_screenshot, IMAGE_ELEMENT_FEATURES).join();
+				return applyVisionAnnotations((ImageElementState)element_state, annotations);
 			} catch (MalformedURLException e) {
 				e.printStackTrace();
-			} catch (IOException e) {
+			} catch (IOException | CompletionException e) {
 				e.printStackTrace();
 			}
 		}
@@ -2515,6 +2717,7 @@ public class BrowserService {
 		List<ElementState> visited_elements = new ArrayList<>();
 		List<ElementState> filtered_elements = new ArrayList<>();
 		Map<String, Boolean> overlapped_elements = new HashMap<>();
+		ImageRegionReader tiled_page_screenshot = null;
 
 		String body_src = extractBody(page_state.getSrc());
 		
@@ -2570,19 +2773,13 @@ public class BrowserService {
 						log.warn("Element X location ::  "+ element_location.getX());
 						*/
 						try {
-							BufferedImage full_page_screenshot = ImageIO.read(new URL(page_state.getFullPageScreenshotUrl()));
-							int width = element_size.getWidth();
-							int height = element_size.getHeight();
-							
-							if( (element_location.getX() + element_size.getWidth()) > full_page_screenshot.getWidth() ) {
-								width = full_page_screenshot.getWidth() - element_location.getX()-1;
+							//only the tiles covering the element are fetched
+							if(tiled_page_screenshot == null) {
+								tiled_page_screenshot = openFullPageScreenshot(page_state);
 							}
-							
-							if( (element_location.getY() + element_size.getHeight()) > full_page_screenshot.getHeight() ) {
-								height = full_page_screenshot.getHeight() - element_location.getY()-1;
-							}
-							
-							element_screenshot = full_page_screenshot.getSubimage(element_location.getX(), element_location.getY(), width, height);
+							element_screenshot = ScreenshotUtils.getElementScreenshot(element_location,
+																					  element_size,
+																					  tiled_page_screenshot);
 						}
 						catch(Exception e1){
 							e1.printStackTrace();
@@ -2618,21 +2815,22 @@ public class BrowserService {
 				
 
 				if(isImageElement(web_element) && element_screenshot != null) {
-					//retrieve image landmark properties from google cloud vision
-					Set<ImageLandmarkInfo> landmark_info_set = CloudVisionUtils.extractImageLandmarks(element_screenshot);
-					
-					//retrieve image faces properties from google cloud vision
-					Set<ImageFaceAnnotation> faces = CloudVisionUtils.extractImageFaces(element_screenshot);
-					
-					//retrieve image reverse image search properties from google cloud vision
-					ImageSearchAnnotation image_search_set = CloudVisionUtils.searchWebForImageUsage(element_screenshot);
-					ImageSafeSearchAnnotation img_safe_search_annotation = CloudVisionUtils.detectSafeSearch(element_screenshot);
+					//landmarks, faces, reverse image search, safe search and labels from google cloud vision in a single request
+					VisionAnnotations annotations = vision_service.annotate(element_screenshot,
+																			Feature.Type.LANDMARK_DETECTION,
+																			Feature.Type.FACE_DETECTION,
+																			Feature.Type.WEB_DETECTION,
+																			Feature.Type.SAFE_SEARCH_DETECTION,
+																			Feature.Type.LABEL_DETECTION).join();
+					Set<ImageLandmarkInfo> landmark_info_set = annotations.getLandmarks();
+					Set<ImageFaceAnnotation> faces = annotations.getFaces();
+					ImageSearchAnnotation image_search_set = annotations.getImageSearch();
+					ImageSafeSearchAnnotation img_safe_search_annotation = annotations.getSafeSearch();
 					
 					//retrieve image logos from google cloud vision
-					Set<Logo> logos = new HashSet<>();//CloudVisionUtils.extractImageLogos(element_screenshot);
+					Set<Logo> logos = new HashSet<>();
 
-					//retrieve image labels
-					Set<Label> labels = CloudVisionUtils.extractImageLabels(element_screenshot);
+					Set<Label> labels = annotations.getLabels();
 					ElementState element_state = buildImageElementState(xpath,
 																		attributes,
 																		element,
@@ -2931,23 +3129,31 @@ public class BrowserService {
 		BufferedImage full_page_screenshot = browser.getFullPageScreenshotShutterbug();
 		String full_page_screenshot_checksum = ImageUtils.getChecksum(full_page_screenshot);
 		
-		String viewport_screenshot_url = googleCloudStorage.saveImage(viewport_screenshot,
+		//upload the viewport screenshot alongside the full page screenshot
+		PendingUpload<String> viewport_screenshot_upload = googleCloudStorage.saveImageAsync(viewport_screenshot,
 																	current_url.getHost(),
 																	screenshot_checksum,
 																	BrowserType.create(browser.getBrowserName()));
-		viewport_screenshot.flush();
 
-		String full_page_screenshot_url = googleCloudStorage.saveImage(full_page_screenshot,
+		PendingUpload<Map<ScreenshotResolution, String>> full_page_screenshot_upload = googleCloudStorage.saveImagePyramidAsync(full_page_screenshot,
 																	current_url.getHost(),
 																	full_page_screenshot_checksum,
 																	BrowserType.create(browser.getBrowserName()));
-		full_page_screenshot.flush();
+		PendingUpload<String> full_page_tiles_upload = saveTiledScreenshot(browser,
+																	full_page_screenshot.getWidth(),
+																	full_page_screenshot.getHeight(),
+																	current_url.getHost(),
+																	full_page_screenshot_checksum);
+		Map<ScreenshotResolution, String> full_page_screenshot_urls = full_page_screenshot_upload.getLocation();
+		String full_page_screenshot_url = full_page_screenshot_urls.get(ScreenshotResolution.FULL);
+		String full_page_manifest_url = full_page_tiles_upload.getLocation();
+		String viewport_screenshot_url = viewport_screenshot_upload.getLocation();
 		
 		long x_offset = browser.getXScrollOffset();
 		long y_offset = browser.getYScrollOffset();
 		Dimension size = browser.getDriver().manage().window().getSize();
 		
-		return new PageState(
+		PageState page_state = new PageState(
 							viewport_screenshot_url,
 							source,
 							x_offset,
@@ -2968,6 +3174,13 @@ public class BrowserService {
 							stylesheets,
 							script_urls,
 							fav_icon_links);
+		page_state.setFullPageScreenshotManifestUrl(full_page_manifest_url);
+		page_state.setFullPageScreenshotPyramidUrls(full_page_screenshot_urls);
+		trackScreenshotUploads(page_state,
+							   viewport_screenshot_upload,
+							   full_page_screenshot_upload,
+							   full_page_tiles_upload);
+		return page_state;
 	}
 	
 
@@ -3166,7 +3379,12 @@ public class BrowserService {
 	}
 
 	/**
-	 * Performs image enrichment in parallel for all elements in the given list
+	 * Performs image enrichment in parallel for all elements in the given list.
+	 * Element screenshots are downloaded on a pool of
+	 * {@value #IMAGE_DOWNLOAD_THREADS} threads and each one is queued for
+	 * Vision as soon as it is decoded. Screenshots that can't be downloaded or
+	 * decoded are skipped.
+	 *
 	 * @param element_states list of element states to enrich
 	 * @return list of enriched element states
 	 *
@@ -3175,54 +3393,113 @@ public class BrowserService {
 	public List<ElementState> enrichImageElement(List<ElementState> element_states)
 	{
 		assert element_states != null;
-		assert element_states != null;
 
-		return element_states.parallelStream().map(element_state -> {
-			if(element_state instanceof ImageElementState && !element_state.getScreenshotUrl().isEmpty()) {
-				BufferedImage element_screenshot;
-				try {
-					element_screenshot = ImageIO.read(new URL(element_state.getScreenshotUrl()));
-
-					//retrieve image landmark properties from google cloud vision
-					//Set<ImageLandmarkInfo> landmark_info_set = CloudVisionUtils.extractImageLandmarks(element_screenshot);
-					Set<ImageLandmarkInfo> landmark_info_set = null;
-					//retrieve image faces properties from google cloud vision
-					//Set<ImageFaceAnnotation> faces = CloudVisionUtils.extractImageFaces(element_screenshot);
-					Set<ImageFaceAnnotation> faces = null;
-					//retrieve image reverse image search properties from google cloud vision
-					ImageSearchAnnotation image_search_set = CloudVisionUtils.searchWebForImageUsage(element_screenshot);
-					ImageSafeSearchAnnotation img_safe_search_annotation = CloudVisionUtils.detectSafeSearch(element_screenshot);
-					
-					//retrieve image logos from google cloud vision
-					Set<Logo> logos = new HashSet<>();//CloudVisionUtils.extractImageLogos(element_screenshot);
-
-					//retrieve image labels
-					Set<Label> labels = CloudVisionUtils.extractImageLabels(element_screenshot);
-
-					ImageElementState image_element = (ImageElementState)element_state;
-					//image_element.setScreenshotUrl(element_screenshot_url);
-					image_element.setFaces(faces);
-					image_element.setLandmarkInfoSet(landmark_info_set);
-					image_element.setImageSearchSet(image_search_set);
-
-					image_element.setAdult(img_safe_search_annotation.getAdult());
-					image_element.setRacy(img_safe_search_annotation.getRacy());
-					image_element.setViolence(img_safe_search_annotation.getViolence());
-					image_element.setLogos(logos);
-					image_element.setLabels(labels);
-					return image_element;
-				} catch (MalformedURLException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				} catch (IOException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
+		List<CompletableFuture<ElementState>> enrichments = new ArrayList<>();
+		for(ElementState element_state : element_states) {
+			if(!(element_state instanceof ImageElementState)
+					|| element_state.getScreenshotUrl() == null
+					|| element_state.getScreenshotUrl().isEmpty()) {
+				continue;
+			}
+			ImageElementState image_element = (ImageElementState)element_state;
+			enrichments.add(CompletableFuture.supplyAsync(() -> readElementScreenshot(image_element), image_download_executor)
+											 .thenCompose(screenshot -> annotateElementScreenshot(screenshot))
+											 .thenApply(annotations -> annotations != null ? applyVisionAnnotations(image_element, annotations) : null));
+		}
+
+		List<ElementState> enriched_elements = new ArrayList<>();
+		for(CompletableFuture<ElementState> enrichment : enrichments) {
+			try {
+				ElementState enriched_element = enrichment.join();
+				if(enriched_element != null) {
+					enriched_elements.add(enriched_element);
 				}
+			} catch (CompletionException e) {
+				log.warn("Could not enrich image element : {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
 			}
-			return null;
+		}
+		return enriched_elements;
+	}
 
-		}).filter(e -> e==null)
-		.collect(Collectors.toList());
+	/**
+	 * Downloads and decodes the screenshot of an image element
+	 *
+	 * @param image_element the element whose screenshot is read
+	 * @return the screenshot, or null if its format can't be decoded
+	 * @throws UncheckedIOException if the screenshot can't be downloaded
+	 */
+	private static BufferedImage readElementScreenshot(ImageElementState image_element) {
+		try {
+			BufferedImage screenshot = ImageIO.read(new URL(image_element.getScreenshotUrl()));
+			if(screenshot == null) {
+				log.warn("Could not decode element screenshot {}", image_element.getScreenshotUrl());
+			}
+			return screenshot;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Queues an element screenshot for Vision
+	 *
+	 * @param screenshot the element screenshot, may be null
+	 * @return future completed with the annotations, or with null if there is no screenshot
+	 */
+	private CompletableFuture<VisionAnnotations> annotateElementScreenshot(BufferedImage screenshot) {
+		if(screenshot == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		try {
+			return vision_service.annotate(screenshot, IMAGE_ELEMENT_FEATURES);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private static ThreadPoolExecutor createImageDownloadExecutor() {
+		AtomicInteger thread_count = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(IMAGE_DOWNLOAD_THREADS,
+															 IMAGE_DOWNLOAD_THREADS,
+															 30,
+															 TimeUnit.SECONDS,
+															 new LinkedBlockingQueue<>(),
+															 runnable -> {
+																 Thread thread = new Thread(runnable, "image-element-download-" + thread_count.incrementAndGet());
+																 thread.setDaemon(true);
+																 return thread;
+															 });
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Copies the Vision annotations of an image element's screenshot onto the element
+	 *
+	 * @param image_element the element to update
+	 * @param annotations the annotations of the element's screenshot
+	 * @return the updated element
+	 *
+	 * precondition: image_element != null
+	 * precondition: annotations != null
+	 */
+	private static ImageElementState applyVisionAnnotations(ImageElementState image_element, VisionAnnotations annotations) {
+		assert image_element != null;
+		assert annotations != null;
+
+		image_element.setFaces(null);
+		image_element.setLandmarkInfoSet(null);
+		image_element.setImageSearchSet(annotations.getImageSearch());
+
+		ImageSafeSearchAnnotation img_safe_search_annotation = annotations.getSafeSearch();
+		if(img_safe_search_annotation != null){
+			image_element.setAdult(img_safe_search_annotation.getAdult());
+			image_element.setRacy(img_safe_search_annotation.getRacy());
+			image_element.setViolence(img_safe_search_annotation.getViolence());
+		}
+		image_element.setLogos(new HashSet<>());
+		image_element.setLabels(annotations.getLabels());
+		return image_element;
 	}
 
 	/**
@@ -3244,42 +3521,17 @@ public class BrowserService {
 			BufferedImage element_screenshot;
 			try {
 				element_screenshot = ImageIO.read(new URL(element_state.getScreenshotUrl()));
-
-				//retrieve image landmark properties from google cloud vision
-				//Set<ImageLandmarkInfo> landmark_info_set = CloudVisionUtils.extractImageLandmarks(element_screenshot);
-				Set<ImageLandmarkInfo> landmark_info_set = null;
-				//retrieve image faces properties from google cloud vision
-				//Set<ImageFaceAnnotation> faces = CloudVisionUtils.extractImageFaces(element_screenshot);
-				Set<ImageFaceAnnotation> faces = null;
-				//retrieve image reverse image search properties from google cloud vision
-				ImageSearchAnnotation image_search_set = CloudVisionUtils.searchWebForImageUsage(element_screenshot);
-				ImageSafeSearchAnnotation img_safe_search_annotation = CloudVisionUtils.detectSafeSearch(element_screenshot);
-				
-				//retrieve image logos from google cloud vision
-				Set<Logo> logos = new HashSet<>();//CloudVisionUtils.extractImageLogos(element_screenshot);
-
-				//retrieve image labels
-				Set<Label> labels = CloudVisionUtils.extractImageLabels(element_screenshot);
-
-				ImageElementState image_element = (ImageElementState)element_state;
-				//image_element.setScreenshotUrl(element_screenshot_url);
-				image_element.setFaces(faces);
-				image_element.setLandmarkInfoSet(landmark_info_set);
-				image_element.setImageSearchSet(image_search_set);
-
-				if(img_safe_search_annotation != null){
-					image_element.setAdult(img_safe_search_annotation.getAdult());
-					image_element.setRacy(img_safe_search_annotation.getRacy());
-					image_element.setViolence(img_safe_search_annotation.getViolence());
+				if(element_screenshot == null) {
+					log.warn("Could not decode element screenshot {}", element_state.getScreenshotUrl());
+					return element_state;
 				}
-				image_element.setLogos(logos);
-				image_element.setLabels(labels);
-				return image_element;
+
+				//labels, reverse image search and safe search from google cloud vision in a single request
+				VisionAnnotations annotations = vision_service.annotate(element_screenshot, IMAGE_ELEMENT_FEATURES).join();
+				return applyVisionAnnotations((ImageElementState)element_state, annotations);
 			} catch (MalformedURLException e) {
-				// TODO Auto-generated catch block
 				e.printStackTrace();
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
+			} catch (IOException | CompletionException e) {
 				e.printStackTrace();
 			}
 		}
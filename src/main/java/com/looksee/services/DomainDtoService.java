@@ -1,29 +1,28 @@
 package com.looksee.services;
 
 import com.looksee.models.Domain;
-import com.looksee.models.PageState;
+import com.looksee.models.dto.DomainAuditSummary;
 import com.looksee.models.audit.Audit;
-import com.looksee.models.audit.AuditRecord;
-import com.looksee.models.audit.DomainAuditRecord;
-import com.looksee.models.audit.PageAuditRecord;
 import com.looksee.models.dto.DomainDto;
+import com.looksee.models.enums.AuditCategory;
 import com.looksee.models.enums.ExecutionStatus;
-import com.looksee.models.repository.AuditRecordRepository;
-import com.looksee.models.repository.AuditRepository;
-import com.looksee.models.repository.PageStateRepository;
-import com.looksee.utils.AuditUtils;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import lombok.NoArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
 /**
  * Service for building domain DTOs.
+ *
+ * The counts, progress and scores of a domain are read with one aggregate
+ * query over its most recent {@link com.looksee.models.audit.DomainAuditRecord},
+ * so building a DTO costs one round trip and returns one row however many
+ * pages the domain has.
  */
 @NoArgsConstructor
 @Service
@@ -31,15 +30,41 @@ public class DomainDtoService {
 	@SuppressWarnings("unused")
 	private static Logger log = LoggerFactory.getLogger(DomainDtoService.class.getName());
 	
+	/**
+	 * Reads the summary of the most recent audit of a domain. Page audit records
+	 * and audits are aggregated in separate subqueries so their rows don't
+	 * multiply each other. Categories are bound by {@link #summaryParameters(long)}
+	 * as {@link Audit#setCategory} stores them.
+	 */
+	static final String DOMAIN_AUDIT_SUMMARY = "MATCH (record:DomainAuditRecord)-[:HAS]->(d:Domain) WHERE id(d)=$domain_id "
+			+ "WITH record ORDER BY record.createdAt DESC LIMIT 1 "
+			+ "CALL { WITH record "
+			+ "  OPTIONAL MATCH (record)-[]->(page:PageState) "
+			+ "  RETURN count(DISTINCT page.url) AS page_count } "
+			+ "CALL { WITH record "
+			+ "  OPTIONAL MATCH (record)-[:HAS]->(par:PageAuditRecord) "
+			+ "  WITH DISTINCT par "
+			+ "  RETURN count(par) AS page_audit_count, "
+			+ "    count(CASE WHEN par.contentAuditProgress >= 1.0 AND par.aestheticAuditProgress >= 1.0 "
+			+ "      AND par.infoArchitectureAuditProgress >= 1.0 AND par.dataExtractionProgress >= 1.0 THEN 1 END) AS audited_pages, "
+			+ "    sum(coalesce(par.contentAuditProgress, 0.0)) AS content_progress, "
+			+ "    sum(coalesce(par.infoArchitectureAuditProgress, 0.0)) AS info_architecture_progress, "
+			+ "    sum(coalesce(par.aestheticAuditProgress, 0.0)) AS aesthetic_progress } "
+			+ "CALL { WITH record "
+			+ "  OPTIONAL MATCH (record)-[]->(:PageAuditRecord)-[]->(audit:Audit) WHERE audit.totalPossiblePoints > 0 "
+			+ "  WITH DISTINCT audit, toFloat(audit.points) / audit.totalPossiblePoints AS score "
+			+ "  RETURN avg(CASE WHEN audit.category = $content THEN score END) AS content_score, "
+			+ "    avg(CASE WHEN audit.category = $information_architecture THEN score END) AS info_architecture_score, "
+			+ "    avg(CASE WHEN audit.accessible = true THEN score END) AS accessibility_score, "
+			+ "    avg(CASE WHEN audit.category = $aesthetics THEN score END) AS aesthetics_score } "
+			+ "RETURN id(record) AS audit_record_id, record.status AS status, record.statusMessage AS status_message, "
+			+ "  record.dataExtractionProgress AS data_extraction_progress, page_count, page_audit_count, audited_pages, "
+			+ "  content_progress, info_architecture_progress, aesthetic_progress, "
+			+ "  content_score, info_architecture_score, accessibility_score, aesthetics_score";
+
 	@Autowired
-	private AuditRecordRepository audit_record_repo;
-	
-	@Autowired
-	private AuditRepository audit_repo;
-	
-	@Autowired
-	private PageStateRepository page_state_repo;
-	
+	private Neo4jClient neo4j_client;
+
 	/**
 	 * Builds a domain DTO for the given domain
 	 *
@@ -50,13 +75,9 @@ public class DomainDtoService {
 	 */
 	public DomainDto build(Domain domain) {
 		assert domain != null;
-		
-		Optional<AuditRecord> audit_record_opt = audit_record_repo.getMostRecentAuditRecordForDomain(domain.getId());
 
-		int audited_pages = 0;
-		int page_count = 0;
-		
-		if (!audit_record_opt.isPresent()) {
+		Optional<DomainAuditSummary> summary = getAuditSummary(domain.getId());
+		if (!summary.isPresent()) {
 			return new DomainDto(domain.getId(),
 								domain.getUrl(),
 								0,
@@ -74,108 +95,126 @@ public class DomainDtoService {
 								"",
 								ExecutionStatus.COMPLETE);
 		}
-		
-		// get most recent audit record for this domain
-		DomainAuditRecord domain_audit = (DomainAuditRecord)audit_record_opt.get();
-
-		// get all content audits for most recent audit record and calculate overall
-		// score
-		Set<Audit> content_audits = audit_repo.getAllContentAuditsForDomainRecord(domain_audit.getId());
-		double content_score = AuditUtils.calculateScore(content_audits);
-
-		// get all info architecture audits for most recent audit record and calculate
-		// overall score
-		Set<Audit> info_arch_audits = audit_repo
-				.getAllInformationArchitectureAuditsForDomainRecord(domain_audit.getId());
-
-		double info_arch_score = AuditUtils.calculateScore(info_arch_audits);
 
-		// get all accessibility audits for most recent audit record and calculate
-		// overall score
-		Set<Audit> accessibility_audits = audit_repo.getAllAccessibilityAuditsForDomainRecord(domain_audit.getId());
-
-		double accessibility_score = AuditUtils.calculateScore(accessibility_audits);
+		return build(domain, summary.get());
+	}
 
-		// get all Aesthetic audits for most recent audit record and calculate overall
-		// score
-		Set<Audit> aesthetics_audits = audit_repo
-				.getAllAestheticsAuditsForDomainRecord(domain_audit.getId());
+	/**
+	 * Reads the counts, progress and scores of the most recent audit of a domain
+	 *
+	 * @param domain_id the id of the domain
+	 * @return the summary, or empty if the domain has never been audited
+	 */
+	public Optional<DomainAuditSummary> getAuditSummary(long domain_id) {
+		return neo4j_client.query(DOMAIN_AUDIT_SUMMARY)
+							.bindAll(summaryParameters(domain_id))
+							.fetch()
+							.one()
+							.map(DomainDtoService::toSummary);
+	}
 
-		double aesthetics_score = AuditUtils.calculateScore(aesthetics_audits);
+	/**
+	 * Parameters of {@link #DOMAIN_AUDIT_SUMMARY}
+	 *
+	 * @param domain_id the id of the domain
+	 * @return the parameters by name
+	 */
+	static Map<String, Object> summaryParameters(long domain_id) {
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("domain_id", domain_id);
+		parameters.put("content", AuditCategory.CONTENT.toString());
+		parameters.put("information_architecture", AuditCategory.INFORMATION_ARCHITECTURE.toString());
+		parameters.put("aesthetics", AuditCategory.AESTHETICS.toString());
+		return parameters;
+	}
 
-		// build domain stats
-		// add domain stat to set
+	/**
+	 * Builds a domain DTO from the summary of its most recent audit
+	 *
+	 * @param domain the domain
+	 * @param summary the summary of the most recent audit of the domain
+	 * @return the domain DTO
+	 *
+	 * precondition: domain != null
+	 * precondition: summary != null
+	 */
+	static DomainDto build(Domain domain, DomainAuditSummary summary) {
+		assert domain != null;
+		assert summary != null;
 
-		// check if there is a current audit running
-		Set<PageAuditRecord> page_audit_records = audit_record_repo.getAllPageAudits(domain_audit.getId());
-		Set<PageState> page_states = page_state_repo.getPageStatesForDomainAuditRecord(domain_audit.getId());
-		Map<String, Boolean> page_urls = new HashMap<>();
-		
-		for(PageState page : page_states) {
-			page_urls.put(page.getUrl(), Boolean.TRUE);
-		}
-		page_count = page_urls.size();
-
-		double content_progress = 0.0;
-		double aesthetic_progress = 0.0;
-		double info_architecture_progress = 0.0;
-		boolean is_audit_running = false;
-		double data_extraction_progress = 0.0;
-
-		/*
-		content_progress += domain_audit.getContentAuditProgress();
-		aesthetic_progress += domain_audit.getAestheticAuditProgress();
-		info_architecture_progress += domain_audit.getInfoArchitechtureAuditProgress();
-		 */
-		data_extraction_progress = domain_audit.getDataExtractionProgress();
-		for (AuditRecord record : page_audit_records) {
-			content_progress += record.getContentAuditProgress();
-			aesthetic_progress += record.getAestheticAuditProgress();
-			info_architecture_progress += record.getInfoArchitectureAuditProgress();
-			//data_extraction_progress += record.getDataExtractionProgress();
-
-			if (record.isComplete()) {
-				audited_pages++;
-			}
-			else {
-				is_audit_running = true;
-			}
-		}
+		int page_count = summary.getPageCount();
+		double content_progress = summary.getContentProgressTotal();
+		double info_architecture_progress = summary.getInfoArchitectureProgressTotal();
+		double aesthetic_progress = summary.getAestheticProgressTotal();
 
-		
-		if (page_audit_records.size() > 0) {
+		if (summary.getPageAuditCount() > 0) {
 			content_progress = content_progress / page_count;
 			info_architecture_progress = info_architecture_progress / page_count;
 			aesthetic_progress = aesthetic_progress / page_count;
-			//data_extraction_progress = (data_extraction_progress / page_count);
-		}
-		
-		ExecutionStatus status = domain_audit.getStatus();
-		/*
-		if(1.0 == content_progress && 1.0 == info_architecture_progress && 1.0 == aesthetic_progress && 1.0 == data_extraction_progress) {
-			status = ExecutionStatus.COMPLETE;
 		}
-		else {
-			status = ExecutionStatus.IN_PROGRESS;
-		}
-		*/
 
-		
+		boolean is_audit_running = summary.getAuditedPages() < summary.getPageAuditCount();
+		ExecutionStatus status = summary.getStatus() == null ? ExecutionStatus.UNKNOWN
+															 : ExecutionStatus.create(summary.getStatus());
+
 		return new DomainDto(domain.getId(),
 							domain.getUrl(),
 							page_count,
-							audited_pages,
-							content_score,
+							summary.getAuditedPages(),
+							summary.getContentScore(),
 							content_progress,
-							info_arch_score,
+							summary.getInfoArchitectureScore(),
 							info_architecture_progress,
-							accessibility_score,
+							summary.getAccessibilityScore(),
 							100.0,
-							aesthetics_score,
+							summary.getAestheticsScore(),
 							aesthetic_progress,
 							is_audit_running,
-							data_extraction_progress,
-							domain_audit.getStatusMessage(),
+							summary.getDataExtractionProgress(),
+							summary.getStatusMessage(),
 							status);
 	}
+
+	/**
+	 * Converts a row of {@link #DOMAIN_AUDIT_SUMMARY} to a {@link DomainAuditSummary}
+	 *
+	 * @param row the row
+	 * @return the summary
+	 *
+	 * precondition: row != null
+	 */
+	static DomainAuditSummary toSummary(Map<String, Object> row) {
+		assert row != null;
+
+		DomainAuditSummary summary = new DomainAuditSummary();
+		summary.setAuditRecordId(number(row, "audit_record_id", 0).longValue());
+		summary.setStatus((String)row.get("status"));
+		summary.setStatusMessage(row.get("status_message") == null ? "" : (String)row.get("status_message"));
+		summary.setDataExtractionProgress(number(row, "data_extraction_progress", 0).doubleValue());
+		summary.setPageCount(number(row, "page_count", 0).intValue());
+		summary.setPageAuditCount(number(row, "page_audit_count", 0).intValue());
+		summary.setAuditedPages(number(row, "audited_pages", 0).intValue());
+		summary.setContentProgressTotal(number(row, "content_progress", 0).doubleValue());
+		summary.setInfoArchitectureProgressTotal(number(row, "info_architecture_progress", 0).doubleValue());
+		summary.setAestheticProgressTotal(number(row, "aesthetic_progress", 0).doubleValue());
+		summary.setContentScore(score(row, "content_score"));
+		summary.setInfoArchitectureScore(score(row, "info_architecture_score"));
+		summary.setAccessibilityScore(score(row, "accessibility_score"));
+		summary.setAestheticsScore(score(row, "aesthetics_score"));
+		return summary;
+	}
+
+	private static Number number(Map<String, Object> row, String column, Number default_value) {
+		Object value = row.get(column);
+		return value instanceof Number ? (Number)value : default_value;
+	}
+
+	/**
+	 * Converts an average fraction of possible points to a score from 0 to 100,
+	 * or -1 when there were no audits, as {@link com.looksee.utils.AuditUtils#calculateScore} does
+	 */
+	private static double score(Map<String, Object> row, String column) {
+		Object value = row.get(column);
+		return value instanceof Number ? ((Number)value).doubleValue() * 100 : -1.0;
+	}
 }
@@ -8,15 +8,20 @@ import com.looksee.models.PageState;
 import com.looksee.models.repository.ElementStateRepository;
 import com.looksee.models.rules.Rule;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.NoArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for managing element states in the database
@@ -35,11 +40,17 @@ public class ElementStateService {
 	@SuppressWarnings("unused")
 	private static Logger log = LoggerFactory.getLogger(ElementStateService.class);
 
+	/** Default number of element states sent in one statement by {@link #saveAll(List, long)} */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
 	@Autowired
 	private ElementStateRepository element_repo;
 
 	@Autowired
 	private PageStateService page_state_service;
+
+	@Value("${element_state.batch_size:"+DEFAULT_BATCH_SIZE+"}")
+	private int batch_size = DEFAULT_BATCH_SIZE;
 	
 	/**
 	 * saves element state to database
@@ -430,7 +441,9 @@ public class ElementStateService {
 	}
 
 	/**
-	 * Saves a list of element states to the database
+	 * Saves a list of element states to the database and adds them to a page
+	 * state, sending up to {@code element_state.batch_size} element states
+	 * per statement
 	 *
 	 * @param element_states the list of element states
 	 * @param page_state_id the id of the page state
@@ -440,17 +453,135 @@ public class ElementStateService {
 	 * precondition: element_states != null
 	 * precondition: page_state_id > 0
 	 */
+	@Transactional
 	public List<ElementState> saveAll(List<ElementState> element_states,
 										long page_state_id)
+	{
+		return saveAll(element_states, page_state_id, batch_size);
+	}
+
+	/**
+	 * Saves a list of element states to the database and adds them to a page
+	 * state in one transaction.
+	 *
+	 * Element states are sent in batches of {@code batch_size}, so a page
+	 * takes one statement per batch instead of three per element. Element
+	 * states are matched by key within the page, like
+	 * {@link #save(long, ElementState)}, so an element state that already
+	 * exists on the page is updated, while the same markup on another page
+	 * keeps a node of its own. Image
+	 * element states have relationships of their own and are saved one at a
+	 * time.
+	 *
+	 * @param element_states the list of element states
+	 * @param page_state_id the id of the page state
+	 * @param batch_size largest number of element states sent in one statement
+	 *
+	 * @return the saved element states, in the order of element_states
+	 *
+	 * precondition: element_states != null
+	 * precondition: page_state_id > 0
+	 * precondition: batch_size > 0
+	 */
+	@Transactional
+	public List<ElementState> saveAll(List<ElementState> element_states,
+										long page_state_id,
+										int batch_size)
 	{
 		assert element_states != null;
 		assert page_state_id > 0;
+		assert batch_size > 0;
 
-		return element_states.parallelStream()
-								.map(element -> save(page_state_id, element))
+		Map<String, ElementState> records = new HashMap<>();
+		Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+		for(ElementState element : element_states) {
+			if(element.getClass() != ElementState.class) {
+				records.put(element.getKey(), save(page_state_id, element));
+			}
+			else {
+				rows.putIfAbsent(element.getKey(), toRow(element));
+			}
+		}
+
+		List<Map<String, Object>> batch = new ArrayList<>(Math.min(batch_size, rows.size()));
+		for(Map<String, Object> row : rows.values()) {
+			batch.add(row);
+			if(batch.size() == batch_size) {
+				putRecords(records, element_repo.upsertAll(page_state_id, batch));
+				batch = new ArrayList<>(batch_size);
+			}
+		}
+		if(!batch.isEmpty()) {
+			putRecords(records, element_repo.upsertAll(page_state_id, batch));
+		}
+
+		return element_states.stream()
+								.map(element -> records.getOrDefault(element.getKey(), element))
 								.collect(Collectors.toList());
 	}
 
+	/**
+	 * Builds the parameters of an element state for
+	 * {@link ElementStateRepository#upsertAll(long, List)}. Composite
+	 * properties are flattened the way Spring Data Neo4j stores them. Every
+	 * persistent property of {@link ElementState} must be listed here, since
+	 * the upsert only writes the properties of the row.
+	 *
+	 * @param element the element state
+	 * @return map with the key and the node properties of the element state
+	 *
+	 * precondition: element != null
+	 * precondition: element.getKey() != null
+	 */
+	static Map<String, Object> toRow(ElementState element) {
+		assert element != null;
+		assert element.getKey() != null;
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("key", element.getKey());
+		properties.put("createdAt", element.getCreatedAt());
+		properties.put("classification", element.getClassification());
+		properties.put("outerHtml", element.getOuterHtml());
+		properties.put("name", element.getName());
+		properties.put("ownedText", element.getOwnedText());
+		properties.put("allText", element.getAllText());
+		properties.put("cssSelector", element.getCssSelector());
+		properties.put("xpath", element.getXpath());
+		properties.put("screenshotUrl", element.getScreenshotUrl());
+		properties.put("backgroundColor", element.getBackgroundColor());
+		properties.put("foregroundColor", element.getForegroundColor());
+		properties.put("xLocation", element.getXLocation());
+		properties.put("yLocation", element.getYLocation());
+		properties.put("width", element.getWidth());
+		properties.put("height", element.getHeight());
+		properties.put("textContrast", element.getTextContrast());
+		properties.put("nonTextContrast", element.getNonTextContrast());
+		properties.put("imageFlagged", element.isImageFlagged());
+		properties.put("visible", element.isVisible());
+		putComposite(properties, "renderedCssValues", element.getRenderedCssValues());
+		putComposite(properties, "attributes", element.getAttributes());
+
+		Map<String, Object> row = new HashMap<>();
+		row.put("key", element.getKey());
+		row.put("properties", properties);
+		return row;
+	}
+
+	private static void putComposite(Map<String, Object> properties, String prefix, Map<String, String> values) {
+		if(values == null) {
+			return;
+		}
+		for(Map.Entry<String, String> value : values.entrySet()) {
+			properties.put(prefix + "." + value.getKey(), value.getValue());
+		}
+	}
+
+	private static void putRecords(Map<String, ElementState> records, List<ElementState> saved) {
+		for(ElementState record : saved) {
+			records.put(record.getKey(), record);
+		}
+	}
+
 	/**
 	 * Returns subset of element keys that exist within the database
 	 *
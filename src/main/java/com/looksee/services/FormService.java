@@ -35,6 +35,9 @@ public class FormService {
 	
 	@Autowired
 	private PageStateRepository page_state_repo;
+
+	@Autowired
+	private PageStateService page_state_service;
 	
 	/**
 	 * Gets the page state
@@ -57,7 +60,7 @@ public class FormService {
 		assert !url.isEmpty();
 		assert form != null;
 
-		return page_state_repo.getPageState(user_id, url, form.getKey());
+		return page_state_service.loadSources(page_state_repo.getPageState(user_id, url, form.getKey()));
 	}
 	
 	/**
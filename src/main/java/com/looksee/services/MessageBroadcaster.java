@@ -1,11 +1,26 @@
 package com.looksee.services;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.looksee.models.Account;
 import com.looksee.models.DiscoveryRecord;
@@ -28,12 +43,47 @@ import com.pusher.rest.Pusher;
  * When using the fallback client, operations are logged but no real messages are sent.
  * 
  * This class is instantiated as a @Bean in MessageBroadcasterAutoConfiguration to ensure guaranteed availability.
+ *
+ * Messages are serialized on the calling thread with one shared writer per
+ * payload type and sent to Pusher from a background thread, so audits don't
+ * wait on Pusher. Audit and progress updates are coalesced: updates for the
+ * same channel and audit within {@value #COALESCE_WINDOW_MILLIS}ms replace
+ * each other, and only the fields that changed since the last update sent are
+ * transmitted, marked with {@code "delta": true}. The first update of an audit
+ * on a channel, and the first one after every
+ * {@value #FULL_UPDATE_INTERVAL_MILLIS}ms, is sent in full so clients that
+ * subscribe late or miss an event catch up. Object payloads larger than
+ * Pusher's {@value #MAX_PAYLOAD_BYTES} byte limit are summarized by dropping
+ * their largest fields, which are listed in {@code "truncated"}.
  */
 public class MessageBroadcaster {
 	private static Logger log = LoggerFactory.getLogger(MessageBroadcaster.class);
+
+	/** Time updates to the same audit are coalesced for */
+	public static final long COALESCE_WINDOW_MILLIS = 250;
+
+	/** Longest time between full updates of an audit on a channel */
+	public static final long FULL_UPDATE_INTERVAL_MILLIS = 5_000;
+
+	/** Largest event payload Pusher accepts */
+	public static final int MAX_PAYLOAD_BYTES = 10_000;
+
+	/** Number of audits whose last update is remembered to compute deltas */
+	private static final int MAX_TRACKED_UPDATES = 1024;
+
+	private static final String AUDIT_UPDATE_EVENT = "audit-update";
+	private static final String AUDIT_PROGRESS_EVENT = "audit-progress";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+	private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
 	
 	private final Pusher pusher;
 	private final boolean isRealPusher;
+	private final long coalesceWindowMillis;
+	private final long fullUpdateIntervalNanos;
+	private final ScheduledExecutorService sender;
+	private final Map<String, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+	private final Map<String, SentUpdate> lastUpdates;
 	
 	/**
 	 * Constructor for the message broadcaster
@@ -44,8 +94,56 @@ public class MessageBroadcaster {
 	 * precondition: pusher != null
 	 */
 	public MessageBroadcaster(Pusher pusher, Environment environment) {
+		this(pusher, environment, COALESCE_WINDOW_MILLIS);
+	}
+
+	/**
+	 * Constructor for the message broadcaster with a custom coalescing window
+	 *
+	 * @param pusher the configured Pusher client (real or fallback)
+	 * @param environment Spring Environment for property resolution (optional, can be null)
+	 * @param coalesce_window_millis time updates to the same audit are coalesced for
+	 *
+	 * precondition: pusher != null
+	 * precondition: coalesce_window_millis >= 0
+	 */
+	MessageBroadcaster(Pusher pusher, Environment environment, long coalesce_window_millis) {
+		this(pusher, environment, coalesce_window_millis, FULL_UPDATE_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Constructor for the message broadcaster with a custom coalescing window
+	 * and full update interval
+	 *
+	 * @param pusher the configured Pusher client (real or fallback)
+	 * @param environment Spring Environment for property resolution (optional, can be null)
+	 * @param coalesce_window_millis time updates to the same audit are coalesced for
+	 * @param full_update_interval_millis longest time between full updates of an audit
+	 *
+	 * precondition: pusher != null
+	 * precondition: coalesce_window_millis >= 0
+	 * precondition: full_update_interval_millis >= 0
+	 */
+	MessageBroadcaster(Pusher pusher, Environment environment, long coalesce_window_millis, long full_update_interval_millis) {
 		assert pusher != null;
+		assert coalesce_window_millis >= 0;
+		assert full_update_interval_millis >= 0;
 		this.pusher = pusher;
+		this.coalesceWindowMillis = coalesce_window_millis;
+		this.fullUpdateIntervalNanos = TimeUnit.MILLISECONDS.toNanos(full_update_interval_millis);
+		this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pusher-sender");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.lastUpdates = new LinkedHashMap<String, SentUpdate>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SentUpdate> eldest) {
+				return size() > MAX_TRACKED_UPDATES;
+			}
+		};
 		
 		// Detect if this is the fallback Pusher by checking if all required properties are set
 		if (environment != null) {
@@ -99,6 +197,30 @@ public class MessageBroadcaster {
 		return isRealPusher;
 	}
 	
+	/**
+	 * Sends pending updates and waits for queued messages to be sent. Called
+	 * by Spring when the context closes.
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void shutdown() throws InterruptedException {
+		for(String update_key : new ArrayList<>(pendingUpdates.keySet())) {
+			sendPendingUpdate(update_key);
+		}
+		sender.shutdown();
+		if(!sender.awaitTermination(10, TimeUnit.SECONDS)) {
+			log.warn("Pusher messages were still queued at shutdown");
+			sender.shutdownNow();
+		}
+	}
+
+	/**
+	 * Serializes an object with the shared writer of its type
+	 */
+	private static String toJson(Object value) throws JsonProcessingException {
+		return WRITERS.computeIfAbsent(value.getClass(), MAPPER::writerFor).writeValueAsString(value);
+	}
+	
 	/**
 	 * Helper method to conditionally trigger Pusher events based on whether real Pusher is available
 	 * 
@@ -106,18 +228,163 @@ public class MessageBroadcaster {
 	 * @param event the event name
 	 * @param data the data to send
 	 */
-	private void conditionalTrigger(String channel, String event, Object data) {
+	private void conditionalTrigger(String channel, String event, String data) {
 		if (isRealPusher) {
 			try {
-				pusher.trigger(channel, event, data);
-				log.debug("Real-time message sent - Channel: {}, Event: {}", channel, event);
-			} catch (Exception e) {
-				log.error("Failed to send real-time message - Channel: {}, Event: {}, Error: {}", channel, event, e.getMessage());
+				sender.execute(() -> trigger(channel, event, data));
+			} catch (RejectedExecutionException e) {
+				trigger(channel, event, data);
 			}
 		} else {
 			log.debug("Fallback mode - Would send message - Channel: {}, Event: {}", channel, event);
 		}
 	}
+
+	/**
+	 * Queues an update of an audit. Updates of the same audit on the same
+	 * channel that arrive before the queued one is sent replace it.
+	 *
+	 * @param channel the channel to trigger on
+	 * @param event the event name
+	 * @param id id of the audit the update describes
+	 * @param update the update to send
+	 * @throws JsonProcessingException if the update can't be serialized
+	 */
+	private void coalescedTrigger(String channel, String event, long id, Object update) throws JsonProcessingException {
+		if (!isRealPusher) {
+			log.debug("Fallback mode - Would send message - Channel: {}, Event: {}", channel, event);
+			return;
+		}
+
+		String update_key = channel + "\n" + event + "\n" + id;
+		ObjectNode payload;
+		try {
+			payload = MAPPER.valueToTree(update);
+		} catch (IllegalArgumentException e) {
+			if(e.getCause() instanceof JsonProcessingException) {
+				throw (JsonProcessingException)e.getCause();
+			}
+			throw e;
+		}
+		if(pendingUpdates.put(update_key, new PendingUpdate(channel, event, payload)) == null) {
+			try {
+				sender.schedule(() -> sendPendingUpdate(update_key), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				sendPendingUpdate(update_key);
+			}
+		}
+	}
+
+	/**
+	 * Sends the latest queued update for a key, in full when it is the first
+	 * for the key or the last full update is older than the full update
+	 * interval, otherwise as a delta of the previous update sent for it
+	 */
+	private void sendPendingUpdate(String update_key) {
+		PendingUpdate update = pendingUpdates.remove(update_key);
+		if(update == null) {
+			return;
+		}
+
+		ObjectNode payload = update.payload;
+		long now = System.nanoTime();
+		synchronized(lastUpdates) {
+			SentUpdate last = lastUpdates.get(update_key);
+			if(last == null || now - last.fullUpdateNanos >= fullUpdateIntervalNanos) {
+				lastUpdates.put(update_key, new SentUpdate(update.payload, now));
+			}
+			else {
+				payload = delta(last.payload, update.payload);
+				if(payload == null) {
+					return;
+				}
+				lastUpdates.put(update_key, new SentUpdate(update.payload, last.fullUpdateNanos));
+			}
+		}
+		trigger(update.channel, update.event, payload.toString());
+	}
+
+	/**
+	 * Returns the fields of an update that differ from the previous update,
+	 * with the id of the audit, or null if nothing changed
+	 */
+	static ObjectNode delta(ObjectNode last, ObjectNode current) {
+		ObjectNode delta = MAPPER.createObjectNode();
+		Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+		while(fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			if(!field.getValue().equals(last.get(field.getKey()))) {
+				delta.set(field.getKey(), field.getValue());
+			}
+		}
+		if(delta.isEmpty()) {
+			return null;
+		}
+		if(current.has("id")) {
+			delta.set("id", current.get("id"));
+		}
+		delta.put("delta", true);
+		return delta;
+	}
+
+	/**
+	 * Sends an event, summarizing payloads that are too large for Pusher
+	 */
+	private void trigger(String channel, String event, String data) {
+		try {
+			pusher.trigger(channel, event, fit(data));
+			log.debug("Real-time message sent - Channel: {}, Event: {}", channel, event);
+		} catch (Exception e) {
+			log.error("Failed to send real-time message - Channel: {}, Event: {}, Error: {}", channel, event, e.getMessage());
+		}
+	}
+
+	/**
+	 * Shrinks a JSON object below {@link #MAX_PAYLOAD_BYTES} by removing its
+	 * largest fields, which are listed in a {@code truncated} field. Other
+	 * payloads have no fields to drop and are returned as they are.
+	 *
+	 * @param data JSON payload
+	 * @return the payload if it fits or isn't an object, otherwise a summary of it
+	 * @throws JsonProcessingException if an oversized payload isn't valid JSON
+	 */
+	static String fit(String data) throws JsonProcessingException {
+		if(payloadSize(data) <= MAX_PAYLOAD_BYTES) {
+			return data;
+		}
+
+		JsonNode node = MAPPER.readTree(data);
+		if(!node.isObject()) {
+			log.warn("Payload of {} bytes is larger than Pusher accepts and can't be summarized", payloadSize(data));
+			return data;
+		}
+		ObjectNode summary = ((ObjectNode)node).deepCopy();
+		ArrayNode truncated = summary.putArray("truncated");
+		while(payloadSize(summary.toString()) > MAX_PAYLOAD_BYTES) {
+			String largest = null;
+			int largest_size = -1;
+			Iterator<Map.Entry<String, JsonNode>> fields = summary.fields();
+			while(fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				int size = payloadSize(field.getValue().toString());
+				if(!field.getKey().equals("truncated") && size > largest_size) {
+					largest = field.getKey();
+					largest_size = size;
+				}
+			}
+			if(largest == null) {
+				break;
+			}
+			summary.remove(largest);
+			truncated.add(largest);
+		}
+		log.debug("Payload of {} bytes summarized, removed fields {}", payloadSize(data), truncated);
+		return summary.toString();
+	}
+
+	private static int payloadSize(String data) {
+		return data.getBytes(StandardCharsets.UTF_8).length;
+	}
 	
 	/**
      * Message emitter that sends {@link Test} to all registered clients
@@ -134,12 +401,7 @@ public class MessageBroadcaster {
 		assert host != null;
 		assert !host.isEmpty();
 		assert audit != null;
-        //Object to JSON in String
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        String audit_json = mapper.writeValueAsString(audit);
-
-		conditionalTrigger(host, "audit-update", audit_json);
+		coalescedTrigger(host, AUDIT_UPDATE_EVENT, audit.getId(), audit);
 	}
 	
 	/**
@@ -157,9 +419,6 @@ public class MessageBroadcaster {
 	 */
 	public void broadcastSubscriptionExceeded(Account account) throws JsonProcessingException {
 		assert account != null;
-        //Object to JSON in String
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
         int id_start_idx = account.getUserId().indexOf('|');
 		String user_id = account.getUserId().substring(id_start_idx+1);
         
@@ -175,10 +434,7 @@ public class MessageBroadcaster {
      * @throws JsonProcessingException if there is an error converting the test to a JSON string
      */
 	public void broadcastDiscoveredTest(Test test, String host, String user_id) throws JsonProcessingException {
-        //Object to JSON in String
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        String test_json = mapper.writeValueAsString(test);
+        String test_json = toJson(test);
 
 		conditionalTrigger(user_id+host, "test-discovered", test_json);
 	}
@@ -192,11 +448,7 @@ public class MessageBroadcaster {
      */
 	public void broadcastDiscoveredForm(Form form, long domain_id) throws JsonProcessingException {
 		log.info("Broadcasting discovered form !!!");
-		
-        //Object to JSON in String
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        String form_json = mapper.writeValueAsString(form);
+        String form_json = toJson(form);
         
 		conditionalTrigger(""+domain_id, "discovered-form", form_json);
 		log.info("broadcasted a discovered form");
@@ -210,11 +462,7 @@ public class MessageBroadcaster {
      * @throws JsonProcessingException if there is an error converting the test to a JSON string
      */
 	public void broadcastTest(Test test, String host) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-
-        //Object to JSON in String
-        String test_json = mapper.writeValueAsString(test);
+        String test_json = toJson(test);
         log.warn("@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@");
         log.warn("@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@");
         log.warn("host :: " + host);
@@ -234,11 +482,7 @@ public class MessageBroadcaster {
      * @throws JsonProcessingException if there is an error converting the path object to a JSON string
      */
 	public void broadcastPathObject(LookseeObject path_object, String host, String user_id) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-
-        //Object to JSON in String
-        String path_object_json = mapper.writeValueAsString(path_object);
+        String path_object_json = toJson(path_object);
         
 		conditionalTrigger(user_id+host, "path_object", path_object_json);
 	}
@@ -251,12 +495,7 @@ public class MessageBroadcaster {
      */
 	public void broadcastDiscoveryStatus(DiscoveryRecord record) throws JsonProcessingException {
 		log.info("broadcasting discovery status");
-		
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-
-        //Object to JSON in String
-        String discovery_json = mapper.writeValueAsString(record);
+        String discovery_json = toJson(record);
         
 		conditionalTrigger(record.getDomainUrl(), "discovery-status", discovery_json);
 	}
@@ -287,12 +526,7 @@ public class MessageBroadcaster {
 											  ExecutionStatus.COMPLETE);
 		*/
 		DomainDto domain_dto = new DomainDto( domain.getId(), domain.getUrl(), 0.01);
-
-		
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-
-		String test_confirmation_json = mapper.writeValueAsString(domain_dto);
+		String test_confirmation_json = toJson(domain_dto);
 		conditionalTrigger(user_id.replace("|", ""), "domain-added", test_confirmation_json);
 	}
 
@@ -302,11 +536,8 @@ public class MessageBroadcaster {
 	 * @param issue {@link UXIssueMessage} to be emitted to clients
 	 */
 	public void sendIssueMessage(String page_id, UXIssueMessage issue) {
-		ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-
 		try {
-			String audit_record_json = mapper.writeValueAsString(issue);
+			String audit_record_json = toJson(issue);
 			conditionalTrigger(page_id+"", "ux-issue-added", audit_record_json);
 		} catch (JsonProcessingException e) {
 			e.printStackTrace();
@@ -320,10 +551,7 @@ public class MessageBroadcaster {
 	 * @throws JsonProcessingException if there is an error converting the domain dto to a JSON string
 	 */
 	public void sendAuditRecord(String user_id, DomainDto domain_dto) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-
-		String domain_dto_json = mapper.writeValueAsString(domain_dto);
+		String domain_dto_json = toJson(domain_dto);
 		conditionalTrigger(user_id, "audit-record", domain_dto_json);
 	}
 
@@ -341,10 +569,34 @@ public class MessageBroadcaster {
 		assert channel_id != null;
 		assert !channel_id.isEmpty();
 		assert audit_update != null;
-		
-		ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        String audit_record_json = mapper.writeValueAsString(audit_update);
-		conditionalTrigger(channel_id, "audit-progress", audit_record_json);
+		coalescedTrigger(channel_id, AUDIT_PROGRESS_EVENT, audit_update.getId(), audit_update);
+	}
+
+	/**
+	 * Latest update of an audit waiting to be sent
+	 */
+	private static final class PendingUpdate {
+		private final String channel;
+		private final String event;
+		private final ObjectNode payload;
+
+		private PendingUpdate(String channel, String event, ObjectNode payload) {
+			this.channel = channel;
+			this.event = event;
+			this.payload = payload;
+		}
+	}
+
+	/**
+	 * Last update of an audit sent on a channel and when the last full update was sent
+	 */
+	private static final class SentUpdate {
+		private final ObjectNode payload;
+		private final long fullUpdateNanos;
+
+		private SentUpdate(ObjectNode payload, long full_update_nanos) {
+			this.payload = payload;
+			this.fullUpdateNanos = full_update_nanos;
+		}
 	}
 }
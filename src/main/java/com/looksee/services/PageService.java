@@ -7,6 +7,8 @@ import com.looksee.models.PageState;
 import com.looksee.models.repository.PageRepository;
 import com.looksee.models.repository.PageStateRepository;
 import com.looksee.models.repository.PerformanceInsightRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -25,7 +27,10 @@ public class PageService {
 	private PageRepository page_repo;
 	
 	@Autowired
-	private PageStateRepository page_state_service;
+	private PageStateRepository page_state_repo;
+
+	@Autowired
+	private PageStateService page_state_service;
 	
 	@Autowired
 	private PerformanceInsightRepository performance_insight_repo;
@@ -216,6 +221,7 @@ public class PageService {
 	 * @param user_id the user id
 	 * @param page_key key of the {@link Page} to add the page state to
 	 * @param page_state {@link PageState} to add
+	 * @throws UncheckedIOException if the sources of the page state can't be stored
 	 * 
 	 * precondition: page_key != null
 	 * precondition: !page_key.isEmpty()
@@ -235,9 +241,14 @@ public class PageService {
 			return;
 		}
 
-		PageState page_state_record = page_state_service.findByKeyAndUsername(user_id, page_state.getKey());
+		PageState page_state_record = page_state_repo.findByKeyAndUsername(user_id, page_state.getKey());
 		if(page_state_record == null) {
-			page_state_record = page_state_service.save(page_state);
+			try {
+				page_state_service.storeSources(page_state);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			page_state_record = page_state_repo.save(page_state);
 		}
 		page.addPageState(page_state_record);
 		page_repo.save(page);
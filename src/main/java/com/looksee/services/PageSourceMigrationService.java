@@ -0,0 +1,244 @@
+package com.looksee.services;
+
+import com.looksee.gcp.GoogleCloudStorage;
+import com.looksee.models.PageState;
+import com.looksee.storage.ObjectStore;
+import com.looksee.storage.PageSourceStore;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves the sources of {@link PageState} nodes written before sources were
+ * kept in the {@link PageSourceStore} out of the graph.
+ *
+ * <p>Nodes are migrated in batches of {@code page_source.migration_batch_size}
+ * in order of their id. The {@code src} and {@code generalizedSrc} properties
+ * of each node are written to the store, replaced by their keys and lengths,
+ * and removed. Sources that hold the URL of a blob written by
+ * {@link GoogleCloudStorage#uploadHtmlContent} are read from the bucket first.
+ * Nodes that fail are logged and left as they are, so the job can be run
+ * again.</p>
+ *
+ * <p>The job runs once the application is ready when
+ * {@code page_source.migrate_on_startup} is true, and can be started with
+ * {@link #migrateAll()}.</p>
+ */
+@Service
+public class PageSourceMigrationService implements ApplicationListener<ApplicationReadyEvent> {
+	private static Logger log = LoggerFactory.getLogger(PageSourceMigrationService.class);
+
+	/** Default number of nodes migrated per transaction */
+	public static final int DEFAULT_BATCH_SIZE = 200;
+
+	static final String FIND_LEGACY_SOURCES = "MATCH (p:PageState) WHERE id(p) > $after AND p.srcKey IS NULL "
+											+ "AND (p.src IS NOT NULL OR p.generalizedSrc IS NOT NULL) "
+											+ "RETURN id(p) AS id, p.src AS src, p.generalizedSrc AS generalizedSrc "
+											+ "ORDER BY id(p) LIMIT $limit";
+
+	static final String UPDATE_SOURCE_KEYS = "UNWIND $rows AS row MATCH (p:PageState) WHERE id(p) = row.id "
+											+ "SET p.srcKey = row.srcKey, p.srcLength = row.srcLength, "
+											+ "p.generalizedSrcKey = row.generalizedSrcKey, p.generalizedSrcLength = row.generalizedSrcLength "
+											+ "REMOVE p.src, p.generalizedSrc";
+
+	private final Neo4jClient neo4j_client;
+	private final PageSourceStore page_source_store;
+	private final List<ObjectStore> legacy_stores;
+	private final boolean migrate_on_startup;
+	private final int batch_size;
+
+	/**
+	 * Constructs the migration bean
+	 *
+	 * @param neo4j_client client used to read and update the nodes
+	 * @param page_source_store the store sources are moved to
+	 * @param google_cloud_storage the bucket legacy source URLs point into, if any
+	 * @param migrate_on_startup whether to migrate once the application is ready
+	 * @param batch_size number of nodes migrated per transaction
+	 */
+	@Autowired
+	public PageSourceMigrationService(Neo4jClient neo4j_client,
+									  PageSourceStore page_source_store,
+									  ObjectProvider<GoogleCloudStorage> google_cloud_storage,
+									  @Value("${page_source.migrate_on_startup:false}") boolean migrate_on_startup,
+									  @Value("${page_source.migration_batch_size:" + DEFAULT_BATCH_SIZE + "}") int batch_size) {
+		this(neo4j_client, page_source_store, legacyStores(page_source_store, google_cloud_storage.getIfAvailable()),
+			 migrate_on_startup, batch_size);
+	}
+
+	/**
+	 * Constructs a {@link PageSourceMigrationService}
+	 *
+	 * @param neo4j_client client used to read and update the nodes
+	 * @param page_source_store the store sources are moved to
+	 * @param legacy_stores stores whose URLs are resolved to their content
+	 * @param migrate_on_startup whether to migrate once the application is ready
+	 * @param batch_size number of nodes migrated per transaction
+	 *
+	 * precondition: neo4j_client != null
+	 * precondition: page_source_store != null
+	 * precondition: legacy_stores != null
+	 * precondition: batch_size > 0
+	 */
+	public PageSourceMigrationService(Neo4jClient neo4j_client,
+									  PageSourceStore page_source_store,
+									  List<ObjectStore> legacy_stores,
+									  boolean migrate_on_startup,
+									  int batch_size) {
+		assert neo4j_client != null;
+		assert page_source_store != null;
+		assert legacy_stores != null;
+		assert batch_size > 0;
+
+		this.neo4j_client = neo4j_client;
+		this.page_source_store = page_source_store;
+		this.legacy_stores = legacy_stores;
+		this.migrate_on_startup = migrate_on_startup;
+		this.batch_size = batch_size;
+	}
+
+	private static List<ObjectStore> legacyStores(PageSourceStore page_source_store, GoogleCloudStorage google_cloud_storage) {
+		List<ObjectStore> stores = new ArrayList<>();
+		stores.add(page_source_store.getObjectStore());
+		if(google_cloud_storage != null && google_cloud_storage.getObjectStore() != page_source_store.getObjectStore()) {
+			stores.add(google_cloud_storage.getObjectStore());
+		}
+		return stores;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if(!migrate_on_startup) {
+			return;
+		}
+		try {
+			migrateAll();
+		} catch (RuntimeException e) {
+			log.error("Page source migration failed : {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Migrates every page state that still holds its source
+	 *
+	 * @return the number of page states migrated
+	 */
+	public int migrateAll() {
+		int migrated = 0;
+		long after = -1;
+		while(true) {
+			Collection<Map<String, Object>> nodes = findLegacySources(after);
+			if(nodes.isEmpty()) {
+				break;
+			}
+
+			List<Map<String, Object>> rows = new ArrayList<>();
+			for(Map<String, Object> node : nodes) {
+				long id = ((Number)node.get("id")).longValue();
+				after = Math.max(after, id);
+				try {
+					rows.add(migrate(id, (String)node.get("src"), (String)node.get("generalizedSrc")));
+				} catch (IOException | RuntimeException e) {
+					log.warn("Could not migrate source of page state {} : {}", id, e.getMessage());
+				}
+			}
+
+			if(!rows.isEmpty()) {
+				updateSourceKeys(rows);
+				migrated += rows.size();
+			}
+			log.info("Migrated the sources of {} page states", migrated);
+		}
+		return migrated;
+	}
+
+	/**
+	 * Finds the next batch of page states that still hold their source
+	 *
+	 * @param after id of the last node of the previous batch, or -1
+	 * @return the id, src and generalizedSrc of each node, ordered by id
+	 */
+	Collection<Map<String, Object>> findLegacySources(long after) {
+		return neo4j_client.query(FIND_LEGACY_SOURCES)
+						   .bind(after).to("after")
+						   .bind(batch_size).to("limit")
+						   .fetch()
+						   .all();
+	}
+
+	/**
+	 * Replaces the sources of page states with the keys and lengths of a batch
+	 *
+	 * @param rows the properties each node is updated with
+	 */
+	void updateSourceKeys(List<Map<String, Object>> rows) {
+		neo4j_client.query(UPDATE_SOURCE_KEYS).bind(rows).to("rows").run();
+	}
+
+	/**
+	 * Writes the sources of one page state to the store
+	 *
+	 * @param id id of the page state node
+	 * @param src the src property of the node
+	 * @param generalized_src the generalizedSrc property of the node
+	 * @return the properties the node is updated with
+	 * @throws IOException if a source can't be read or written
+	 */
+	Map<String, Object> migrate(long id, String src, String generalized_src) throws IOException {
+		Map<String, Object> row = new HashMap<>();
+		row.put("id", id);
+		putSource(row, "src", resolve(src));
+		putSource(row, "generalizedSrc", resolve(generalized_src));
+		return row;
+	}
+
+	private void putSource(Map<String, Object> row, String property, String content) throws IOException {
+		if(content == null) {
+			row.put(property + "Key", null);
+			row.put(property + "Length", 0L);
+			return;
+		}
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		row.put(property + "Key", page_source_store.put(bytes));
+		row.put(property + "Length", (long)bytes.length);
+	}
+
+	/**
+	 * Returns the content a source property refers to. Properties written by
+	 * {@link GoogleCloudStorage#uploadHtmlContent} hold the URL of the content,
+	 * older ones the content itself.
+	 *
+	 * @param value the value of the property
+	 * @return the content, or null if value is null
+	 * @throws IOException if the URL of a blob that doesn't exist is stored
+	 */
+	String resolve(String value) throws IOException {
+		if(value == null) {
+			return null;
+		}
+		for(ObjectStore store : legacy_stores) {
+			String key = store.getKey(value);
+			if(key != null) {
+				byte[] bytes = store.get(key);
+				if(bytes == null) {
+					throw new IOException("No content stored at "+value);
+				}
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+		}
+		return value;
+	}
+}
@@ -10,7 +10,10 @@ import com.looksee.models.enums.ElementClassification;
 import com.looksee.models.repository.AuditRecordRepository;
 import com.looksee.models.repository.ElementStateRepository;
 import com.looksee.models.repository.PageStateRepository;
+import com.looksee.storage.PageSourceStore;
 import io.github.resilience4j.retry.annotation.Retry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -41,6 +44,9 @@ public class PageStateService {
 	@Autowired
 	private AuditRecordRepository audit_record_repo;
 
+	@Autowired
+	private PageSourceStore page_source_store;
+
 	/**
 	 * Save a {@link PageState} object and its associated objects
 	 * @param page_state the page state to save
@@ -56,10 +62,11 @@ public class PageStateService {
 		
 		if(page_state_record == null) {
 			log.warn("page state wasn't found in database. Saving new page state to neo4j");
-			return page_state_repo.save(page_state);
+			storeSources(page_state);
+			return loadSources(page_state_repo.save(page_state));
 		}
 
-		return page_state_record;
+		return loadSources(page_state_record);
 	}
 	
 	/**
@@ -78,12 +85,17 @@ public class PageStateService {
 		assert page_state != null;
 		
 		PageState page_state_record = page_state_repo.findPageWithKey(audit_record_id, page_state.getKey());
+		if(page_state_record == null) {
+			//keys are unique, a page state that was saved but not yet linked to the audit record is reused
+			page_state_record = page_state_repo.findByKey(page_state.getKey());
+		}
 		if(page_state_record == null) {
 			log.warn("page state wasn't found in database. Saving new page state to neo4j");
-			return page_state_repo.save(page_state);
+			storeSources(page_state);
+			return loadSources(page_state_repo.save(page_state));
 		}
 
-		return page_state_record;
+		return loadSources(page_state_record);
 	}
 	
 	/**
@@ -102,8 +114,63 @@ public class PageStateService {
 		if(page_state != null){
 			page_state.setElements(getElementStates(page_key));
 		}
+		return loadSources(page_state);
+	}
+
+	/**
+	 * Writes the source and generalized source of a {@link PageState} to the
+	 * {@link PageSourceStore} and records their keys and lengths on the page
+	 * state. Pages share a blob when their sources are identical
+	 * @param page_state the page state to store the sources of
+	 * @return the page state
+	 * @throws IOException if a source can't be written
+	 *
+	 * precondition: page_state != null
+	 */
+	public PageState storeSources(PageState page_state) throws IOException {
+		assert page_state != null;
+
+		String src = page_state.getSrc();
+		if(src != null) {
+			page_state.setSrcKey(page_source_store.put(src));
+			page_state.setSrcLength(src.getBytes(StandardCharsets.UTF_8).length);
+		}
+
+		String generalized_src = page_state.getGeneralizedSrc();
+		if(generalized_src != null) {
+			page_state.setGeneralizedSrcKey(page_source_store.put(generalized_src));
+			page_state.setGeneralizedSrcLength(generalized_src.getBytes(StandardCharsets.UTF_8).length);
+		}
+		return page_state;
+	}
+
+	/**
+	 * Reads the source and generalized source of a {@link PageState} loaded
+	 * from the graph from the {@link PageSourceStore}. Page states that still
+	 * hold their sources inline are returned unchanged
+	 * @param page_state the page state to load the sources of, may be null
+	 * @return the page state
+	 */
+	public PageState loadSources(PageState page_state) {
+		if(page_state == null) {
+			return null;
+		}
+
+		if(page_state.getSrc() == null && page_state.getSrcKey() != null) {
+			page_state.setSrc(page_source_store.get(page_state.getSrcKey()));
+		}
+		if(page_state.getGeneralizedSrc() == null && page_state.getGeneralizedSrcKey() != null) {
+			page_state.setGeneralizedSrc(page_source_store.get(page_state.getGeneralizedSrcKey()));
+		}
 		return page_state;
 	}
+
+	private List<PageState> loadSources(List<PageState> page_states) {
+		if(page_states != null) {
+			page_states.forEach(this::loadSources);
+		}
+		return page_states;
+	}
 	
 	/**
 	 * Find a page state by screenshot checksum and page url
@@ -127,7 +194,7 @@ public class PageStateService {
 		assert !url.isEmpty();
 		assert !screenshot_checksum.isEmpty();
 		
-		return page_state_repo.findByScreenshotChecksumAndPageUrl(url, screenshot_checksum);
+		return loadSources(page_state_repo.findByScreenshotChecksumAndPageUrl(url, screenshot_checksum));
 	}
 	
 	/**
@@ -142,7 +209,7 @@ public class PageStateService {
 		assert screenshot_checksum != null;
 		assert !screenshot_checksum.isEmpty();
 		
-		return page_state_repo.findByFullPageScreenshotChecksum(screenshot_checksum);
+		return loadSources(page_state_repo.findByFullPageScreenshotChecksum(screenshot_checksum));
 	}
 	
 	/**
@@ -162,7 +229,7 @@ public class PageStateService {
 		assert !user_id.isEmpty();
 		assert !screenshot_checksum.isEmpty();
 		
-		return page_state_repo.findByAnimationImageChecksum(user_id, screenshot_checksum);
+		return loadSources(page_state_repo.findByAnimationImageChecksum(user_id, screenshot_checksum));
 	}
 	
 	/**
@@ -250,7 +317,7 @@ public class PageStateService {
 		assert !url.isEmpty();
 		assert !page_key.isEmpty();
 		
-		return page_state_repo.findPageStatesWithForm(account_id, url, page_key);
+		return loadSources(page_state_repo.findPageStatesWithForm(account_id, url, page_key));
 	}
 	
 	/**
@@ -285,7 +352,7 @@ public class PageStateService {
 		assert url != null;
 		assert src_checksum != null;
 		
-		return page_state_repo.findBySourceChecksumForDomain(url, src_checksum);
+		return loadSources(page_state_repo.findBySourceChecksumForDomain(url, src_checksum));
 	}
 	
 	/**
@@ -349,7 +416,7 @@ public class PageStateService {
 		assert url != null;
 		assert !url.isEmpty();
 
-		return page_state_repo.findByUrl(url);
+		return loadSources(page_state_repo.findByUrl(url));
 	}
 
 	/**
@@ -398,7 +465,7 @@ public class PageStateService {
 	public Optional<PageState> findById(long page_id) {
 		assert page_id > 0;
 		
-		return page_state_repo.findById(page_id);
+		return page_state_repo.findById(page_id).map(this::loadSources);
 	}
 
 	/**
@@ -447,7 +514,7 @@ public class PageStateService {
 		assert key != null;
 		assert !key.isEmpty();
 		
-		return page_state_repo.findPageWithKey(audit_record_id, key);
+		return loadSources(page_state_repo.findPageWithKey(audit_record_id, key));
 	}
 
 	/**
@@ -460,7 +527,7 @@ public class PageStateService {
     public PageState getPageStateForAuditRecord(long audit_record_id) {
 		assert audit_record_id > 0;
 
-        return page_state_repo.getPageStateForAuditRecord(audit_record_id);
+        return loadSources(page_state_repo.getPageStateForAuditRecord(audit_record_id));
     }
 
 	/**
@@ -504,7 +571,7 @@ public class PageStateService {
 		assert page_key != null;
 		assert !page_key.isEmpty();
 
-		return page_state_repo.findByDomainMap(domain_map_id, page_key);
+		return loadSources(page_state_repo.findByDomainMap(domain_map_id, page_key));
 	}
 
 	/**
@@ -520,7 +587,7 @@ public class PageStateService {
 		assert domainAuditRecordId > 0;
 		assert page_state_id > 0;
 
-		return page_state_repo.findByDomainAudit(domainAuditRecordId, page_state_id);
+		return loadSources(page_state_repo.findByDomainAudit(domainAuditRecordId, page_state_id));
 	}
 
 	/**
@@ -538,7 +605,7 @@ public class PageStateService {
 		assert current_url != null;
 		assert !current_url.isEmpty();
 
-		return page_state_repo.findByDomainAudit(domainAuditRecordId, current_url);
+		return loadSources(page_state_repo.findByDomainAudit(domainAuditRecordId, current_url));
 	}
 
     /**
@@ -591,7 +658,7 @@ public class PageStateService {
     public PageState findByAuditRecordId(long pageAuditId) {
 		assert pageAuditId > 0;
 		
-        return page_state_repo.findByAuditRecordId(pageAuditId);
+        return loadSources(page_state_repo.findByAuditRecordId(pageAuditId));
     }
 
 	/**
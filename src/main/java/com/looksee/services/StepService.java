@@ -38,6 +38,9 @@ public class StepService {
 	
 	@Autowired
 	private PageStateRepository page_state_repo;
+
+	@Autowired
+	private PageStateService page_state_service;
 	
 	@Autowired
 	private LandingStepRepository landing_step_repo;
@@ -221,7 +224,7 @@ public class StepService {
 	public PageState getEndPage(long id) {
 		assert id > 0;
 		
-		return page_state_repo.getEndPageForStep(id);
+		return page_state_service.loadSources(page_state_repo.getEndPageForStep(id));
 	}
 	
 	/**
@@ -0,0 +1,265 @@
+package com.looksee.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-through, write-through cache of a remote {@link ObjectStore} in a
+ * local one.
+ *
+ * <p>Blobs are never modified after they are written, so a local copy is
+ * valid for as long as it exists. Reads are served locally when possible and
+ * otherwise fetched once from the remote store and kept. Writes go to the
+ * remote store first and are then copied locally. Range reads of blobs that
+ * aren't cached fetch the whole blob, since the same screenshots and tiles are
+ * read many times while a page is processed.</p>
+ *
+ * <p>The local copies take up at most {@code max_cached_bytes}. When a copy
+ * would exceed the limit, the least recently read or written copies are
+ * deleted from the local store. Blobs a previous process left in the local
+ * store are counted once they are read again.</p>
+ *
+ * <p>Failures of the local store are logged and fall back to the remote store.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: local != null</li>
+ *   <li>invariant: remote != null</li>
+ *   <li>invariant: cached_bytes &lt;= max_cached_bytes outside of synchronized blocks</li>
+ * </ul>
+ */
+public class CachingObjectStore implements ObjectStore {
+	private static Logger log = LoggerFactory.getLogger(CachingObjectStore.class);
+
+	/** Default largest number of bytes held by the local store */
+	public static final long DEFAULT_MAX_CACHED_BYTES = 1L << 30;
+
+	private final ObjectStore local;
+	private final ObjectStore remote;
+	private final long max_cached_bytes;
+	/** Sizes of the local copies, least recently used first */
+	private final LinkedHashMap<String, Long> cached_sizes = new LinkedHashMap<>(64, 0.75f, true);
+	private long cached_bytes = 0;
+
+	/**
+	 * Constructs a {@link CachingObjectStore} holding up to
+	 * {@value #DEFAULT_MAX_CACHED_BYTES} bytes locally
+	 *
+	 * @param local the store holding cached copies
+	 * @param remote the store of record
+	 *
+	 * precondition: local != null
+	 * precondition: remote != null
+	 */
+	public CachingObjectStore(ObjectStore local, ObjectStore remote) {
+		this(local, remote, DEFAULT_MAX_CACHED_BYTES);
+	}
+
+	/**
+	 * Constructs a {@link CachingObjectStore}
+	 *
+	 * @param local the store holding cached copies
+	 * @param remote the store of record
+	 * @param max_cached_bytes largest number of bytes held by the local store
+	 *
+	 * precondition: local != null
+	 * precondition: remote != null
+	 * precondition: max_cached_bytes > 0
+	 */
+	public CachingObjectStore(ObjectStore local, ObjectStore remote, long max_cached_bytes) {
+		assert local != null;
+		assert remote != null;
+		assert max_cached_bytes > 0;
+
+		this.local = local;
+		this.remote = remote;
+		this.max_cached_bytes = max_cached_bytes;
+	}
+
+	@Override
+	public void put(String key, byte[] bytes, String content_type) throws IOException {
+		remote.put(key, bytes, content_type);
+		cache(key, bytes, content_type, true);
+	}
+
+	@Override
+	public boolean putIfAbsent(String key, byte[] bytes, String content_type) throws IOException {
+		boolean written = remote.putIfAbsent(key, bytes, content_type);
+		if(written) {
+			//an existing remote blob may differ, it is cached when it is read
+			cache(key, bytes, content_type, false);
+		}
+		return written;
+	}
+
+	@Override
+	public byte[] get(String key) throws IOException {
+		byte[] bytes = cached(key);
+		if(bytes != null) {
+			return bytes;
+		}
+
+		bytes = remote.get(key);
+		if(bytes != null) {
+			cache(key, bytes, "application/octet-stream", false);
+		}
+		return bytes;
+	}
+
+	@Override
+	public ByteBuffer getRange(String key, long offset, int length) throws IOException {
+		try {
+			if(!local.exists(key)) {
+				byte[] bytes = remote.get(key);
+				if(bytes == null) {
+					return null;
+				}
+				cache(key, bytes, "application/octet-stream", false);
+			}
+			ByteBuffer range = local.getRange(key, offset, length);
+			if(range != null) {
+				touch(key);
+				return range;
+			}
+		}
+		catch(IOException e) {
+			log.warn("Local object store failed, reading "+key+" remotely : "+e.getMessage());
+		}
+		return remote.getRange(key, offset, length);
+	}
+
+	@Override
+	public boolean exists(String key) throws IOException {
+		try {
+			if(local.exists(key)) {
+				return true;
+			}
+		}
+		catch(IOException e) {
+			log.warn("Local object store failed : "+e.getMessage());
+		}
+		return remote.exists(key);
+	}
+
+	@Override
+	public boolean delete(String key) throws IOException {
+		boolean deleted = remote.delete(key);
+		evict(List.of(key));
+		return deleted;
+	}
+
+	@Override
+	public String getPublicUrl(String key) {
+		return remote.getPublicUrl(key);
+	}
+
+	/**
+	 * @return number of bytes held by the local store, as counted by this instance
+	 */
+	public long getCachedBytes() {
+		synchronized(cached_sizes) {
+			return cached_bytes;
+		}
+	}
+
+	@Override
+	public String getKey(String public_url) {
+		return remote.getKey(public_url);
+	}
+
+	private byte[] cached(String key) {
+		try {
+			byte[] bytes = local.get(key);
+			if(bytes != null) {
+				record(key, bytes.length);
+			}
+			return bytes;
+		}
+		catch(IOException e) {
+			log.warn("Local object store failed, reading "+key+" remotely : "+e.getMessage());
+			return null;
+		}
+	}
+
+	private void cache(String key, byte[] bytes, String content_type, boolean replace) {
+		if(bytes.length > max_cached_bytes) {
+			evict(List.of(key));
+			return;
+		}
+		try {
+			if(replace) {
+				local.put(key, bytes, content_type);
+			}
+			else {
+				local.putIfAbsent(key, bytes, content_type);
+			}
+			record(key, bytes.length);
+		}
+		catch(IOException e) {
+			log.warn("Could not cache "+key+" locally : "+e.getMessage());
+		}
+	}
+
+	/**
+	 * Marks a local copy as recently used
+	 */
+	private void touch(String key) {
+		synchronized(cached_sizes) {
+			cached_sizes.get(key);
+		}
+	}
+
+	/**
+	 * Counts a local copy as most recently used and deletes the least recently
+	 * used copies while the local store holds more than max_cached_bytes
+	 */
+	private void record(String key, long size) {
+		List<String> evicted = new ArrayList<>();
+		synchronized(cached_sizes) {
+			Long previous = cached_sizes.put(key, size);
+			cached_bytes += size - (previous != null ? previous : 0);
+
+			Iterator<Map.Entry<String, Long>> iter = cached_sizes.entrySet().iterator();
+			while(cached_bytes > max_cached_bytes && iter.hasNext()) {
+				Map.Entry<String, Long> eldest = iter.next();
+				cached_bytes -= eldest.getValue();
+				evicted.add(eldest.getKey());
+				iter.remove();
+			}
+		}
+		deleteLocal(evicted);
+	}
+
+	/**
+	 * Stops counting local copies and deletes them
+	 */
+	private void evict(List<String> keys) {
+		synchronized(cached_sizes) {
+			for(String key : keys) {
+				Long size = cached_sizes.remove(key);
+				if(size != null) {
+					cached_bytes -= size;
+				}
+			}
+		}
+		deleteLocal(keys);
+	}
+
+	private void deleteLocal(List<String> keys) {
+		for(String key : keys) {
+			try {
+				local.delete(key);
+			}
+			catch(IOException e) {
+				log.warn("Could not evict "+key+" from the local store : "+e.getMessage());
+			}
+		}
+	}
+}
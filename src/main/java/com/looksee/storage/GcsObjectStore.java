@@ -0,0 +1,167 @@
+package com.looksee.storage;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ObjectStore} backed by a Google Cloud Storage bucket.
+ *
+ * <p>Conditional writes use the {@code doesNotExist} precondition instead of
+ * a lookup before the write. Keys are derived from content, so blobs are
+ * served with a one year cache lifetime.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: storage != null</li>
+ *   <li>invariant: bucket_name != null</li>
+ *   <li>invariant: public_url != null</li>
+ * </ul>
+ */
+public class GcsObjectStore implements ObjectStore {
+	/** HTTP status returned when a precondition such as doesNotExist fails */
+	private static final int PRECONDITION_FAILED = 412;
+
+	/** HTTP status returned for missing blobs */
+	private static final int NOT_FOUND = 404;
+
+	private static final String CACHE_CONTROL = "public, max-age=31536000";
+
+	private final Storage storage;
+	private final String bucket_name;
+	private final String public_url;
+
+	/**
+	 * Constructs a {@link GcsObjectStore}
+	 *
+	 * @param storage the client used for all requests
+	 * @param bucket_name the bucket blobs are stored in
+	 * @param public_url URL prefix blobs of the bucket are served from
+	 *
+	 * precondition: storage != null
+	 * precondition: bucket_name != null
+	 * precondition: public_url != null
+	 */
+	public GcsObjectStore(Storage storage, String bucket_name, String public_url) {
+		assert storage != null;
+		assert bucket_name != null;
+		assert public_url != null;
+
+		this.storage = storage;
+		this.bucket_name = bucket_name;
+		this.public_url = public_url;
+	}
+
+	@Override
+	public void put(String key, byte[] bytes, String content_type) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+		assert bytes != null;
+		assert content_type != null;
+
+		storage.create(blobInfo(key, content_type), bytes);
+	}
+
+	@Override
+	public boolean putIfAbsent(String key, byte[] bytes, String content_type) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+		assert bytes != null;
+		assert content_type != null;
+
+		try {
+			storage.create(blobInfo(key, content_type), bytes, Storage.BlobTargetOption.doesNotExist());
+			return true;
+		}
+		catch(StorageException e) {
+			if(e.getCode() == PRECONDITION_FAILED) {
+				return false;
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public byte[] get(String key) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+
+		try {
+			return storage.readAllBytes(BlobId.of(bucket_name, key));
+		}
+		catch(StorageException e) {
+			if(e.getCode() == NOT_FOUND) {
+				return null;
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public ByteBuffer getRange(String key, long offset, int length) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+		assert offset >= 0;
+		assert length >= 0;
+
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		try(ReadChannel reader = storage.reader(BlobId.of(bucket_name, key))) {
+			reader.seek(offset);
+			reader.limit(offset + length);
+			while(buffer.hasRemaining() && reader.read(buffer) >= 0) {
+				//keep reading until the range or the blob ends
+			}
+		}
+		catch(StorageException e) {
+			if(e.getCode() == NOT_FOUND) {
+				return null;
+			}
+			throw e;
+		}
+		buffer.flip();
+		return buffer.asReadOnlyBuffer();
+	}
+
+	@Override
+	public boolean exists(String key) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+
+		return storage.get(BlobId.of(bucket_name, key), Storage.BlobGetOption.fields(Storage.BlobField.NAME)) != null;
+	}
+
+	@Override
+	public boolean delete(String key) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+
+		return storage.delete(BlobId.of(bucket_name, key));
+	}
+
+	@Override
+	public String getPublicUrl(String key) {
+		assert key != null;
+		assert !key.isEmpty();
+
+		return public_url + "/" + key;
+	}
+
+	@Override
+	public String getKey(String url) {
+		assert url != null;
+
+		String prefix = public_url + "/";
+		return url.startsWith(prefix) ? url.substring(prefix.length()) : null;
+	}
+
+	private BlobInfo blobInfo(String key, String content_type) {
+		return BlobInfo.newBuilder(BlobId.of(bucket_name, key))
+						.setContentType(content_type)
+						.setCacheControl(CACHE_CONTROL)
+						.build();
+	}
+}
@@ -0,0 +1,207 @@
+package com.looksee.storage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * {@link ObjectStore} that keeps blobs as files under a local directory.
+ *
+ * <p>A blob is stored at {@code root/ab/<encoded key>}, where {@code ab} are
+ * the first two hex digits of the SHA-256 of the key, so keys are spread over
+ * 256 directories. The key is URL encoded into a safe file name. Keys whose
+ * encoded form is longer than {@value #MAX_FILE_NAME_LENGTH} characters are
+ * stored under their SHA-256 instead.</p>
+ *
+ * <p>Files are written to a temporary file and moved into place, so readers
+ * never see a partial blob. Blobs are read through memory mapped files, and
+ * range reads return the mapped region itself without copying.</p>
+ *
+ * <p>Used on its own to run the pipeline and benchmarks without a bucket, and
+ * by {@link CachingObjectStore} as a local tier in front of a remote store.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: root != null</li>
+ * </ul>
+ */
+public class LocalObjectStore implements ObjectStore {
+	/** Longest file name derived from a key, longer keys are stored under their hash */
+	public static final int MAX_FILE_NAME_LENGTH = 200;
+
+	private final Path root;
+
+	/**
+	 * Constructs a {@link LocalObjectStore}
+	 *
+	 * @param root directory blobs are stored in. It is created if it doesn't exist
+	 * @throws IOException if the directory can't be created
+	 *
+	 * precondition: root != null
+	 */
+	public LocalObjectStore(Path root) throws IOException {
+		assert root != null;
+
+		this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+	}
+
+	@Override
+	public void put(String key, byte[] bytes, String content_type) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+		assert bytes != null;
+		assert content_type != null;
+
+		Path temp_file = writeTemp(key, bytes);
+		Files.move(temp_file, pathOf(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@Override
+	public boolean putIfAbsent(String key, byte[] bytes, String content_type) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+		assert bytes != null;
+		assert content_type != null;
+
+		Path path = pathOf(key);
+		if(Files.exists(path)) {
+			return false;
+		}
+
+		Path temp_file = writeTemp(key, bytes);
+		try {
+			Files.move(temp_file, path);
+			return true;
+		}
+		catch(FileAlreadyExistsException e) {
+			//written concurrently
+			Files.deleteIfExists(temp_file);
+			return false;
+		}
+	}
+
+	@Override
+	public byte[] get(String key) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+
+		ByteBuffer buffer = map(key, 0, Integer.MAX_VALUE);
+		if(buffer == null) {
+			return null;
+		}
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	@Override
+	public ByteBuffer getRange(String key, long offset, int length) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+		assert offset >= 0;
+		assert length >= 0;
+
+		return map(key, offset, length);
+	}
+
+	@Override
+	public boolean exists(String key) {
+		assert key != null;
+		assert !key.isEmpty();
+
+		return Files.exists(pathOf(key));
+	}
+
+	@Override
+	public boolean delete(String key) throws IOException {
+		assert key != null;
+		assert !key.isEmpty();
+
+		return Files.deleteIfExists(pathOf(key));
+	}
+
+	@Override
+	public String getPublicUrl(String key) {
+		assert key != null;
+		assert !key.isEmpty();
+
+		return pathOf(key).toUri().toString();
+	}
+
+	@Override
+	public String getKey(String url) {
+		assert url != null;
+
+		Path path;
+		try {
+			path = Paths.get(URI.create(url));
+		}
+		catch(IllegalArgumentException | FileSystemNotFoundException e) {
+			return null;
+		}
+		if(path.getNameCount() < 2 || !root.equals(path.getParent().getParent())) {
+			return null;
+		}
+
+		String key = URLDecoder.decode(path.getFileName().toString(), StandardCharsets.UTF_8);
+		return pathOf(key).equals(path) ? key : null;
+	}
+
+	/**
+	 * Returns the file a blob is stored in
+	 *
+	 * @param key the key of the blob
+	 * @return the path of the file, which may not exist
+	 */
+	Path pathOf(String key) {
+		String hash = DigestUtils.sha256Hex(key);
+		String file_name = URLEncoder.encode(key, StandardCharsets.UTF_8);
+		if(file_name.length() > MAX_FILE_NAME_LENGTH || file_name.startsWith(".")) {
+			file_name = hash;
+		}
+		return root.resolve(hash.substring(0, 2)).resolve(file_name);
+	}
+
+	private Path writeTemp(String key, byte[] bytes) throws IOException {
+		Path directory = Files.createDirectories(pathOf(key).getParent());
+		Path temp_file = Files.createTempFile(directory, ".put", ".tmp");
+		try {
+			Files.write(temp_file, bytes);
+		}
+		catch(IOException e) {
+			Files.deleteIfExists(temp_file);
+			throw e;
+		}
+		return temp_file;
+	}
+
+	/**
+	 * Maps part of a blob into memory. The mapping stays valid after the
+	 * channel is closed and is released when the buffer is garbage collected.
+	 */
+	private ByteBuffer map(String key, long offset, int length) throws IOException {
+		try(FileChannel channel = FileChannel.open(pathOf(key), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(offset >= size) {
+				return ByteBuffer.allocate(0).asReadOnlyBuffer();
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(length, size - offset));
+		}
+		catch(NoSuchFileException e) {
+			return null;
+		}
+	}
+}
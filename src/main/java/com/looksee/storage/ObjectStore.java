@@ -0,0 +1,144 @@
+package com.looksee.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Stores immutable blobs by key. Implementations back the screenshots, tiles
+ * and page sources written by {@link com.looksee.gcp.GoogleCloudStorage} and
+ * can be swapped to run without a bucket or to keep a local copy of blobs.
+ *
+ * <p>Implementations must be safe for use by multiple threads.</p>
+ */
+public interface ObjectStore {
+
+	/** Prefix of the keys created by {@link #putContent(byte[], String)} */
+	String CONTENT_KEY_PREFIX = "sha256/";
+
+	/**
+	 * Stores a blob, replacing any blob with the same key
+	 *
+	 * @param key the key of the blob
+	 * @param bytes the content of the blob
+	 * @param content_type the MIME type of the content
+	 * @throws IOException if the blob can't be written
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 * precondition: bytes != null
+	 * precondition: content_type != null
+	 */
+	void put(String key, byte[] bytes, String content_type) throws IOException;
+
+	/**
+	 * Stores a blob unless a blob with the same key already exists
+	 *
+	 * @param key the key of the blob
+	 * @param bytes the content of the blob
+	 * @param content_type the MIME type of the content
+	 * @return true if the blob was written, false if it already existed
+	 * @throws IOException if the blob can't be written
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 * precondition: bytes != null
+	 * precondition: content_type != null
+	 */
+	boolean putIfAbsent(String key, byte[] bytes, String content_type) throws IOException;
+
+	/**
+	 * Stores a blob under a key derived from its content, so identical
+	 * content is only stored once
+	 *
+	 * @param bytes the content of the blob
+	 * @param content_type the MIME type of the content
+	 * @return the key of the blob
+	 * @throws IOException if the blob can't be written
+	 *
+	 * precondition: bytes != null
+	 * precondition: content_type != null
+	 */
+	default String putContent(byte[] bytes, String content_type) throws IOException {
+		assert bytes != null;
+		assert content_type != null;
+
+		String key = CONTENT_KEY_PREFIX + DigestUtils.sha256Hex(bytes);
+		putIfAbsent(key, bytes, content_type);
+		return key;
+	}
+
+	/**
+	 * Reads a blob
+	 *
+	 * @param key the key of the blob
+	 * @return the content of the blob, or null if there is no blob with the key
+	 * @throws IOException if the blob can't be read
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 */
+	byte[] get(String key) throws IOException;
+
+	/**
+	 * Reads part of a blob
+	 *
+	 * @param key the key of the blob
+	 * @param offset offset of the first byte to read
+	 * @param length largest number of bytes to read
+	 * @return read only buffer holding the bytes between offset and the end of
+	 * 			the range or of the blob, or null if there is no blob with the key
+	 * @throws IOException if the blob can't be read
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 * precondition: offset >= 0
+	 * precondition: length >= 0
+	 */
+	ByteBuffer getRange(String key, long offset, int length) throws IOException;
+
+	/**
+	 * Checks whether a blob exists
+	 *
+	 * @param key the key of the blob
+	 * @return true if a blob with the key exists
+	 * @throws IOException if the store can't be reached
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 */
+	boolean exists(String key) throws IOException;
+
+	/**
+	 * Deletes a blob
+	 *
+	 * @param key the key of the blob
+	 * @return true if a blob was deleted, false if there was no blob with the key
+	 * @throws IOException if the blob can't be deleted
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 */
+	boolean delete(String key) throws IOException;
+
+	/**
+	 * Returns the URL a blob can be read from. The blob doesn't need to exist.
+	 *
+	 * @param key the key of the blob
+	 * @return the URL of the blob
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 */
+	String getPublicUrl(String key);
+
+	/**
+	 * Extracts the key from a URL returned by {@link #getPublicUrl(String)}
+	 *
+	 * @param public_url the URL of a blob
+	 * @return the key of the blob, or null if the URL doesn't belong to this store
+	 *
+	 * precondition: public_url != null
+	 */
+	String getKey(String public_url);
+}
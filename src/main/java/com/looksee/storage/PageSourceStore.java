@@ -0,0 +1,200 @@
+package com.looksee.storage;
+
+import com.looksee.gcp.GoogleCloudStorage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the HTML source of pages in an {@link ObjectStore}, keyed by the
+ * SHA-256 of the source, so a page that is captured again in a later crawl
+ * reuses the blob written the first time.
+ *
+ * <p>{@link com.looksee.models.PageState} nodes only hold the key and length
+ * of their source. {@link com.looksee.services.PageStateService} writes
+ * sources here when page states are saved and reads them when page states are
+ * loaded. The most recently read sources are kept in memory, since audits of
+ * one page read its source several times.</p>
+ *
+ * <p>The bean stores sources under {@code page_source.directory} when it is
+ * set, otherwise in the bucket of {@link GoogleCloudStorage} when it exists,
+ * and otherwise under a {@code looksee/page-sources} directory in the temporary
+ * directory.</p>
+ *
+ * <p>The source of a page state is not serialized, so messages that carry a
+ * page state only carry its {@code srcKey}. Every service that publishes or
+ * consumes page states must therefore use the same store, either the same
+ * bucket or a directory they all mount. The temporary directory is only seen
+ * by the process that wrote it and is meant for tests and local runs, so a
+ * warning is logged whenever it is used.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: store != null</li>
+ *   <li>invariant: cache.size() &lt;= cache_entries</li>
+ * </ul>
+ */
+@Component
+public class PageSourceStore {
+	private static Logger log = LoggerFactory.getLogger(PageSourceStore.class);
+
+	/** Default number of sources kept in memory */
+	public static final int DEFAULT_CACHE_ENTRIES = 32;
+
+	/** Content type sources are stored with */
+	public static final String CONTENT_TYPE = "text/html; charset=utf-8";
+
+	private final ObjectStore store;
+	private final int cache_entries;
+	private final Map<String, String> cache;
+
+	/**
+	 * Constructs the store bean
+	 *
+	 * @param environment source of the store settings
+	 * @param google_cloud_storage the bucket sources are stored in when no directory is set
+	 * @throws IOException if the local directory can't be created
+	 *
+	 * precondition: environment != null
+	 */
+	@Autowired
+	public PageSourceStore(Environment environment,
+						   ObjectProvider<GoogleCloudStorage> google_cloud_storage) throws IOException {
+		this(createStore(environment.getProperty("page_source.directory"), google_cloud_storage.getIfAvailable()),
+			 environment.getProperty("page_source.cache_entries", Integer.class, DEFAULT_CACHE_ENTRIES));
+	}
+
+	/**
+	 * Constructs a {@link PageSourceStore}
+	 *
+	 * @param store the store sources are written to
+	 * @param cache_entries number of sources kept in memory
+	 *
+	 * precondition: store != null
+	 * precondition: cache_entries >= 0
+	 */
+	public PageSourceStore(ObjectStore store, int cache_entries) {
+		assert store != null;
+		assert cache_entries >= 0;
+
+		this.store = store;
+		this.cache_entries = cache_entries;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > PageSourceStore.this.cache_entries;
+			}
+		};
+	}
+
+	private static ObjectStore createStore(String directory, GoogleCloudStorage google_cloud_storage) throws IOException {
+		if(directory != null && !directory.isEmpty()) {
+			return new LocalObjectStore(Paths.get(directory));
+		}
+		if(google_cloud_storage != null) {
+			return google_cloud_storage.getObjectStore();
+		}
+		return temporaryStore();
+	}
+
+	private static ObjectStore temporaryStore() throws IOException {
+		Path directory = defaultDirectory();
+		log.warn("Storing page sources in {}; set page_source.directory or a bucket so that every service reads the same sources",
+				 directory);
+		return new LocalObjectStore(directory);
+	}
+
+	private static Path defaultDirectory() {
+		return Paths.get(System.getProperty("java.io.tmpdir"), "looksee", "page-sources");
+	}
+
+	/**
+	 * @return the store sources are written to
+	 */
+	public ObjectStore getObjectStore() {
+		return store;
+	}
+
+	/**
+	 * Stores a page source unless a source with the same content is already stored
+	 *
+	 * @param bytes the UTF-8 encoded source
+	 * @return the key of the source
+	 * @throws IOException if the source can't be written
+	 *
+	 * precondition: bytes != null
+	 */
+	public String put(byte[] bytes) throws IOException {
+		assert bytes != null;
+
+		return store.putContent(bytes, CONTENT_TYPE);
+	}
+
+	/**
+	 * Stores a page source unless a source with the same content is already stored
+	 *
+	 * @param src the source
+	 * @return the key of the source
+	 * @throws IOException if the source can't be written
+	 *
+	 * precondition: src != null
+	 */
+	public String put(String src) throws IOException {
+		assert src != null;
+
+		String key = put(src.getBytes(StandardCharsets.UTF_8));
+		synchronized(cache) {
+			cache.put(key, src);
+		}
+		return key;
+	}
+
+	/**
+	 * Reads a page source
+	 *
+	 * @param key the key returned by {@link #put(String)}
+	 * @return the source
+	 * @throws UncheckedIOException if there is no source with the key or it can't be read
+	 *
+	 * precondition: key != null
+	 * precondition: !key.isEmpty()
+	 */
+	public String get(String key) {
+		assert key != null;
+		assert !key.isEmpty();
+
+		synchronized(cache) {
+			String src = cache.get(key);
+			if(src != null) {
+				return src;
+			}
+		}
+
+		try {
+			byte[] bytes = store.get(key);
+			if(bytes == null) {
+				throw new IOException("No page source stored under "+key);
+			}
+			String src = new String(bytes, StandardCharsets.UTF_8);
+			synchronized(cache) {
+				cache.put(key, src);
+			}
+			return src;
+		} catch (IOException e) {
+			log.warn("Could not read page source {} : {}", key, e.getMessage());
+			throw new UncheckedIOException(e);
+		}
+	}
+}
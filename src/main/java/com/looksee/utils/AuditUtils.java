@@ -1,6 +1,5 @@
 package com.looksee.utils;
 
-import com.looksee.models.CIEColorSpace;
 import com.looksee.models.ColorData;
 import com.looksee.models.PaletteColor;
 import com.looksee.models.audit.Audit;
@@ -21,7 +20,6 @@ import com.looksee.models.enums.ColorScheme;
 import com.looksee.models.enums.Priority;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.DoubleSummaryStatistics;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -881,7 +879,7 @@ public class AuditUtils {
 			double min_hue = 1.0;
 			double max_hue = 0.0;
 			for(PaletteColor palette_color : palette) {
-				ColorData color = new ColorData(palette_color.getPrimaryColor());
+				ColorData color = ColorData.valueOf(palette_color.getPrimaryColor());
 				if(color.getHue() > max_hue) {
 					max_hue = color.getHue();
 				}
@@ -928,9 +926,9 @@ public class AuditUtils {
 		List<PaletteColor> color_list = new ArrayList<>(colors);
 		List<Double> distances = new ArrayList<>();
 		for(int a=0; a < color_list.size()-1; a++) {
-			ColorData color_a = new ColorData(color_list.get(a).getPrimaryColor());
+			ColorData color_a = ColorData.valueOf(color_list.get(a).getPrimaryColor());
 			for(int b=a+1; b < color_list.size(); b++) {
-				ColorData color_b = new ColorData(color_list.get(b).getPrimaryColor());
+				ColorData color_b = ColorData.valueOf(color_list.get(b).getPrimaryColor());
 
 				distances.add(
 						Math.sqrt( Math.pow((color_b.getHue() - color_a.getHue()), 2) 
@@ -967,7 +965,7 @@ public class AuditUtils {
 		
 		//if both color sets have only 1
 		for(PaletteColor color : palette) {
-			ColorData color_data = new ColorData(color.getPrimaryColor());
+			ColorData color_data = ColorData.valueOf(color.getPrimaryColor());
 			total_red+= color_data.getRed();
 			total_green += color_data.getGreen();
 			total_blue += color_data.getBlue();
@@ -1175,32 +1173,7 @@ public class AuditUtils {
 	public static Set<Set<ColorData>> groupColors(List<ColorData> colors) {
 		assert colors != null;
 		
-		Set<Set<ColorData>> color_sets = new HashSet<>();
-		while(!colors.isEmpty()) {
-			//initialize set for all similar colors
-			Set<ColorData> similar_colors = new HashSet<>();
-			
-			//identify most frequent color
-			ColorData most_frequent_color = colors.parallelStream().max(Comparator.comparing( ColorData::getUsagePercent)).get();
-			similar_colors.add(most_frequent_color);
-			//identify all similar colors and remove them from the colors set
-			for(int idx=0; idx < colors.size(); idx++) {
-				ColorData color = colors.get(idx);
-				if(color.equals(most_frequent_color)) {
-					continue;
-				}
-				//add similar colors to similar colors set
-				if(isSimilarHue(most_frequent_color, color)) {	
-					similar_colors.add( color );
-				}
-			}
-			
-			//remove similar colors from colors list
-			colors.removeAll(similar_colors);
-			color_sets.add(similar_colors);
-		}
-		
-		return color_sets;
+		return ColorClusterer.groupByHue(colors, ColorClusterer.DEFAULT_HUE_TOLERANCE);
 	}
 
 	/**
@@ -1216,15 +1189,7 @@ public class AuditUtils {
 		assert color1 != null;
 		assert color2 != null;
 
-		CIEColorSpace cie_color1 = color1.RGBtoXYZ().XYZtoCIE();
-		CIEColorSpace cie_color2 = color2.RGBtoXYZ().XYZtoCIE();
-
-		double l_square = Math.pow(Math.abs(cie_color1.l-cie_color2.l), 2);
-		double a_square = Math.pow(Math.abs(cie_color1.a-cie_color2.a), 2);
-		double b_square = Math.pow(Math.abs(cie_color1.b-cie_color2.b), 2);
-
-		double diff = Math.sqrt( l_square + a_square + b_square);
-		return (1/diff) >= 0.1;
+		return DeltaE.cie76(color1, color2) <= 10;
 	}
 
 	/**
@@ -1,9 +1,6 @@
 package com.looksee.utils;
 
-import com.google.cloud.storage.Storage;
-import com.google.cloud.storage.StorageOptions;
 import com.looksee.gcp.GoogleCloudStorage;
-import com.looksee.gcp.GoogleCloudStorageProperties;
 import com.looksee.models.Browser;
 import com.looksee.models.ColorData;
 import com.looksee.models.Domain;
@@ -1300,20 +1297,20 @@ public class BrowserUtils {
 			if(prop_setting.startsWith("#")) {
 				
 				Color color = hex2Rgb(prop_setting.trim().substring(1));
-				colors.add(new ColorData(color.getRed() + ","+color.getGreen()+","+color.getBlue()));
+				colors.add(ColorData.valueOf(color.getRed(), color.getGreen(), color.getBlue()));
 			}
 			else if( prop_setting.startsWith("rgb") ){
-				colors.add(new ColorData(prop_setting));
+				colors.add(ColorData.valueOf(prop_setting));
 			}
         }
 
         for(String prop_setting : extractCssPropertyDeclarations("color", stylesheet)) {
 			if(prop_setting.startsWith("#")) {
 				Color color = hex2Rgb(prop_setting.trim().substring(1));
-				colors.add(new ColorData(color.getRed() + ","+color.getGreen()+","+color.getBlue()));
+				colors.add(ColorData.valueOf(color.getRed(), color.getGreen(), color.getBlue()));
 			}
 			else if( prop_setting.startsWith("rgb") ){
-				colors.add(new ColorData(prop_setting));
+				colors.add(ColorData.valueOf(prop_setting));
 			}
         }
         
@@ -1428,8 +1425,7 @@ public class BrowserUtils {
 		String last_checksum = null;
 		String new_checksum = null;
 
-		String bucketName = "web-images";
-		String publicUrl = "https://storage.googleapis.com/web-images";
+		GoogleCloudStorage storage = GoogleCloudStorage.getShared();
 		do{
 			//get element screenshot
 			BufferedImage screenshot = browser.getViewportScreenshot();
@@ -1446,12 +1442,6 @@ public class BrowserUtils {
 				image_checksums.add(new_checksum);
 				animated_state_checksum_hash.put(new_checksum, Boolean.TRUE);
 				last_checksum = new_checksum;
-				GoogleCloudStorageProperties properties = new GoogleCloudStorageProperties();
-				properties.setBucketName(bucketName);
-				properties.setPublicUrl(publicUrl);
-				Storage storage_options = StorageOptions.getDefaultInstance().getService();
-
-				GoogleCloudStorage storage = new GoogleCloudStorage( storage_options, properties);
 				image_urls.add(storage.saveImage(screenshot,
 												host,
 												new_checksum,
@@ -0,0 +1,70 @@
+package com.looksee.utils;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Reads regions of an image that is already decoded, for full page
+ * screenshots stored before tiled screenshots were written.
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: image != null</li>
+ * </ul>
+ */
+public class BufferedImageRegionReader implements ImageRegionReader {
+	private final BufferedImage image;
+
+	/**
+	 * Constructs a {@link BufferedImageRegionReader}
+	 *
+	 * @param image the image regions are read from
+	 *
+	 * precondition: image != null
+	 */
+	public BufferedImageRegionReader(BufferedImage image) {
+		assert image != null;
+
+		this.image = image;
+	}
+
+	@Override
+	public int getWidth() {
+		return image.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+		return image.getHeight();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * precondition: region != null
+	 * precondition: !region.isEmpty()
+	 */
+	@Override
+	public BufferedImage readRegion(Rectangle region) throws IOException {
+		assert region != null;
+		assert !region.isEmpty();
+
+		Rectangle clipped = region.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+		if(clipped.isEmpty()) {
+			throw new IOException("Region "+region+" is outside of the image bounds");
+		}
+
+		int type = image.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_ARGB : image.getType();
+		BufferedImage result = new BufferedImage(clipped.width, clipped.height, type);
+		Graphics2D graphics = result.createGraphics();
+		try {
+			graphics.drawImage(image, -clipped.x, -clipped.y, null);
+		}
+		finally {
+			graphics.dispose();
+		}
+		return result;
+	}
+}
@@ -0,0 +1,236 @@
+package com.looksee.utils;
+
+import com.looksee.models.CIEColorSpace;
+import com.looksee.models.ColorData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Groups colors into palette clusters in linear time.
+ *
+ * <p>{@link #groupByHue(List, int)} produces the same groups as repeatedly
+ * taking the most used remaining color and collecting every remaining color
+ * whose hue is within the tolerance, with all grayscale colors forming a
+ * single group. Hues are whole degrees, so colors are first counted into 361
+ * hue bins plus a grayscale bin. The greedy selection then runs over bins:
+ * a leader always claims whole bins, so the most used remaining color is the
+ * most used color of the best unclaimed bin.</p>
+ *
+ * <p>{@link #refineInLab(Set, int)} optionally refines the groups with a
+ * usage weighted k-means in CIE Lab, seeded with the most used color of each
+ * group.</p>
+ */
+public final class ColorClusterer {
+	/** Default maximum hue difference, in degrees, between a group leader and its members */
+	public static final int DEFAULT_HUE_TOLERANCE = 10;
+
+	private static final int HUE_BINS = 361;
+	private static final int GRAY_BIN = HUE_BINS;
+
+	private ColorClusterer() {}
+
+	/**
+	 * Groups colors around the most used colors by hue
+	 *
+	 * @param colors the colors to group. The list is not modified
+	 * @param hue_tolerance maximum hue difference between a group's most used color and its other colors
+	 * @return the groups
+	 *
+	 * precondition: colors != null
+	 * precondition: hue_tolerance >= 0
+	 */
+	public static Set<Set<ColorData>> groupByHue(List<ColorData> colors, int hue_tolerance) {
+		assert colors != null;
+		assert hue_tolerance >= 0;
+
+		int count = colors.size();
+		int[] bin_of = new int[count];
+		int[] bin_start = new int[HUE_BINS + 2];
+		for(int idx = 0; idx < count; idx++) {
+			ColorData color = colors.get(idx);
+			int bin = ColorPaletteUtils.isGrayScale(color)
+						? GRAY_BIN
+						: Math.max(0, Math.min(HUE_BINS - 1, (int)color.getHue()));
+			bin_of[idx] = bin;
+			bin_start[bin + 1]++;
+		}
+		for(int bin = 0; bin <= HUE_BINS; bin++) {
+			bin_start[bin + 1] += bin_start[bin];
+		}
+
+		//colors ordered by bin, and the most used color of each bin
+		int[] members = new int[count];
+		int[] fill = Arrays.copyOf(bin_start, bin_start.length);
+		int[] leader = new int[HUE_BINS + 1];
+		Arrays.fill(leader, -1);
+		for(int idx = 0; idx < count; idx++) {
+			int bin = bin_of[idx];
+			members[fill[bin]++] = idx;
+			if(leader[bin] < 0 || colors.get(idx).getUsagePercent() > colors.get(leader[bin]).getUsagePercent()) {
+				leader[bin] = idx;
+			}
+		}
+
+		List<Integer> bins = new ArrayList<>();
+		for(int bin = 0; bin <= HUE_BINS; bin++) {
+			if(leader[bin] >= 0) {
+				bins.add(bin);
+			}
+		}
+		bins.sort(Comparator.comparingDouble((Integer bin) -> colors.get(leader[bin]).getUsagePercent()).reversed());
+
+		Set<Set<ColorData>> groups = new HashSet<>();
+		boolean[] claimed = new boolean[HUE_BINS + 1];
+		for(int bin : bins) {
+			if(claimed[bin]) {
+				continue;
+			}
+
+			ColorData group_leader = colors.get(leader[bin]);
+			int first = bin == GRAY_BIN ? GRAY_BIN : Math.max(0, bin - hue_tolerance);
+			int last = bin == GRAY_BIN ? GRAY_BIN : Math.min(HUE_BINS - 1, bin + hue_tolerance);
+
+			Set<ColorData> group = new HashSet<>();
+			group.add(group_leader);
+			for(int claim = first; claim <= last; claim++) {
+				if(claimed[claim]) {
+					continue;
+				}
+				claimed[claim] = true;
+				for(int pos = bin_start[claim]; pos < bin_start[claim + 1]; pos++) {
+					ColorData color = colors.get(members[pos]);
+					//duplicates of the leader are folded into it
+					if(color != group_leader && !color.equals(group_leader)) {
+						group.add(color);
+					}
+				}
+			}
+			groups.add(group);
+		}
+		return groups;
+	}
+
+	/**
+	 * Refines color groups with a usage weighted k-means in CIE Lab. Every
+	 * group seeds one centroid at its most used color and colors are then
+	 * reassigned to the nearest centroid. Groups left empty are dropped.
+	 *
+	 * @param groups the groups to refine
+	 * @param iterations maximum number of k-means iterations
+	 * @return the refined groups
+	 *
+	 * precondition: groups != null
+	 * precondition: iterations >= 0
+	 */
+	public static Set<Set<ColorData>> refineInLab(Set<Set<ColorData>> groups, int iterations) {
+		assert groups != null;
+		assert iterations >= 0;
+
+		List<ColorData> colors = new ArrayList<>();
+		int clusters = groups.size();
+		double[] centroid_l = new double[clusters];
+		double[] centroid_a = new double[clusters];
+		double[] centroid_b = new double[clusters];
+		int cluster = 0;
+		for(Set<ColorData> group : groups) {
+			ColorData seed = null;
+			for(ColorData color : group) {
+				colors.add(color);
+				if(seed == null || color.getUsagePercent() > seed.getUsagePercent()) {
+					seed = color;
+				}
+			}
+			if(seed != null) {
+				CIEColorSpace lab = seed.lab();
+				centroid_l[cluster] = lab.l;
+				centroid_a[cluster] = lab.a;
+				centroid_b[cluster] = lab.b;
+			}
+			cluster++;
+		}
+
+		int count = colors.size();
+		double[] l = new double[count];
+		double[] a = new double[count];
+		double[] b = new double[count];
+		double[] weight = new double[count];
+		for(int idx = 0; idx < count; idx++) {
+			ColorData color = colors.get(idx);
+			CIEColorSpace lab = color.lab();
+			l[idx] = lab.l;
+			a[idx] = lab.a;
+			b[idx] = lab.b;
+			weight[idx] = Math.max(color.getUsagePercent(), 1e-9);
+		}
+
+		int[] assignment = new int[count];
+		Arrays.fill(assignment, -1);
+		double[] sum_l = new double[clusters];
+		double[] sum_a = new double[clusters];
+		double[] sum_b = new double[clusters];
+		double[] sum_weight = new double[clusters];
+		for(int iteration = 0; iteration <= iterations; iteration++) {
+			boolean changed = false;
+			for(int idx = 0; idx < count; idx++) {
+				int nearest = 0;
+				double nearest_distance = Double.MAX_VALUE;
+				for(int c = 0; c < clusters; c++) {
+					double dl = l[idx] - centroid_l[c];
+					double da = a[idx] - centroid_a[c];
+					double db = b[idx] - centroid_b[c];
+					double distance = dl * dl + da * da + db * db;
+					if(distance < nearest_distance) {
+						nearest_distance = distance;
+						nearest = c;
+					}
+				}
+				if(assignment[idx] != nearest) {
+					assignment[idx] = nearest;
+					changed = true;
+				}
+			}
+			if(!changed || iteration == iterations) {
+				break;
+			}
+
+			Arrays.fill(sum_l, 0);
+			Arrays.fill(sum_a, 0);
+			Arrays.fill(sum_b, 0);
+			Arrays.fill(sum_weight, 0);
+			for(int idx = 0; idx < count; idx++) {
+				int c = assignment[idx];
+				sum_l[c] += l[idx] * weight[idx];
+				sum_a[c] += a[idx] * weight[idx];
+				sum_b[c] += b[idx] * weight[idx];
+				sum_weight[c] += weight[idx];
+			}
+			for(int c = 0; c < clusters; c++) {
+				if(sum_weight[c] > 0) {
+					centroid_l[c] = sum_l[c] / sum_weight[c];
+					centroid_a[c] = sum_a[c] / sum_weight[c];
+					centroid_b[c] = sum_b[c] / sum_weight[c];
+				}
+			}
+		}
+
+		List<Set<ColorData>> refined = new ArrayList<>();
+		for(int c = 0; c < clusters; c++) {
+			refined.add(new HashSet<>());
+		}
+		for(int idx = 0; idx < count; idx++) {
+			refined.get(assignment[idx]).add(colors.get(idx));
+		}
+
+		Set<Set<ColorData>> result = new HashSet<>();
+		for(Set<ColorData> group : refined) {
+			if(!group.isEmpty()) {
+				result.add(group);
+			}
+		}
+		return result;
+	}
+}
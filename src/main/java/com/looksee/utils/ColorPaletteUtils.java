@@ -2,7 +2,6 @@ package com.looksee.utils;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -12,7 +11,6 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.looksee.models.CIEColorSpace;
 import com.looksee.models.ColorData;
 import com.looksee.models.PaletteColor;
 import com.looksee.models.audit.Score;
@@ -189,7 +187,7 @@ public class ColorPaletteUtils {
 		for(ColorData color: colors) {
 			boolean conforms_to_palette = false;
 			for(String palette_color : palette) {
-				boolean is_similar_hue = new ColorData(palette_color).isSimilarHue(color);
+				boolean is_similar_hue = ColorData.valueOf(palette_color).isSimilarHue(color);
 				//if color is a hue within 5 arc degrees of palette color then it matches
 				//otherwise it is not a match within the palette and we should
 				if(is_similar_hue) {
@@ -238,7 +236,7 @@ public class ColorPaletteUtils {
 			double min_hue = 1.0;
 			double max_hue = 0.0;
 			for(PaletteColor palette_color : palette) {
-				ColorData color = new ColorData(palette_color.getPrimaryColor());
+				ColorData color = ColorData.valueOf(palette_color.getPrimaryColor());
 				if(color.getHue() > max_hue) {
 					max_hue = color.getHue();
 				}
@@ -285,9 +283,9 @@ public class ColorPaletteUtils {
 		List<PaletteColor> color_list = new ArrayList<>(colors);
 		List<Double> distances = new ArrayList<>();
 		for(int a=0; a < color_list.size()-1; a++) {
-			ColorData color_a = new ColorData(color_list.get(a).getPrimaryColor());
+			ColorData color_a = ColorData.valueOf(color_list.get(a).getPrimaryColor());
 			for(int b=a+1; b < color_list.size(); b++) {
-				ColorData color_b = new ColorData(color_list.get(b).getPrimaryColor());
+				ColorData color_b = ColorData.valueOf(color_list.get(b).getPrimaryColor());
 
 				distances.add(
 						Math.sqrt( Math.pow((color_b.getHue() - color_a.getHue()), 2) 
@@ -324,7 +322,7 @@ public class ColorPaletteUtils {
 		
 		//if both color sets have only 1
 		for(PaletteColor color : palette) {
-			ColorData color_data = new ColorData(color.getPrimaryColor());
+			ColorData color_data = ColorData.valueOf(color.getPrimaryColor());
 			total_red+= color_data.getRed();
 			total_green += color_data.getGreen();
 			total_blue += color_data.getBlue();
@@ -531,32 +529,7 @@ public class ColorPaletteUtils {
 	public static Set<Set<ColorData>> groupColors(List<ColorData> colors) {
 		assert colors != null;
 		
-		Set<Set<ColorData>> color_sets = new HashSet<>();
-		while(!colors.isEmpty()) {
-			//initialize set for all similar colors
-			Set<ColorData> similar_colors = new HashSet<>();
-			
-			//identify most frequent color
-			ColorData most_frequent_color = colors.parallelStream().max(Comparator.comparing( ColorData::getUsagePercent)).get();
-			similar_colors.add(most_frequent_color);
-			//identify all similar colors and remove them from the colors set
-			for(int idx=0; idx < colors.size(); idx++) {
-				ColorData color = colors.get(idx);
-				if(color.equals(most_frequent_color)) {
-					continue;
-				}
-				//add similar colors to similar colors set
-				if(isSimilarHue(most_frequent_color, color)) {
-					similar_colors.add( color );
-				}
-			}
-			
-			//remove similar colors from colors list
-			colors.removeAll(similar_colors);
-			color_sets.add(similar_colors);
-		}
-		
-		return color_sets;
+		return ColorClusterer.groupByHue(colors, ColorClusterer.DEFAULT_HUE_TOLERANCE);
 	}
 
 	/**
@@ -572,15 +545,7 @@ public class ColorPaletteUtils {
 		assert color1 != null;
 		assert color2 != null;
 
-		CIEColorSpace cie_color1 = color1.RGBtoXYZ().XYZtoCIE();
-		CIEColorSpace cie_color2 = color2.RGBtoXYZ().XYZtoCIE();
-
-		double l_square = Math.pow(Math.abs(cie_color1.l-cie_color2.l), 2);
-		double a_square = Math.pow(Math.abs(cie_color1.a-cie_color2.a), 2);
-		double b_square = Math.pow(Math.abs(cie_color1.b-cie_color2.b), 2);
-
-		double diff = Math.sqrt( l_square + a_square + b_square);
-		return (1/diff) >= 0.1;
+		return DeltaE.cie76(color1, color2) <= 10;
 	}
 
 	/**
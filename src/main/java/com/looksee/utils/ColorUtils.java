@@ -3,16 +3,21 @@ package com.looksee.utils;
 import com.looksee.models.ColorData;
 import com.looksee.models.ColorUsageStat;
 import com.looksee.models.ElementState;
+import com.looksee.models.PageState;
 import com.looksee.models.audit.recommend.ColorContrastRecommendation;
+import com.looksee.models.audit.stats.ColorHistogram;
+import com.looksee.models.enums.ScreenshotResolution;
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import javax.imageio.ImageIO;
 import lombok.NoArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,13 +29,25 @@ import org.slf4j.LoggerFactory;
  * - Checking text contrast compliance with WCAG 2.1 AAA standards
  * - Checking non-text contrast compliance with WCAG 2.1 AAA standards
  * - Finding compliant font and background colors
- * - Removing image elements from screenshots
+ * - Extracting screenshot colors while ignoring image elements
  */
 @NoArgsConstructor
 public class ColorUtils {
 	@SuppressWarnings("unused")
 	private static Logger log = LoggerFactory.getLogger(ColorUtils.class);
 	
+	/** Minimum WCAG 2.1 AAA contrast for large text */
+	public static final double LARGE_TEXT_CONTRAST = 4.5;
+	
+	/** Minimum WCAG 2.1 AAA contrast for normal text */
+	public static final double TEXT_CONTRAST = 7.0;
+	
+	/** Screenshot resolution page colors are extracted from */
+	public static final ScreenshotResolution COLOR_RESOLUTION = ScreenshotResolution.HALF;
+	
+	/** Minimum WCAG 2.1 contrast for non-text elements */
+	public static final double NON_TEXT_CONTRAST = 3.0;
+	
 	/**
 	 * Reviews Text color contrast with relation to text size and weight to determine if it meets WCAG 2.1 color contrast guidelines 
 	 * @param contrast the contrast
@@ -46,13 +63,25 @@ public class ColorUtils {
 				|| ((font_size < 18 && (font_size >= 14 && !is_bold) || font_size < 14)  && contrast >= 7.0) ;
 	}
 
+	/**
+	 * Returns the WCAG 2.1 AAA contrast required for text of the given size and weight
+	 * @param font_size the font size
+	 * @param is_bold true if the text is bold, false otherwise
+	 * @return the minimum contrast ratio
+	 *
+	 * precondition: font_size >= 0.0
+	 */
+	public static double getRequiredTextContrast(double font_size, boolean is_bold) {
+		return font_size >= 18 || (font_size >= 14 && is_bold) ? LARGE_TEXT_CONTRAST : TEXT_CONTRAST;
+	}
+
 	/**
 	 * Reviews Text color contrast with relation to text size and weight to determine if it meets WCAG 2.1 color contrast guidelines 
 	 * @param contrast the contrast
 	 * @return true if the text color contrast meets WCAG 2.1 color contrast guidelines, false otherwise
 	 */
 	public static boolean nonTextContrastMeetsWcag21AAA(double contrast) {
-		return contrast >= 3.0;
+		return contrast >= NON_TEXT_CONTRAST;
 	}
 
 	/**
@@ -76,40 +105,46 @@ public class ColorUtils {
 		assert font_color != null;
 		assert background_color != null;
 		
-		//if text isn't black then see if we can make it lighter
-		double contrast = ColorData.computeContrast(background_color, font_color);
-		
-		boolean contrast_compliant = ColorUtils.textContrastMeetsWcag21AAA(contrast, font_size, is_bold);
-		ColorData color_text = font_color.clone();
-		
-		while(!contrast_compliant 
-				&& (color_text.getRed() > 0 || color_text.getGreen() > 0 || color_text.getBlue() > 0)) 
-		{
-			int new_red = color_text.getRed() - 1;
-			if(new_red < 0) {
-				new_red = 0;
-			}
-			
-			int new_green = color_text.getGreen() - 1;
-			if(new_green < 0) {
-				new_green = 0;
-			}
-			
-			int new_blue = color_text.getBlue() - 1;
-			if(new_blue < 0) {
-				new_blue = 0;
-			}
-			color_text = new ColorData(new_red, new_green, new_blue);
-			
-			contrast = ColorData.computeContrast(background_color, color_text);
-			contrast_compliant = ColorUtils.textContrastMeetsWcag21AAA(contrast, font_size, is_bold);
-		}
-		if(!ColorUtils.textContrastMeetsWcag21AAA(contrast, font_size, is_bold)) {
+		//closest compliant darker text color
+		ColorData color_text = ContrastSolver.solve(font_color,
+													background_color,
+													getRequiredTextContrast(font_size, is_bold),
+													false);
+		if(color_text == null) {
 			return null;
 		}
 		return new ColorContrastRecommendation(color_text.rgb(), background_color.rgb());
 	}
 	
+	/**
+	 * Finds the compliant font colors closest to the given font color, both
+	 * lighter and darker, for a given background color
+	 * @param font_color the font color
+	 * @param background_color the background color
+	 * @param font_size the font size
+	 * @param is_bold true if the font is bold, false otherwise
+	 * @return the recommendations, closest to the original font color first
+	 *
+	 * precondition: font_color != null
+	 * precondition: background_color != null
+	 */
+	public static List<ColorContrastRecommendation> findCompliantFontColors(ColorData font_color,
+																			ColorData background_color,
+																			double font_size,
+																			boolean is_bold)
+	{
+		assert font_color != null;
+		assert background_color != null;
+		
+		List<ColorContrastRecommendation> recommendations = new ArrayList<>();
+		for(ColorData candidate : ContrastSolver.candidates(font_color,
+															background_color,
+															getRequiredTextContrast(font_size, is_bold))) {
+			recommendations.add(new ColorContrastRecommendation(candidate.rgb(), background_color.rgb()));
+		}
+		return recommendations;
+	}
+	
 	/**
 	 * Shifts the shade of the background toward white to find a potential color pair
 	 *
@@ -133,33 +168,12 @@ public class ColorUtils {
 		assert font_color != null;
 		assert background_color != null;
 		
-		double contrast = ColorData.computeContrast(background_color, font_color);
-		boolean contrast_compliant = ColorUtils.textContrastMeetsWcag21AAA(contrast, font_size, is_bold);
-		
-		//if background isn't white then see if we can make it lighter
-		ColorData color = background_color.clone();
-		while(!contrast_compliant && (color.getRed() < 255 || color.getGreen() < 255 || color.getBlue() < 255)) {
-			int new_red = color.getRed() + 1;
-			if(new_red > 255) {
-				new_red = 255;
-			}
-			
-			int new_green = color.getGreen() + 1;
-			if(new_green > 255) {
-				new_green = 255;
-			}
-			
-			int new_blue = color.getBlue() + 1;
-			if(new_blue > 255) {
-				new_blue = 255;
-			}
-			
-			color = new ColorData(new_red, new_green, new_blue);
-			contrast = ColorData.computeContrast(color, font_color);
-			contrast_compliant = ColorUtils.textContrastMeetsWcag21AAA(contrast, font_size, is_bold);
-		}
-		
-		if(!ColorUtils.textContrastMeetsWcag21AAA(contrast, font_size, is_bold)) {
+		//closest compliant lighter background color
+		ColorData color = ContrastSolver.solve(background_color,
+											   font_color,
+											   getRequiredTextContrast(font_size, is_bold),
+											   true);
+		if(color == null) {
 			return null;
 		}
 		return new ColorContrastRecommendation(font_color.rgb(), color.rgb());
@@ -181,57 +195,12 @@ public class ColorUtils {
 		assert element_color != null;
 		assert background_color != null;
 		
-		double contrast = ColorData.computeContrast(background_color, element_color);
-		boolean contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
-		
-		//if background isn't white then see if we can make it lighter
-		ColorData bg_color = background_color.clone();
-		
-		if(is_dark_theme) {
-			while(!contrast_compliant && (bg_color.getRed() > 0 || bg_color.getGreen() > 0 || bg_color.getBlue() > 0)) {
-				int new_red = bg_color.getRed() - 1;
-				if(new_red < 0) {
-					new_red = 0;
-				}
-				
-				int new_green = bg_color.getGreen() - 1;
-				if(new_green < 0) {
-					new_green = 0;
-				}
-				
-				int new_blue = bg_color.getBlue() - 1;
-				if(new_blue < 0) {
-					new_blue = 0;
-				}
-				
-				bg_color = new ColorData(new_red, new_green, new_blue);
-				contrast = ColorData.computeContrast(bg_color, element_color);
-				contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
-			}
-		}
-		else {
-			while(!contrast_compliant && (bg_color.getRed() < 255 || bg_color.getGreen() < 255 || bg_color.getBlue() < 255)) {
-				int new_red = bg_color.getRed() + 1;
-				if(new_red > 255) {
-					new_red = 255;
-				}
-				
-				int new_green = bg_color.getGreen() + 1;
-				if(new_green > 255) {
-					new_green = 255;
-				}
-				
-				int new_blue = bg_color.getBlue() + 1;
-				if(new_blue > 255) {
-					new_blue = 255;
-				}
-				
-				bg_color = new ColorData(new_red, new_green, new_blue);
-				contrast = ColorData.computeContrast(bg_color, element_color);
-				contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
-			}
-		}
-		if(!ColorUtils.nonTextContrastMeetsWcag21AAA(contrast)) {
+		//closest compliant background color, darker for dark themes and lighter otherwise
+		ColorData bg_color = ContrastSolver.solve(background_color,
+												  element_color,
+												  NON_TEXT_CONTRAST,
+												  !is_dark_theme);
+		if(bg_color == null) {
 			return null;
 		}
 		return new ColorContrastRecommendation(element_color.rgb(), bg_color.rgb());
@@ -257,63 +226,13 @@ public class ColorUtils {
 		assert background_color != null;
 		
 		Set<ColorContrastRecommendation> recommendations = new HashSet<>();
-		ColorData element_color = new ColorData(element.getBackgroundColor());
-		double contrast = ColorData.computeContrast(background_color, element_color);
-		boolean contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
 		
-		//calculate for element background
-		if(is_dark_theme) {
-			//if background isn't white then see if we can make it lighter
-			while(!contrast_compliant
-					&& (element_color.getRed() < 255
-						|| element_color.getGreen() < 255
-						|| element_color.getBlue() < 255))
-			{
-				int new_red = element_color.getRed() + 1;
-				if(new_red > 255) {
-					new_red = 255;
-				}
-				
-				int new_green = element_color.getGreen() + 1;
-				if(new_green > 255) {
-					new_green = 255;
-				}
-				
-				int new_blue = element_color.getBlue() + 1;
-				if(new_blue > 255) {
-					new_blue = 255;
-				}
-				
-				element_color = new ColorData(new_red, new_green, new_blue);
-				contrast = ColorData.computeContrast(element_color, background_color);
-				contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
-			}
-		}
-		else {
-			//if background isn't white then see if we can make it lighter
-			while(!contrast_compliant && (element_color.getRed() > 0 || element_color.getGreen() > 0 || element_color.getBlue() > 0)) {
-				int new_red = element_color.getRed() - 1;
-				if(new_red < 0) {
-					new_red = 0;
-				}
-				
-				int new_green = element_color.getGreen() - 1;
-				if(new_green < 0) {
-					new_green = 0;
-				}
-				
-				int new_blue = element_color.getBlue() - 1;
-				if(new_blue < 0) {
-					new_blue = 0;
-				}
-				
-				element_color = new ColorData(new_red, new_green, new_blue);
-				contrast = ColorData.computeContrast(element_color, background_color);
-				contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
-			}
-		}
-		
-		if(ColorUtils.nonTextContrastMeetsWcag21AAA(contrast)) {
+		//closest compliant element color, lighter for dark themes and darker otherwise
+		ColorData element_color = ContrastSolver.solve(ColorData.valueOf(element.getBackgroundColor()),
+													   background_color,
+													   NON_TEXT_CONTRAST,
+													   is_dark_theme);
+		if(element_color != null) {
 			recommendations.add( new ColorContrastRecommendation(element_color.rgb(), background_color.rgb()) );
 		}
 		
@@ -321,64 +240,12 @@ public class ColorUtils {
 		if(border_rgb == null) {
 			return recommendations;
 		}
-		ColorData border_color = new ColorData(border_rgb);
 		
-		//calculate for element border color
-		if(is_dark_theme) {
-			//if background isn't white then see if we can make it lighter
-			while(!contrast_compliant
-					&& (border_color.getRed() < 255
-							|| border_color.getGreen() < 255
-							|| border_color.getBlue() < 255))
-			{
-				int new_red = border_color.getRed() + 1;
-				if(new_red > 255) {
-					new_red = 255;
-				}
-				
-				int new_green = border_color.getGreen() + 1;
-				if(new_green > 255) {
-					new_green = 255;
-				}
-				
-				int new_blue = border_color.getBlue() + 1;
-				if(new_blue > 255) {
-					new_blue = 255;
-				}
-				
-				border_color = new ColorData(new_red, new_green, new_blue);
-				contrast = ColorData.computeContrast(border_color, background_color);
-				contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
-			}
-		}
-		else {
-			//if background isn't white then see if we can make it lighter
-			while(!contrast_compliant
-					&& (border_color.getRed() > 0
-							|| border_color.getGreen() > 0
-							|| border_color.getBlue() > 0)) {
-				int new_red = border_color.getRed() - 1;
-				if(new_red < 0) {
-					new_red = 0;
-				}
-				
-				int new_green = border_color.getGreen() - 1;
-				if(new_green < 0) {
-					new_green = 0;
-				}
-				
-				int new_blue = border_color.getBlue() - 1;
-				if(new_blue < 0) {
-					new_blue = 0;
-				}
-				
-				border_color = new ColorData(new_red, new_green, new_blue);
-				contrast = ColorData.computeContrast(border_color, background_color);
-				contrast_compliant = ColorUtils.nonTextContrastMeetsWcag21AAA(contrast);
-			}
-		}
-		
-		if(ColorUtils.nonTextContrastMeetsWcag21AAA(contrast)) {
+		ColorData border_color = ContrastSolver.solve(ColorData.valueOf(border_rgb),
+													  background_color,
+													  NON_TEXT_CONTRAST,
+													  is_dark_theme);
+		if(border_color != null) {
 			recommendations.add( new ColorContrastRecommendation(border_color.rgb(), background_color.rgb()) );
 		}
 		
@@ -386,7 +253,8 @@ public class ColorUtils {
 	}
 	
 	/**
-	 * Extracts colors from a screenshot
+	 * Extracts colors from a screenshot, ignoring the regions covered by image elements.
+	 * Large screenshots are decoded subsampled, see {@link SubsampledImageLoader}
 	 * @param screenshot_url the screenshot URL
 	 * @param elements the elements
 	 * @return the color usage statistics
@@ -403,50 +271,170 @@ public class ColorUtils {
 		assert screenshot_url != null;
 		assert elements != null;
 		
-		//copy page state full page screenshot
-		BufferedImage screenshot = ImageIO.read(screenshot_url);
-		removeImageElements(screenshot, elements);
+		SubsampledImageLoader.SubsampledImage screenshot = SubsampledImageLoader.read(screenshot_url, SubsampledImageLoader.DEFAULT_MAX_PIXELS);
+		return ImageUtils.extractImageProperties(screenshot.getImage(), maskImageElements(screenshot, elements));
+	}
+
+	/**
+	 * Builds a mask that excludes the samples of a subsampled screenshot covered by image elements
+	 */
+	private static ImageExclusionMask maskImageElements(SubsampledImageLoader.SubsampledImage screenshot,
+														List<ElementState> elements) {
+		List<Rectangle> exclusions = new ArrayList<>();
+		for(Rectangle bounds : getImageElementBounds(elements)) {
+			exclusions.add(screenshot.toSampleBounds(bounds));
+		}
+		return new ImageExclusionMask(screenshot.getImage().getWidth(),
+									  screenshot.getImage().getHeight(),
+									  exclusions);
+	}
+
+	/**
+	 * Extracts the colors of a page from its {@link #COLOR_RESOLUTION}
+	 * screenshot, ignoring image elements
+	 *
+	 * @param page_state the page whose screenshot is analyzed
+	 * @param elements the elements of the page
+	 * @return the list of colors and their usage
+	 * @throws MalformedURLException if the screenshot URL is malformed
+	 * @throws IOException if the screenshot can't be read
+	 *
+	 * precondition: page_state != null
+	 * precondition: elements != null
+	 */
+	public static List<ColorUsageStat> extractColorsFromScreenshot(PageState page_state,
+																	List<ElementState> elements
+	) throws MalformedURLException, IOException {
+		return extractColorsFromScreenshot(page_state, elements, COLOR_RESOLUTION);
+	}
+
+	/**
+	 * Extracts the colors of a page from the screenshot stored at the requested
+	 * resolution, ignoring image elements. Element bounds are scaled to the
+	 * resolution of the screenshot, so reduced resolutions give the same
+	 * palette for a fraction of the download and decoding cost.
+	 *
+	 * @param page_state the page whose screenshot is analyzed
+	 * @param elements the elements of the page
+	 * @param resolution the screenshot resolution to analyze
+	 * @return the list of colors and their usage
+	 * @throws MalformedURLException if the screenshot URL is malformed
+	 * @throws IOException if the screenshot can't be read
+	 *
+	 * precondition: page_state != null
+	 * precondition: elements != null
+	 * precondition: resolution != null
+	 */
+	public static List<ColorUsageStat> extractColorsFromScreenshot(PageState page_state,
+																	List<ElementState> elements,
+																	ScreenshotResolution resolution
+	) throws MalformedURLException, IOException {
+		assert page_state != null;
+		assert elements != null;
+		assert resolution != null;
+		
+		BufferedImage screenshot = readScreenshot(page_state, resolution);
+		return ImageUtils.extractImageProperties(screenshot, maskImageElements(screenshot, page_state, elements));
+	}
+
+	/**
+	 * Builds the mergeable color histogram of a page from its
+	 * {@link #COLOR_RESOLUTION} screenshot, ignoring image elements. The
+	 * histogram is meant to be stored with the page audit record at extraction
+	 * time so domain palettes can be built without reloading screenshots.
+	 *
+	 * @param page_state the page whose screenshot is counted
+	 * @param elements the elements of the page
+	 * @return the color histogram of the screenshot
+	 * @throws IOException if the screenshot can't be read
+	 *
+	 * precondition: page_state != null
+	 * precondition: elements != null
+	 */
+	public static ColorHistogram extractColorHistogram(PageState page_state,
+														List<ElementState> elements
+	) throws IOException {
+		assert page_state != null;
+		assert elements != null;
+
+		BufferedImage screenshot = readScreenshot(page_state, COLOR_RESOLUTION);
+		return ImageUtils.extractColorHistogram(screenshot, maskImageElements(screenshot, page_state, elements));
+	}
+
+	/**
+	 * Reads the screenshot of a page stored at a resolution
+	 */
+	private static BufferedImage readScreenshot(PageState page_state, ScreenshotResolution resolution) throws IOException {
+		return SubsampledImageLoader.read(new URL(page_state.getFullPageScreenshotUrl(resolution)),
+										  SubsampledImageLoader.DEFAULT_MAX_PIXELS).getImage();
+	}
+
+	/**
+	 * Builds a mask that excludes the image elements of a page from a
+	 * screenshot read at any resolution, scaling the element bounds to it
+	 */
+	private static ImageExclusionMask maskImageElements(BufferedImage screenshot,
+														PageState page_state,
+														List<ElementState> elements) {
+		double scale = page_state.getFullPageWidth() > 0 ? screenshot.getWidth() / (double)page_state.getFullPageWidth() : 1.0;
+		
+		List<Rectangle> exclusions = new ArrayList<>();
+		for(Rectangle bounds : getImageElementBounds(elements)) {
+			int left = (int)Math.floor(bounds.x * scale);
+			int top = (int)Math.floor(bounds.y * scale);
+			int right = (int)Math.ceil((bounds.x + bounds.width) * scale);
+			int bottom = (int)Math.ceil((bounds.y + bounds.height) * scale);
+			exclusions.add(new Rectangle(left, top, right - left, bottom - top));
+		}
+		
+		return new ImageExclusionMask(screenshot.getWidth(), screenshot.getHeight(), exclusions);
+	}
+
+	/**
+	 * Collects the bounding rectangles of all image elements
+	 * @param elements the elements
+	 * @return bounding rectangles of the img elements in page coordinates
+	 *
+	 * precondition: elements != null
+	 */
+	public static List<Rectangle> getImageElementBounds(List<ElementState> elements) {
+		assert elements != null;
 		
-		return ImageUtils.extractImageProperties(screenshot);
+		List<Rectangle> bounds = new ArrayList<>();
+		for(ElementState element : elements) {
+			if(!"img".contentEquals(element.getName())) {
+				continue;
+			}
+			bounds.add(new Rectangle(element.getXLocation(),
+									 element.getYLocation(),
+									 element.getWidth(),
+									 element.getHeight()));
+		}
+		return bounds;
 	}
 
 	/**
-	 * Removes image elements from a screenshot
+	 * Removes image elements from a screenshot by painting them black
 	 * @param screenshot the screenshot
 	 * @param elements the elements
 	 *
 	 * precondition: screenshot != null
 	 * precondition: elements != null
+	 *
+	 * @deprecated painted pixels skew the palette. Use {@link ImageExclusionMask} with
+	 * 				{@link ImageUtils#extractImageProperties(BufferedImage, ImageExclusionMask)} instead
 	 */
+	@Deprecated
 	public static void removeImageElements(BufferedImage screenshot, List<ElementState> elements) {
 		assert screenshot != null;
 		assert elements != null;
 		
-		for(ElementState element : elements) {
-			if(!element.getName().contentEquals("img")) {
-				continue;
-			}
-			
-			for(int x_pixel = element.getXLocation(); x_pixel < (element.getXLocation()+element.getWidth()); x_pixel++) {
-				if(x_pixel >= screenshot.getWidth()) {
-					break;
-				}
-				
-				if(x_pixel < 0) {
-					continue;
-				}
-				for(int y_pixel = element.getYLocation(); y_pixel < (element.getYLocation()+element.getHeight()); y_pixel++) {
-					if(y_pixel >= screenshot.getHeight()) {
-						break;
-					}
-					
-					if(y_pixel < 0) {
-						continue;
-					}
-					screenshot.setRGB(x_pixel, y_pixel, new Color(0,0,0).getRGB());
-				}
-			}
+		Graphics2D graphics = screenshot.createGraphics();
+		graphics.setColor(Color.BLACK);
+		for(Rectangle bounds : getImageElementBounds(elements)) {
+			graphics.fill(bounds);
 		}
+		graphics.dispose();
 	}
 
 	/** COLOR CHECKS **/
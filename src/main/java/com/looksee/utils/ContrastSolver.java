@@ -0,0 +1,302 @@
+package com.looksee.utils;
+
+import com.looksee.models.ColorData;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the color closest to a given color that reaches a WCAG contrast ratio
+ * against a reference color.
+ *
+ * <p>WCAG relative luminance only depends on the CIE lightness L*, so the
+ * target luminance for a ratio is computed in closed form and the closest
+ * color with that luminance keeps the a* and b* values of the original color.
+ * When that color is outside of the sRGB gamut its chroma is reduced, keeping
+ * the hue, by binary search. Channels are then quantized towards the compliant
+ * side by binary search over a 256 entry sRGB to linear lookup table, so the
+ * result always meets the ratio.</p>
+ */
+public final class ContrastSolver {
+	/** WCAG relative luminance coefficients of linear red, green and blue */
+	private static final double LUMINANCE_RED = 0.2126;
+	private static final double LUMINANCE_GREEN = 0.7152;
+	private static final double LUMINANCE_BLUE = 0.0722;
+
+	/** D65 reference white */
+	private static final double WHITE_X = 0.95047;
+	private static final double WHITE_Z = 1.08883;
+
+	/** Number of binary search steps used when reducing chroma */
+	private static final int CHROMA_STEPS = 8;
+
+	/** Guards the target luminance against floating point error */
+	private static final double LUMINANCE_MARGIN = 1e-9;
+
+	/** Linear value of every 8 bit sRGB channel value */
+	private static final double[] SRGB_TO_LINEAR = new double[256];
+
+	/** Linear RGB to XYZ, with the WCAG coefficients as the Y row */
+	private static final double[][] RGB_TO_XYZ = {
+		{0.4124564, 0.3575761, 0.1804375},
+		{LUMINANCE_RED, LUMINANCE_GREEN, LUMINANCE_BLUE},
+		{0.0193339, 0.1191920, 0.9503041}
+	};
+
+	private static final double[][] XYZ_TO_RGB = invert(RGB_TO_XYZ);
+
+	static {
+		for(int value = 0; value < 256; value++) {
+			double channel = value / 255.0;
+			SRGB_TO_LINEAR[value] = channel <= 0.04045 ? channel / 12.92 : Math.pow((channel + 0.055) / 1.055, 2.4);
+		}
+	}
+
+	private ContrastSolver() {}
+
+	/**
+	 * Computes the WCAG relative luminance of a color
+	 *
+	 * @param red the red value of the color
+	 * @param green the green value of the color
+	 * @param blue the blue value of the color
+	 * @return the relative luminance between 0 and 1
+	 *
+	 * precondition: red, green and blue are between 0 and 255 inclusive
+	 */
+	public static double luminance(int red, int green, int blue) {
+		return LUMINANCE_RED * SRGB_TO_LINEAR[red]
+				+ LUMINANCE_GREEN * SRGB_TO_LINEAR[green]
+				+ LUMINANCE_BLUE * SRGB_TO_LINEAR[blue];
+	}
+
+	/**
+	 * Computes the WCAG contrast ratio of two relative luminance values
+	 *
+	 * @param luminance_1 luminance of the first color
+	 * @param luminance_2 luminance of the second color
+	 * @return the contrast ratio between 1 and 21
+	 */
+	public static double contrast(double luminance_1, double luminance_2) {
+		return (Math.max(luminance_1, luminance_2) + 0.05) / (Math.min(luminance_1, luminance_2) + 0.05);
+	}
+
+	/**
+	 * Finds the color closest to {@code color} that is lighter or darker than
+	 * {@code reference} by at least the given contrast ratio
+	 *
+	 * @param color the color to adjust
+	 * @param reference the color the contrast is measured against
+	 * @param min_ratio the contrast ratio to reach
+	 * @param lighten true to search lighter colors, false to search darker colors
+	 * @return {@code color} if it already reaches the ratio, the closest compliant
+	 * 			color in the requested direction, or null if none exists
+	 *
+	 * precondition: color != null
+	 * precondition: reference != null
+	 * precondition: min_ratio >= 1
+	 */
+	public static ColorData solve(ColorData color, ColorData reference, double min_ratio, boolean lighten) {
+		assert color != null;
+		assert reference != null;
+		assert min_ratio >= 1;
+
+		double reference_luminance = luminance(reference.getRed(), reference.getGreen(), reference.getBlue());
+		double color_luminance = luminance(color.getRed(), color.getGreen(), color.getBlue());
+		if(contrast(color_luminance, reference_luminance) >= min_ratio) {
+			return color;
+		}
+
+		double target = lighten
+							? min_ratio * (reference_luminance + 0.05) - 0.05 + LUMINANCE_MARGIN
+							: (reference_luminance + 0.05) / min_ratio - 0.05 - LUMINANCE_MARGIN;
+		if(target > 1 || target < 0) {
+			return null;
+		}
+
+		double[] lab = toLab(color.getRed(), color.getGreen(), color.getBlue());
+		double lightness = 116 * labF(target) - 16;
+
+		//largest chroma, keeping the hue, that is inside the sRGB gamut at the target lightness
+		double[] linear = labToLinear(lightness, 0, 0);
+		double low = 0;
+		double high = 1;
+		if(isInGamut(labToLinear(lightness, lab[1], lab[2]))) {
+			low = 1;
+		}
+		else {
+			for(int step = 0; step < CHROMA_STEPS; step++) {
+				double scale = (low + high) / 2;
+				if(isInGamut(labToLinear(lightness, lab[1] * scale, lab[2] * scale))) {
+					low = scale;
+				}
+				else {
+					high = scale;
+				}
+			}
+		}
+		if(low > 0) {
+			linear = labToLinear(lightness, lab[1] * low, lab[2] * low);
+		}
+
+		int red = quantize(linear[0], lighten);
+		int green = quantize(linear[1], lighten);
+		int blue = quantize(linear[2], lighten);
+		if(contrast(luminance(red, green, blue), reference_luminance) < min_ratio) {
+			return null;
+		}
+		return new ColorData(red, green, blue);
+	}
+
+	/**
+	 * Finds the closest compliant colors in both directions, ordered by
+	 * perceptual distance from {@code color}
+	 *
+	 * @param color the color to adjust
+	 * @param reference the color the contrast is measured against
+	 * @param min_ratio the contrast ratio to reach
+	 * @return the compliant candidates, closest first. Contains only {@code color}
+	 * 			if it already reaches the ratio and is empty if no color does
+	 *
+	 * precondition: color != null
+	 * precondition: reference != null
+	 * precondition: min_ratio >= 1
+	 */
+	public static List<ColorData> candidates(ColorData color, ColorData reference, double min_ratio) {
+		assert color != null;
+		assert reference != null;
+		assert min_ratio >= 1;
+
+		List<ColorData> candidates = new ArrayList<>();
+		ColorData lighter = solve(color, reference, min_ratio, true);
+		if(lighter == color) {
+			candidates.add(color);
+			return candidates;
+		}
+		if(lighter != null) {
+			candidates.add(lighter);
+		}
+		ColorData darker = solve(color, reference, min_ratio, false);
+		if(darker != null) {
+			candidates.add(darker);
+		}
+
+		double[] origin = toLab(color.getRed(), color.getGreen(), color.getBlue());
+		candidates.sort(Comparator.comparingDouble(candidate -> distance(origin, candidate)));
+		return candidates;
+	}
+
+	/**
+	 * Converts an 8 bit sRGB color to CIE Lab
+	 *
+	 * @param red the red value of the color
+	 * @param green the green value of the color
+	 * @param blue the blue value of the color
+	 * @return L*, a* and b*
+	 *
+	 * precondition: red, green and blue are between 0 and 255 inclusive
+	 */
+	public static double[] toLab(int red, int green, int blue) {
+		double r = SRGB_TO_LINEAR[red];
+		double g = SRGB_TO_LINEAR[green];
+		double b = SRGB_TO_LINEAR[blue];
+
+		double x = (RGB_TO_XYZ[0][0] * r + RGB_TO_XYZ[0][1] * g + RGB_TO_XYZ[0][2] * b) / WHITE_X;
+		double y = RGB_TO_XYZ[1][0] * r + RGB_TO_XYZ[1][1] * g + RGB_TO_XYZ[1][2] * b;
+		double z = (RGB_TO_XYZ[2][0] * r + RGB_TO_XYZ[2][1] * g + RGB_TO_XYZ[2][2] * b) / WHITE_Z;
+
+		double fx = labF(x);
+		double fy = labF(y);
+		double fz = labF(z);
+		return new double[] {116 * fy - 16, 500 * (fx - fy), 200 * (fy - fz)};
+	}
+
+	private static double distance(double[] origin, ColorData color) {
+		double[] lab = toLab(color.getRed(), color.getGreen(), color.getBlue());
+		double dl = origin[0] - lab[0];
+		double da = origin[1] - lab[1];
+		double db = origin[2] - lab[2];
+		return dl * dl + da * da + db * db;
+	}
+
+	private static double[] labToLinear(double lightness, double a, double b) {
+		double fy = (lightness + 16) / 116;
+		double x = WHITE_X * labFInverse(fy + a / 500);
+		double y = labFInverse(fy);
+		double z = WHITE_Z * labFInverse(fy - b / 200);
+
+		return new double[] {
+			XYZ_TO_RGB[0][0] * x + XYZ_TO_RGB[0][1] * y + XYZ_TO_RGB[0][2] * z,
+			XYZ_TO_RGB[1][0] * x + XYZ_TO_RGB[1][1] * y + XYZ_TO_RGB[1][2] * z,
+			XYZ_TO_RGB[2][0] * x + XYZ_TO_RGB[2][1] * y + XYZ_TO_RGB[2][2] * z
+		};
+	}
+
+	private static boolean isInGamut(double[] linear) {
+		for(double channel : linear) {
+			if(channel < -1e-9 || channel > 1 + 1e-9) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Converts a linear channel to 8 bits, rounding up when lightening and
+	 * down when darkening so the luminance never moves away from the target
+	 */
+	private static int quantize(double linear, boolean round_up) {
+		int low = 0;
+		int high = 255;
+		if(round_up) {
+			//smallest value whose linear value is >= linear
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(SRGB_TO_LINEAR[mid] >= linear) {
+					high = mid;
+				}
+				else {
+					low = mid + 1;
+				}
+			}
+		}
+		else {
+			//largest value whose linear value is <= linear
+			while(low < high) {
+				int mid = (low + high + 1) >>> 1;
+				if(SRGB_TO_LINEAR[mid] <= linear) {
+					low = mid;
+				}
+				else {
+					high = mid - 1;
+				}
+			}
+		}
+		return low;
+	}
+
+	private static double labF(double t) {
+		return t > 216 / 24389.0 ? Math.cbrt(t) : (24389 / 27.0 * t + 16) / 116;
+	}
+
+	private static double labFInverse(double t) {
+		return t > 6 / 29.0 ? t * t * t : (116 * t - 16) / (24389 / 27.0);
+	}
+
+	private static double[][] invert(double[][] m) {
+		double det = m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+					- m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+					+ m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+		return new double[][] {
+			{(m[1][1] * m[2][2] - m[1][2] * m[2][1]) / det,
+			 (m[0][2] * m[2][1] - m[0][1] * m[2][2]) / det,
+			 (m[0][1] * m[1][2] - m[0][2] * m[1][1]) / det},
+			{(m[1][2] * m[2][0] - m[1][0] * m[2][2]) / det,
+			 (m[0][0] * m[2][2] - m[0][2] * m[2][0]) / det,
+			 (m[0][2] * m[1][0] - m[0][0] * m[1][2]) / det},
+			{(m[1][0] * m[2][1] - m[1][1] * m[2][0]) / det,
+			 (m[0][1] * m[2][0] - m[0][0] * m[2][1]) / det,
+			 (m[0][0] * m[1][1] - m[0][1] * m[1][0]) / det}
+		};
+	}
+}
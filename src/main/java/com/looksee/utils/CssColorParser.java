@@ -0,0 +1,302 @@
+package com.looksee.utils;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses css color values into packed RGBA integers without regular
+ * expressions or intermediate strings.
+ *
+ * <p>Supported forms are {@code rgb()} and {@code rgba()} with comma or space
+ * separated components and an optional {@code /} before the alpha value,
+ * bare {@code r,g,b} and {@code r,g,b,a} lists, {@code #rgb}, {@code #rgba},
+ * {@code #rrggbb} and {@code #rrggbbaa} hex values, and css named colors.
+ * Channels may be numbers or percentages. Fractional numbers are truncated,
+ * percentages are rounded and all values are clamped to their valid range.</p>
+ *
+ * <p>The packed format is {@code red << 24 | green << 16 | blue << 8 | alpha}
+ * with the alpha value scaled to 0-255.</p>
+ */
+public final class CssColorParser {
+	private static final String NAMED_COLORS =
+		"aliceblue f0f8ff antiquewhite faebd7 aqua 00ffff aquamarine 7fffd4 azure f0ffff beige f5f5dc "
+		+ "bisque ffe4c4 black 000000 blanchedalmond ffebcd blue 0000ff blueviolet 8a2be2 brown a52a2a "
+		+ "burlywood deb887 cadetblue 5f9ea0 chartreuse 7fff00 chocolate d2691e coral ff7f50 "
+		+ "cornflowerblue 6495ed cornsilk fff8dc crimson dc143c cyan 00ffff darkblue 00008b darkcyan 008b8b "
+		+ "darkgoldenrod b8860b darkgray a9a9a9 darkgreen 006400 darkgrey a9a9a9 darkkhaki bdb76b "
+		+ "darkmagenta 8b008b darkolivegreen 556b2f darkorange ff8c00 darkorchid 9932cc darkred 8b0000 "
+		+ "darksalmon e9967a darkseagreen 8fbc8f darkslateblue 483d8b darkslategray 2f4f4f "
+		+ "darkslategrey 2f4f4f darkturquoise 00ced1 darkviolet 9400d3 deeppink ff1493 deepskyblue 00bfff "
+		+ "dimgray 696969 dimgrey 696969 dodgerblue 1e90ff firebrick b22222 floralwhite fffaf0 "
+		+ "forestgreen 228b22 fuchsia ff00ff gainsboro dcdcdc ghostwhite f8f8ff gold ffd700 "
+		+ "goldenrod daa520 gray 808080 green 008000 greenyellow adff2f grey 808080 honeydew f0fff0 "
+		+ "hotpink ff69b4 indianred cd5c5c indigo 4b0082 ivory fffff0 khaki f0e68c lavender e6e6fa "
+		+ "lavenderblush fff0f5 lawngreen 7cfc00 lemonchiffon fffacd lightblue add8e6 lightcoral f08080 "
+		+ "lightcyan e0ffff lightgoldenrodyellow fafad2 lightgray d3d3d3 lightgreen 90ee90 "
+		+ "lightgrey d3d3d3 lightpink ffb6c1 lightsalmon ffa07a lightseagreen 20b2aa lightskyblue 87cefa "
+		+ "lightslategray 778899 lightslategrey 778899 lightsteelblue b0c4de lightyellow ffffe0 "
+		+ "lime 00ff00 limegreen 32cd32 linen faf0e6 magenta ff00ff maroon 800000 "
+		+ "mediumaquamarine 66cdaa mediumblue 0000cd mediumorchid ba55d3 mediumpurple 9370db "
+		+ "mediumseagreen 3cb371 mediumslateblue 7b68ee mediumspringgreen 00fa9a mediumturquoise 48d1cc "
+		+ "mediumvioletred c71585 midnightblue 191970 mintcream f5fffa mistyrose ffe4e1 moccasin ffe4b5 "
+		+ "navajowhite ffdead navy 000080 oldlace fdf5e6 olive 808000 olivedrab 6b8e23 orange ffa500 "
+		+ "orangered ff4500 orchid da70d6 palegoldenrod eee8aa palegreen 98fb98 paleturquoise afeeee "
+		+ "palevioletred db7093 papayawhip ffefd5 peachpuff ffdab9 peru cd853f pink ffc0cb plum dda0dd "
+		+ "powderblue b0e0e6 purple 800080 rebeccapurple 663399 red ff0000 rosybrown bc8f8f "
+		+ "royalblue 4169e1 saddlebrown 8b4513 salmon fa8072 sandybrown f4a460 seagreen 2e8b57 "
+		+ "seashell fff5ee sienna a0522d silver c0c0c0 skyblue 87ceeb slateblue 6a5acd slategray 708090 "
+		+ "slategrey 708090 snow fffafa springgreen 00ff7f steelblue 4682b4 tan d2b48c teal 008080 "
+		+ "thistle d8bfd8 tomato ff6347 turquoise 40e0d0 violet ee82ee wheat f5deb3 white ffffff "
+		+ "whitesmoke f5f5f5 yellow ffff00 yellowgreen 9acd32";
+
+	/** Packed RGBA value of each named color */
+	private static final Map<String, Integer> named_colors = new HashMap<>();
+
+	static {
+		String[] entries = NAMED_COLORS.split(" ");
+		for(int idx = 0; idx < entries.length; idx += 2) {
+			named_colors.put(entries[idx], (Integer.parseInt(entries[idx + 1], 16) << 8) | 0xff);
+		}
+		named_colors.put("transparent", 0);
+	}
+
+	private CssColorParser() {}
+
+	/**
+	 * Parses a css color value
+	 *
+	 * @param color_string the css color value
+	 * @return the packed RGBA value of the color
+	 * @throws IllegalArgumentException if the value isn't a supported color
+	 *
+	 * precondition: color_string != null
+	 */
+	public static int parse(CharSequence color_string) {
+		assert color_string != null;
+
+		int start = 0;
+		int end = color_string.length();
+		while(start < end && Character.isWhitespace(color_string.charAt(start))) {
+			start++;
+		}
+		while(end > start && Character.isWhitespace(color_string.charAt(end - 1))) {
+			end--;
+		}
+		if(start == end) {
+			throw new IllegalArgumentException("Empty color value");
+		}
+
+		char first = color_string.charAt(start);
+		if(first == '#') {
+			return parseHex(color_string, start + 1, end);
+		}
+		if(isFunction(color_string, start, end, "rgba(")) {
+			return parseComponents(color_string, start + 5, end - 1);
+		}
+		if(isFunction(color_string, start, end, "rgb(")) {
+			return parseComponents(color_string, start + 4, end - 1);
+		}
+		if(isDigit(first) || first == '.' || first == '-' || first == '+') {
+			return parseComponents(color_string, start, end);
+		}
+
+		Integer named = named_colors.get(color_string.subSequence(start, end).toString().toLowerCase(Locale.ROOT));
+		if(named == null) {
+			throw new IllegalArgumentException("Unsupported color value : "+color_string);
+		}
+		return named;
+	}
+
+	/**
+	 * @param rgba packed RGBA value
+	 * @return the red channel
+	 */
+	public static int red(int rgba) {
+		return rgba >>> 24;
+	}
+
+	/**
+	 * @param rgba packed RGBA value
+	 * @return the green channel
+	 */
+	public static int green(int rgba) {
+		return (rgba >>> 16) & 0xff;
+	}
+
+	/**
+	 * @param rgba packed RGBA value
+	 * @return the blue channel
+	 */
+	public static int blue(int rgba) {
+		return (rgba >>> 8) & 0xff;
+	}
+
+	/**
+	 * @param rgba packed RGBA value
+	 * @return the alpha channel scaled to 0-255
+	 */
+	public static int alpha(int rgba) {
+		return rgba & 0xff;
+	}
+
+	/**
+	 * Packs the channels of a color
+	 *
+	 * @param red red channel
+	 * @param green green channel
+	 * @param blue blue channel
+	 * @param alpha alpha channel scaled to 0-255
+	 * @return the packed RGBA value
+	 *
+	 * precondition: red, green, blue and alpha are between 0 and 255 inclusive
+	 */
+	public static int pack(int red, int green, int blue, int alpha) {
+		assert red >= 0 && red <= 255;
+		assert green >= 0 && green <= 255;
+		assert blue >= 0 && blue <= 255;
+		assert alpha >= 0 && alpha <= 255;
+
+		return (red << 24) | (green << 16) | (blue << 8) | alpha;
+	}
+
+	private static boolean isFunction(CharSequence value, int start, int end, String prefix) {
+		if(end - start <= prefix.length() || value.charAt(end - 1) != ')') {
+			return false;
+		}
+		for(int idx = 0; idx < prefix.length(); idx++) {
+			if(Character.toLowerCase(value.charAt(start + idx)) != prefix.charAt(idx)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses 3 or 4 numeric components separated by commas, whitespace or a slash
+	 */
+	private static int parseComponents(CharSequence value, int start, int end) {
+		int red = 0;
+		int green = 0;
+		int blue = 0;
+		int alpha = 255;
+		int count = 0;
+		int pos = start;
+		while(true) {
+			while(pos < end && isSeparator(value.charAt(pos))) {
+				pos++;
+			}
+			if(pos >= end) {
+				break;
+			}
+			if(count == 4) {
+				throw new IllegalArgumentException("Too many color components : "+value);
+			}
+
+			//sign
+			boolean negative = false;
+			char c = value.charAt(pos);
+			if(c == '-' || c == '+') {
+				negative = c == '-';
+				pos++;
+			}
+
+			//digits
+			double number = 0;
+			int digits = 0;
+			while(pos < end && isDigit(value.charAt(pos))) {
+				number = number * 10 + (value.charAt(pos++) - '0');
+				digits++;
+			}
+			if(pos < end && value.charAt(pos) == '.') {
+				pos++;
+				double scale = 0.1;
+				while(pos < end && isDigit(value.charAt(pos))) {
+					number += (value.charAt(pos++) - '0') * scale;
+					scale /= 10;
+					digits++;
+				}
+			}
+			if(digits == 0) {
+				throw new IllegalArgumentException("Invalid color component : "+value);
+			}
+			if(negative) {
+				number = -number;
+			}
+
+			boolean percent = pos < end && value.charAt(pos) == '%';
+			if(percent) {
+				pos++;
+			}
+			if(pos < end && !isSeparator(value.charAt(pos))) {
+				throw new IllegalArgumentException("Invalid color component : "+value);
+			}
+
+			int channel = clamp(percent ? (int)Math.round(number * 255 / 100) : (int)number, 255);
+			switch(count++) {
+				case 0:
+					red = channel;
+					break;
+				case 1:
+					green = channel;
+					break;
+				case 2:
+					blue = channel;
+					break;
+				default:
+					alpha = clamp((int)Math.round((percent ? number / 100 : number) * 255), 255);
+			}
+		}
+
+		if(count < 3) {
+			throw new IllegalArgumentException("Too few color components : "+value);
+		}
+		return pack(red, green, blue, alpha);
+	}
+
+	private static int parseHex(CharSequence value, int start, int end) {
+		int length = end - start;
+		if(length != 3 && length != 4 && length != 6 && length != 8) {
+			throw new IllegalArgumentException("Invalid hex color : "+value);
+		}
+
+		int digits = 0;
+		for(int pos = start; pos < end; pos++) {
+			int digit = Character.digit(value.charAt(pos), 16);
+			if(digit < 0) {
+				throw new IllegalArgumentException("Invalid hex color : "+value);
+			}
+			digits = (digits << 4) | digit;
+		}
+
+		switch(length) {
+			case 3:
+				return (expand(digits >> 8) << 24) | (expand(digits >> 4) << 16) | (expand(digits) << 8) | 0xff;
+			case 4:
+				return (expand(digits >> 12) << 24) | (expand(digits >> 8) << 16) | (expand(digits >> 4) << 8) | expand(digits);
+			case 6:
+				return (digits << 8) | 0xff;
+			default:
+				return digits;
+		}
+	}
+
+	/**
+	 * Expands the lowest hex digit to a full channel value, e.g. 0xa to 0xaa
+	 */
+	private static int expand(int digit) {
+		return (digit & 0xf) * 0x11;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == ',' || c == '/' || Character.isWhitespace(c);
+	}
+
+	private static int clamp(int value, int max) {
+		return value < 0 ? 0 : (value > max ? max : value);
+	}
+}
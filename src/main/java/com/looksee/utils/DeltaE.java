@@ -0,0 +1,380 @@
+package com.looksee.utils;
+
+import com.looksee.models.CIEColorSpace;
+import com.looksee.models.ColorData;
+import java.util.List;
+
+/**
+ * CIE76 and CIEDE2000 color differences, for single pairs and in batches.
+ *
+ * <p>Batch operations work on {@link LabPoints}, which keeps the L*, a* and b*
+ * values of many colors in three parallel primitive arrays. The CIE76 loops
+ * are branch free loops over those arrays so the JIT can vectorize them.
+ * CIEDE2000 relies on trigonometric functions and is computed per pair.</p>
+ */
+public final class DeltaE {
+	private static final double POW_25_7 = Math.pow(25, 7);
+
+	private DeltaE() {}
+
+	/**
+	 * Computes the CIE76 difference of two Lab colors
+	 *
+	 * @param l1 L* of the first color
+	 * @param a1 a* of the first color
+	 * @param b1 b* of the first color
+	 * @param l2 L* of the second color
+	 * @param a2 a* of the second color
+	 * @param b2 b* of the second color
+	 * @return the euclidean distance of the colors in Lab
+	 */
+	public static double cie76(double l1, double a1, double b1, double l2, double a2, double b2) {
+		double dl = l1 - l2;
+		double da = a1 - a2;
+		double db = b1 - b2;
+		return Math.sqrt(dl * dl + da * da + db * db);
+	}
+
+	/**
+	 * Computes the CIE76 difference of two colors
+	 *
+	 * @param color1 the first color
+	 * @param color2 the second color
+	 * @return the euclidean distance of the colors in Lab
+	 *
+	 * precondition: color1 != null
+	 * precondition: color2 != null
+	 */
+	public static double cie76(ColorData color1, ColorData color2) {
+		assert color1 != null;
+		assert color2 != null;
+
+		CIEColorSpace lab1 = color1.lab();
+		CIEColorSpace lab2 = color2.lab();
+		return cie76(lab1.l, lab1.a, lab1.b, lab2.l, lab2.a, lab2.b);
+	}
+
+	/**
+	 * Computes the CIEDE2000 difference of two Lab colors
+	 *
+	 * @param l1 L* of the first color
+	 * @param a1 a* of the first color
+	 * @param b1 b* of the first color
+	 * @param l2 L* of the second color
+	 * @param a2 a* of the second color
+	 * @param b2 b* of the second color
+	 * @return the CIEDE2000 color difference
+	 */
+	public static double ciede2000(double l1, double a1, double b1, double l2, double a2, double b2) {
+		double c1 = Math.sqrt(a1 * a1 + b1 * b1);
+		double c2 = Math.sqrt(a2 * a2 + b2 * b2);
+		double c_mean_7 = Math.pow((c1 + c2) / 2, 7);
+		double g = 0.5 * (1 - Math.sqrt(c_mean_7 / (c_mean_7 + POW_25_7)));
+
+		double a1_prime = (1 + g) * a1;
+		double a2_prime = (1 + g) * a2;
+		double c1_prime = Math.sqrt(a1_prime * a1_prime + b1 * b1);
+		double c2_prime = Math.sqrt(a2_prime * a2_prime + b2 * b2);
+		double h1_prime = hueAngle(b1, a1_prime);
+		double h2_prime = hueAngle(b2, a2_prime);
+
+		double delta_l = l2 - l1;
+		double delta_c = c2_prime - c1_prime;
+		double chroma_product = c1_prime * c2_prime;
+		double delta_h = 0;
+		if(chroma_product != 0) {
+			delta_h = h2_prime - h1_prime;
+			if(delta_h > 180) {
+				delta_h -= 360;
+			}
+			else if(delta_h < -180) {
+				delta_h += 360;
+			}
+		}
+		double delta_big_h = 2 * Math.sqrt(chroma_product) * Math.sin(Math.toRadians(delta_h / 2));
+
+		double l_mean = (l1 + l2) / 2;
+		double c_prime_mean = (c1_prime + c2_prime) / 2;
+		double h_mean = h1_prime + h2_prime;
+		if(chroma_product != 0) {
+			if(Math.abs(h1_prime - h2_prime) <= 180) {
+				h_mean /= 2;
+			}
+			else if(h_mean < 360) {
+				h_mean = (h_mean + 360) / 2;
+			}
+			else {
+				h_mean = (h_mean - 360) / 2;
+			}
+		}
+
+		double t = 1
+				- 0.17 * Math.cos(Math.toRadians(h_mean - 30))
+				+ 0.24 * Math.cos(Math.toRadians(2 * h_mean))
+				+ 0.32 * Math.cos(Math.toRadians(3 * h_mean + 6))
+				- 0.20 * Math.cos(Math.toRadians(4 * h_mean - 63));
+		double delta_theta = 30 * Math.exp(-Math.pow((h_mean - 275) / 25, 2));
+		double c_prime_mean_7 = Math.pow(c_prime_mean, 7);
+		double r_c = 2 * Math.sqrt(c_prime_mean_7 / (c_prime_mean_7 + POW_25_7));
+		double l_offset = (l_mean - 50) * (l_mean - 50);
+		double s_l = 1 + 0.015 * l_offset / Math.sqrt(20 + l_offset);
+		double s_c = 1 + 0.045 * c_prime_mean;
+		double s_h = 1 + 0.015 * c_prime_mean * t;
+		double r_t = -Math.sin(Math.toRadians(2 * delta_theta)) * r_c;
+
+		double l_term = delta_l / s_l;
+		double c_term = delta_c / s_c;
+		double h_term = delta_big_h / s_h;
+		return Math.sqrt(l_term * l_term + c_term * c_term + h_term * h_term + r_t * c_term * h_term);
+	}
+
+	/**
+	 * Computes the CIEDE2000 difference of two colors
+	 *
+	 * @param color1 the first color
+	 * @param color2 the second color
+	 * @return the CIEDE2000 color difference
+	 *
+	 * precondition: color1 != null
+	 * precondition: color2 != null
+	 */
+	public static double ciede2000(ColorData color1, ColorData color2) {
+		assert color1 != null;
+		assert color2 != null;
+
+		CIEColorSpace lab1 = color1.lab();
+		CIEColorSpace lab2 = color2.lab();
+		return ciede2000(lab1.l, lab1.a, lab1.b, lab2.l, lab2.a, lab2.b);
+	}
+
+	/**
+	 * Writes the CIE76 difference between a Lab color and every point to
+	 * {@code out}
+	 *
+	 * @param l L* of the query color
+	 * @param a a* of the query color
+	 * @param b b* of the query color
+	 * @param points the points to compare against
+	 * @param out receives one difference per point
+	 *
+	 * precondition: points != null
+	 * precondition: out != null
+	 * precondition: out.length >= points.size()
+	 */
+	public static void cie76(float l, float a, float b, LabPoints points, float[] out) {
+		assert points != null;
+		assert out != null;
+		assert out.length >= points.size();
+
+		float[] ls = points.l;
+		float[] as = points.a;
+		float[] bs = points.b;
+		int size = points.size();
+		for(int idx = 0; idx < size; idx++) {
+			float dl = ls[idx] - l;
+			float da = as[idx] - a;
+			float db = bs[idx] - b;
+			out[idx] = (float)Math.sqrt(dl * dl + da * da + db * db);
+		}
+	}
+
+	/**
+	 * Writes the CIEDE2000 difference between a Lab color and every point to
+	 * {@code out}
+	 *
+	 * @param l L* of the query color
+	 * @param a a* of the query color
+	 * @param b b* of the query color
+	 * @param points the points to compare against
+	 * @param out receives one difference per point
+	 *
+	 * precondition: points != null
+	 * precondition: out != null
+	 * precondition: out.length >= points.size()
+	 */
+	public static void ciede2000(float l, float a, float b, LabPoints points, float[] out) {
+		assert points != null;
+		assert out != null;
+		assert out.length >= points.size();
+
+		for(int idx = 0; idx < points.size(); idx++) {
+			out[idx] = (float)ciede2000(l, a, b, points.l[idx], points.a[idx], points.b[idx]);
+		}
+	}
+
+	/**
+	 * Computes the CIE76 distance matrix of the points
+	 *
+	 * @param points the points
+	 * @return row major matrix where entry {@code i * size + j} is the difference of points i and j
+	 *
+	 * precondition: points != null
+	 */
+	public static float[] cie76Matrix(LabPoints points) {
+		assert points != null;
+
+		int size = points.size();
+		float[] matrix = new float[size * size];
+		float[] row = new float[size];
+		for(int idx = 0; idx < size; idx++) {
+			cie76(points.l[idx], points.a[idx], points.b[idx], points, row);
+			System.arraycopy(row, 0, matrix, idx * size, size);
+		}
+		return matrix;
+	}
+
+	/**
+	 * Computes the CIEDE2000 distance matrix of the points. CIEDE2000 is
+	 * symmetric, so each pair is only computed once.
+	 *
+	 * @param points the points
+	 * @return row major matrix where entry {@code i * size + j} is the difference of points i and j
+	 *
+	 * precondition: points != null
+	 */
+	public static float[] ciede2000Matrix(LabPoints points) {
+		assert points != null;
+
+		int size = points.size();
+		float[] matrix = new float[size * size];
+		for(int i = 0; i < size; i++) {
+			for(int j = i + 1; j < size; j++) {
+				float distance = (float)ciede2000(points.l[i], points.a[i], points.b[i], points.l[j], points.a[j], points.b[j]);
+				matrix[i * size + j] = distance;
+				matrix[j * size + i] = distance;
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Finds the point closest to a Lab color by CIE76 difference
+	 *
+	 * @param l L* of the query color
+	 * @param a a* of the query color
+	 * @param b b* of the query color
+	 * @param points the points to search
+	 * @return index of the closest point, or -1 if there are no points
+	 *
+	 * precondition: points != null
+	 */
+	public static int nearest(float l, float a, float b, LabPoints points) {
+		assert points != null;
+
+		float[] ls = points.l;
+		float[] as = points.a;
+		float[] bs = points.b;
+		int nearest = -1;
+		float nearest_distance = Float.MAX_VALUE;
+		for(int idx = 0; idx < points.size(); idx++) {
+			float dl = ls[idx] - l;
+			float da = as[idx] - a;
+			float db = bs[idx] - b;
+			float distance = dl * dl + da * da + db * db;
+			if(distance < nearest_distance) {
+				nearest_distance = distance;
+				nearest = idx;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Returns the hue angle in degrees in [0, 360)
+	 */
+	private static double hueAngle(double b, double a_prime) {
+		if(b == 0 && a_prime == 0) {
+			return 0;
+		}
+		double angle = Math.toDegrees(Math.atan2(b, a_prime));
+		return angle < 0 ? angle + 360 : angle;
+	}
+
+	/**
+	 * Lab values of many colors stored as parallel primitive arrays
+	 *
+	 * <p><b>Class Invariants:</b>
+	 * <ul>
+	 *   <li>invariant: l, a and b have the same length</li>
+	 * </ul>
+	 */
+	public static final class LabPoints {
+		private final float[] l;
+		private final float[] a;
+		private final float[] b;
+
+		/**
+		 * Constructs a new {@link LabPoints}. The arrays are used directly, not copied.
+		 *
+		 * @param l L* of every point
+		 * @param a a* of every point
+		 * @param b b* of every point
+		 *
+		 * precondition: l != null and a != null and b != null
+		 * precondition: l.length == a.length and a.length == b.length
+		 */
+		public LabPoints(float[] l, float[] a, float[] b) {
+			assert l != null && a != null && b != null;
+			assert l.length == a.length && a.length == b.length;
+
+			this.l = l;
+			this.a = a;
+			this.b = b;
+		}
+
+		/**
+		 * Collects the cached Lab values of the colors
+		 *
+		 * @param colors the colors
+		 * @return the Lab values, in the order of the colors
+		 *
+		 * precondition: colors != null
+		 */
+		public static LabPoints of(List<ColorData> colors) {
+			assert colors != null;
+
+			int size = colors.size();
+			float[] l = new float[size];
+			float[] a = new float[size];
+			float[] b = new float[size];
+			for(int idx = 0; idx < size; idx++) {
+				CIEColorSpace lab = colors.get(idx).lab();
+				l[idx] = (float)lab.l;
+				a[idx] = (float)lab.a;
+				b[idx] = (float)lab.b;
+			}
+			return new LabPoints(l, a, b);
+		}
+
+		/**
+		 * @return the number of points
+		 */
+		public int size() {
+			return l.length;
+		}
+
+		/**
+		 * @param idx index of the point
+		 * @return L* of the point
+		 */
+		public float getL(int idx) {
+			return l[idx];
+		}
+
+		/**
+		 * @param idx index of the point
+		 * @return a* of the point
+		 */
+		public float getA(int idx) {
+			return a[idx];
+		}
+
+		/**
+		 * @param idx index of the point
+		 * @return b* of the point
+		 */
+		public float getB(int idx) {
+			return b[idx];
+		}
+	}
+}
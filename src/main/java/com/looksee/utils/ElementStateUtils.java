@@ -221,11 +221,11 @@ public class ElementStateUtils {
 								.filter(element -> element != null)
 								.map(element -> {
 				try {
-					ColorData font_color = new ColorData(element.getRenderedCssValues().get("color"));
+					ColorData font_color = ColorData.valueOf(element.getRenderedCssValues().get("color"));
 					//extract opacity color
 					ColorData bkg_color = null;
 					if(element.getScreenshotUrl().trim().isEmpty()) {
-						bkg_color = new ColorData(element.getRenderedCssValues().get("background-color"));
+						bkg_color = ColorData.valueOf(element.getRenderedCssValues().get("background-color"));
 					}
 					else {
 						bkg_color = ImageUtils.extractBackgroundColor( new URL(element.getScreenshotUrl()),
@@ -234,7 +234,7 @@ public class ElementStateUtils {
 					String bg_color = bkg_color.rgb();	
 					
 					//Identify background color by getting largest color used in picture
-					ColorData background_color = new ColorData(bg_color);
+					ColorData background_color = ColorData.valueOf(bg_color);
 					element.setBackgroundColor(background_color.rgb());
 					element.setForegroundColor(font_color.rgb());
 					
@@ -269,12 +269,12 @@ public class ElementStateUtils {
 				color_css = "#000000";
 			}
 			
-			ColorData font_color = new ColorData(color_css);
+			ColorData font_color = ColorData.valueOf(color_css);
 			
 			//extract opacity color
 			ColorData bkg_color = null;
 			if(element.getScreenshotUrl().trim().isEmpty()) {
-			bkg_color = new ColorData(element.getRenderedCssValues().get("background-color"));
+			bkg_color = ColorData.valueOf(element.getRenderedCssValues().get("background-color"));
 			}
 			else {
 				bkg_color = ImageUtils.extractBackgroundColor( new URL(element.getScreenshotUrl()),
@@ -283,7 +283,7 @@ public class ElementStateUtils {
 			
 			//Identify background color by getting largest color used in picture
 			String bg_color = bkg_color.rgb();
-			ColorData background_color = new ColorData(bg_color);
+			ColorData background_color = ColorData.valueOf(bg_color);
 			element.setBackgroundColor(background_color.rgb());
 			element.setForegroundColor(font_color.rgb());
 			
@@ -0,0 +1,236 @@
+package com.looksee.utils;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Describes which pixels of an image should be skipped during analysis without
+ * touching the image itself.
+ *
+ * <p>The exclusion rectangles are clipped to the image bounds and swept top to
+ * bottom. Every horizontal band in which the set of covering rectangles is
+ * constant gets a precomputed list of <em>included</em> x-spans, so consumers
+ * can walk only the pixels that are not excluded.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: width &gt; 0 and height &gt; 0</li>
+ *   <li>invariant: bands cover [0, height) without gaps or overlap</li>
+ *   <li>invariant: included spans of a band are sorted, disjoint and half-open</li>
+ * </ul>
+ */
+public final class ImageExclusionMask {
+	private static final int[] NO_SPANS = new int[0];
+
+	private final int width;
+	private final int height;
+
+	/** y coordinate where each band starts. The last entry is {@code height} */
+	private final int[] band_bounds;
+
+	/** Included spans per band stored as flattened [start, end) pairs */
+	private final int[][] band_spans;
+
+	private final long included_pixel_count;
+
+	/**
+	 * Constructs a new {@link ImageExclusionMask}
+	 *
+	 * @param width the width of the image the mask applies to
+	 * @param height the height of the image the mask applies to
+	 * @param exclusions rectangles to exclude, in image coordinates. May overlap or exceed the image bounds
+	 *
+	 * precondition: width > 0
+	 * precondition: height > 0
+	 * precondition: exclusions != null
+	 */
+	public ImageExclusionMask(int width, int height, List<Rectangle> exclusions) {
+		assert width > 0;
+		assert height > 0;
+		assert exclusions != null;
+
+		this.width = width;
+		this.height = height;
+
+		Rectangle bounds = new Rectangle(0, 0, width, height);
+		List<Rectangle> clipped = new ArrayList<>();
+		TreeSet<Integer> breakpoints = new TreeSet<>();
+		breakpoints.add(0);
+		breakpoints.add(height);
+		for(Rectangle rect : exclusions) {
+			if(rect == null) {
+				continue;
+			}
+			Rectangle clip = rect.intersection(bounds);
+			if(clip.isEmpty()) {
+				continue;
+			}
+			clipped.add(clip);
+			breakpoints.add(clip.y);
+			breakpoints.add(clip.y + clip.height);
+		}
+
+		this.band_bounds = breakpoints.stream().mapToInt(Integer::intValue).toArray();
+		this.band_spans = new int[band_bounds.length - 1][];
+
+		long included = 0;
+		for(int band = 0; band < band_spans.length; band++) {
+			int top = band_bounds[band];
+			int bottom = band_bounds[band + 1];
+			int[] spans = computeIncludedSpans(clipped, top, bottom);
+			band_spans[band] = spans;
+
+			long row_pixels = 0;
+			for(int idx = 0; idx < spans.length; idx += 2) {
+				row_pixels += spans[idx + 1] - spans[idx];
+			}
+			included += row_pixels * (bottom - top);
+		}
+		this.included_pixel_count = included;
+	}
+
+	/**
+	 * Merges the x-intervals of every rectangle covering the band and returns
+	 * the complement within [0, width)
+	 */
+	private int[] computeIncludedSpans(List<Rectangle> rects, int top, int bottom) {
+		List<int[]> covering = new ArrayList<>();
+		for(Rectangle rect : rects) {
+			if(rect.y <= top && rect.y + rect.height >= bottom) {
+				covering.add(new int[] {rect.x, rect.x + rect.width});
+			}
+		}
+
+		if(covering.isEmpty()) {
+			return new int[] {0, width};
+		}
+
+		covering.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+		int[] spans = new int[(covering.size() + 1) * 2];
+		int span_len = 0;
+		int cursor = 0;
+		for(int[] interval : covering) {
+			if(interval[0] > cursor) {
+				spans[span_len++] = cursor;
+				spans[span_len++] = interval[0];
+			}
+			cursor = Math.max(cursor, interval[1]);
+		}
+		if(cursor < width) {
+			spans[span_len++] = cursor;
+			spans[span_len++] = width;
+		}
+
+		return span_len == 0 ? NO_SPANS : Arrays.copyOf(spans, span_len);
+	}
+
+	/**
+	 * @return width of the masked image
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return height of the masked image
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return number of pixels that are not covered by any exclusion
+	 */
+	public long getIncludedPixelCount() {
+		return included_pixel_count;
+	}
+
+	/**
+	 * @return number of horizontal bands the mask is divided into
+	 */
+	public int getBandCount() {
+		return band_spans.length;
+	}
+
+	/**
+	 * Returns the first row (inclusive) of the band
+	 *
+	 * @param band index of the band
+	 * @return first row of the band
+	 *
+	 * precondition: band >= 0
+	 * precondition: band < getBandCount()
+	 */
+	public int getBandTop(int band) {
+		assert band >= 0;
+		assert band < band_spans.length;
+
+		return band_bounds[band];
+	}
+
+	/**
+	 * Returns the last row (exclusive) of the band
+	 *
+	 * @param band index of the band
+	 * @return row after the last row of the band
+	 *
+	 * precondition: band >= 0
+	 * precondition: band < getBandCount()
+	 */
+	public int getBandBottom(int band) {
+		assert band >= 0;
+		assert band < band_spans.length;
+
+		return band_bounds[band + 1];
+	}
+
+	/**
+	 * Returns the included x-spans for every row of the band as flattened
+	 * [start, end) pairs. The returned array is shared and must not be modified.
+	 *
+	 * @param band index of the band
+	 * @return included spans
+	 *
+	 * precondition: band >= 0
+	 * precondition: band < getBandCount()
+	 */
+	public int[] getBandSpans(int band) {
+		assert band >= 0;
+		assert band < band_spans.length;
+
+		return band_spans[band];
+	}
+
+	/**
+	 * Checks if a pixel is covered by an exclusion rectangle
+	 *
+	 * @param x x coordinate of the pixel
+	 * @param y y coordinate of the pixel
+	 * @return true if the pixel is excluded or outside the image, false otherwise
+	 */
+	public boolean isExcluded(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height) {
+			return true;
+		}
+
+		int band = Arrays.binarySearch(band_bounds, y);
+		if(band < 0) {
+			band = -band - 2;
+		}
+
+		int[] spans = band_spans[band];
+		for(int idx = 0; idx < spans.length; idx += 2) {
+			if(x < spans[idx]) {
+				return true;
+			}
+			if(x < spans[idx + 1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
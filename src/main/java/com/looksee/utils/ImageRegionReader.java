@@ -0,0 +1,34 @@
+package com.looksee.utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Provides access to rectangular regions of an image without requiring the
+ * whole image to be downloaded or decoded.
+ */
+public interface ImageRegionReader {
+
+	/**
+	 * @return width of the full image
+	 */
+	int getWidth();
+
+	/**
+	 * @return height of the full image
+	 */
+	int getHeight();
+
+	/**
+	 * Reads a region of the image. The region is clipped to the image bounds.
+	 *
+	 * @param region the region to read, in image coordinates
+	 * @return a copy of the requested region, which callers may modify
+	 * @throws IOException if the region cannot be read
+	 *
+	 * precondition: region != null
+	 * precondition: !region.isEmpty()
+	 */
+	BufferedImage readRegion(Rectangle region) throws IOException;
+}
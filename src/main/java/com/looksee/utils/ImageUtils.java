@@ -4,10 +4,12 @@ import com.looksee.models.ColorData;
 import com.looksee.models.ColorUsageStat;
 import com.looksee.models.ElementState;
 import com.looksee.models.PageState;
+import com.looksee.models.audit.stats.ColorHistogram;
 import com.looksee.models.enums.BrowserType;
 import io.github.resilience4j.retry.annotation.Retry;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -16,6 +18,7 @@ import java.net.URL;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +60,101 @@ public class ImageUtils {
         return resized;
     }
 
+	/**
+	 * Halves the width and height of an image by averaging each 2x2 block of
+	 * pixels. Repeated halving is much cheaper than a single smooth rescale
+	 * and avoids the aliasing of a single bilinear step.
+	 *
+	 * @param img the image to downscale
+	 * @return a new image with half the width and height, rounded up
+	 *
+	 * precondition: img != null
+	 */
+	public static BufferedImage halve(BufferedImage img) {
+		assert img != null;
+
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int half_width = (width + 1) / 2;
+		int half_height = (height + 1) / 2;
+		boolean has_alpha = img.getColorModel().hasAlpha();
+		BufferedImage half = new BufferedImage(half_width,
+											   half_height,
+											   has_alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+		int[] top = new int[width];
+		int[] bottom = new int[width];
+		int[] out = new int[half_width];
+		for(int y = 0; y < half_height; y++) {
+			img.getRGB(0, 2*y, width, 1, top, 0, width);
+			img.getRGB(0, Math.min(2*y + 1, height - 1), width, 1, bottom, 0, width);
+			for(int x = 0; x < half_width; x++) {
+				int left = 2*x;
+				int right = Math.min(left + 1, width - 1);
+				int p0 = top[left];
+				int p1 = top[right];
+				int p2 = bottom[left];
+				int p3 = bottom[right];
+
+				int a = ((p0 >>> 24) + (p1 >>> 24) + (p2 >>> 24) + (p3 >>> 24) + 2) >> 2;
+				int r = (((p0 >> 16) & 0xff) + ((p1 >> 16) & 0xff) + ((p2 >> 16) & 0xff) + ((p3 >> 16) & 0xff) + 2) >> 2;
+				int g = (((p0 >> 8) & 0xff) + ((p1 >> 8) & 0xff) + ((p2 >> 8) & 0xff) + ((p3 >> 8) & 0xff) + 2) >> 2;
+				int b = ((p0 & 0xff) + (p1 & 0xff) + (p2 & 0xff) + (p3 & 0xff) + 2) >> 2;
+				out[x] = (a << 24) | (r << 16) | (g << 8) | b;
+			}
+			half.setRGB(0, y, half_width, 1, out, 0, half_width);
+		}
+		return half;
+	}
+
+	/**
+	 * Downscales an image, preserving its aspect ratio, so that it fits within
+	 * the given bounds. The image is halved until it is within a factor of two
+	 * of the target size and then finished with a single bilinear step. Images
+	 * that already fit are returned unchanged.
+	 *
+	 * @param img the image to downscale
+	 * @param max_width the maximum width of the result
+	 * @param max_height the maximum height of the result
+	 * @return an image no larger than the given bounds
+	 *
+	 * precondition: img != null
+	 * precondition: max_width > 0
+	 * precondition: max_height > 0
+	 */
+	public static BufferedImage scaleToFit(BufferedImage img, int max_width, int max_height) {
+		assert img != null;
+		assert max_width > 0;
+		assert max_height > 0;
+
+		if(img.getWidth() <= max_width && img.getHeight() <= max_height) {
+			return img;
+		}
+
+		double scale = Math.min(max_width / (double)img.getWidth(), max_height / (double)img.getHeight());
+		int target_width = Math.max(1, (int)Math.round(img.getWidth() * scale));
+		int target_height = Math.max(1, (int)Math.round(img.getHeight() * scale));
+
+		BufferedImage scaled = img;
+		while(scaled.getWidth() / 2 >= target_width && scaled.getHeight() / 2 >= target_height) {
+			scaled = halve(scaled);
+		}
+
+		if(scaled.getWidth() == target_width && scaled.getHeight() == target_height) {
+			return scaled;
+		}
+
+		boolean has_alpha = scaled.getColorModel().hasAlpha();
+		BufferedImage result = new BufferedImage(target_width,
+												 target_height,
+												 has_alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2d = result.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2d.drawImage(scaled, 0, 0, target_width, target_height, null);
+		g2d.dispose();
+		return result;
+	}
+
 	/**
 	 * Converts RGB values to LAB values.
 	 * @param R the red value
@@ -209,7 +307,7 @@ public class ImageUtils {
 		*/
        
 		for(String color_str: colors.keySet()) {
-			ColorData color = new ColorData(color_str);
+			ColorData color = ColorData.valueOf(color_str);
 			double percent = ((double)colors.get(color_str)) / ((double) ( width * height ));
 			//log.warn(color_str+"     :     "+percent);
 			ColorUsageStat color_stat = new ColorUsageStat(color.getRed(), color.getGreen(), color.getBlue(), percent, 0);
@@ -219,6 +317,176 @@ public class ImageUtils {
 	    
 	}
 
+	/**
+	 * Measures color frequency over every pixel of the image that is not
+	 * covered by the mask. The image is neither copied nor modified, and the
+	 * work done is proportional to the number of included pixels.
+	 *
+	 * @param buffered_image the image to extract properties from
+	 * @param mask the pixels to skip
+	 * @return a list of color usage statistics where pixel percent is relative to the included pixels
+	 *
+	 * precondition: buffered_image != null
+	 * precondition: mask != null
+	 * precondition: mask.getWidth() == buffered_image.getWidth()
+	 * precondition: mask.getHeight() == buffered_image.getHeight()
+	 */
+	public static List<ColorUsageStat> extractImageProperties(BufferedImage buffered_image, ImageExclusionMask mask) {
+		assert buffered_image != null;
+		assert mask != null;
+		assert mask.getWidth() == buffered_image.getWidth();
+		assert mask.getHeight() == buffered_image.getHeight();
+
+		RgbCounter counter = new RgbCounter();
+		int[] row = new int[buffered_image.getWidth()];
+
+		for(int band = 0; band < mask.getBandCount(); band++) {
+			int[] spans = mask.getBandSpans(band);
+			if(spans.length == 0) {
+				continue;
+			}
+			for(int y = mask.getBandTop(band); y < mask.getBandBottom(band); y++) {
+				for(int idx = 0; idx < spans.length; idx += 2) {
+					int start = spans[idx];
+					int length = spans[idx + 1] - start;
+					buffered_image.getRGB(start, y, length, 1, row, 0, length);
+					for(int x = 0; x < length; x++) {
+						counter.increment(row[x] & 0x00ffffff);
+					}
+				}
+			}
+		}
+
+		List<ColorUsageStat> color_usage_stats = new ArrayList<>(counter.size());
+		double total = mask.getIncludedPixelCount();
+		for(int slot = 0; slot < counter.capacity(); slot++) {
+			if(!counter.isOccupied(slot)) {
+				continue;
+			}
+			int rgb = counter.keyAt(slot);
+			double percent = counter.countAt(slot) / total;
+			color_usage_stats.add(new ColorUsageStat((rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff, percent, 0));
+		}
+		return color_usage_stats;
+	}
+
+	/**
+	 * Counts every pixel of the image that is not covered by the mask into a
+	 * {@link ColorHistogram}
+	 *
+	 * @param buffered_image the image to count
+	 * @param mask the pixels to skip
+	 * @return the color histogram of the included pixels
+	 *
+	 * precondition: buffered_image != null
+	 * precondition: mask != null
+	 * precondition: mask.getWidth() == buffered_image.getWidth()
+	 * precondition: mask.getHeight() == buffered_image.getHeight()
+	 */
+	public static ColorHistogram extractColorHistogram(BufferedImage buffered_image, ImageExclusionMask mask) {
+		assert buffered_image != null;
+		assert mask != null;
+		assert mask.getWidth() == buffered_image.getWidth();
+		assert mask.getHeight() == buffered_image.getHeight();
+
+		ColorHistogram.Accumulator accumulator = new ColorHistogram.Accumulator();
+		int[] row = new int[buffered_image.getWidth()];
+
+		for(int band = 0; band < mask.getBandCount(); band++) {
+			int[] spans = mask.getBandSpans(band);
+			for(int y = mask.getBandTop(band); y < mask.getBandBottom(band) && spans.length > 0; y++) {
+				for(int idx = 0; idx < spans.length; idx += 2) {
+					int start = spans[idx];
+					int length = spans[idx + 1] - start;
+					buffered_image.getRGB(start, y, length, 1, row, 0, length);
+					for(int x = 0; x < length; x++) {
+						accumulator.add(row[x]);
+					}
+				}
+			}
+		}
+		return accumulator.build();
+	}
+
+	/**
+	 * Open addressing counter keyed by packed rgb value. Avoids boxing a key
+	 * for every pixel when histogramming large screenshots.
+	 */
+	private static final class RgbCounter {
+		private static final int EMPTY = -1;
+
+		private int[] keys = newKeys(1 << 10);
+		private int[] counts = new int[1 << 10];
+		private int size = 0;
+
+		private static int[] newKeys(int capacity) {
+			int[] keys = new int[capacity];
+			Arrays.fill(keys, EMPTY);
+			return keys;
+		}
+
+		private static int hash(int rgb) {
+			int mix = rgb * 0x9E3779B9;
+			return mix ^ (mix >>> 16);
+		}
+
+		void increment(int rgb) {
+			int mask = keys.length - 1;
+			int slot = hash(rgb) & mask;
+			while(keys[slot] != EMPTY) {
+				if(keys[slot] == rgb) {
+					counts[slot]++;
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = rgb;
+			counts[slot] = 1;
+			if(++size * 2 > keys.length) {
+				grow();
+			}
+		}
+
+		private void grow() {
+			int[] old_keys = keys;
+			int[] old_counts = counts;
+			keys = newKeys(old_keys.length * 2);
+			counts = new int[old_keys.length * 2];
+			int mask = keys.length - 1;
+			for(int idx = 0; idx < old_keys.length; idx++) {
+				if(old_keys[idx] == EMPTY) {
+					continue;
+				}
+				int slot = hash(old_keys[idx]) & mask;
+				while(keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = old_keys[idx];
+				counts[slot] = old_counts[idx];
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		int capacity() {
+			return keys.length;
+		}
+
+		boolean isOccupied(int slot) {
+			return keys[slot] != EMPTY;
+		}
+
+		int keyAt(int slot) {
+			return keys[slot];
+		}
+
+		int countAt(int slot) {
+			return counts[slot];
+		}
+	}
+
 	/**
 	 * Retrieves the color for a given pixel and return the rgb value as a comma separated string
 	 * ( ie. 255, 255, 255 ) 
@@ -277,7 +545,7 @@ public class ImageUtils {
 		assert font_color != null;
 
 		List<ColorUsageStat> color_data_list = new ArrayList<>();
-		BufferedImage buffered_image = ImageUtils.readImageFromURL(screenshot_url);
+		BufferedImage buffered_image = SubsampledImageLoader.read(screenshot_url, SubsampledImageLoader.DEFAULT_MAX_PIXELS).getImage();
 		color_data_list.addAll( extractImageProperties(buffered_image)); //DO NOT CHANGE!!!  LOCAL BRUTE FORCE METHOD - NOTE: This method is used because GCP cloud vision appears to use PCA to reduce color space, causing some really wrong results. DO NOT CHANGE!!!
 		
 		double largest_pixel_percent = -1.0;
@@ -299,7 +567,7 @@ public class ImageUtils {
 	    	largest_color = new ColorUsageStat(255, 255, 255, 1, 1);
 	    }
 	    
-		return new ColorData("rgb("+ largest_color.getRed()+","+largest_color.getGreen()+","+largest_color.getBlue()+")");
+		return ColorData.valueOf((int)largest_color.getRed(), (int)largest_color.getGreen(), (int)largest_color.getBlue());
 	}
 	
 	/**
@@ -334,7 +602,14 @@ public class ImageUtils {
 	}
 
 	/**
-	 * Creates a composite image from the onload screenshot and element states
+	 * Creates a composite image from the onload screenshot and element states.
+	 * The composite is assembled from the tiles of
+	 * {@link #createComposite(BufferedImage, List, PageState, TiledCompositeRenderer.TileSink)},
+	 * so element screenshots are downloaded concurrently.
+	 * @deprecated Use {@link #createComposite(BufferedImage, List, PageState, TiledCompositeRenderer.TileSink)}
+	 * with a sink that encodes or uploads each tile, such as
+	 * {@link com.looksee.gcp.GoogleCloudStorage#startTiledImage}. This method
+	 * allocates an ARGB image of the full page
 	 *
 	 * @param onload_screenshot the onload screenshot
 	 * @param element_states the element states
@@ -348,6 +623,7 @@ public class ImageUtils {
 	 * precondition: browser != null
 	 * @throws IOException if an error occurs
 	 */
+	@Deprecated
 	public static BufferedImage createComposite(BufferedImage onload_screenshot,
 												List<ElementState> element_states,
 												PageState page_state,
@@ -361,27 +637,91 @@ public class ImageUtils {
 		BufferedImage composite_image = new BufferedImage(page_state.getFullPageWidth(),
 															page_state.getFullPageHeight(),
 															BufferedImage.TYPE_INT_ARGB);
-		// get graphics to draw..
-		Graphics2D graphics =composite_image.createGraphics();
-		//draw the other image on it
-		graphics.drawImage(onload_screenshot,0,0,null);
-		
-		for(ElementState element: element_states) {
-			if(element.getScreenshotUrl().isEmpty()) {
-				continue;
-			}
-			try {
-				BufferedImage element_image = ImageIO.read(new URL(element.getScreenshotUrl()));
-				graphics.drawImage(element_image, element.getXLocation(), element.getYLocation(), null);
-			}
-			catch(IOException e) {
-				log.error("url is malformed :: "+element.getScreenshotUrl());
-			}
+		Graphics2D graphics = composite_image.createGraphics();
+		try {
+			//tiles are copied into the composite as they are rendered
+			createComposite(onload_screenshot,
+							element_states,
+							page_state,
+							(tile_index, y_offset, tile) -> graphics.drawImage(tile, 0, y_offset, null));
+		}
+		finally {
+			graphics.dispose();
 		}
 		
 		return composite_image;
 	}
 	
+	/**
+	 * Creates a composite image from the onload screenshot and element states
+	 * as fixed-height tiles, streaming every finished tile to the sink. Unlike
+	 * {@link #createComposite(BufferedImage, List, PageState, BrowserType)} the
+	 * full page is never held in memory.
+	 *
+	 * @param onload_screenshot the onload screenshot
+	 * @param element_states the element states
+	 * @param page_state the page state
+	 * @param sink receives each tile, from the top of the page down
+	 * @return the number of tiles emitted
+	 *
+	 * precondition: onload_screenshot != null
+	 * precondition: element_states != null
+	 * precondition: page_state != null
+	 * precondition: sink != null
+	 * @throws IOException if the sink fails to encode or store a tile
+	 */
+	public static int createComposite(BufferedImage onload_screenshot,
+									  List<ElementState> element_states,
+									  PageState page_state,
+									  TiledCompositeRenderer.TileSink sink) throws IOException
+	{
+		assert onload_screenshot != null;
+		assert element_states != null;
+		assert page_state != null;
+		assert sink != null;
+
+		return new TiledCompositeRenderer().render(onload_screenshot,
+												   element_states,
+												   page_state.getFullPageWidth(),
+												   page_state.getFullPageHeight(),
+												   sink);
+	}
+
+	/**
+	 * Creates a composite image from viewport captures and element states as
+	 * fixed-height tiles, streaming every finished tile to the sink. Neither
+	 * the onload screenshot nor the composite is held in memory for the full
+	 * page.
+	 *
+	 * @param background draws the page beneath the elements, for example {@link ViewportCaptures}
+	 * @param element_states the element states
+	 * @param page_state the page state
+	 * @param sink receives each tile, from the top of the page down
+	 * @return the number of tiles emitted
+	 *
+	 * precondition: background != null
+	 * precondition: element_states != null
+	 * precondition: page_state != null
+	 * precondition: sink != null
+	 * @throws IOException if the background can't be captured or the sink fails
+	 */
+	public static int createComposite(TiledCompositeRenderer.PageBackground background,
+									  List<ElementState> element_states,
+									  PageState page_state,
+									  TiledCompositeRenderer.TileSink sink) throws IOException
+	{
+		assert background != null;
+		assert element_states != null;
+		assert page_state != null;
+		assert sink != null;
+
+		return new TiledCompositeRenderer().render(background,
+												   element_states,
+												   page_state.getFullPageWidth(),
+												   page_state.getFullPageHeight(),
+												   sink);
+	}
+	
 	/**
 	 * Checks if the rows of the current and original screenshots are matching
 	 *
@@ -548,7 +888,7 @@ public class ImageUtils {
 		assert lab1 != null;
 		assert lab2 != null;
 
-		return 0.0f; //(float) CIEDE2000.calculateDeltaE(lab1[0],lab1[1],lab1[2],lab2[0],lab2[1],lab2[2]);
+		return (float)DeltaE.ciede2000(lab1[0], lab1[1], lab1[2], lab2[0], lab2[1], lab2[2]);
 	}
 
 	/**
@@ -559,16 +899,11 @@ public class ImageUtils {
 		*
 		* precondition: color1 != null
 		* precondition: color2 != null
-		*
-		* NOTE: This method is not properly implemented yet.
 		*/
 	public static float calculateDeltaE(ColorData color1, ColorData color2) {
 		assert color1 != null;
 		assert color2 != null;
 
-		int[] lab1 = rgb2lab(color1.getRed(), color1.getGreen(), color1.getBlue());
-		int[] lab2 = rgb2lab(color2.getRed(), color2.getGreen(), color2.getBlue());
-
-		return 0.0f; //(float) CIEDE2000.calculateDeltaE(lab1[0],lab1[1],lab1[2],lab2[0],lab2[1],lab2[2]);
+		return (float)DeltaE.ciede2000(color1, color2);
 	}
 }
@@ -0,0 +1,79 @@
+package com.looksee.utils;
+
+import com.looksee.models.enums.ScreenshotResolution;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The set of downscaled copies of a screenshot defined by
+ * {@link ScreenshotResolution}. Every level is derived from the level above
+ * it, so building the whole pyramid costs little more than a single
+ * downscale of the full image.
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: levels contains an image for every {@link ScreenshotResolution}</li>
+ * </ul>
+ */
+public final class ScreenshotPyramid {
+	private final Map<ScreenshotResolution, BufferedImage> levels;
+
+	private ScreenshotPyramid(Map<ScreenshotResolution, BufferedImage> levels) {
+		this.levels = Collections.unmodifiableMap(levels);
+	}
+
+	/**
+	 * Builds every level of the pyramid from a full resolution screenshot
+	 *
+	 * @param full_screenshot the screenshot as captured
+	 * @return the pyramid
+	 *
+	 * precondition: full_screenshot != null
+	 */
+	public static ScreenshotPyramid build(BufferedImage full_screenshot) {
+		assert full_screenshot != null;
+
+		Map<ScreenshotResolution, BufferedImage> levels = new EnumMap<>(ScreenshotResolution.class);
+		BufferedImage previous = full_screenshot;
+		int previous_divisor = 1;
+		for(ScreenshotResolution resolution : ScreenshotResolution.values()) {
+			BufferedImage level;
+			if(resolution.getDivisor() > 0) {
+				level = previous;
+				for(int divisor = previous_divisor; divisor < resolution.getDivisor(); divisor *= 2) {
+					level = ImageUtils.halve(level);
+				}
+				previous_divisor = resolution.getDivisor();
+			}
+			else {
+				level = ImageUtils.scaleToFit(previous, resolution.getMaxWidth(), Integer.MAX_VALUE);
+			}
+			levels.put(resolution, level);
+			previous = level;
+		}
+		return new ScreenshotPyramid(levels);
+	}
+
+	/**
+	 * Returns the image for the requested resolution
+	 *
+	 * @param resolution the resolution needed by the caller
+	 * @return the image at that resolution
+	 *
+	 * precondition: resolution != null
+	 */
+	public BufferedImage getLevel(ScreenshotResolution resolution) {
+		assert resolution != null;
+
+		return levels.get(resolution);
+	}
+
+	/**
+	 * @return every level of the pyramid keyed by resolution
+	 */
+	public Map<ScreenshotResolution, BufferedImage> getLevels() {
+		return levels;
+	}
+}
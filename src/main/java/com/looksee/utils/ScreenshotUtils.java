@@ -1,6 +1,7 @@
 package com.looksee.utils;
 
 import com.looksee.models.ElementState;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import org.openqa.selenium.Dimension;
@@ -78,4 +79,53 @@ public final class ScreenshotUtils {
 
 		return page_screenshot.getSubimage(element_location.getX(), element_location.getY(), width, height);
 	}
+
+	/**
+	 * Extracts a screenshot of an element from a tiled full-page screenshot,
+	 * reading only the part of the page covered by the element.
+	 *
+	 * @param element_state the element to get a screenshot of
+	 * @param page_screenshot reader for the full-page screenshot
+	 * @return the cropped screenshot of the element
+	 * @throws IOException if an error occurs while reading the screenshot region
+	 *
+	 * precondition: element_state != null
+	 * precondition: page_screenshot != null
+	 */
+	public static BufferedImage getElementScreenshot(ElementState element_state,
+													 ImageRegionReader page_screenshot) throws IOException {
+		assert element_state != null;
+		assert page_screenshot != null;
+
+		return page_screenshot.readRegion(new Rectangle(element_state.getXLocation(),
+														element_state.getYLocation(),
+														element_state.getWidth(),
+														element_state.getHeight()));
+	}
+
+	/**
+	 * Extracts a screenshot of an element from a tiled full-page screenshot using Point and Dimension.
+	 *
+	 * @param element_location the location of the element
+	 * @param element_size the size of the element
+	 * @param page_screenshot reader for the full-page screenshot
+	 * @return the cropped screenshot of the element
+	 * @throws IOException if an error occurs while reading the screenshot region
+	 *
+	 * precondition: element_location != null
+	 * precondition: element_size != null
+	 * precondition: page_screenshot != null
+	 */
+	public static BufferedImage getElementScreenshot(Point element_location,
+													 Dimension element_size,
+													 ImageRegionReader page_screenshot) throws IOException {
+		assert element_location != null;
+		assert element_size != null;
+		assert page_screenshot != null;
+
+		return page_screenshot.readRegion(new Rectangle(element_location.getX(),
+														element_location.getY(),
+														element_size.getWidth(),
+														element_size.getHeight()));
+	}
 }
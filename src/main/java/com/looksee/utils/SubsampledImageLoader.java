@@ -0,0 +1,206 @@
+package com.looksee.utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Decodes images at reduced resolution for analytics that only need
+ * approximate statistics, such as color usage.
+ *
+ * <p>The image is streamed straight into the decoder, which skips the rows
+ * and columns that aren't sampled, so neither the encoded file nor the full
+ * resolution raster is ever held in memory. The decoded image keeps the
+ * decoder's native pixel layout, which for screenshots is 3 or 4 bytes per
+ * pixel instead of the 4 byte ints of a converted image.</p>
+ */
+public final class SubsampledImageLoader {
+	/** Default maximum number of pixels decoded for color statistics */
+	public static final long DEFAULT_MAX_PIXELS = 1L << 20;
+
+	private SubsampledImageLoader() {}
+
+	/**
+	 * Decodes the image at the given url with the smallest subsampling that
+	 * keeps the number of decoded pixels within the given budget
+	 *
+	 * @param image_url url of the image
+	 * @param max_pixels maximum number of pixels to decode
+	 * @return the decoded image
+	 * @throws IOException if the image can't be read or decoded
+	 *
+	 * precondition: image_url != null
+	 * precondition: max_pixels > 0
+	 */
+	public static SubsampledImage read(URL image_url, long max_pixels) throws IOException {
+		assert image_url != null;
+		assert max_pixels > 0;
+
+		try(InputStream input = image_url.openStream()) {
+			return read(input, null, max_pixels);
+		}
+	}
+
+	/**
+	 * Decodes a region of the image read from the stream with the smallest
+	 * subsampling that keeps the number of decoded pixels within the given
+	 * budget. The stream is not closed.
+	 *
+	 * @param input stream containing the encoded image
+	 * @param region region of the image to decode, or null to decode the whole image
+	 * @param max_pixels maximum number of pixels to decode
+	 * @return the decoded image
+	 * @throws IOException if the image can't be read or decoded, or the region lies outside of the image
+	 *
+	 * precondition: input != null
+	 * precondition: max_pixels > 0
+	 */
+	public static SubsampledImage read(InputStream input, Rectangle region, long max_pixels) throws IOException {
+		assert input != null;
+		assert max_pixels > 0;
+
+		try(ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+			if(stream == null) {
+				throw new IOException("Unable to open image stream");
+			}
+
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+			if(!readers.hasNext()) {
+				throw new IOException("No image reader found for image");
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(stream, true, true);
+
+				Rectangle source = new Rectangle(0, 0, reader.getWidth(0), reader.getHeight(0));
+				if(region != null) {
+					source = region.intersection(source);
+					if(source.isEmpty()) {
+						throw new IOException("Region "+region+" is outside of the image bounds");
+					}
+				}
+
+				int step = getSubsampling(source.width, source.height, max_pixels);
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(source);
+				param.setSourceSubsampling(step, step, 0, 0);
+
+				return new SubsampledImage(reader.read(0, param), source, step);
+			}
+			finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Returns the smallest subsampling step for which a width x height image
+	 * decodes to at most max_pixels pixels
+	 *
+	 * @param width width of the decoded region
+	 * @param height height of the decoded region
+	 * @param max_pixels maximum number of pixels to decode
+	 * @return the subsampling step
+	 *
+	 * precondition: width > 0
+	 * precondition: height > 0
+	 * precondition: max_pixels > 0
+	 */
+	public static int getSubsampling(int width, int height, long max_pixels) {
+		assert width > 0;
+		assert height > 0;
+		assert max_pixels > 0;
+
+		int step = Math.max(1, (int)Math.sqrt((double)width * height / max_pixels));
+		while(sampledLength(width, step) * sampledLength(height, step) > max_pixels) {
+			step++;
+		}
+		return step;
+	}
+
+	/**
+	 * @return the number of samples taken from a line of the given length
+	 */
+	private static long sampledLength(int length, int step) {
+		return (length + step - 1) / step;
+	}
+
+	/**
+	 * An image decoded by {@link SubsampledImageLoader}, along with the mapping
+	 * from source coordinates to decoded pixels. Sample (x, y) of the image is
+	 * source pixel (region.x + x * step, region.y + y * step).
+	 *
+	 * <p><b>Class Invariants:</b>
+	 * <ul>
+	 *   <li>invariant: image != null</li>
+	 *   <li>invariant: step &gt;= 1</li>
+	 * </ul>
+	 */
+	public static final class SubsampledImage {
+		private final BufferedImage image;
+		private final Rectangle region;
+		private final int step;
+
+		SubsampledImage(BufferedImage image, Rectangle region, int step) {
+			assert image != null;
+			assert region != null;
+			assert step >= 1;
+
+			this.image = image;
+			this.region = region;
+			this.step = step;
+		}
+
+		/**
+		 * @return the decoded image
+		 */
+		public BufferedImage getImage() {
+			return image;
+		}
+
+		/**
+		 * @return the region of the source image that was decoded
+		 */
+		public Rectangle getRegion() {
+			return new Rectangle(region);
+		}
+
+		/**
+		 * @return the subsampling step in both directions
+		 */
+		public int getStep() {
+			return step;
+		}
+
+		/**
+		 * Maps a rectangle in source image coordinates to the samples of the
+		 * decoded image whose source pixels fall inside it
+		 *
+		 * @param bounds rectangle in source image coordinates
+		 * @return rectangle in decoded image coordinates, possibly empty
+		 *
+		 * precondition: bounds != null
+		 */
+		public Rectangle toSampleBounds(Rectangle bounds) {
+			assert bounds != null;
+
+			int left = ceilDiv(bounds.x - region.x, step);
+			int top = ceilDiv(bounds.y - region.y, step);
+			int right = ceilDiv(bounds.x + bounds.width - region.x, step);
+			int bottom = ceilDiv(bounds.y + bounds.height - region.y, step);
+			return new Rectangle(left, top, Math.max(0, right - left), Math.max(0, bottom - top));
+		}
+
+		private static int ceilDiv(int value, int divisor) {
+			return -Math.floorDiv(-value, divisor);
+		}
+	}
+}
@@ -0,0 +1,397 @@
+package com.looksee.utils;
+
+import com.looksee.models.ElementState;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders a full page composite of the onload screenshot and element
+ * screenshots as a sequence of fixed-height horizontal tiles.
+ *
+ * <p>The page beneath the elements is drawn by a {@link PageBackground}, which
+ * may be a full page screenshot or a {@link ViewportCaptures} that captures
+ * the viewport tile by tile, so the full page never has to be held in
+ * memory.</p>
+ *
+ * <p>Only one tile is held in memory at a time. Element screenshots are
+ * downloaded concurrently, with at most {@code parallelism} downloads in
+ * flight, in top to bottom order so that the elements needed by the current
+ * tile are fetched first and the next tile is prefetched while the current one
+ * is drawn. A decoded element image is released as soon as the last tile it
+ * overlaps has been emitted, so peak heap depends on the tile size and the
+ * number of elements overlapping a tile, not on the page length.</p>
+ *
+ * <p>Downloads run on an executor shared by every renderer, with
+ * {@value #SHARED_THREADS} threads, unless another executor is passed in.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: tile_height &gt; 0</li>
+ *   <li>invariant: parallelism &gt; 0</li>
+ *   <li>invariant: fetcher != null</li>
+ *   <li>invariant: executor != null</li>
+ * </ul>
+ */
+public class TiledCompositeRenderer {
+	private static Logger log = LoggerFactory.getLogger(TiledCompositeRenderer.class);
+
+	/** Default height of a composite tile in pixels */
+	public static final int DEFAULT_TILE_HEIGHT = 2048;
+
+	/** Default number of concurrent element screenshot downloads */
+	public static final int DEFAULT_PARALLELISM = 8;
+
+	/** Number of threads of the executor shared by renderers */
+	public static final int SHARED_THREADS = 16;
+
+	private static final ThreadPoolExecutor shared_executor = createSharedExecutor();
+
+	private final int tile_height;
+	private final int parallelism;
+	private final ImageFetcher fetcher;
+	private final Executor executor;
+
+	/**
+	 * Receives each finished tile, in order from the top of the page. The tile
+	 * buffer is reused for the next tile once this method returns, so sinks
+	 * must encode or copy it before returning.
+	 */
+	@FunctionalInterface
+	public interface TileSink {
+		/**
+		 * Accepts a finished tile
+		 *
+		 * @param tile_index zero based index of the tile
+		 * @param y_offset y coordinate of the top of the tile within the page
+		 * @param tile the rendered tile
+		 * @throws IOException if the tile cannot be encoded or stored
+		 */
+		void accept(int tile_index, int y_offset, BufferedImage tile) throws IOException;
+	}
+
+	/**
+	 * Draws the page beneath the elements into a tile
+	 */
+	@FunctionalInterface
+	public interface PageBackground {
+		/**
+		 * Draws the rows of the page covered by a tile
+		 *
+		 * @param graphics graphics of the tile, whose origin is the top of the tile
+		 * @param tile_top y coordinate of the top of the tile within the page
+		 * @param tile_height height of the tile
+		 * @throws IOException if the page can't be captured or read
+		 */
+		void draw(Graphics2D graphics, int tile_top, int tile_height) throws IOException;
+	}
+
+	/**
+	 * Loads an element screenshot from its url
+	 */
+	@FunctionalInterface
+	public interface ImageFetcher {
+		/**
+		 * Loads the image located at the given url
+		 *
+		 * @param url url of the image
+		 * @return the decoded image, or null if it can't be decoded
+		 * @throws IOException if the image can't be retrieved
+		 */
+		BufferedImage fetch(String url) throws IOException;
+	}
+
+	/**
+	 * Constructs a new {@link TiledCompositeRenderer} using the default tile
+	 * height and parallelism
+	 */
+	public TiledCompositeRenderer() {
+		this(DEFAULT_TILE_HEIGHT, DEFAULT_PARALLELISM, url -> ImageIO.read(new URL(url)));
+	}
+
+	/**
+	 * Constructs a new {@link TiledCompositeRenderer}
+	 *
+	 * @param tile_height height of each tile in pixels
+	 * @param parallelism maximum number of concurrent element screenshot downloads
+	 * @param fetcher used to download element screenshots
+	 *
+	 * precondition: tile_height > 0
+	 * precondition: parallelism > 0
+	 * precondition: fetcher != null
+	 */
+	public TiledCompositeRenderer(int tile_height, int parallelism, ImageFetcher fetcher) {
+		this(tile_height, parallelism, fetcher, shared_executor);
+	}
+
+	/**
+	 * Constructs a new {@link TiledCompositeRenderer} downloading on the given executor
+	 *
+	 * @param tile_height height of each tile in pixels
+	 * @param parallelism maximum number of concurrent element screenshot downloads
+	 * @param fetcher used to download element screenshots
+	 * @param executor runs the downloads
+	 *
+	 * precondition: tile_height > 0
+	 * precondition: parallelism > 0
+	 * precondition: fetcher != null
+	 * precondition: executor != null
+	 */
+	public TiledCompositeRenderer(int tile_height, int parallelism, ImageFetcher fetcher, Executor executor) {
+		assert tile_height > 0;
+		assert parallelism > 0;
+		assert fetcher != null;
+		assert executor != null;
+
+		this.tile_height = tile_height;
+		this.parallelism = parallelism;
+		this.fetcher = fetcher;
+		this.executor = executor;
+	}
+
+	private static ThreadPoolExecutor createSharedExecutor() {
+		AtomicInteger thread_count = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(SHARED_THREADS,
+															 SHARED_THREADS,
+															 30,
+															 TimeUnit.SECONDS,
+															 new LinkedBlockingQueue<>(),
+															 runnable -> {
+																 Thread thread = new Thread(runnable, "composite-fetch-"+thread_count.incrementAndGet());
+																 thread.setDaemon(true);
+																 return thread;
+															 });
+		//idle renderers don't keep threads alive
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Renders the composite over a full page screenshot and streams every tile
+	 * to the sink
+	 *
+	 * @param onload_screenshot the onload screenshot drawn beneath the elements
+	 * @param element_states the elements whose screenshots are drawn over the onload screenshot
+	 * @param page_width width of the full page
+	 * @param page_height height of the full page
+	 * @param sink receives the finished tiles
+	 * @return the number of tiles emitted
+	 * @throws IOException if the sink fails
+	 *
+	 * precondition: onload_screenshot != null
+	 * precondition: element_states != null
+	 * precondition: page_width > 0
+	 * precondition: page_height > 0
+	 * precondition: sink != null
+	 */
+	public int render(BufferedImage onload_screenshot,
+					  List<ElementState> element_states,
+					  int page_width,
+					  int page_height,
+					  TileSink sink) throws IOException
+	{
+		assert onload_screenshot != null;
+
+		return render((graphics, tile_top, height) -> graphics.drawImage(onload_screenshot, 0, -tile_top, null),
+					  element_states,
+					  page_width,
+					  page_height,
+					  sink);
+	}
+
+	/**
+	 * Renders the composite and streams every tile to the sink
+	 *
+	 * @param background draws the page beneath the elements, tile by tile from the top
+	 * @param element_states the elements whose screenshots are drawn over the background
+	 * @param page_width width of the full page
+	 * @param page_height height of the full page
+	 * @param sink receives the finished tiles
+	 * @return the number of tiles emitted
+	 * @throws IOException if the background or the sink fails
+	 *
+	 * precondition: background != null
+	 * precondition: element_states != null
+	 * precondition: page_width > 0
+	 * precondition: page_height > 0
+	 * precondition: sink != null
+	 */
+	public int render(PageBackground background,
+					  List<ElementState> element_states,
+					  int page_width,
+					  int page_height,
+					  TileSink sink) throws IOException
+	{
+		assert background != null;
+		assert element_states != null;
+		assert page_width > 0;
+		assert page_height > 0;
+		assert sink != null;
+
+		//fetch order is top to bottom, draw order stays the order of element_states
+		List<Integer> ordered = IntStream.range(0, element_states.size())
+				.filter(idx -> isDrawable(element_states.get(idx), page_height))
+				.boxed()
+				.sorted(Comparator.comparingInt(idx -> element_states.get(idx).getYLocation()))
+				.collect(Collectors.toList());
+
+		Semaphore in_flight = new Semaphore(parallelism);
+		Deque<PendingImage> pending = new ArrayDeque<>();
+		List<PendingImage> active = new ArrayList<>();
+
+		BufferedImage tile_buffer = new BufferedImage(page_width,
+													  Math.min(tile_height, page_height),
+													  BufferedImage.TYPE_INT_ARGB);
+		int next = 0;
+		int tile_index = 0;
+		try {
+			for(int tile_top = 0; tile_top < page_height; tile_top += tile_height) {
+				int tile_bottom = Math.min(tile_top + tile_height, page_height);
+
+				//elements required by this tile, waiting for a download slot when necessary
+				while(next < ordered.size() && element_states.get(ordered.get(next)).getYLocation() < tile_bottom) {
+					in_flight.acquireUninterruptibly();
+					int idx = ordered.get(next++);
+					pending.add(submit(in_flight, idx, element_states.get(idx)));
+				}
+
+				//prefetch the next tile with whatever slots are free
+				while(next < ordered.size()
+						&& element_states.get(ordered.get(next)).getYLocation() < tile_bottom + tile_height
+						&& in_flight.tryAcquire()) {
+					int idx = ordered.get(next++);
+					pending.add(submit(in_flight, idx, element_states.get(idx)));
+				}
+
+				while(!pending.isEmpty() && pending.peek().element.getYLocation() < tile_bottom) {
+					PendingImage image = pending.poll();
+					image.image.join();
+					active.add(image);
+				}
+				active.sort(Comparator.comparingInt(image -> image.order));
+
+				BufferedImage tile = tile_bottom - tile_top == tile_buffer.getHeight()
+										? tile_buffer
+										: tile_buffer.getSubimage(0, 0, page_width, tile_bottom - tile_top);
+				drawTile(tile, tile_top, background, active);
+
+				Iterator<PendingImage> iter = active.iterator();
+				while(iter.hasNext()) {
+					if(iter.next().getBottom() <= tile_bottom) {
+						iter.remove();
+					}
+				}
+
+				sink.accept(tile_index++, tile_top, tile);
+			}
+		}
+		finally {
+			//downloads that haven't started are skipped when rendering stops early
+			for(PendingImage image : pending) {
+				image.image.cancel(false);
+			}
+		}
+
+		return tile_index;
+	}
+
+	/**
+	 * Checks if the element has a screenshot that overlaps the page
+	 */
+	private static boolean isDrawable(ElementState element, int page_height) {
+		return element.getScreenshotUrl() != null
+				&& !element.getScreenshotUrl().isEmpty()
+				&& element.getYLocation() < page_height;
+	}
+
+	/**
+	 * Clears the tile and draws the background and every active element into it
+	 */
+	private void drawTile(BufferedImage tile, int tile_top, PageBackground background, List<PendingImage> active) throws IOException {
+		Graphics2D graphics = tile.createGraphics();
+		try {
+			graphics.setComposite(AlphaComposite.Clear);
+			graphics.fillRect(0, 0, tile.getWidth(), tile.getHeight());
+			graphics.setComposite(AlphaComposite.SrcOver);
+
+			background.draw(graphics, tile_top, tile.getHeight());
+			for(PendingImage pending : active) {
+				BufferedImage element_image = pending.image.join();
+				if(element_image != null) {
+					graphics.drawImage(element_image,
+									   pending.element.getXLocation(),
+									   pending.element.getYLocation() - tile_top,
+									   null);
+				}
+			}
+		}
+		finally {
+			graphics.dispose();
+		}
+	}
+
+	/**
+	 * Starts downloading the element screenshot. The download slot is released
+	 * when the download completes, whether or not it succeeded.
+	 */
+	private PendingImage submit(Semaphore in_flight, int order, ElementState element) {
+		CompletableFuture<BufferedImage> future = CompletableFuture.supplyAsync(() -> {
+			try {
+				return fetcher.fetch(element.getScreenshotUrl());
+			}
+			catch(IOException | RuntimeException e) {
+				log.error("Could not load element screenshot "+element.getScreenshotUrl(), e);
+				return null;
+			}
+			finally {
+				in_flight.release();
+			}
+		}, executor);
+
+		return new PendingImage(order, element, future);
+	}
+
+	/**
+	 * An element paired with its (possibly still downloading) screenshot
+	 */
+	private static final class PendingImage {
+		private final int order;
+		private final ElementState element;
+		private final CompletableFuture<BufferedImage> image;
+
+		PendingImage(int order, ElementState element, CompletableFuture<BufferedImage> image) {
+			this.order = order;
+			this.element = element;
+			this.image = image;
+		}
+
+		/**
+		 * @return the last row (exclusive) covered by the element or its screenshot
+		 */
+		int getBottom() {
+			BufferedImage element_image = image.join();
+			int height = element_image == null ? element.getHeight() : Math.max(element.getHeight(), element_image.getHeight());
+			return element.getYLocation() + height;
+		}
+	}
+}
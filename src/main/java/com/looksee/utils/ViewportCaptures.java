@@ -0,0 +1,88 @@
+package com.looksee.utils;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Draws the page beneath a composite from viewport captures taken while the
+ * renderer moves down the page, instead of from a full page screenshot.
+ *
+ * <p>Only the most recent capture is kept. A capture is reused by the next
+ * tile when it reaches past the bottom of the current one, so each part of
+ * the page is captured once. Browsers don't scroll past the end of the page,
+ * so a capture requested near the bottom is placed at
+ * {@code page_height - capture height}.</p>
+ *
+ * <p><b>Class Invariants:</b>
+ * <ul>
+ *   <li>invariant: page_height &gt; 0</li>
+ *   <li>invariant: capturer != null</li>
+ * </ul>
+ */
+public class ViewportCaptures implements TiledCompositeRenderer.PageBackground {
+	private final int page_height;
+	private final ViewportCapturer capturer;
+
+	private BufferedImage capture;
+	private int capture_top;
+
+	/**
+	 * Captures the viewport scrolled to a position of the page
+	 */
+	@FunctionalInterface
+	public interface ViewportCapturer {
+		/**
+		 * Scrolls the page so that the viewport starts at the given offset, or
+		 * as close to it as the page allows, and captures the viewport
+		 *
+		 * @param y_offset y coordinate of the page the viewport should start at
+		 * @return the captured viewport
+		 * @throws IOException if the viewport can't be captured
+		 */
+		BufferedImage capture(int y_offset) throws IOException;
+	}
+
+	/**
+	 * Constructs a {@link ViewportCaptures}
+	 *
+	 * @param page_height height of the full page
+	 * @param capturer captures the viewport
+	 *
+	 * precondition: page_height > 0
+	 * precondition: capturer != null
+	 */
+	public ViewportCaptures(int page_height, ViewportCapturer capturer) {
+		assert page_height > 0;
+		assert capturer != null;
+
+		this.page_height = page_height;
+		this.capturer = capturer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * precondition: graphics != null
+	 * precondition: tile_height > 0
+	 */
+	@Override
+	public void draw(Graphics2D graphics, int tile_top, int tile_height) throws IOException {
+		assert graphics != null;
+		assert tile_height > 0;
+
+		int tile_bottom = Math.min(tile_top + tile_height, page_height);
+		int row = tile_top;
+		while(row < tile_bottom) {
+			if(capture == null || row < capture_top || row >= capture_top + capture.getHeight()) {
+				capture = capturer.capture(row);
+				if(capture == null || capture.getHeight() == 0) {
+					throw new IOException("Viewport capture at "+row+" is empty");
+				}
+				capture_top = Math.max(0, Math.min(row, page_height - capture.getHeight()));
+			}
+			graphics.drawImage(capture, 0, capture_top - tile_top, null);
+			row = capture_top + capture.getHeight();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.looksee.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.summary.Plan;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.data.neo4j.repository.Neo4jRepository;
+
+/**
+ * Unit tests for Neo4jSchemaBootstrap and the plans of the repository queries.
+ */
+class Neo4jSchemaBootstrapTest {
+
+    private static List<Class<?>> repositories() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(Neo4jRepository.class));
+
+        List<Class<?>> repositories = new ArrayList<>();
+        for (BeanDefinition definition : scanner.findCandidateComponents("com.looksee.models.repository")) {
+            repositories.add(Class.forName(definition.getBeanClassName()));
+        }
+        return repositories;
+    }
+
+    private static Plan plan(String operator, Map<String, String> arguments, Plan... children) {
+        Plan plan = mock(Plan.class);
+        when(plan.operatorType()).thenReturn(operator);
+        Map<String, Value> values = new HashMap<>();
+        arguments.forEach((name, value) -> values.put(name, Values.value(value)));
+        when(plan.arguments()).thenReturn(values);
+        doReturn(List.of(children)).when(plan).children();
+        return plan;
+    }
+
+    @Test
+    void repositoryQueriesHaveNoUnboundedExpansions() throws Exception {
+        List<Class<?>> repositories = repositories();
+        assertFalse(repositories.isEmpty());
+
+        List<String> unbounded = new ArrayList<>();
+        for (Class<?> repository : repositories) {
+            for (Map.Entry<String, String> query : Neo4jSchemaBootstrap.queries(repository).entrySet()) {
+                if (Neo4jSchemaBootstrap.hasUnboundedExpansion(query.getValue())) {
+                    unbounded.add(query.getKey());
+                }
+            }
+        }
+        assertEquals(Collections.emptyList(), unbounded);
+    }
+
+    @Test
+    void unboundedExpansionsAreDetected() {
+        assertTrue(Neo4jSchemaBootstrap.hasUnboundedExpansion("MATCH (a)-[*]->(b) RETURN b"));
+        assertTrue(Neo4jSchemaBootstrap.hasUnboundedExpansion("MATCH (a)-[:HAS*]->(b) RETURN b"));
+        assertTrue(Neo4jSchemaBootstrap.hasUnboundedExpansion("MATCH (a)-[:HAS*2..]->(b) RETURN b"));
+        assertFalse(Neo4jSchemaBootstrap.hasUnboundedExpansion("MATCH (a)-[:HAS*1..2]->(b) RETURN b"));
+        assertFalse(Neo4jSchemaBootstrap.hasUnboundedExpansion("MATCH (a)-[*3]->(b) RETURN b"));
+        assertFalse(Neo4jSchemaBootstrap.hasUnboundedExpansion("MATCH (a)-[:HAS]->(b) RETURN b"));
+    }
+
+    @Test
+    void planProblemsReportLabelScansAndUnboundedExpansions() {
+        Plan scan = plan("NodeByLabelScan@neo4j", Map.of("Details", "p:PageState"));
+        Plan expand = plan("VarLengthExpand(All)@neo4j", Map.of("ExpandExpression", "(a)-[:HAS*]->(p)"), scan);
+        Plan bounded = plan("VarLengthExpand(All)@neo4j", Map.of("ExpandExpression", "(a)-[:HAS*1..2]->(p)"));
+        Plan seek = plan("NodeUniqueIndexSeek@neo4j", Map.of("Details", "UNIQUE a:Account(user_id)"));
+        Plan root = plan("ProduceResults@neo4j", Map.of(), expand, bounded, seek);
+
+        List<String> problems = Neo4jSchemaBootstrap.planProblems(root);
+
+        assertEquals(List.of("VarLengthExpand(All) (a)-[:HAS*]->(p)", "NodeByLabelScan p:PageState"), problems);
+        assertTrue(Neo4jSchemaBootstrap.planProblems(seek).isEmpty());
+    }
+
+    @Test
+    void explainPrefixesTheQuery() {
+        Neo4jClient client = mock(Neo4jClient.class, RETURNS_DEEP_STUBS);
+        Plan scan = plan("AllNodesScan@neo4j", Map.of("Details", "n"));
+        when(client.query("EXPLAIN MATCH (n) RETURN n").run().plan()).thenReturn(scan);
+
+        Neo4jSchemaBootstrap bootstrap = new Neo4jSchemaBootstrap(client, false, Collections.emptyList());
+
+        assertEquals(List.of("AllNodesScan n"), bootstrap.explain("MATCH (n) RETURN n"));
+    }
+
+    @Test
+    void failedConstraintFallsBackToIndex() {
+        Neo4jClient client = mock(Neo4jClient.class, RETURNS_DEEP_STUBS);
+        when(client.query(Neo4jSchemaBootstrap.constraintStatement("Element", "key")).run())
+            .thenThrow(new IllegalStateException("duplicate keys"));
+
+        new Neo4jSchemaBootstrap(client, false, Collections.emptyList()).createSchema();
+
+        verify(client).query("CREATE INDEX element_key_index IF NOT EXISTS FOR (n:Element) ON (n.key)");
+        verify(client).query("CREATE INDEX elementstate_key_index IF NOT EXISTS FOR (n:ElementState) ON (n.key)");
+        verify(client, never()).query(Neo4jSchemaBootstrap.constraintStatement("ElementState", "key"));
+        verify(client).query("CREATE CONSTRAINT pagestate_key_unique IF NOT EXISTS FOR (n:PageState) REQUIRE n.key IS UNIQUE");
+        verify(client).query("CREATE INDEX domain_url_index IF NOT EXISTS FOR (n:Domain) ON (n.url)");
+    }
+
+    @Test
+    void missingIndexesListsLookupsWithoutAnOnlineIndex() {
+        Neo4jClient client = mock(Neo4jClient.class, RETURNS_DEEP_STUBS);
+        List<Map<String, Object>> indexes = new ArrayList<>();
+        Neo4jSchemaBootstrap.UNIQUE_PROPERTIES.forEach((label, properties) -> properties.forEach(property ->
+            indexes.add(Map.of("labelsOrTypes", List.of(label), "properties", List.of(property), "state", "ONLINE"))));
+        Neo4jSchemaBootstrap.INDEXED_PROPERTIES.forEach((label, properties) -> properties.forEach(property ->
+            indexes.add(Map.of("labelsOrTypes", List.of(label), "properties", List.of(property),
+                               "state", "Domain".equals(label) ? "POPULATING" : "ONLINE"))));
+        when(client.query(anyString()).fetch().all()).thenReturn(indexes);
+
+        List<String> missing = new Neo4jSchemaBootstrap(client, false, Collections.emptyList()).missingIndexes();
+
+        assertEquals(List.of("Domain.key", "Domain.url", "Domain.host"), missing);
+    }
+}
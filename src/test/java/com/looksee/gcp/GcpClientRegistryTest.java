@@ -0,0 +1,100 @@
+package com.looksee.gcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+
+/**
+ * Unit tests for GcpClientRegistry.
+ */
+class GcpClientRegistryTest {
+
+    private GcpClientRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new GcpClientRegistry(1, 1, null, null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void registeredClientsAreSharedAndNotClosed() throws Exception {
+        LanguageServiceClient language = mock(LanguageServiceClient.class);
+        ImageAnnotatorClient vision = mock(ImageAnnotatorClient.class);
+        Storage storage = mock(Storage.class);
+        registry.register(LanguageServiceClient.class, language);
+        registry.register(ImageAnnotatorClient.class, vision);
+        registry.register(Storage.class, storage);
+
+        assertSame(language, registry.getLanguageServiceClient());
+        assertSame(language, registry.getLanguageServiceClient());
+        assertSame(vision, registry.getImageAnnotatorClient());
+        assertSame(storage, registry.getStorage());
+
+        registry.shutdown();
+        verify(language, never()).close();
+        verify(vision, never()).close();
+    }
+
+    @Test
+    void callsAreRecordedPerClient() throws Exception {
+        assertEquals("ok", registry.call(GcpClientRegistry.LANGUAGE, () -> "ok"));
+        assertEquals("ok", registry.call(GcpClientRegistry.LANGUAGE, () -> "ok"));
+        assertThrows(IOException.class, () -> registry.call(GcpClientRegistry.VISION, () -> {
+            throw new IOException("unavailable");
+        }));
+
+        Map<String, GcpClientRegistry.CallStats> stats = registry.getCallStats();
+        assertEquals(2, stats.get(GcpClientRegistry.LANGUAGE).getCount());
+        assertEquals(0, stats.get(GcpClientRegistry.LANGUAGE).getErrorCount());
+        assertEquals(1, stats.get(GcpClientRegistry.VISION).getCount());
+        assertEquals(1, stats.get(GcpClientRegistry.VISION).getErrorCount());
+        assertNull(stats.get(GcpClientRegistry.PAGESPEED));
+    }
+
+    @Test
+    void recordTracksMeanAndMaxLatency() {
+        registry.record(GcpClientRegistry.PAGESPEED, 2_000_000, true);
+        registry.record(GcpClientRegistry.PAGESPEED, 4_000_000, true);
+
+        GcpClientRegistry.CallStats stats = registry.getCallStats().get(GcpClientRegistry.PAGESPEED);
+        assertEquals(3.0, stats.getMeanLatencyMillis(), 0.001);
+        assertEquals(4.0, stats.getMaxLatencyMillis(), 0.001);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void defaultRegistryIsShutDownWhenTheBeanReplacesIt() {
+        GcpClientRegistry fallback = GcpClientRegistry.getShared();
+        GcpClientRegistry bean = new GcpClientRegistry(new MockEnvironment(), mock(ObjectProvider.class), mock(ObjectProvider.class));
+        try {
+            assertSame(bean, GcpClientRegistry.getShared());
+            assertTrue(fallback.isShutdown());
+
+            //a second bean, as in another application context, is left running
+            GcpClientRegistry other = new GcpClientRegistry(new MockEnvironment(), mock(ObjectProvider.class), mock(ObjectProvider.class));
+            assertFalse(bean.isShutdown());
+            other.shutdown();
+        } finally {
+            bean.shutdown();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.looksee.gcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import com.looksee.models.enums.BrowserType;
+import com.looksee.models.enums.ScreenshotResolution;
+import com.looksee.storage.LocalObjectStore;
+import com.looksee.utils.TiledCompositeRenderer;
+
+/**
+ * Unit tests for the image uploads of GoogleCloudStorage.
+ */
+class GoogleCloudStorageTest {
+
+    private static final String PUBLIC_URL = "https://storage.googleapis.com/test-bucket";
+
+    private Storage storage;
+    private GoogleCloudStorage gcs;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(Storage.class);
+        GoogleCloudStorageProperties properties = new GoogleCloudStorageProperties();
+        properties.setBucketName("test-bucket");
+        properties.setPublicUrl(PUBLIC_URL);
+        gcs = new GoogleCloudStorage(storage, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gcs.shutdown();
+    }
+
+    @Test
+    void saveImageWritesOnceWithoutMetadataLookups() throws Exception {
+        String url = gcs.saveImage(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "https://example.com", "abc", BrowserType.CHROME);
+
+        ArgumentCaptor<BlobInfo> blob_info = ArgumentCaptor.forClass(BlobInfo.class);
+        verify(storage).create(blob_info.capture(), any(byte[].class), any());
+        verifyNoMoreInteractions(storage);
+
+        assertEquals("test-bucket", blob_info.getValue().getBucket());
+        assertEquals("image/png", blob_info.getValue().getContentType());
+        assertEquals(PUBLIC_URL + "/" + blob_info.getValue().getName(), url);
+        assertEquals(PUBLIC_URL + "/examplecomabcchrome.png", url);
+    }
+
+    @Test
+    void existingImageIsNotAnError() throws Exception {
+        doThrow(new StorageException(412, "conditionNotMet")).when(storage).create(any(BlobInfo.class), any(byte[].class), any());
+
+        String url = gcs.saveImage(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "example.com", "abc", BrowserType.CHROME);
+
+        assertEquals(PUBLIC_URL + "/examplecomabcchrome.png", url);
+    }
+
+    @Test
+    void saveImageAsyncIsLocatedBeforeItCompletes() throws Exception {
+        PendingUpload<String> upload = gcs.saveImageAsync(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "example.com", "abc", BrowserType.CHROME);
+        String url = upload.getLocation();
+
+        upload.getCompletion().get(5, TimeUnit.SECONDS);
+        assertEquals(PUBLIC_URL + "/examplecomabcchrome.png", url);
+        verify(storage).create(any(BlobInfo.class), any(byte[].class), any());
+    }
+
+    @Test
+    void pyramidAndTilesAreStoredAtTheirPrecomputedUrls(@TempDir Path directory) throws Exception {
+        LocalObjectStore store = new LocalObjectStore(directory);
+        GoogleCloudStorage local = new GoogleCloudStorage(store);
+        try {
+            BufferedImage image = new BufferedImage(1300, 700, BufferedImage.TYPE_INT_RGB);
+            PendingUpload<Map<ScreenshotResolution, String>> pyramid = local.saveImagePyramidAsync(image, "example.com", "abc", BrowserType.CHROME);
+            PendingUpload<String> tiles = local.saveTiledImageAsync(image, "example.com", "abc", BrowserType.CHROME);
+
+            assertEquals(ScreenshotResolution.values().length, pyramid.getLocation().size());
+            assertEquals(local.saveImage(image, "example.com", "abc", BrowserType.CHROME),
+                         pyramid.getLocation().get(ScreenshotResolution.FULL));
+
+            pyramid.await();
+            tiles.await();
+            for (String url : pyramid.getLocation().values()) {
+                assertTrue(store.exists(store.getKey(url)), url);
+            }
+            TiledImageReader reader = local.getTiledImage(tiles.getLocation());
+            assertEquals(1300, reader.readRegion(new Rectangle(0, 0, 1300, 700)).getWidth());
+        } finally {
+            local.shutdown();
+        }
+    }
+
+    @Test
+    void renderedTilesAreStoredAsATiledImage(@TempDir Path directory) throws Exception {
+        LocalObjectStore store = new LocalObjectStore(directory);
+        GoogleCloudStorage local = new GoogleCloudStorage(store);
+        try {
+            BufferedImage image = new BufferedImage(700, 1300, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(600, 1200, 0xff0000);
+            TiledImageUpload upload = local.startTiledImage(700, 1300, "example.com", "abc", BrowserType.CHROME);
+
+            new TiledCompositeRenderer(2 * GoogleCloudStorage.DEFAULT_TILE_SIZE, 1, url -> null)
+                    .render(image, List.of(), 700, 1300, upload);
+            PendingUpload<String> tiles = upload.finish();
+
+            assertFalse(upload.isAlreadyStored());
+            tiles.await();
+            TiledImageReader reader = local.getTiledImage(tiles.getLocation());
+            assertEquals(0xffff0000, reader.readRegion(new Rectangle(600, 1200, 1, 1)).getRGB(0, 0));
+            assertTrue(local.startTiledImage(700, 1300, "example.com", "abc", BrowserType.CHROME).isAlreadyStored());
+        } finally {
+            local.shutdown();
+        }
+    }
+
+    @Test
+    void otherStorageErrorsFailTheUpload() {
+        doThrow(new StorageException(503, "backendError")).when(storage).create(any(BlobInfo.class), any(byte[].class), any());
+
+        assertThrows(StorageException.class,
+                () -> gcs.saveImageAsync(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "example.com", "abc", BrowserType.CHROME).await());
+    }
+}
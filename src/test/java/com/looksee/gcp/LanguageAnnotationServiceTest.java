@@ -0,0 +1,120 @@
+package com.looksee.gcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.cloud.language.v1.AnnotateTextRequest;
+import com.google.cloud.language.v1.AnnotateTextResponse;
+import com.google.cloud.language.v1.DependencyEdge;
+import com.google.cloud.language.v1.Entity;
+import com.google.cloud.language.v1.EntityMention;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.Sentiment;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+
+/**
+ * Unit tests for LanguageAnnotationService.
+ */
+class LanguageAnnotationServiceTest {
+
+    private LanguageServiceClient client;
+    private LanguageAnnotationService service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(LanguageServiceClient.class);
+        service = new LanguageAnnotationService(client);
+    }
+
+    private static TextSpan span(String content, int offset) {
+        return TextSpan.newBuilder().setContent(content).setBeginOffset(offset).build();
+    }
+
+    private static Sentence sentence(String content, int offset, float score) {
+        return Sentence.newBuilder()
+                .setText(span(content, offset))
+                .setSentiment(Sentiment.newBuilder().setScore(score).setMagnitude(Math.abs(score)))
+                .build();
+    }
+
+    private static Token token(String content, int offset, int head) {
+        return Token.newBuilder()
+                .setText(span(content, offset))
+                .setDependencyEdge(DependencyEdge.newBuilder().setHeadTokenIndex(head))
+                .build();
+    }
+
+    @Test
+    void annotateRequestsAllFeaturesOnceAndCaches() throws Exception {
+        when(client.annotateText(any(AnnotateTextRequest.class))).thenReturn(AnnotateTextResponse.newBuilder()
+                .addSentences(sentence("Hello world.", 0, 0.5f))
+                .setDocumentSentiment(Sentiment.newBuilder().setScore(0.5f))
+                .build());
+
+        LanguageAnnotations first = service.annotate("Hello world.");
+        LanguageAnnotations second = service.annotate("Hello world.");
+
+        assertSame(first, second);
+        assertEquals(1, first.getSentences().size());
+        assertEquals(0.5f, first.getSentiment().getScore());
+
+        ArgumentCaptor<AnnotateTextRequest> request = ArgumentCaptor.forClass(AnnotateTextRequest.class);
+        verify(client, times(1)).annotateText(request.capture());
+        AnnotateTextRequest.Features features = request.getValue().getFeatures();
+        assertTrue(features.getExtractSyntax());
+        assertTrue(features.getExtractEntities());
+        assertTrue(features.getExtractDocumentSentiment());
+    }
+
+    @Test
+    void annotateAllCombinesShortTextsAndSplitsResults() throws Exception {
+        // "Buy Acme." + "\n\n" + "Acme rocks."
+        when(client.annotateText(any(AnnotateTextRequest.class))).thenReturn(AnnotateTextResponse.newBuilder()
+                .addSentences(sentence("Buy Acme.", 0, 0.2f))
+                .addSentences(sentence("Acme rocks.", 11, 0.8f))
+                .addTokens(token("Buy", 0, 0))
+                .addTokens(token("Acme", 4, 0))
+                .addTokens(token(".", 8, 0))
+                .addTokens(token("Acme", 11, 4))
+                .addTokens(token("rocks", 16, 4))
+                .addTokens(token(".", 21, 4))
+                .addEntities(Entity.newBuilder()
+                        .setName("Acme")
+                        .addMentions(EntityMention.newBuilder().setText(span("Acme", 4)))
+                        .addMentions(EntityMention.newBuilder().setText(span("Acme", 11))))
+                .build());
+
+        List<LanguageAnnotations> results = service.annotateAll(List.of("Buy Acme.", "Acme rocks."));
+
+        ArgumentCaptor<AnnotateTextRequest> request = ArgumentCaptor.forClass(AnnotateTextRequest.class);
+        verify(client, times(1)).annotateText(request.capture());
+        assertEquals("Buy Acme.\n\nAcme rocks.", request.getValue().getDocument().getContent());
+
+        assertEquals(2, results.size());
+        LanguageAnnotations second = results.get(1);
+        assertEquals(1, second.getSentences().size());
+        assertEquals(0, second.getSentences().get(0).getText().getBeginOffset());
+        assertEquals(3, second.getTokens().size());
+        assertEquals(5, second.getTokens().get(1).getText().getBeginOffset());
+        assertEquals(1, second.getTokens().get(1).getDependencyEdge().getHeadTokenIndex());
+        assertEquals(1, second.getEntities().size());
+        assertEquals(1, second.getEntities().get(0).getMentionsCount());
+        assertEquals(0, second.getEntities().get(0).getMentions(0).getText().getBeginOffset());
+        assertEquals(0.8f, second.getSentiment().getScore(), 1e-6);
+
+        assertEquals(0.2f, results.get(0).getSentiment().getScore(), 1e-6);
+        assertSame(second, service.annotate("Acme rocks."));
+    }
+}
@@ -0,0 +1,96 @@
+package com.looksee.gcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.api.services.pagespeedonline.v5.model.PagespeedApiPagespeedResponseV5;
+
+/**
+ * Unit tests for the request sharing and caching of PageSpeedInsightUtils.
+ */
+class PageSpeedInsightUtilsTest {
+
+    private static final long FRESHNESS_NANOS = TimeUnit.MINUTES.toNanos(60);
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PageSpeedInsightUtils insights;
+
+    @BeforeEach
+    void setUp() {
+        insights = new PageSpeedInsightUtils(url -> {
+            requests.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (url.contains("unreachable")) {
+                throw new IOException("unreachable");
+            }
+            return new PagespeedApiPagespeedResponseV5().setId(url);
+        }, 2, 1_000_000, FRESHNESS_NANOS, now::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        insights.shutdown();
+    }
+
+    @Test
+    void concurrentRequestsForOneUrlShareOneCall() throws Exception {
+        CompletableFuture<PagespeedApiPagespeedResponseV5> first = insights.getPageInsightsAsync("https://example.com");
+        CompletableFuture<PagespeedApiPagespeedResponseV5> second = insights.getPageInsightsAsync("https://example.com");
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void responsesAreReusedWithinTheFreshnessWindow() throws Exception {
+        release.countDown();
+        insights.getPageInsights("https://example.com");
+
+        now.addAndGet(FRESHNESS_NANOS - 1);
+        insights.getPageInsights("https://example.com");
+        assertEquals(1, requests.get());
+
+        now.addAndGet(1);
+        insights.getPageInsights("https://example.com");
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        release.countDown();
+
+        assertThrows(IOException.class, () -> insights.getPageInsights("https://unreachable.example.com"));
+        assertThrows(IOException.class, () -> insights.getPageInsights("https://unreachable.example.com"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void allPagesOfADomainAreRequestedInParallel() throws Exception {
+        Map<String, CompletableFuture<PagespeedApiPagespeedResponseV5>> results =
+                insights.getAllPageInsights(List.of("https://example.com/a", "https://example.com/b", "https://example.com/a"));
+
+        assertEquals(2, results.size());
+        release.countDown();
+        assertEquals("https://example.com/b", results.get("https://example.com/b").get(5, TimeUnit.SECONDS).getId());
+        assertEquals(2, requests.get());
+    }
+}
@@ -0,0 +1,110 @@
+package com.looksee.gcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+
+/**
+ * Unit tests for the asynchronous publishing of PubSubPublisher.
+ */
+class PubSubPublisherTest {
+
+    private List<SettableListenableFuture<String>> publishes;
+    private PubSubPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publishes = new ArrayList<>();
+        PubSubTemplate template = mock(PubSubTemplate.class);
+        when(template.publish(anyString(), anyString())).thenAnswer(invocation -> {
+            SettableListenableFuture<String> future = new SettableListenableFuture<>();
+            publishes.add(future);
+            return future;
+        });
+
+        publisher = new PubSubPublisher() {
+            @Override
+            protected String topic() {
+                return "projects/test/topics/Url";
+            }
+        };
+        ReflectionTestUtils.setField(publisher, "pubSubTemplate", template);
+        publisher.configureFlowControl(2, 1024);
+    }
+
+    @Test
+    void publishAsyncDoesNotWaitForThePublish() throws Exception {
+        CompletableFuture<String> future = publisher.publishAsync("{\"url\":\"https://example.com\"}");
+
+        assertFalse(future.isDone());
+        assertEquals(1, publisher.getOutstandingCount());
+
+        publishes.get(0).set("message-1");
+        assertEquals("message-1", future.get(1, TimeUnit.SECONDS));
+        assertEquals(0, publisher.getOutstandingCount());
+        assertEquals(0, publisher.getOutstandingBytes());
+        assertEquals(1, publisher.getPublishedCount());
+    }
+
+    @Test
+    void publishBlocksWhenTooManyMessagesAreInFlight() throws Exception {
+        publisher.publishAsync("a");
+        publisher.publishAsync("b");
+
+        Thread third = new Thread(() -> {
+            try {
+                publisher.publishAsync("c");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        third.start();
+        third.join(200);
+        assertTrue(third.isAlive());
+
+        publishes.get(0).set("message-1");
+        third.join(1000);
+        assertFalse(third.isAlive());
+        assertEquals(2, publisher.getOutstandingCount());
+    }
+
+    @Test
+    void flowControlCountsEncodedBytes() throws Exception {
+        publisher.publishAsync("{\"text\":\"café\"}");
+
+        assertEquals(16, publisher.getOutstandingBytes());
+    }
+
+    @Test
+    void flushWaitsForMessagesInFlight() throws Exception {
+        publisher.publishAsync("a");
+        publisher.publishAsync("b");
+
+        assertFalse(publisher.flush(50, TimeUnit.MILLISECONDS));
+
+        publishes.get(0).set("message-1");
+        publishes.get(1).setException(new IllegalStateException("unavailable"));
+        assertTrue(publisher.flush(1, TimeUnit.SECONDS));
+        assertEquals(1, publisher.getPublishedCount());
+        assertEquals(1, publisher.getFailedCount());
+    }
+
+    @Test
+    void topicNameIsTheLastSegment() {
+        assertEquals("Url", PubSubPublisher.topicName("projects/test/topics/Url"));
+        assertEquals("Url", PubSubPublisher.topicName("Url"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.looksee.gcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for TiledImageManifest and TiledImageReader.
+ */
+class TiledImageReaderTest {
+
+    private BufferedImage image;
+    private TiledImageManifest manifest;
+    private Map<String, byte[]> tiles;
+    private List<String> loaded;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        image = new BufferedImage(250, 130, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, (x << 8) | y);
+            }
+        }
+
+        manifest = new TiledImageManifest(250, 130, 100, 50, "png", "page/tiles/");
+        tiles = new HashMap<>();
+        loaded = new ArrayList<>();
+        for (int row = 0; row < manifest.getRows(); row++) {
+            for (int column = 0; column < manifest.getColumns(); column++) {
+                Rectangle bounds = manifest.tileBounds(row, column);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                ImageIO.write(image.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height), "png", baos);
+                tiles.put(manifest.tileKey(row, column), baos.toByteArray());
+            }
+        }
+    }
+
+    private TiledImageReader reader() {
+        return new TiledImageReader(manifest, key -> {
+            loaded.add(key);
+            return tiles.get(key);
+        }, TiledImageReader.DEFAULT_CACHED_TILES);
+    }
+
+    @Test
+    void manifestComputesGrid() {
+        assertEquals(3, manifest.getColumns());
+        assertEquals(3, manifest.getRows());
+        assertEquals("page/tiles/2_1.png", manifest.tileKey(2, 1));
+        assertEquals(new Rectangle(200, 100, 50, 30), manifest.tileBounds(2, 2));
+    }
+
+    @Test
+    void regionWithinSingleTileLoadsOnlyThatTile() throws IOException {
+        BufferedImage region = reader().readRegion(new Rectangle(110, 60, 20, 10));
+
+        assertEquals(1, loaded.size());
+        assertEquals("page/tiles/1_1.png", loaded.get(0));
+        assertEquals(20, region.getWidth());
+        assertEquals(10, region.getHeight());
+        assertEquals(image.getRGB(115, 65), region.getRGB(5, 5));
+    }
+
+    @Test
+    void regionSpanningTilesIsStitched() throws IOException {
+        BufferedImage region = reader().readRegion(new Rectangle(90, 40, 20, 20));
+
+        assertEquals(4, loaded.size());
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                assertEquals(image.getRGB(90 + x, 40 + y), region.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void regionIsClippedToImageBounds() throws IOException {
+        BufferedImage region = reader().readRegion(new Rectangle(240, 120, 50, 50));
+        assertEquals(10, region.getWidth());
+        assertEquals(10, region.getHeight());
+    }
+
+    @Test
+    void decodedTilesAreCached() throws IOException {
+        TiledImageReader reader = reader();
+        reader.readRegion(new Rectangle(0, 0, 10, 10));
+        reader.readRegion(new Rectangle(20, 20, 10, 10));
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    void modifyingARegionLeavesTheCachedTileUnchanged() throws IOException {
+        TiledImageReader reader = reader();
+        BufferedImage region = reader.readRegion(new Rectangle(0, 0, 10, 10));
+        region.setRGB(5, 5, 0xFFFFFF);
+
+        assertEquals(image.getRGB(5, 5), reader.readRegion(new Rectangle(0, 0, 10, 10)).getRGB(5, 5));
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    void regionOutsideImageThrows() {
+        assertThrows(IOException.class, () -> reader().readRegion(new Rectangle(500, 500, 10, 10)));
+    }
+}
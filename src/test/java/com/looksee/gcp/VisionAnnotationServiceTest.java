@@ -0,0 +1,253 @@
+package com.looksee.gcp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.BatchAnnotateImagesRequest;
+import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
+import com.google.cloud.vision.v1.EntityAnnotation;
+import com.google.cloud.vision.v1.Feature;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.protobuf.ByteString;
+import com.google.rpc.Status;
+import com.looksee.models.PageState;
+import com.looksee.models.enums.ScreenshotResolution;
+
+/**
+ * Unit tests for VisionAnnotationService.
+ */
+class VisionAnnotationServiceTest {
+
+    private ImageAnnotatorClient client;
+    private UnaryCallable<BatchAnnotateImagesRequest, BatchAnnotateImagesResponse> callable;
+    private List<BatchAnnotateImagesRequest> sent;
+    private VisionAnnotationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        client = mock(ImageAnnotatorClient.class);
+        callable = mock(UnaryCallable.class);
+        sent = new CopyOnWriteArrayList<>();
+        when(client.batchAnnotateImagesCallable()).thenReturn(callable);
+        when(callable.futureCall(any())).thenAnswer(invocation -> {
+            BatchAnnotateImagesRequest request = invocation.getArgument(0);
+            sent.add(request);
+            BatchAnnotateImagesResponse.Builder response = BatchAnnotateImagesResponse.newBuilder();
+            for (AnnotateImageRequest image_request : request.getRequestsList()) {
+                response.addResponses(AnnotateImageResponse.newBuilder()
+                        .addLabelAnnotations(EntityAnnotation.newBuilder()
+                                .setDescription("features " + image_request.getFeaturesCount())
+                                .setScore(0.9f)));
+            }
+            return ApiFutures.immediateFuture(response.build());
+        });
+        service = new VisionAnnotationService(client);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static List<BufferedImage> images(int count) {
+        List<BufferedImage> images = new ArrayList<>();
+        for (int idx = 0; idx < count; idx++) {
+            images.add(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB));
+        }
+        return images;
+    }
+
+    @Test
+    void annotateAllSendsBatchesOfSixteen() throws Exception {
+        List<CompletableFuture<VisionAnnotations>> futures = service.annotateAll(images(20),
+                Feature.Type.LABEL_DETECTION, Feature.Type.WEB_DETECTION, Feature.Type.SAFE_SEARCH_DETECTION);
+
+        assertEquals(2, sent.size());
+        assertEquals(16, sent.get(0).getRequestsCount());
+        assertEquals(4, sent.get(1).getRequestsCount());
+        assertEquals(20, futures.size());
+        for (CompletableFuture<VisionAnnotations> future : futures) {
+            VisionAnnotations annotations = future.get(1, TimeUnit.SECONDS);
+            assertFalse(annotations.hasError());
+            assertEquals(1, annotations.getLabels().size());
+        }
+        assertEquals(3, sent.get(0).getRequests(0).getFeaturesCount());
+    }
+
+    @Test
+    void pageIsAnnotatedFromItsQuarterScreenshot(@TempDir Path directory) throws Exception {
+        File full = directory.resolve("full.png").toFile();
+        File quarter = directory.resolve("quarter.png").toFile();
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "png", full);
+        ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", quarter);
+        PageState page_state = new PageState();
+        page_state.setFullPageScreenshotUrl(full.toURI().toURL().toString());
+        page_state.setFullPageScreenshotPyramidUrls(Map.of(ScreenshotResolution.FULL, full.toURI().toURL().toString(),
+                                                           ScreenshotResolution.QUARTER, quarter.toURI().toURL().toString()));
+
+        assertNotNull(service.annotate(page_state, Feature.Type.LABEL_DETECTION).get(1, TimeUnit.SECONDS));
+
+        BufferedImage sent_image = ImageIO.read(new ByteArrayInputStream(
+                sent.get(0).getRequests(0).getImage().getContent().toByteArray()));
+        assertEquals(200, sent_image.getWidth());
+        assertEquals(100, sent_image.getHeight());
+    }
+
+    @Test
+    void concurrentRequestsShareABatch() throws Exception {
+        List<CompletableFuture<VisionAnnotations>> futures = new ArrayList<>();
+        for (BufferedImage image : images(VisionAnnotationService.MAX_BATCH_SIZE)) {
+            futures.add(service.annotate(image, Feature.Type.LABEL_DETECTION));
+        }
+        assertEquals(1, sent.size());
+        assertEquals(VisionAnnotationService.MAX_BATCH_SIZE, sent.get(0).getRequestsCount());
+
+        CompletableFuture<VisionAnnotations> partial = service.annotate(images(1).get(0), Feature.Type.LABEL_DETECTION);
+        assertNotNull(partial.get(1, TimeUnit.SECONDS));
+        assertEquals(2, sent.size());
+        assertEquals(1, sent.get(1).getRequestsCount());
+        for (CompletableFuture<VisionAnnotations> future : futures) {
+            assertTrue(future.isDone());
+        }
+    }
+
+    @Test
+    void failedBatchCompletesFuturesExceptionally() throws Exception {
+        when(callable.futureCall(any())).thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("unavailable")));
+
+        List<CompletableFuture<VisionAnnotations>> futures = service.annotateAll(images(2), Feature.Type.LABEL_DETECTION);
+        for (CompletableFuture<VisionAnnotations> future : futures) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    void repeatedImagesAreAnnotatedOnce() throws Exception {
+        VisionAnnotationService cached_service = new VisionAnnotationService(client, new VisionAnnotationCache(null));
+        try {
+            BufferedImage logo = images(1).get(0);
+            VisionAnnotations first = cached_service.annotateAll(List.of(logo, logo), Feature.Type.LABEL_DETECTION).get(0).get(1, TimeUnit.SECONDS);
+            VisionAnnotations second = cached_service.annotate(logo, Feature.Type.LABEL_DETECTION).get(1, TimeUnit.SECONDS);
+
+            assertEquals(1, sent.size());
+            assertEquals(1, sent.get(0).getRequestsCount());
+            assertEquals(first.getLabels().size(), second.getLabels().size());
+
+            cached_service.annotate(logo, Feature.Type.WEB_DETECTION).get(1, TimeUnit.SECONDS);
+            assertEquals(2, sent.size());
+        }
+        finally {
+            cached_service.shutdown();
+        }
+    }
+
+    @Test
+    void annotationsAreCachedOnTheBatchThread() throws Exception {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch cached = new CountDownLatch(1);
+        VisionAnnotationCache cache = new VisionAnnotationCache(null) {
+            @Override
+            public void put(String key, VisionAnnotations annotations) {
+                threads.add(Thread.currentThread().getName());
+                super.put(key, annotations);
+                cached.countDown();
+            }
+        };
+        VisionAnnotationService cached_service = new VisionAnnotationService(client, cache);
+        try {
+            cached_service.annotate(images(1).get(0), Feature.Type.LABEL_DETECTION).get(1, TimeUnit.SECONDS);
+
+            assertTrue(cached.await(1, TimeUnit.SECONDS));
+            assertEquals(List.of("vision-batch"), threads);
+        }
+        finally {
+            cached_service.shutdown();
+        }
+    }
+
+    @Test
+    void expiredAnnotationsArePurgedPeriodically() throws Exception {
+        CountDownLatch purges = new CountDownLatch(2);
+        VisionAnnotationCache cache = new VisionAnnotationCache(null) {
+            @Override
+            public int purgeExpired() {
+                purges.countDown();
+                throw new IllegalStateException("database unavailable");
+            }
+        };
+        VisionAnnotationService purging_service = new VisionAnnotationService(client, cache, 10);
+        try {
+            //a failed purge doesn't cancel the next one
+            assertTrue(purges.await(1, TimeUnit.SECONDS));
+        }
+        finally {
+            purging_service.shutdown();
+        }
+    }
+
+    @Test
+    void cacheKeyIgnoresFeatureOrder() {
+        ByteString content = ByteString.copyFromUtf8("image");
+        assertEquals(VisionAnnotationCache.key(content, Feature.Type.LABEL_DETECTION, Feature.Type.WEB_DETECTION),
+                VisionAnnotationCache.key(content, Feature.Type.WEB_DETECTION, Feature.Type.LABEL_DETECTION, Feature.Type.LABEL_DETECTION));
+        assertNotEquals(VisionAnnotationCache.key(content, Feature.Type.LABEL_DETECTION),
+                VisionAnnotationCache.key(ByteString.copyFromUtf8("other"), Feature.Type.LABEL_DETECTION));
+    }
+
+    @Test
+    void errorResponsesAreCached() {
+        VisionAnnotationCache cache = new VisionAnnotationCache(null);
+        VisionAnnotations failed = new VisionAnnotations(AnnotateImageResponse.newBuilder()
+                .setError(Status.newBuilder().setMessage("Bad image data")).build());
+
+        cache.put("key", failed);
+
+        assertSame(failed, cache.get("key"));
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    void registryClientIsUsedAndCallsAreRecorded() throws Exception {
+        GcpClientRegistry registry = new GcpClientRegistry(1, 1, null, null, null);
+        registry.register(ImageAnnotatorClient.class, client);
+        VisionAnnotationService registry_service = new VisionAnnotationService(registry, null);
+        try {
+            registry_service.annotateAll(images(2), Feature.Type.LABEL_DETECTION).get(1).get(1, TimeUnit.SECONDS);
+
+            assertEquals(1, sent.size());
+            assertEquals(1, registry.getCallStats().get(GcpClientRegistry.VISION).getCount());
+        }
+        finally {
+            registry_service.shutdown();
+            registry.shutdown();
+        }
+    }
+}
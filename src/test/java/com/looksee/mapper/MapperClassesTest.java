@@ -2,8 +2,17 @@ package com.looksee.mapper;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
 /**
  * Unit tests for mapper classes.
  */
@@ -50,4 +59,53 @@ class MapperClassesTest {
         Base64JsonDeserializer deserializer = new Base64JsonDeserializer();
         assertNotNull(deserializer);
     }
+
+    @Test
+    void base64JsonDeserializerDecodesEachPropertyToItsType() throws Exception {
+        String message = encode("{\"url\":\"https://example.com/\u00e9\",\"ids\":[1,2]}");
+        String counts = encode("{\"a\":1}");
+
+        EncodedMessage decoded = new ObjectMapper().readValue(
+                "{\"message\":\"" + message + "\",\"counts\":\"" + counts + "\"}", EncodedMessage.class);
+
+        assertEquals("https://example.com/\u00e9", decoded.message.url);
+        assertEquals(List.of(1, 2), decoded.message.ids);
+        assertEquals(Map.of("a", 1), decoded.counts);
+    }
+
+    @Test
+    void base64JsonDeserializerDecodesLargePayloads() throws Exception {
+        String url = "x".repeat(100_000);
+        String body = "{\"message\":\"" + encode("{\"url\":\"" + url + "\"}") + "\"}";
+
+        EncodedMessage decoded = new ObjectMapper().readValue(body.getBytes(StandardCharsets.UTF_8), EncodedMessage.class);
+
+        assertEquals(url, decoded.message.url);
+    }
+
+    @Test
+    void base64JsonDeserializerRejectsInvalidValues() {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertThrows(InvalidFormatException.class, () -> mapper.readValue("{\"message\":\"@@@\"}", EncodedMessage.class));
+        assertThrows(InvalidFormatException.class,
+                () -> mapper.readValue("{\"message\":\"" + encode("{not json") + "\"}", EncodedMessage.class));
+    }
+
+    private static String encode(String json) {
+        return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static class DecodedMessage {
+        public String url;
+        public List<Integer> ids;
+    }
+
+    static class EncodedMessage {
+        @JsonDeserialize(using = Base64JsonDeserializer.class)
+        public DecodedMessage message;
+
+        @JsonDeserialize(using = Base64JsonDeserializer.class)
+        public Map<String, Integer> counts;
+    }
 }
@@ -6,6 +6,7 @@ import java.util.*;
 
 import org.junit.jupiter.api.Test;
 
+import com.looksee.models.dto.PageStateDto;
 import com.looksee.models.enums.*;
 
 /**
@@ -78,6 +79,17 @@ class ExtendedModelClassesTest {
         assertEquals(42L, page.getId());
     }
 
+    @Test
+    void pageStateDtoCarriesTheThumbnailUrl() {
+        PageState page_state = new PageState();
+        page_state.setFullPageScreenshotUrl("full.png");
+        assertEquals("full.png", new PageStateDto(page_state).getThumbnailUrl());
+
+        page_state.setFullPageScreenshotPyramidUrls(Map.of(ScreenshotResolution.FULL, "full.png",
+                                                           ScreenshotResolution.THUMBNAIL, "thumbnail.png"));
+        assertEquals("thumbnail.png", new PageStateDto(page_state).getThumbnailUrl());
+    }
+
     // ===== Label =====
     @Test
     void labelDefaultConstructor() {
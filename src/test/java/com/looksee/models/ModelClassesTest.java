@@ -270,6 +270,63 @@ class ModelClassesTest {
         assertEquals(0.5, color.getUsagePercent(), 0.01);
     }
 
+    @Test
+    void colorDataValueOfSharesInstances() {
+        ColorData c1 = ColorData.valueOf("rgb(12, 34, 56)");
+        ColorData c2 = ColorData.valueOf("#0c2238");
+        ColorData c3 = ColorData.valueOf(12, 34, 56);
+        assertSame(c1, c2);
+        assertSame(c1, c3);
+        assertNotSame(c1, c1.clone());
+    }
+
+    @Test
+    void sharedColorDataCannotBeModified() {
+        ColorData shared = ColorData.valueOf(21, 43, 65);
+        ColorData background = new ColorData(255, 255, 255);
+
+        assertThrows(IllegalStateException.class, () -> shared.setUsagePercent(0.5));
+        assertThrows(IllegalStateException.class, () -> shared.setTransparency(0.5));
+        assertThrows(IllegalStateException.class, () -> shared.setLuminosity(0.5));
+        assertThrows(IllegalStateException.class, () -> shared.alphaBlend(background));
+        assertThrows(IllegalStateException.class, () -> shared.setKey("key"));
+        assertThrows(IllegalStateException.class, () -> shared.setId(1L));
+        assertSame(shared, ColorData.valueOf(21, 43, 65));
+        assertEquals(21, shared.getRed());
+
+        ColorData copy = shared.clone();
+        copy.setUsagePercent(0.5);
+        copy.setKey("key");
+        assertEquals(0.5, copy.getUsagePercent());
+    }
+
+    @Test
+    void colorDataValueOfKeepsAlpha() {
+        ColorData opaque = ColorData.valueOf("rgb(1, 2, 3)");
+        ColorData translucent = ColorData.valueOf("rgba(1, 2, 3, 0.5)");
+        assertNotSame(opaque, translucent);
+        assertEquals(0.5, translucent.getTransparency(), 0.01);
+    }
+
+    @Test
+    void colorDataLazyValuesMatchEagerDefinitions() {
+        ColorData color = new ColorData(255, 0, 0);
+        assertEquals(0.0, color.getHue());
+        assertEquals(100.0, color.getSaturation());
+        assertEquals(100.0, color.getBrightness());
+        assertEquals(0.2126, color.getLuminosity(), 0.0001);
+        assertSame(color.lab(), color.lab());
+    }
+
+    @Test
+    void colorDataAlphaBlendRecomputesDerivedValues() {
+        ColorData fg = new ColorData("rgba(255, 255, 255, 0)");
+        assertEquals(1.0, fg.getLuminosity(), 0.0001);
+        fg.alphaBlend(new ColorData(0, 0, 0));
+        assertEquals(0.0, fg.getLuminosity(), 0.0001);
+        assertEquals(0.0, fg.getBrightness());
+    }
+
     // ===== CIEColorSpace =====
     @Test
     void cieColorSpaceConstructor() {
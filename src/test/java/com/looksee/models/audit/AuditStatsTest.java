@@ -58,4 +58,67 @@ class AuditStatsTest {
         com.looksee.models.audit.stats.ColorUsageStat stat = new com.looksee.models.audit.stats.ColorUsageStat();
         assertNotNull(stat);
     }
+
+    // ===== ColorHistogram =====
+    @Test
+    void colorHistogramQuantizesToEvenLevels() {
+        assertEquals(0, ColorHistogram.quantize(0));
+        assertEquals(15, ColorHistogram.quantize(255));
+        assertEquals(3, ColorHistogram.quantize(51));
+        assertEquals(255, ColorHistogram.levelValue(15));
+        assertEquals(ColorHistogram.binOf(250, 250, 250), ColorHistogram.binOf(255, 255, 255));
+    }
+
+    @Test
+    void colorHistogramAccumulatesAndConverts() {
+        ColorHistogram.Accumulator accumulator = new ColorHistogram.Accumulator();
+        accumulator.add(0xffffff);
+        accumulator.add(0xfefefe);
+        accumulator.add(0xff000000);
+        accumulator.add(51, 102, 153, 5);
+        ColorHistogram histogram = accumulator.build();
+
+        assertEquals(3, histogram.size());
+        assertEquals(8, histogram.getTotal());
+        assertEquals(2, histogram.getCount(255, 255, 255));
+        assertEquals(1, histogram.getCount(0, 0, 0));
+        assertEquals(5, histogram.getCount(51, 102, 153));
+
+        java.util.List<com.looksee.models.ColorData> colors = histogram.toColors();
+        assertEquals(3, colors.size());
+        double usage = 0;
+        for (com.looksee.models.ColorData color : colors) {
+            usage += color.getUsagePercent();
+        }
+        assertEquals(1.0, usage, 1e-9);
+        assertEquals(histogram, ColorHistogram.of(histogram.getBins(), histogram.getCounts()));
+    }
+
+    @Test
+    void colorHistogramMergeAddsCounts() {
+        ColorHistogram.Accumulator first = new ColorHistogram.Accumulator();
+        first.add(255, 0, 0, 3);
+        first.add(0, 0, 255, 1);
+        ColorHistogram.Accumulator second = new ColorHistogram.Accumulator();
+        second.add(255, 0, 0, 2);
+        second.add(0, 255, 0, 4);
+        ColorHistogram.Accumulator both = new ColorHistogram.Accumulator();
+        both.add(255, 0, 0, 5);
+        both.add(0, 0, 255, 1);
+        both.add(0, 255, 0, 4);
+
+        ColorHistogram merged = first.build().merge(second.build());
+        assertEquals(both.build(), merged);
+        assertEquals(10, merged.getTotal());
+        assertEquals(merged, second.build().merge(first.build()));
+        assertSame(merged, merged.merge(ColorHistogram.empty()));
+    }
+
+    @Test
+    void colorHistogramRejectsInvalidArrays() {
+        assertEquals(ColorHistogram.empty(), ColorHistogram.of(null, null));
+        assertThrows(IllegalArgumentException.class, () -> ColorHistogram.of(new int[] {2, 1}, new long[] {1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> ColorHistogram.of(new int[] {1}, new long[] {0}));
+        assertThrows(IllegalArgumentException.class, () -> ColorHistogram.of(new int[] {1}, null));
+    }
 }
@@ -514,6 +514,27 @@ class AllEnumsTest {
         assertEquals(Priority.HIGH, Priority.create("HIGH"));
     }
 
+    // ===== ScreenshotResolution =====
+    @Test
+    void screenshotResolutionCreateValid() {
+        assertEquals(ScreenshotResolution.FULL, ScreenshotResolution.create("full"));
+        assertEquals(ScreenshotResolution.HALF, ScreenshotResolution.create("half"));
+        assertEquals(ScreenshotResolution.QUARTER, ScreenshotResolution.create("quarter"));
+        assertEquals(ScreenshotResolution.THUMBNAIL, ScreenshotResolution.create("THUMBNAIL"));
+    }
+
+    @Test
+    void screenshotResolutionCreateNullThrows() {
+        assertThrows(IllegalArgumentException.class, () -> ScreenshotResolution.create(null));
+    }
+
+    @Test
+    void screenshotResolutionDefinesEitherDivisorOrWidth() {
+        for (ScreenshotResolution v : ScreenshotResolution.values()) {
+            assertTrue(v.getDivisor() > 0 ^ v.getMaxWidth() > 0);
+        }
+    }
+
     // ===== StepType =====
     @Test
     void stepTypeCreateValid() {
@@ -644,6 +665,7 @@ class AllEnumsTest {
         for (ObservationType v : ObservationType.values()) assertNotNull(v.toString());
         for (PathStatus v : PathStatus.values()) assertNotNull(v.toString());
         for (Priority v : Priority.values()) assertNotNull(v.toString());
+        for (ScreenshotResolution v : ScreenshotResolution.values()) assertNotNull(v.toString());
         for (StepType v : StepType.values()) assertNotNull(v.toString());
         for (SubscriptionPlan v : SubscriptionPlan.values()) assertNotNull(v.toString());
         for (TemplateType v : TemplateType.values()) assertNotNull(v.toString());
@@ -686,6 +708,7 @@ class AllEnumsTest {
         for (ObservationType v : ObservationType.values()) assertEquals(v, ObservationType.create(v.toString()));
         for (PathStatus v : PathStatus.values()) assertEquals(v, PathStatus.create(v.toString()));
         for (Priority v : Priority.values()) assertEquals(v, Priority.create(v.toString()));
+        for (ScreenshotResolution v : ScreenshotResolution.values()) assertEquals(v, ScreenshotResolution.create(v.toString()));
         for (StepType v : StepType.values()) assertEquals(v, StepType.create(v.toString()));
         for (SubscriptionPlan v : SubscriptionPlan.values()) assertEquals(v, SubscriptionPlan.create(v.toString()));
         for (TemplateType v : TemplateType.values()) assertEquals(v, TemplateType.create(v.toString()));
@@ -709,6 +732,7 @@ class AllEnumsTest {
         for (ExecutionStatus v : ExecutionStatus.values()) assertNotNull(v.getShortName());
         for (FormType v : FormType.values()) assertNotNull(v.getShortName());
         for (JourneyStatus v : JourneyStatus.values()) assertNotNull(v.getShortName());
+        for (ScreenshotResolution v : ScreenshotResolution.values()) assertNotNull(v.getShortName());
         for (TemplateType v : TemplateType.values()) assertNotNull(v.getShortName());
         for (TestStatus v : TestStatus.values()) assertNotNull(v.getShortName());
         for (ToneOfVoice v : ToneOfVoice.values()) assertNotNull(v.getShortName());
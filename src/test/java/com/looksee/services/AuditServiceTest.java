@@ -0,0 +1,158 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.ElementState;
+import com.looksee.models.audit.Audit;
+import com.looksee.models.audit.messages.UXIssueMessage;
+import com.looksee.models.enums.ObservationType;
+
+/**
+ * Unit tests for the issue and element maps of AuditService, checked against
+ * the per-issue lookups they replace on a fixture graph.
+ */
+class AuditServiceTest {
+
+    /** issues of each audit, as audit -[:HAS]- issue */
+    private Map<Long, Set<UXIssueMessage>> audit_issues;
+
+    /** element of each issue, as issue -[:FOR]-> element */
+    private Map<Long, ElementState> issue_elements;
+
+    private Set<Audit> audits;
+
+    @BeforeEach
+    void setUp() {
+        audit_issues = new HashMap<>();
+        issue_elements = new HashMap<>();
+        audits = new LinkedHashSet<>();
+
+        ElementState button = element("button");
+        ElementState heading = element("heading");
+
+        UXIssueMessage contrast = issue(1, ObservationType.COLOR_CONTRAST, 0, 2, button);
+        UXIssueMessage typography = issue(2, ObservationType.TYPOGRAPHY, 1, 3, button);
+        UXIssueMessage alt_text = issue(3, ObservationType.ELEMENT, 0, 1, heading);
+        UXIssueMessage passed = issue(4, ObservationType.ELEMENT, 1, 1, heading);
+        UXIssueMessage no_element = issue(5, ObservationType.ELEMENT, 0, 1, null);
+
+        audit(10, contrast, typography, passed);
+        //an issue shared by two audits
+        audit(11, alt_text, no_element, contrast);
+        audit(12);
+    }
+
+    private static ElementState element(String key) {
+        ElementState element = new ElementState();
+        element.setKey(key);
+        return element;
+    }
+
+    private UXIssueMessage issue(long id, ObservationType type, int points, int max_points, ElementState element) {
+        UXIssueMessage issue = new UXIssueMessage();
+        issue.setId(id);
+        issue.setKey("issue" + id);
+        issue.setType(type);
+        issue.setPoints(points);
+        issue.setMaxPoints(max_points);
+        if (element != null) {
+            issue_elements.put(id, element);
+        }
+        return issue;
+    }
+
+    private void audit(long id, UXIssueMessage... issues) {
+        Audit audit = new Audit();
+        audit.setId(id);
+        audits.add(audit);
+        audit_issues.put(id, new HashSet<>(List.of(issues)));
+    }
+
+    /** Rows the pair query returns for the fixture graph */
+    private List<Map<String, Object>> rows() {
+        Set<List<String>> distinct = new LinkedHashSet<>();
+        for (Audit audit : audits) {
+            for (UXIssueMessage issue : audit_issues.get(audit.getId())) {
+                ElementState element = issue_elements.get(issue.getId());
+                if (issue.getPoints() != issue.getMaxPoints() && element != null) {
+                    distinct.add(List.of(issue.getKey(), element.getKey(), issue.getType().getShortName()));
+                }
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (List<String> pair : distinct) {
+            rows.add(Map.of("issue_key", pair.get(0), "element_key", pair.get(1), "type", pair.get(2)));
+        }
+        return rows;
+    }
+
+    /** The loop over audits and issues with one element lookup per issue that the query replaces */
+    private Map<String, Set<String>> perIssueElementIssuesMap() {
+        Map<String, Set<String>> element_issues = new HashMap<>();
+        for (Audit audit : audits) {
+            for (UXIssueMessage issue : audit_issues.get(audit.getId())) {
+                ElementState element = issue_elements.get(issue.getId());
+                if (issue.getPoints() == issue.getMaxPoints() || element == null) {
+                    continue;
+                }
+                element_issues.computeIfAbsent(element.getKey(), key -> new HashSet<>()).add(issue.getKey());
+            }
+        }
+        return element_issues;
+    }
+
+    private Map<String, String> perIssueIssueElementMap() {
+        Map<String, String> issue_element_map = new HashMap<>();
+        for (Audit audit : audits) {
+            for (UXIssueMessage issue : audit_issues.get(audit.getId())) {
+                ElementState element = issue_elements.get(issue.getId());
+                if (issue.getPoints() == issue.getMaxPoints() || element == null) {
+                    continue;
+                }
+                if (issue.getType().equals(ObservationType.COLOR_CONTRAST) || issue.getType().equals(ObservationType.ELEMENT)) {
+                    issue_element_map.put(issue.getKey(), element.getKey());
+                }
+            }
+        }
+        return issue_element_map;
+    }
+
+    @Test
+    void elementIssuesMapMatchesPerIssueLookups() {
+        Map<String, Set<String>> element_issues = AuditService.elementIssuesMap(rows());
+
+        assertEquals(perIssueElementIssuesMap(), element_issues);
+        assertEquals(Set.of("issue1", "issue2"), element_issues.get("button"));
+        assertEquals(Set.of("issue3"), element_issues.get("heading"));
+    }
+
+    @Test
+    void issueElementMapMatchesPerIssueLookups() {
+        Map<String, String> issue_element_map = AuditService.issueElementMap(rows());
+
+        assertEquals(perIssueIssueElementMap(), issue_element_map);
+        assertEquals(Map.of("issue1", "button", "issue3", "heading"), issue_element_map);
+    }
+
+    @Test
+    void auditsWithoutIdsSendNoQuery() {
+        //no Neo4jClient is set, so a query would fail
+        AuditService service = new AuditService();
+        Set<Audit> unsaved = Set.of(new Audit());
+
+        assertTrue(service.generateElementIssuesMap(unsaved).isEmpty());
+        assertTrue(service.generateIssueElementMap(new HashSet<>()).isEmpty());
+    }
+}
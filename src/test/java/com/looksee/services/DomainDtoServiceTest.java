@@ -0,0 +1,154 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.looksee.models.Domain;
+import com.looksee.models.PageState;
+import com.looksee.models.audit.Audit;
+import com.looksee.models.audit.DomainAuditRecord;
+import com.looksee.models.audit.PageAuditRecord;
+import com.looksee.models.dto.DomainAuditSummary;
+import com.looksee.models.dto.DomainDto;
+import com.looksee.models.enums.AuditCategory;
+import com.looksee.models.enums.ExecutionStatus;
+
+/**
+ * Unit tests for building domain DTOs from the aggregate audit summary.
+ */
+class DomainDtoServiceTest {
+
+    private static Domain domain() {
+        Domain domain = new Domain();
+        domain.setId(3L);
+        domain.setUrl("example.com");
+        return domain;
+    }
+
+    private static Map<String, Object> row(long page_count, long audited_pages) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("audit_record_id", 11L);
+        row.put("status", ExecutionStatus.IN_PROGRESS.getShortName());
+        row.put("status_message", "auditing");
+        row.put("data_extraction_progress", 0.5);
+        row.put("page_count", page_count);
+        row.put("page_audit_count", page_count);
+        row.put("audited_pages", audited_pages);
+        row.put("content_progress", (double) page_count);
+        row.put("info_architecture_progress", page_count / 2.0);
+        row.put("aesthetic_progress", (double) audited_pages);
+        row.put("content_score", 0.8);
+        row.put("info_architecture_score", 0.5);
+        row.put("accessibility_score", 1.0);
+        row.put("aesthetics_score", 0.25);
+        return row;
+    }
+
+    @Test
+    void summaryRowIsConverted() {
+        DomainAuditSummary summary = DomainDtoService.toSummary(row(100, 40));
+
+        assertEquals(11L, summary.getAuditRecordId());
+        assertEquals(100, summary.getPageCount());
+        assertEquals(40, summary.getAuditedPages());
+        assertEquals(80.0, summary.getContentScore(), 0.0001);
+        assertEquals(25.0, summary.getAestheticsScore(), 0.0001);
+        assertEquals("auditing", summary.getStatusMessage());
+    }
+
+    @Test
+    void missingScoresAndValuesUseDefaults() {
+        Map<String, Object> row = row(100, 40);
+        row.put("content_score", null);
+        row.put("status_message", null);
+        row.remove("data_extraction_progress");
+
+        DomainAuditSummary summary = DomainDtoService.toSummary(row);
+
+        assertEquals(-1.0, summary.getContentScore());
+        assertEquals("", summary.getStatusMessage());
+        assertEquals(0.0, summary.getDataExtractionProgress());
+    }
+
+    @Test
+    void progressIsAveragedOverPages() {
+        for (long page_count : new long[] {100, 10_000}) {
+            DomainDto dto = DomainDtoService.build(domain(), DomainDtoService.toSummary(row(page_count, page_count / 4)));
+
+            assertEquals(page_count, dto.getPageCount());
+            assertEquals(page_count / 4, dto.getPagesAudited());
+            assertEquals(1.0, dto.getContentProgress(), 0.0001);
+            assertEquals(0.5, dto.getInfoArchitectureProgress(), 0.0001);
+            assertEquals(0.25, dto.getAestheticsProgress(), 0.0001);
+            assertEquals(100.0, dto.getAccessibilityScore(), 0.0001);
+            assertTrue(dto.isAuditRunning());
+            assertEquals(ExecutionStatus.IN_PROGRESS, dto.getStatus());
+        }
+    }
+
+    @Test
+    void auditIsNotRunningOnceEveryPageIsAudited() {
+        DomainDto dto = DomainDtoService.build(domain(), DomainDtoService.toSummary(row(100, 100)));
+
+        assertFalse(dto.isAuditRunning());
+    }
+
+    @Test
+    void categoriesAreBoundAsAuditsStoreThem() {
+        Map<String, Object> parameters = DomainDtoService.summaryParameters(3L);
+        String[][] categories = {
+            {"content", AuditCategory.CONTENT.name()},
+            {"information_architecture", AuditCategory.INFORMATION_ARCHITECTURE.name()},
+            {"aesthetics", AuditCategory.AESTHETICS.name()},
+        };
+
+        assertEquals(3L, parameters.get("domain_id"));
+        for (String[] category : categories) {
+            // the value SDN writes to the category property of the node
+            Audit audit = new Audit();
+            audit.setCategory(AuditCategory.valueOf(category[1]));
+            Object stored = ReflectionTestUtils.getField(audit, "category");
+
+            assertEquals(stored, parameters.get(category[0]), category[0]);
+            assertTrue(DomainDtoService.DOMAIN_AUDIT_SUMMARY.contains("audit.category = $" + category[0]));
+        }
+    }
+
+    @Test
+    void everyQueryParameterIsBound() {
+        Map<String, Object> parameters = DomainDtoService.summaryParameters(3L);
+        Matcher matcher = Pattern.compile("\\$(\\w+)").matcher(DomainDtoService.DOMAIN_AUDIT_SUMMARY);
+
+        while (matcher.find()) {
+            assertTrue(parameters.containsKey(matcher.group(1)), matcher.group(1));
+        }
+        assertFalse(DomainDtoService.DOMAIN_AUDIT_SUMMARY.contains("category = '"));
+    }
+
+    @Test
+    void queryReadsPersistentProperties() {
+        Map<String, Class<?>> variables = new HashMap<>();
+        variables.put("record", DomainAuditRecord.class);
+        variables.put("par", PageAuditRecord.class);
+        variables.put("audit", Audit.class);
+        variables.put("page", PageState.class);
+        Matcher matcher = Pattern.compile("\\b(record|par|audit|page)\\.(\\w+)").matcher(DomainDtoService.DOMAIN_AUDIT_SUMMARY);
+
+        int properties = 0;
+        while (matcher.find()) {
+            Class<?> type = variables.get(matcher.group(1));
+            assertNotNull(ReflectionUtils.findField(type, matcher.group(2)),
+                          type.getSimpleName() + " has no property " + matcher.group(2));
+            properties++;
+        }
+        assertTrue(properties > 0);
+    }
+}
@@ -0,0 +1,236 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.neo4j.core.schema.CompositeProperty;
+import org.springframework.data.neo4j.core.schema.Id;
+import org.springframework.data.neo4j.core.schema.Property;
+import org.springframework.data.neo4j.core.schema.Relationship;
+import org.springframework.data.neo4j.repository.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.looksee.models.ElementState;
+import com.looksee.models.repository.ElementStateRepository;
+
+/**
+ * Unit tests for the batched writes of ElementStateService.
+ */
+class ElementStateServiceTest {
+
+    private static final long PAGE_STATE_ID = 42;
+
+    private ElementStateRepository element_repo;
+    private ElementStateService service;
+    private List<Integer> statement_sizes;
+
+    @BeforeEach
+    void setUp() {
+        element_repo = mock(ElementStateRepository.class);
+        service = new ElementStateService();
+        ReflectionTestUtils.setField(service, "element_repo", element_repo);
+        statement_sizes = new ArrayList<>();
+
+        when(element_repo.upsertAll(eq(PAGE_STATE_ID), anyList())).thenAnswer(invocation -> {
+            List<Map<String, Object>> rows = invocation.getArgument(1);
+            statement_sizes.add(rows.size());
+            return rows.stream()
+                    .map(row -> {
+                        ElementState record = element((String) row.get("key"));
+                        record.setId((long) statement_sizes.size());
+                        return record;
+                    })
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private static ElementState element(String key) {
+        ElementState element = new ElementState();
+        element.setKey(key);
+        return element;
+    }
+
+    private static List<ElementState> elements(int count) {
+        List<ElementState> elements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            elements.add(element("elementstate" + i));
+        }
+        return elements;
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithElementsWithinABatch() {
+        service.saveAll(elements(10), PAGE_STATE_ID, 2000);
+        service.saveAll(elements(2000), PAGE_STATE_ID, 2000);
+
+        assertEquals(List.of(10, 2000), statement_sizes);
+        verify(element_repo, never()).findByPageStateAndKey(anyLong(), any());
+        verify(element_repo, never()).save(any(ElementState.class));
+        verify(element_repo, never()).addElement(anyLong(), anyLong());
+    }
+
+    @Test
+    void elementsAreSentInBatches() {
+        List<ElementState> saved = service.saveAll(elements(1201), PAGE_STATE_ID, 500);
+
+        assertEquals(List.of(500, 500, 201), statement_sizes);
+        assertEquals(1201, saved.size());
+        assertEquals("elementstate0", saved.get(0).getKey());
+        assertEquals(1L, saved.get(0).getId());
+        assertEquals("elementstate1200", saved.get(1200).getKey());
+        assertEquals(3L, saved.get(1200).getId());
+    }
+
+    @Test
+    void duplicateKeysAreSentOnce() {
+        List<ElementState> input = List.of(element("a"), element("b"), element("a"));
+
+        List<ElementState> saved = service.saveAll(input, PAGE_STATE_ID, 500);
+
+        assertEquals(List.of(2), statement_sizes);
+        assertEquals(3, saved.size());
+        assertSame(saved.get(0), saved.get(2));
+        verify(element_repo, times(1)).upsertAll(eq(PAGE_STATE_ID), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sameElementOnTwoPagesKeepsThePropertiesOfEachPage() {
+        //nodes by page and key, as upsertAll MERGEs them through the page
+        Map<Long, Map<String, Map<String, Object>>> graph = new HashMap<>();
+        when(element_repo.upsertAll(anyLong(), anyList())).thenAnswer(invocation -> {
+            long page_state_id = invocation.getArgument(0);
+            List<Map<String, Object>> rows = invocation.getArgument(1);
+            List<ElementState> records = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                Map<String, Object> node = graph.computeIfAbsent(page_state_id, id -> new HashMap<>())
+                                                .computeIfAbsent((String) row.get("key"), key -> new HashMap<>());
+                node.putAll((Map<String, Object>) row.get("properties"));
+                records.add(element((String) row.get("key")));
+            }
+            return records;
+        });
+
+        ElementState first = element("shared");
+        first.setXLocation(10);
+        first.setScreenshotUrl("https://storage/first.png");
+        first.getRenderedCssValues().put("color", "red");
+        ElementState second = element("shared");
+        second.setXLocation(500);
+        second.setScreenshotUrl("https://storage/second.png");
+        second.getRenderedCssValues().put("color", "blue");
+
+        service.saveAll(List.of(first), 1, 500);
+        service.saveAll(List.of(second), 2, 500);
+
+        assertEquals(10, graph.get(1L).get("shared").get("xLocation"));
+        assertEquals("https://storage/first.png", graph.get(1L).get("shared").get("screenshotUrl"));
+        assertEquals("red", graph.get(1L).get("shared").get("renderedCssValues.color"));
+        assertEquals(500, graph.get(2L).get("shared").get("xLocation"));
+        assertEquals("https://storage/second.png", graph.get(2L).get("shared").get("screenshotUrl"));
+        assertEquals("blue", graph.get(2L).get("shared").get("renderedCssValues.color"));
+    }
+
+    @Test
+    void upsertMatchesElementStatesWithinThePage() throws Exception {
+        String query = ElementStateRepository.class.getMethod("upsertAll", long.class, List.class)
+                                                   .getAnnotation(Query.class)
+                                                   .value();
+
+        assertTrue(query.contains("MERGE (p)-[:HAS]->(e:ElementState{key:element.key})"), query);
+        assertFalse(query.contains("MERGE (e:ElementState"), query);
+        assertTrue(query.contains(" SET e += element.properties"), query);
+        assertFalse(query.contains("ON CREATE SET e:LookseeObject, e += element.properties"), query);
+    }
+
+    @Test
+    void emptyListSendsNothing() {
+        assertTrue(service.saveAll(new ArrayList<>(), PAGE_STATE_ID, 500).isEmpty());
+        verify(element_repo, never()).upsertAll(anyLong(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowFlattensCompositeProperties() {
+        ElementState element = element("key");
+        element.setXpath("//div[1]");
+        element.setVisible(true);
+        element.getRenderedCssValues().put("color", "red");
+        element.getAttributes().put("id", "main");
+
+        Map<String, Object> row = ElementStateService.toRow(element);
+        Map<String, Object> properties = (Map<String, Object>) row.get("properties");
+
+        assertEquals("key", row.get("key"));
+        assertEquals("//div[1]", properties.get("xpath"));
+        assertEquals(true, properties.get("visible"));
+        assertEquals("red", properties.get("renderedCssValues.color"));
+        assertEquals("main", properties.get("attributes.id"));
+        assertNotNull(properties.get("createdAt"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowHasEveryPersistentProperty() {
+        ElementState element = element("key");
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> type = ElementState.class; type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())
+                        || Modifier.isTransient(field.getModifiers())
+                        || field.isAnnotationPresent(Transient.class)
+                        || field.isAnnotationPresent(Relationship.class)
+                        || field.isAnnotationPresent(Id.class)) {
+                    continue;
+                }
+                if (field.isAnnotationPresent(CompositeProperty.class)) {
+                    ((Map<String, String>) ReflectionTestUtils.getField(element, field.getName())).put("entry", "value");
+                }
+                fields.add(field);
+            }
+        }
+
+        Map<String, Object> properties = (Map<String, Object>) ElementStateService.toRow(element).get("properties");
+
+        for (Field field : fields) {
+            Property property = field.getAnnotation(Property.class);
+            String name = property != null && !property.name().isEmpty() ? property.name() : field.getName();
+            if (field.isAnnotationPresent(CompositeProperty.class)) {
+                name = name + ".entry";
+            }
+            assertTrue(properties.containsKey(name), "toRow is missing the " + name + " property");
+        }
+    }
+
+    @Test
+    void elementSavedOnAnotherPageIsSavedAgain() {
+        ElementState element = element("shared");
+        ElementState saved = element("shared");
+        saved.setId(8L);
+        when(element_repo.findByPageStateAndKey(PAGE_STATE_ID, "shared")).thenReturn(null);
+        when(element_repo.save(element)).thenReturn(saved);
+
+        assertSame(saved, service.save(PAGE_STATE_ID, element));
+        verify(element_repo, never()).findByKey(any());
+        verify(element_repo).addElement(PAGE_STATE_ID, 8L);
+    }
+}
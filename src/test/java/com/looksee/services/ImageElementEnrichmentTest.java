@@ -0,0 +1,83 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.Feature;
+import com.looksee.gcp.VisionAnnotationService;
+import com.looksee.gcp.VisionAnnotations;
+import com.looksee.models.ElementState;
+import com.looksee.models.ImageElementState;
+
+/**
+ * Unit tests for the image element enrichment of BrowserService.
+ */
+class ImageElementEnrichmentTest {
+
+    @TempDir
+    Path temp_dir;
+
+    private BrowserService service;
+    private VisionAnnotationService vision_service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new BrowserService();
+        vision_service = mock(VisionAnnotationService.class);
+        when(vision_service.annotate(any(BufferedImage.class), any(Feature.Type[].class)))
+            .thenReturn(CompletableFuture.completedFuture(new VisionAnnotations(AnnotateImageResponse.getDefaultInstance())));
+        ReflectionTestUtils.setField(service, "vision_service", vision_service);
+    }
+
+    @Test
+    void undecodableAndMissingScreenshotsAreSkipped() throws Exception {
+        File image = temp_dir.resolve("image.png").toFile();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", image);
+        File text = Files.writeString(temp_dir.resolve("text.png"), "not an image").toFile();
+
+        ImageElementState decodable = imageElement(image.toURI().toString());
+        ImageElementState undecodable = imageElement(text.toURI().toString());
+        ImageElementState missing = imageElement(temp_dir.resolve("missing.png").toUri().toString());
+        ElementState not_an_image = new ElementState();
+        not_an_image.setScreenshotUrl(image.toURI().toString());
+
+        List<ElementState> enriched = service.enrichImageElement(List.of(decodable, undecodable, missing, not_an_image));
+
+        assertEquals(List.of(decodable), enriched);
+        verify(vision_service, times(1)).annotate(any(BufferedImage.class), any(Feature.Type[].class));
+    }
+
+    @Test
+    void imageElementsKeepTheBaselineFeatures() throws Exception {
+        File image = temp_dir.resolve("image.png").toFile();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", image);
+
+        service.enrichImageElement(List.of(imageElement(image.toURI().toString())));
+
+        verify(vision_service).annotate(any(BufferedImage.class),
+                                        eq(Feature.Type.LABEL_DETECTION),
+                                        eq(Feature.Type.WEB_DETECTION),
+                                        eq(Feature.Type.SAFE_SEARCH_DETECTION));
+    }
+
+    private static ImageElementState imageElement(String screenshot_url) {
+        ImageElementState element = new ImageElementState();
+        element.setScreenshotUrl(screenshot_url);
+        return element;
+    }
+}
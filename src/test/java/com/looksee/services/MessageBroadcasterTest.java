@@ -0,0 +1,151 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.looksee.models.dto.AuditUpdateDto;
+import com.looksee.models.enums.AuditLevel;
+import com.looksee.models.enums.ExecutionStatus;
+import com.pusher.rest.Pusher;
+
+/**
+ * Unit tests for the coalescing and payload limits of MessageBroadcaster.
+ */
+class MessageBroadcasterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Pusher pusher;
+    private MessageBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        pusher = mock(Pusher.class);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("pusher.appId", "app")
+                .withProperty("pusher.key", "key")
+                .withProperty("pusher.secret", "secret")
+                .withProperty("pusher.cluster", "us2");
+        broadcaster = new MessageBroadcaster(pusher, environment, 60_000);
+    }
+
+    @Test
+    void progressUpdatesOfOneAuditAreCoalesced() throws Exception {
+        broadcaster.sendAuditUpdate("channel", update(1, 0.1));
+        broadcaster.sendAuditUpdate("channel", update(1, 0.2));
+        broadcaster.sendAuditUpdate("channel", update(2, 0.5));
+        broadcaster.shutdown();
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(pusher, times(2)).trigger(eq("channel"), eq("audit-progress"), payloads.capture());
+
+        List<Object> sent = payloads.getAllValues();
+        JsonNode first = mapper.readTree(sent.get(0).toString());
+        JsonNode second = mapper.readTree(sent.get(1).toString());
+        JsonNode audit_one = first.get("id").asLong() == 1 ? first : second;
+        assertEquals(0.2, audit_one.get("contentProgress").asDouble());
+    }
+
+    @Test
+    void laterUpdatesOnlySendChangedFields() throws Exception {
+        AuditUpdateDto previous = update(1, 0.1);
+        AuditUpdateDto current = update(1, 0.4);
+
+        JsonNode delta = MessageBroadcaster.delta(mapper.valueToTree(previous), mapper.valueToTree(current));
+
+        assertEquals(1, delta.get("id").asLong());
+        assertEquals(0.4, delta.get("contentProgress").asDouble());
+        assertTrue(delta.get("delta").asBoolean());
+        assertFalse(delta.has("message"));
+        assertNull(MessageBroadcaster.delta(mapper.valueToTree(current), mapper.valueToTree(current)));
+    }
+
+    @Test
+    void fullUpdatesAreSentPeriodically() throws Exception {
+        List<JsonNode> sent = sendTwoUpdates(60_000);
+        assertFalse(sent.get(0).has("delta"));
+        assertTrue(sent.get(0).has("message"));
+        assertTrue(sent.get(1).get("delta").asBoolean());
+        assertFalse(sent.get(1).has("message"));
+
+        List<JsonNode> full = sendTwoUpdates(0);
+        assertFalse(full.get(1).has("delta"));
+        assertTrue(full.get(1).has("message"));
+    }
+
+    /**
+     * Sends two updates of one audit one after the other and returns the
+     * payloads that were sent
+     */
+    private List<JsonNode> sendTwoUpdates(long full_update_interval_millis) throws Exception {
+        Pusher pusher = mock(Pusher.class);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("pusher.appId", "app")
+                .withProperty("pusher.key", "key")
+                .withProperty("pusher.secret", "secret")
+                .withProperty("pusher.cluster", "us2");
+        MessageBroadcaster sequential = new MessageBroadcaster(pusher, environment, 0, full_update_interval_millis);
+
+        sequential.sendAuditUpdate("channel", update(1, 0.1));
+        verify(pusher, timeout(1000).times(1)).trigger(eq("channel"), eq("audit-progress"), any());
+        sequential.sendAuditUpdate("channel", update(1, 0.4));
+        sequential.shutdown();
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(pusher, times(2)).trigger(eq("channel"), eq("audit-progress"), payloads.capture());
+        List<JsonNode> sent = new ArrayList<>();
+        for (Object payload : payloads.getAllValues()) {
+            sent.add(mapper.readTree(payload.toString()));
+        }
+        return sent;
+    }
+
+    @Test
+    void oversizedPayloadsThatAreNotObjectsArePassedThrough() throws Exception {
+        String large = "[\"" + "x".repeat(MessageBroadcaster.MAX_PAYLOAD_BYTES) + "\"]";
+
+        assertEquals(large, MessageBroadcaster.fit(large));
+    }
+
+    @Test
+    void oversizedPayloadsAreSummarized() throws Exception {
+        String large = "{\"id\":7,\"name\":\"audit\",\"messages\":[\"" + "x".repeat(MessageBroadcaster.MAX_PAYLOAD_BYTES) + "\"]}";
+
+        JsonNode summary = mapper.readTree(MessageBroadcaster.fit(large));
+
+        assertEquals(7, summary.get("id").asLong());
+        assertEquals("audit", summary.get("name").asText());
+        assertFalse(summary.has("messages"));
+        assertEquals("messages", summary.get("truncated").get(0).asText());
+        assertEquals("{\"id\":7}", MessageBroadcaster.fit("{\"id\":7}"));
+    }
+
+    @Test
+    void fallbackModeSendsNothing() throws Exception {
+        MessageBroadcaster fallback = new MessageBroadcaster(pusher, new MockEnvironment());
+        fallback.sendAuditUpdate("channel", update(1, 0.1));
+        fallback.shutdown();
+
+        verifyNoInteractions(pusher);
+    }
+
+    private static AuditUpdateDto update(long id, double content_progress) {
+        return new AuditUpdateDto(id, AuditLevel.PAGE, 0, content_progress, 0, 0, 0, 0, 0, 0, "", ExecutionStatus.IN_PROGRESS);
+    }
+}
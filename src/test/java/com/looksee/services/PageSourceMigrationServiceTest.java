@@ -0,0 +1,169 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import com.looksee.storage.LocalObjectStore;
+import com.looksee.storage.PageSourceStore;
+
+/**
+ * Unit tests for the conversion of legacy page state sources.
+ */
+class PageSourceMigrationServiceTest {
+
+    private static final String SRC = "<html><body>page</body></html>";
+
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path bucket;
+
+    private LocalObjectStore legacy_store;
+    private PageSourceStore page_source_store;
+    private PageSourceMigrationService migration;
+
+    /**
+     * Runs the migration against an in-memory set of page state nodes keyed by id.
+     */
+    private class InMemoryMigration extends PageSourceMigrationService {
+        private final TreeMap<Long, Map<String, Object>> nodes = new TreeMap<>();
+        private final int batch_size;
+        private int batches;
+
+        InMemoryMigration(int batch_size) {
+            super(mock(Neo4jClient.class),
+                  page_source_store,
+                  List.of(page_source_store.getObjectStore(), legacy_store),
+                  false,
+                  batch_size);
+            this.batch_size = batch_size;
+        }
+
+        void addNode(long id, String src, String generalized_src) {
+            Map<String, Object> node = new HashMap<>();
+            node.put("src", src);
+            node.put("generalizedSrc", generalized_src);
+            nodes.put(id, node);
+        }
+
+        @Override
+        Collection<Map<String, Object>> findLegacySources(long after) {
+            batches++;
+            return nodes.tailMap(after, false).entrySet().stream()
+                        .filter(entry -> entry.getValue().get("srcKey") == null)
+                        .filter(entry -> entry.getValue().get("src") != null || entry.getValue().get("generalizedSrc") != null)
+                        .limit(batch_size)
+                        .map(entry -> {
+                            Map<String, Object> row = new HashMap<>();
+                            row.put("id", entry.getKey());
+                            row.put("src", entry.getValue().get("src"));
+                            row.put("generalizedSrc", entry.getValue().get("generalizedSrc"));
+                            return row;
+                        })
+                        .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        @Override
+        void updateSourceKeys(List<Map<String, Object>> rows) {
+            for (Map<String, Object> row : rows) {
+                Map<String, Object> node = nodes.get((Long) row.get("id"));
+                node.putAll(row);
+                node.remove("id");
+                node.remove("src");
+                node.remove("generalizedSrc");
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        legacy_store = new LocalObjectStore(bucket);
+        page_source_store = new PageSourceStore(new LocalObjectStore(root), 0);
+        migration = new PageSourceMigrationService(mock(Neo4jClient.class, RETURNS_DEEP_STUBS),
+                                                   page_source_store,
+                                                   List.of(page_source_store.getObjectStore(), legacy_store),
+                                                   false,
+                                                   PageSourceMigrationService.DEFAULT_BATCH_SIZE);
+    }
+
+    @Test
+    void inlineSourcesAreMovedToTheStore() throws Exception {
+        Map<String, Object> row = migration.migrate(7, SRC, null);
+
+        assertEquals(7L, row.get("id"));
+        assertEquals(SRC, page_source_store.get((String) row.get("srcKey")));
+        assertEquals((long) SRC.getBytes(StandardCharsets.UTF_8).length, row.get("srcLength"));
+        assertNull(row.get("generalizedSrcKey"));
+        assertEquals(0L, row.get("generalizedSrcLength"));
+    }
+
+    @Test
+    void sourceUrlsAreResolvedToTheirContent() throws Exception {
+        legacy_store.put("example.com/pages/pagestate1", SRC.getBytes(StandardCharsets.UTF_8), "text/html");
+        String url = legacy_store.getPublicUrl("example.com/pages/pagestate1");
+
+        Map<String, Object> row = migration.migrate(1, url, SRC);
+
+        assertEquals(SRC, page_source_store.get((String) row.get("srcKey")));
+        assertEquals(row.get("srcKey"), row.get("generalizedSrcKey"));
+    }
+
+    @Test
+    void urlsOfMissingBlobsFail() {
+        String url = legacy_store.getPublicUrl("example.com/pages/missing");
+
+        assertThrows(IOException.class, () -> migration.resolve(url));
+    }
+
+    @Test
+    void migrateAllMovesEveryInlineSource() throws Exception {
+        legacy_store.put("example.com/pages/pagestate3", "third".getBytes(StandardCharsets.UTF_8), "text/html");
+        InMemoryMigration in_memory = new InMemoryMigration(2);
+        in_memory.addNode(1, SRC, SRC);
+        in_memory.addNode(2, SRC, null);
+        in_memory.addNode(3, legacy_store.getPublicUrl("example.com/pages/pagestate3"), null);
+        in_memory.addNode(4, legacy_store.getPublicUrl("example.com/pages/missing"), null);
+        in_memory.addNode(5, "<html>fifth</html>", "<html>generalized</html>");
+
+        assertEquals(4, in_memory.migrateAll());
+
+        Map<Long, Map<String, Object>> nodes = in_memory.nodes;
+        assertEquals(SRC, page_source_store.get((String) nodes.get(1L).get("srcKey")));
+        assertEquals(nodes.get(1L).get("srcKey"), nodes.get(1L).get("generalizedSrcKey"));
+        assertEquals(nodes.get(1L).get("srcKey"), nodes.get(2L).get("srcKey"));
+        assertNull(nodes.get(2L).get("generalizedSrcKey"));
+        assertEquals("third", page_source_store.get((String) nodes.get(3L).get("srcKey")));
+        assertEquals("<html>fifth</html>", page_source_store.get((String) nodes.get(5L).get("srcKey")));
+        assertEquals("<html>generalized</html>", page_source_store.get((String) nodes.get(5L).get("generalizedSrcKey")));
+        for (long id : List.of(1L, 2L, 3L, 5L)) {
+            assertFalse(nodes.get(id).containsKey("src"));
+            assertFalse(nodes.get(id).containsKey("generalizedSrc"));
+        }
+
+        //the node whose blob is missing keeps its source and doesn't stop the loop
+        assertNull(nodes.get(4L).get("srcKey"));
+        assertNotNull(nodes.get(4L).get("src"));
+        assertEquals(4, in_memory.batches);
+
+        //a second run finds nothing left to migrate except the failing node
+        assertEquals(0, in_memory.migrateAll());
+    }
+}
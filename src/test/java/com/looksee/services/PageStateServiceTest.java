@@ -0,0 +1,143 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.looksee.models.PageState;
+import com.looksee.models.repository.ElementStateRepository;
+import com.looksee.models.repository.PageStateRepository;
+import com.looksee.storage.LocalObjectStore;
+import com.looksee.storage.ObjectStore;
+import com.looksee.storage.PageSourceStore;
+
+/**
+ * Unit tests for the page sources written and read by PageStateService.
+ */
+class PageStateServiceTest {
+
+    private static final String SRC = "<html><body><p>café</p></body></html>";
+
+    @TempDir
+    Path root;
+
+    private PageStateRepository page_state_repo;
+    private PageSourceStore page_source_store;
+    private PageStateService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        page_state_repo = mock(PageStateRepository.class);
+        page_source_store = new PageSourceStore(new LocalObjectStore(root), 0);
+        service = new PageStateService();
+        ReflectionTestUtils.setField(service, "page_state_repo", page_state_repo);
+        ReflectionTestUtils.setField(service, "element_state_repo", mock(ElementStateRepository.class));
+        ReflectionTestUtils.setField(service, "page_source_store", page_source_store);
+
+        when(page_state_repo.save(any(PageState.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private long blobCount() throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * @return a page state as the graph returns it, holding only the source keys
+     */
+    private static PageState loaded(PageState saved) {
+        PageState loaded = new PageState();
+        loaded.setKey(saved.getKey());
+        loaded.setSrcKey(saved.getSrcKey());
+        loaded.setSrcLength(saved.getSrcLength());
+        loaded.setGeneralizedSrcKey(saved.getGeneralizedSrcKey());
+        loaded.setGeneralizedSrcLength(saved.getGeneralizedSrcLength());
+        return loaded;
+    }
+
+    @Test
+    void saveStoresTheSourcesAndKeepsTheirKeys() throws Exception {
+        PageState page_state = new PageState();
+        page_state.setKey("pagestate1");
+        page_state.setSrc(SRC);
+
+        PageState saved = service.save(page_state);
+
+        assertTrue(saved.getSrcKey().startsWith(ObjectStore.CONTENT_KEY_PREFIX));
+        assertEquals(SRC.getBytes(StandardCharsets.UTF_8).length, saved.getSrcLength());
+        assertEquals(SRC, page_source_store.get(saved.getSrcKey()));
+        assertEquals(SRC, saved.getSrc());
+        assertNull(saved.getGeneralizedSrcKey());
+    }
+
+    @Test
+    void identicalSourcesShareOneBlob() throws Exception {
+        PageState first = new PageState();
+        first.setKey("pagestate1");
+        first.setSrc(SRC);
+        PageState second = new PageState();
+        second.setKey("pagestate2");
+        second.setSrc(SRC);
+        second.setGeneralizedSrc(SRC);
+
+        service.save(first);
+        service.save(12, second);
+
+        assertEquals(first.getSrcKey(), second.getSrcKey());
+        assertEquals(first.getSrcKey(), second.getGeneralizedSrcKey());
+        assertEquals(1, blobCount());
+    }
+
+    @Test
+    void findersLoadTheSources() throws Exception {
+        PageState saved = new PageState();
+        saved.setKey("pagestate1");
+        saved.setSrc(SRC);
+        saved.setGeneralizedSrc("<html></html>");
+        service.storeSources(saved);
+
+        when(page_state_repo.findByKey("pagestate1")).thenReturn(loaded(saved));
+        when(page_state_repo.findById(3L)).thenReturn(Optional.of(loaded(saved)));
+        when(page_state_repo.findBySourceChecksumForDomain("example.com", "checksum")).thenReturn(List.of(loaded(saved)));
+
+        PageState by_key = service.findByKey("pagestate1");
+        assertEquals(SRC, by_key.getSrc());
+        assertEquals("<html></html>", by_key.getGeneralizedSrc());
+        assertEquals(SRC, service.findById(3).get().getSrc());
+        assertEquals(SRC, service.findBySourceChecksumForDomain("example.com", "checksum").get(0).getSrc());
+        assertNull(service.findByUrl("https://example.com"));
+    }
+
+    @Test
+    void inlineSourcesAreKeptOnLoad() {
+        PageState legacy = new PageState();
+        legacy.setSrc(SRC);
+
+        assertSame(legacy, service.loadSources(legacy));
+        assertEquals(SRC, legacy.getSrc());
+        assertNull(legacy.getSrcKey());
+    }
+
+    @Test
+    void missingSourceFailsLoudly() {
+        PageState loaded = new PageState();
+        loaded.setSrcKey(ObjectStore.CONTENT_KEY_PREFIX + "missing");
+
+        assertThrows(UncheckedIOException.class, () -> service.loadSources(loaded));
+    }
+}
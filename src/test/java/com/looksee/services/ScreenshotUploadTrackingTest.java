@@ -0,0 +1,54 @@
+package com.looksee.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.PageState;
+
+/**
+ * Unit tests for the screenshot upload tracking of BrowserService.
+ */
+class ScreenshotUploadTrackingTest {
+
+    private final BrowserService service = new BrowserService();
+
+    @Test
+    void failedUploadIsRethrownWhenAwaited() {
+        PageState page_state = new PageState();
+        CompletableFuture<Void> upload = new CompletableFuture<>();
+        service.trackScreenshotUploads(page_state, upload);
+
+        upload.completeExceptionally(new UncheckedIOException(new IOException("bucket unavailable")));
+
+        IOException error = assertThrows(IOException.class, () -> service.awaitScreenshotUploads(page_state));
+        assertEquals("bucket unavailable", error.getMessage());
+    }
+
+    @Test
+    void identicalPagesAreTrackedSeparately() throws Exception {
+        PageState first = new PageState();
+        first.setViewportScreenshotUrl("https://storage/same.png");
+        PageState second = new PageState();
+        second.setViewportScreenshotUrl("https://storage/same.png");
+        CompletableFuture<Void> first_upload = new CompletableFuture<>();
+        CompletableFuture<Void> second_upload = new CompletableFuture<>();
+        service.trackScreenshotUploads(first, first_upload);
+        service.trackScreenshotUploads(second, second_upload);
+
+        first_upload.completeExceptionally(new IllegalStateException("first failed"));
+        second_upload.complete(null);
+
+        service.awaitScreenshotUploads(second);
+        assertThrows(IllegalStateException.class, () -> service.awaitScreenshotUploads(first));
+    }
+
+    @Test
+    void untrackedPageStateDoesNotWait() throws Exception {
+        service.awaitScreenshotUploads(new PageState());
+    }
+}
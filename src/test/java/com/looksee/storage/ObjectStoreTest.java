@@ -0,0 +1,158 @@
+package com.looksee.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the local and caching object stores.
+ */
+class ObjectStoreTest {
+
+    @TempDir
+    Path root;
+
+    private LocalObjectStore local;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        local = new LocalObjectStore(root);
+    }
+
+    @Test
+    void putAndGetRoundTrip() throws Exception {
+        byte[] bytes = "<html></html>".getBytes(StandardCharsets.UTF_8);
+        local.put("example.com/pages/abc", bytes, "text/html");
+
+        assertTrue(local.exists("example.com/pages/abc"));
+        assertArrayEquals(bytes, local.get("example.com/pages/abc"));
+        assertNull(local.get("example.com/pages/missing"));
+        assertFalse(local.exists("example.com/pages/missing"));
+    }
+
+    @Test
+    void putIfAbsentKeepsExistingBlob() throws Exception {
+        assertTrue(local.putIfAbsent("key", new byte[] {1}, "image/png"));
+        assertFalse(local.putIfAbsent("key", new byte[] {2}, "image/png"));
+
+        assertArrayEquals(new byte[] {1}, local.get("key"));
+    }
+
+    @Test
+    void getRangeIsClampedToTheBlob() throws Exception {
+        local.put("key", new byte[] {0, 1, 2, 3, 4, 5}, "application/octet-stream");
+
+        ByteBuffer range = local.getRange("key", 2, 3);
+        assertEquals(3, range.remaining());
+        assertEquals(2, range.get(0));
+        assertEquals(4, range.get(2));
+
+        assertEquals(2, local.getRange("key", 4, 10).remaining());
+        assertEquals(0, local.getRange("key", 10, 10).remaining());
+        assertNull(local.getRange("missing", 0, 1));
+    }
+
+    @Test
+    void publicUrlMapsBackToKey() {
+        String long_key = "x".repeat(LocalObjectStore.MAX_FILE_NAME_LENGTH + 1);
+
+        assertEquals("example.com/pages/abc", local.getKey(local.getPublicUrl("example.com/pages/abc")));
+        assertNull(local.getKey(local.getPublicUrl("..")));
+        assertNull(local.getKey(local.getPublicUrl(long_key)));
+        assertNull(local.getKey("https://storage.googleapis.com/bucket/key"));
+    }
+
+    @Test
+    void putContentStoresIdenticalContentOnce() throws Exception {
+        String key = local.putContent(new byte[] {7, 7}, "text/html");
+
+        assertTrue(key.startsWith(ObjectStore.CONTENT_KEY_PREFIX));
+        assertEquals(key, local.putContent(new byte[] {7, 7}, "text/html"));
+        assertNotEquals(key, local.putContent(new byte[] {7}, "text/html"));
+    }
+
+    @Test
+    void cachingStoreReadsRemoteBlobsOnce() throws Exception {
+        ObjectStore remote = mock(ObjectStore.class);
+        when(remote.get("key")).thenReturn(new byte[] {1, 2, 3});
+        CachingObjectStore store = new CachingObjectStore(local, remote);
+
+        assertArrayEquals(new byte[] {1, 2, 3}, store.get("key"));
+        assertArrayEquals(new byte[] {1, 2, 3}, store.get("key"));
+        assertEquals(2, store.getRange("key", 1, 5).remaining());
+
+        verify(remote, times(1)).get("key");
+        verify(remote, never()).getRange(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void cachingStoreOnlyCachesBlobsItWrote() throws Exception {
+        ObjectStore remote = mock(ObjectStore.class);
+        when(remote.putIfAbsent(anyString(), any(byte[].class), anyString())).thenReturn(false);
+        CachingObjectStore store = new CachingObjectStore(local, remote);
+
+        assertFalse(store.putIfAbsent("key", new byte[] {1}, "image/png"));
+        assertFalse(local.exists("key"));
+
+        store.put("other", new byte[] {2}, "image/png");
+        verify(remote).put("other", new byte[] {2}, "image/png");
+        assertArrayEquals(new byte[] {2}, local.get("other"));
+    }
+
+    @Test
+    void cachingStoreEvictsLeastRecentlyUsedBlobs() throws Exception {
+        ObjectStore remote = mock(ObjectStore.class);
+        when(remote.get("a")).thenReturn(new byte[4]);
+        CachingObjectStore store = new CachingObjectStore(local, remote, 10);
+
+        store.put("a", new byte[4], "image/png");
+        store.put("b", new byte[4], "image/png");
+        //reading a makes b the least recently used copy
+        store.get("a");
+        store.put("c", new byte[4], "image/png");
+
+        assertTrue(local.exists("a"));
+        assertFalse(local.exists("b"));
+        assertTrue(local.exists("c"));
+        assertEquals(8, store.getCachedBytes());
+        verify(remote, never()).get("a");
+    }
+
+    @Test
+    void cachingStoreDoesNotCacheBlobsLargerThanTheLimit() throws Exception {
+        ObjectStore remote = mock(ObjectStore.class);
+        when(remote.get("large")).thenReturn(new byte[16]);
+        CachingObjectStore store = new CachingObjectStore(local, remote, 10);
+        store.put("small", new byte[4], "image/png");
+
+        assertEquals(16, store.get("large").length);
+
+        assertFalse(local.exists("large"));
+        assertTrue(local.exists("small"));
+        assertEquals(4, store.getCachedBytes());
+    }
+
+    @Test
+    void localDeleteRemovesTheBlob() throws Exception {
+        local.put("key", new byte[] {1}, "image/png");
+
+        assertTrue(local.delete("key"));
+        assertFalse(local.delete("key"));
+        assertNull(local.get("key"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.looksee.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for PageSourceStore.
+ */
+class PageSourceStoreTest {
+
+    private static final String SRC = "<html><body><p>café</p></body></html>";
+
+    @TempDir
+    Path root;
+
+    private PageSourceStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new PageSourceStore(new LocalObjectStore(root), 0);
+    }
+
+    private long blobCount() throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void sourcesAreContentAddressed() throws Exception {
+        String key = store.put(SRC);
+
+        assertTrue(key.startsWith(ObjectStore.CONTENT_KEY_PREFIX));
+        assertEquals(key, store.put(SRC));
+        assertEquals(1, blobCount());
+        assertEquals(SRC, store.get(key));
+    }
+
+    @Test
+    void missingSourceFailsLoudly() {
+        assertThrows(UncheckedIOException.class, () -> store.get(ObjectStore.CONTENT_KEY_PREFIX + "missing"));
+    }
+
+    @Test
+    void readsAreCached() throws Exception {
+        PageSourceStore cached = new PageSourceStore(new LocalObjectStore(root), 1);
+        String key = cached.put(SRC);
+        List<Path> blobs;
+        try (Stream<Path> files = Files.walk(root)) {
+            blobs = files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path blob : blobs) {
+            Files.delete(blob);
+        }
+
+        assertEquals(SRC, cached.get(key));
+        assertThrows(UncheckedIOException.class, () -> store.get(key));
+    }
+}
@@ -0,0 +1,126 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.ColorData;
+
+/**
+ * Unit tests for ColorClusterer.
+ */
+class ColorClustererTest {
+
+    private static ColorData color(int red, int green, int blue, double usage) {
+        ColorData color = new ColorData(red, green, blue);
+        color.setUsagePercent(usage);
+        return color;
+    }
+
+    /**
+     * The greedy grouping ColorClusterer replaces
+     */
+    private static Set<Set<ColorData>> greedyGroups(List<ColorData> input) {
+        List<ColorData> colors = new ArrayList<>(input);
+        Set<Set<ColorData>> color_sets = new HashSet<>();
+        while (!colors.isEmpty()) {
+            Set<ColorData> similar_colors = new HashSet<>();
+            ColorData most_frequent_color = colors.stream().max(Comparator.comparing(ColorData::getUsagePercent)).get();
+            similar_colors.add(most_frequent_color);
+            for (ColorData color : colors) {
+                if (!color.equals(most_frequent_color) && ColorPaletteUtils.isSimilarHue(most_frequent_color, color)) {
+                    similar_colors.add(color);
+                }
+            }
+            colors.removeAll(similar_colors);
+            color_sets.add(similar_colors);
+        }
+        return color_sets;
+    }
+
+    private static Set<Set<String>> rgbGroups(Set<Set<ColorData>> groups) {
+        Set<Set<String>> result = new HashSet<>();
+        for (Set<ColorData> group : groups) {
+            Set<String> rgb = new HashSet<>();
+            for (ColorData color : group) {
+                rgb.add(color.rgb());
+            }
+            result.add(rgb);
+        }
+        return result;
+    }
+
+    @Test
+    void emptyInputHasNoGroups() {
+        assertTrue(ColorClusterer.groupByHue(new ArrayList<>(), ColorClusterer.DEFAULT_HUE_TOLERANCE).isEmpty());
+    }
+
+    @Test
+    void grayscaleColorsFormOneGroup() {
+        List<ColorData> colors = new ArrayList<>();
+        colors.add(color(0, 0, 0, 0.4));
+        colors.add(color(200, 200, 200, 0.3));
+        colors.add(color(255, 0, 0, 0.2));
+        colors.add(color(250, 20, 0, 0.1));
+
+        Set<Set<ColorData>> groups = ColorClusterer.groupByHue(colors, ColorClusterer.DEFAULT_HUE_TOLERANCE);
+
+        assertEquals(2, groups.size());
+        assertEquals(4, colors.size());
+    }
+
+    @Test
+    void matchesGreedyGrouping() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            List<ColorData> colors = new ArrayList<>();
+            for (int idx = 0; idx < 300; idx++) {
+                colors.add(color(random.nextInt(256), random.nextInt(256), random.nextInt(256), random.nextDouble()));
+            }
+
+            assertEquals(rgbGroups(greedyGroups(colors)),
+                         rgbGroups(ColorClusterer.groupByHue(colors, ColorClusterer.DEFAULT_HUE_TOLERANCE)));
+        }
+    }
+
+    @Test
+    void handlesLargeColorSets() {
+        Random random = new Random(7);
+        List<ColorData> colors = new ArrayList<>();
+        for (int idx = 0; idx < 50000; idx++) {
+            colors.add(color(random.nextInt(256), random.nextInt(256), random.nextInt(256), random.nextDouble()));
+        }
+
+        Set<Set<ColorData>> groups = ColorClusterer.groupByHue(colors, ColorClusterer.DEFAULT_HUE_TOLERANCE);
+
+        int total = 0;
+        for (Set<ColorData> group : groups) {
+            total += group.size();
+        }
+        assertEquals(50000, total);
+    }
+
+    @Test
+    void labRefinementKeepsEveryColor() {
+        List<ColorData> colors = new ArrayList<>();
+        colors.add(color(255, 0, 0, 0.5));
+        colors.add(color(240, 10, 10, 0.1));
+        colors.add(color(0, 0, 255, 0.3));
+        colors.add(color(10, 10, 240, 0.1));
+
+        Set<Set<ColorData>> groups = ColorClusterer.refineInLab(
+                ColorClusterer.groupByHue(colors, ColorClusterer.DEFAULT_HUE_TOLERANCE), 10);
+
+        assertEquals(2, groups.size());
+        for (Set<ColorData> group : groups) {
+            assertEquals(2, group.size());
+        }
+    }
+}
@@ -2,10 +2,22 @@ package com.looksee.utils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.looksee.models.ColorData;
+import com.looksee.models.ElementState;
+import com.looksee.models.PageState;
 import com.looksee.models.audit.recommend.ColorContrastRecommendation;
+import com.looksee.models.audit.stats.ColorHistogram;
 
 /**
  * Unit tests for ColorUtils.
@@ -163,4 +175,35 @@ class ColorUtilsTest {
         ColorData gold = new ColorData(255, 200, 0);
         assertNotNull(ColorUtils.isGold(gold));
     }
+
+    @Test
+    void colorHistogramOfPageSkipsImageElements(@TempDir Path directory) throws Exception {
+        BufferedImage screenshot = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 20; y++) {
+                screenshot.setRGB(x, y, x < 20 ? 0xFF0000 : 0x0000FF);
+            }
+        }
+        File file = directory.resolve("page.png").toFile();
+        ImageIO.write(screenshot, "png", file);
+
+        PageState page_state = new PageState();
+        page_state.setFullPageScreenshotUrl(file.toURI().toURL().toString());
+        page_state.setFullPageWidth(40);
+        page_state.setFullPageHeight(20);
+
+        ElementState image = new ElementState();
+        image.setName("img");
+        image.setXLocation(20);
+        image.setYLocation(0);
+        image.setWidth(20);
+        image.setHeight(20);
+
+        ColorHistogram histogram = ColorUtils.extractColorHistogram(page_state, List.of(image));
+        assertEquals(400, histogram.getTotal());
+        assertEquals(400, histogram.getCount(255, 0, 0));
+        assertEquals(0, histogram.getCount(0, 0, 255));
+
+        assertEquals(800, ColorUtils.extractColorHistogram(page_state, Collections.emptyList()).getTotal());
+    }
 }
@@ -0,0 +1,97 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.ColorData;
+
+/**
+ * Unit tests for ContrastSolver.
+ */
+class ContrastSolverTest {
+
+    private static double contrast(ColorData c1, ColorData c2) {
+        return ColorData.computeContrast(c1, c2);
+    }
+
+    @Test
+    void luminanceMatchesColorData() {
+        for (int value = 0; value < 256; value += 15) {
+            ColorData color = new ColorData(value, 255 - value, value / 2);
+            assertEquals(color.getLuminosity(),
+                         ContrastSolver.luminance(color.getRed(), color.getGreen(), color.getBlue()),
+                         1e-12);
+        }
+    }
+
+    @Test
+    void compliantColorIsReturnedUnchanged() {
+        ColorData black = new ColorData(0, 0, 0);
+        ColorData white = new ColorData(255, 255, 255);
+        assertSame(black, ContrastSolver.solve(black, white, 7.0, false));
+    }
+
+    @Test
+    void darkerSolutionMeetsRatioAndKeepsHue() {
+        ColorData blue = new ColorData(90, 140, 230);
+        ColorData white = new ColorData(255, 255, 255);
+
+        ColorData solved = ContrastSolver.solve(blue, white, 7.0, false);
+
+        assertNotNull(solved);
+        assertTrue(contrast(solved, white) >= 7.0);
+        assertTrue(solved.getBlue() > solved.getRed());
+        assertTrue(Math.abs(solved.getHue() - blue.getHue()) <= 10);
+    }
+
+    @Test
+    void solutionIsCloseToTheThreshold() {
+        ColorData gray = new ColorData(150, 150, 150);
+        ColorData white = new ColorData(255, 255, 255);
+
+        ColorData solved = ContrastSolver.solve(gray, white, 4.5, false);
+
+        assertTrue(contrast(solved, white) >= 4.5);
+        ColorData one_lighter = new ColorData(solved.getRed() + 1, solved.getGreen() + 1, solved.getBlue() + 1);
+        assertTrue(contrast(one_lighter, white) < 4.5);
+    }
+
+    @Test
+    void lighterSolutionMeetsRatio() {
+        ColorData background = new ColorData(120, 60, 60);
+        ColorData font = new ColorData(40, 40, 40);
+
+        ColorData solved = ContrastSolver.solve(background, font, 7.0, true);
+
+        assertNotNull(solved);
+        assertTrue(contrast(solved, font) >= 7.0);
+        assertTrue(solved.getRed() > solved.getGreen());
+    }
+
+    @Test
+    void impossibleDirectionReturnsNull() {
+        ColorData gray = new ColorData(128, 128, 128);
+        assertNull(ContrastSolver.solve(gray, new ColorData(20, 20, 20), 7.0, false));
+        assertNull(ContrastSolver.solve(gray, new ColorData(230, 230, 230), 7.0, true));
+    }
+
+    @Test
+    void candidatesAreCompliantAndOrderedByDistance() {
+        ColorData gray = new ColorData(128, 128, 128);
+        ColorData reference = new ColorData(118, 118, 118);
+
+        List<ColorData> candidates = ContrastSolver.candidates(gray, reference, 3.0);
+
+        assertEquals(2, candidates.size());
+        for (ColorData candidate : candidates) {
+            assertTrue(contrast(candidate, reference) >= 3.0);
+        }
+        double[] origin = ContrastSolver.toLab(128, 128, 128);
+        double[] first = ContrastSolver.toLab(candidates.get(0).getRed(), candidates.get(0).getGreen(), candidates.get(0).getBlue());
+        double[] second = ContrastSolver.toLab(candidates.get(1).getRed(), candidates.get(1).getGreen(), candidates.get(1).getBlue());
+        assertTrue(Math.abs(first[0] - origin[0]) <= Math.abs(second[0] - origin[0]));
+    }
+}
@@ -0,0 +1,60 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for CssColorParser.
+ */
+class CssColorParserTest {
+
+    private static void assertColor(int red, int green, int blue, int alpha, int rgba) {
+        assertEquals(red, CssColorParser.red(rgba));
+        assertEquals(green, CssColorParser.green(rgba));
+        assertEquals(blue, CssColorParser.blue(rgba));
+        assertEquals(alpha, CssColorParser.alpha(rgba));
+    }
+
+    @Test
+    void parsesRgbFunctions() {
+        assertColor(255, 0, 0, 255, CssColorParser.parse("rgb(255, 0, 0)"));
+        assertColor(128, 64, 32, 128, CssColorParser.parse("rgba(128, 64, 32, 0.5)"));
+        assertColor(10, 20, 30, 255, CssColorParser.parse("  RGB(10,20,30)  "));
+        assertColor(10, 20, 30, 64, CssColorParser.parse("rgb(10 20 30 / 25%)"));
+        assertColor(127, 255, 0, 255, CssColorParser.parse("rgb(127.9, 300, -4)"));
+        assertColor(255, 128, 0, 255, CssColorParser.parse("rgb(100%, 50%, 0%)"));
+    }
+
+    @Test
+    void parsesBareComponentLists() {
+        assertColor(1, 2, 3, 255, CssColorParser.parse("1,2,3"));
+        assertColor(1, 2, 3, 0, CssColorParser.parse("1, 2, 3, 0"));
+    }
+
+    @Test
+    void parsesHexValues() {
+        assertColor(255, 0, 128, 255, CssColorParser.parse("#FF0080"));
+        assertColor(0xaa, 0xbb, 0xcc, 255, CssColorParser.parse("#abc"));
+        assertColor(0xaa, 0xbb, 0xcc, 0xdd, CssColorParser.parse("#abcd"));
+        assertColor(1, 2, 3, 4, CssColorParser.parse("#01020304"));
+    }
+
+    @Test
+    void parsesNamedColors() {
+        assertColor(102, 51, 153, 255, CssColorParser.parse("RebeccaPurple"));
+        assertColor(255, 255, 255, 255, CssColorParser.parse("white"));
+        assertColor(0, 0, 0, 0, CssColorParser.parse("transparent"));
+    }
+
+    @Test
+    void rejectsInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> CssColorParser.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> CssColorParser.parse("rgb(1, 2)"));
+        assertThrows(IllegalArgumentException.class, () -> CssColorParser.parse("rgb(1, 2, 3, 4, 5)"));
+        assertThrows(IllegalArgumentException.class, () -> CssColorParser.parse("rgb(1, x, 3)"));
+        assertThrows(IllegalArgumentException.class, () -> CssColorParser.parse("#12345"));
+        assertThrows(IllegalArgumentException.class, () -> CssColorParser.parse("#ggg"));
+        assertThrows(IllegalArgumentException.class, () -> CssColorParser.parse("notacolor"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.CIEColorSpace;
+import com.looksee.models.ColorData;
+import com.looksee.utils.DeltaE.LabPoints;
+
+/**
+ * Unit tests for DeltaE.
+ */
+class DeltaETest {
+
+    /** Reference pairs and differences published by Sharma, Wu and Dalal */
+    private static final double[][] CIEDE2000_REFERENCE = {
+        {50.0000, 2.6772, -79.7751, 50.0000, 0.0000, -82.7485, 2.0425},
+        {50.0000, 3.1571, -77.2803, 50.0000, 0.0000, -82.7485, 2.8615},
+        {50.0000, 0.0000, 0.0000, 50.0000, -1.0000, 2.0000, 2.3669},
+        {50.0000, 2.4900, -0.0010, 50.0000, -2.4900, 0.0009, 7.1792},
+        {50.0000, 2.5000, 0.0000, 50.0000, 0.0000, -2.5000, 4.3065},
+        {50.0000, 2.5000, 0.0000, 73.0000, 25.0000, -18.0000, 27.1492},
+        {60.2574, -34.0099, 36.2677, 60.4626, -34.1751, 39.4387, 1.2644},
+        {22.7233, 20.0904, -46.6940, 23.0331, 14.9730, -42.5619, 2.0373},
+        {90.8027, -2.0831, 1.4410, 91.1528, -1.6435, 0.0447, 1.4441},
+        {2.0776, 0.0795, -1.1350, 0.9033, -0.0636, -0.5514, 0.9082}
+    };
+
+    @Test
+    void ciede2000MatchesReferenceData() {
+        for (double[] pair : CIEDE2000_REFERENCE) {
+            assertEquals(pair[6], DeltaE.ciede2000(pair[0], pair[1], pair[2], pair[3], pair[4], pair[5]), 1e-4);
+            assertEquals(pair[6], DeltaE.ciede2000(pair[3], pair[4], pair[5], pair[0], pair[1], pair[2]), 1e-4);
+        }
+    }
+
+    @Test
+    void labIsCachedAndUsesD65() {
+        ColorData white = new ColorData(255, 255, 255);
+        CIEColorSpace lab = white.lab();
+        assertSame(lab, white.lab());
+        assertEquals(100, lab.l, 1e-3);
+        assertEquals(0, lab.a, 1e-2);
+        assertEquals(0, lab.b, 1e-2);
+
+        CIEColorSpace red = new ColorData(255, 0, 0).lab();
+        assertEquals(53.24, red.l, 0.05);
+        assertEquals(80.09, red.a, 0.05);
+        assertEquals(67.20, red.b, 0.05);
+    }
+
+    @Test
+    void batchDistancesMatchPairwise() {
+        List<ColorData> colors = Arrays.asList(
+                new ColorData(255, 0, 0),
+                new ColorData(250, 10, 5),
+                new ColorData(0, 0, 255),
+                new ColorData(128, 128, 128),
+                new ColorData(20, 200, 40));
+        LabPoints points = LabPoints.of(colors);
+        int size = colors.size();
+
+        float[] cie76 = DeltaE.cie76Matrix(points);
+        float[] ciede2000 = DeltaE.ciede2000Matrix(points);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                assertEquals(DeltaE.cie76(colors.get(i), colors.get(j)), cie76[i * size + j], 1e-3);
+                assertEquals(DeltaE.ciede2000(colors.get(i), colors.get(j)), ciede2000[i * size + j], 1e-3);
+            }
+        }
+
+        float[] row = new float[size];
+        DeltaE.ciede2000(points.getL(1), points.getA(1), points.getB(1), points, row);
+        for (int j = 0; j < size; j++) {
+            assertEquals(ciede2000[size + j], row[j], 1e-6);
+        }
+    }
+
+    @Test
+    void nearestFindsClosestPoint() {
+        List<ColorData> colors = Arrays.asList(
+                new ColorData(0, 0, 255),
+                new ColorData(255, 0, 0),
+                new ColorData(128, 128, 128));
+        LabPoints points = LabPoints.of(colors);
+
+        CIEColorSpace query = new ColorData(240, 20, 20).lab();
+        assertEquals(1, DeltaE.nearest((float)query.l, (float)query.a, (float)query.b, points));
+        assertEquals(-1, DeltaE.nearest(0, 0, 0, new LabPoints(new float[0], new float[0], new float[0])));
+    }
+
+    @Test
+    void imageUtilsDeltaEUsesCiede2000() {
+        ColorData color1 = new ColorData(50, 100, 150);
+        ColorData color2 = new ColorData(60, 100, 140);
+        assertEquals(0.0f, ImageUtils.calculateDeltaE(color1, color1), 1e-6);
+        assertEquals((float)DeltaE.ciede2000(color1, color2), ImageUtils.calculateDeltaE(color1, color2), 1e-6);
+        assertTrue(ImageUtils.calculateDeltaE(color1, color2) > 0);
+    }
+}
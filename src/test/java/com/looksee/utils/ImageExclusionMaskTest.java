@@ -0,0 +1,82 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.ColorUsageStat;
+
+/**
+ * Unit tests for ImageExclusionMask and masked color extraction.
+ */
+class ImageExclusionMaskTest {
+
+    @Test
+    void noExclusionsIncludesEveryPixel() {
+        ImageExclusionMask mask = new ImageExclusionMask(10, 5, new ArrayList<>());
+        assertEquals(50, mask.getIncludedPixelCount());
+        assertEquals(1, mask.getBandCount());
+        assertArrayEquals(new int[] {0, 10}, mask.getBandSpans(0));
+    }
+
+    @Test
+    void overlappingExclusionsAreMerged() {
+        List<Rectangle> exclusions = Arrays.asList(
+                new Rectangle(2, 0, 3, 4),
+                new Rectangle(4, 2, 3, 4));
+        ImageExclusionMask mask = new ImageExclusionMask(10, 10, exclusions);
+
+        // rows 0-1 exclude [2,5), rows 2-3 exclude [2,7), rows 4-5 exclude [4,7)
+        assertEquals(100 - 6 - 10 - 6, mask.getIncludedPixelCount());
+        assertTrue(mask.isExcluded(6, 3));
+        assertTrue(mask.isExcluded(2, 0));
+        assertFalse(mask.isExcluded(5, 0));
+        assertFalse(mask.isExcluded(2, 5));
+        assertFalse(mask.isExcluded(0, 9));
+    }
+
+    @Test
+    void exclusionsOutsideImageAreClipped() {
+        List<Rectangle> exclusions = Arrays.asList(
+                new Rectangle(-5, -5, 10, 10),
+                new Rectangle(50, 50, 10, 10));
+        ImageExclusionMask mask = new ImageExclusionMask(10, 10, exclusions);
+        assertEquals(100 - 25, mask.getIncludedPixelCount());
+        assertTrue(mask.isExcluded(-1, 0));
+        assertTrue(mask.isExcluded(10, 0));
+    }
+
+    @Test
+    void fullyExcludedImageHasNoIncludedPixels() {
+        ImageExclusionMask mask = new ImageExclusionMask(4, 4, Arrays.asList(new Rectangle(0, 0, 4, 4)));
+        assertEquals(0, mask.getIncludedPixelCount());
+        assertEquals(0, mask.getBandSpans(0).length);
+    }
+
+    @Test
+    void maskedExtractionIgnoresExcludedRegionWithoutModifyingImage() {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 20, 10);
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 10, 10);
+        graphics.dispose();
+
+        ImageExclusionMask mask = new ImageExclusionMask(20, 10, Arrays.asList(new Rectangle(0, 0, 10, 10)));
+        List<ColorUsageStat> stats = ImageUtils.extractImageProperties(image, mask);
+
+        assertEquals(1, stats.size());
+        assertEquals("255,255,255", stats.get(0).getRGB());
+        assertEquals(1.0, stats.get(0).getPixelPercent(), 0.0001);
+        assertEquals(Color.RED.getRGB(), image.getRGB(5, 5));
+    }
+}
@@ -0,0 +1,64 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.enums.ScreenshotResolution;
+
+/**
+ * Unit tests for ScreenshotPyramid and the downscalers it relies on.
+ */
+class ScreenshotPyramidTest {
+
+    @Test
+    void halveAveragesEachBlock() {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0x000000);
+        image.setRGB(1, 0, 0xffffff);
+        image.setRGB(0, 1, 0x000000);
+        image.setRGB(1, 1, 0xffffff);
+
+        BufferedImage half = ImageUtils.halve(image);
+
+        assertEquals(1, half.getWidth());
+        assertEquals(1, half.getHeight());
+        assertEquals(0x808080, half.getRGB(0, 0) & 0xffffff);
+    }
+
+    @Test
+    void halveRoundsOddDimensionsUp() {
+        BufferedImage half = ImageUtils.halve(new BufferedImage(5, 3, BufferedImage.TYPE_INT_ARGB));
+        assertEquals(3, half.getWidth());
+        assertEquals(2, half.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_ARGB, half.getType());
+    }
+
+    @Test
+    void scaleToFitReturnsSmallImagesUnchanged() {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        assertSame(image, ImageUtils.scaleToFit(image, 1024, 768));
+    }
+
+    @Test
+    void scaleToFitPreservesAspectRatio() {
+        BufferedImage scaled = ImageUtils.scaleToFit(new BufferedImage(3000, 1000, BufferedImage.TYPE_INT_RGB), 1024, 768);
+        assertEquals(1024, scaled.getWidth());
+        assertEquals(341, scaled.getHeight());
+    }
+
+    @Test
+    void buildCreatesEveryLevel() {
+        ScreenshotPyramid pyramid = ScreenshotPyramid.build(new BufferedImage(1280, 4001, BufferedImage.TYPE_INT_RGB));
+
+        assertEquals(ScreenshotResolution.values().length, pyramid.getLevels().size());
+        assertEquals(1280, pyramid.getLevel(ScreenshotResolution.FULL).getWidth());
+        assertEquals(640, pyramid.getLevel(ScreenshotResolution.HALF).getWidth());
+        assertEquals(2001, pyramid.getLevel(ScreenshotResolution.HALF).getHeight());
+        assertEquals(320, pyramid.getLevel(ScreenshotResolution.QUARTER).getWidth());
+        assertEquals(1001, pyramid.getLevel(ScreenshotResolution.QUARTER).getHeight());
+        assertEquals(320, pyramid.getLevel(ScreenshotResolution.THUMBNAIL).getWidth());
+    }
+}
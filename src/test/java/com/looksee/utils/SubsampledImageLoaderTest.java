@@ -0,0 +1,89 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for SubsampledImageLoader.
+ */
+class SubsampledImageLoaderTest {
+
+    private static ByteArrayInputStream encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static BufferedImage halfRedHalfWhite(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        return image;
+    }
+
+    @Test
+    void subsamplingStaysWithinBudget() {
+        assertEquals(1, SubsampledImageLoader.getSubsampling(100, 100, 10000));
+        assertEquals(2, SubsampledImageLoader.getSubsampling(101, 100, 10000));
+        int step = SubsampledImageLoader.getSubsampling(1920, 20000, 1 << 20);
+        assertTrue(((1920 + step - 1) / step) * (long)((20000 + step - 1) / step) <= 1 << 20);
+        assertTrue(((1920 + step - 2) / (step - 1)) * (long)((20000 + step - 2) / (step - 1)) > 1 << 20);
+    }
+
+    @Test
+    void smallImagesAreDecodedAtFullResolution() throws IOException {
+        SubsampledImageLoader.SubsampledImage image = SubsampledImageLoader.read(encode(halfRedHalfWhite(40, 20)), null, 10000);
+        assertEquals(1, image.getStep());
+        assertEquals(40, image.getImage().getWidth());
+        assertEquals(20, image.getImage().getHeight());
+    }
+
+    @Test
+    void largeImagesAreSubsampled() throws IOException {
+        SubsampledImageLoader.SubsampledImage image = SubsampledImageLoader.read(encode(halfRedHalfWhite(400, 200)), null, 5000);
+        assertEquals(4, image.getStep());
+        assertEquals(100, image.getImage().getWidth());
+        assertEquals(50, image.getImage().getHeight());
+        assertEquals(Color.RED.getRGB(), image.getImage().getRGB(49, 10));
+        assertEquals(Color.WHITE.getRGB(), image.getImage().getRGB(50, 10));
+    }
+
+    @Test
+    void regionIsDecodedOnly() throws IOException {
+        SubsampledImageLoader.SubsampledImage image = SubsampledImageLoader.read(encode(halfRedHalfWhite(400, 200)),
+                                                                                 new Rectangle(200, 0, 100, 100),
+                                                                                 10000);
+        assertEquals(100, image.getImage().getWidth());
+        assertEquals(Color.WHITE.getRGB(), image.getImage().getRGB(0, 0));
+    }
+
+    @Test
+    void regionOutsideImageThrows() {
+        assertThrows(IOException.class, () -> SubsampledImageLoader.read(encode(halfRedHalfWhite(10, 10)),
+                                                                         new Rectangle(20, 20, 5, 5),
+                                                                         100));
+    }
+
+    @Test
+    void sampleBoundsCoverSampledSourcePixels() throws IOException {
+        SubsampledImageLoader.SubsampledImage image = SubsampledImageLoader.read(encode(halfRedHalfWhite(400, 200)), null, 5000);
+        // samples 0,4,8,.. -> source [5, 13) contains samples at 8 and 12
+        assertEquals(new Rectangle(2, 2, 2, 2), image.toSampleBounds(new Rectangle(5, 5, 8, 8)));
+        assertTrue(image.toSampleBounds(new Rectangle(1, 1, 2, 2)).isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+package com.looksee.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.looksee.models.ElementState;
+
+/**
+ * Unit tests for TiledCompositeRenderer.
+ */
+class TiledCompositeRendererTest {
+
+    private static final int WHITE = 0xffffffff;
+    private static final int RED = 0xffff0000;
+    private static final int BLUE = 0xff0000ff;
+
+    private static BufferedImage filled(int width, int height, int argb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(argb, true));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+
+    private static ElementState element(String url, int x, int y, int width, int height) {
+        ElementState element = new ElementState();
+        element.setScreenshotUrl(url);
+        element.setXLocation(x);
+        element.setYLocation(y);
+        element.setWidth(width);
+        element.setHeight(height);
+        return element;
+    }
+
+    /**
+     * Renders the composite and reassembles the tiles into one image
+     */
+    private static BufferedImage render(int tile_height,
+                                        BufferedImage onload,
+                                        List<ElementState> elements,
+                                        Map<String, BufferedImage> images,
+                                        List<Integer> tile_offsets) throws IOException {
+        BufferedImage page = new BufferedImage(onload.getWidth(), onload.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = page.createGraphics();
+        TiledCompositeRenderer renderer = new TiledCompositeRenderer(tile_height, 2, url -> {
+            if (!images.containsKey(url)) {
+                throw new IOException("not found " + url);
+            }
+            return images.get(url);
+        });
+        renderer.render(onload, elements, onload.getWidth(), onload.getHeight(), (index, y_offset, tile) -> {
+            assertEquals(tile_offsets.size(), index);
+            tile_offsets.add(y_offset);
+            graphics.drawImage(tile, 0, y_offset, null);
+        });
+        graphics.dispose();
+        return page;
+    }
+
+    @Test
+    void elementSpanningATileBoundaryIsDrawnInBothTiles() throws IOException {
+        Map<String, BufferedImage> images = new HashMap<>();
+        images.put("red", filled(10, 20, RED));
+        List<Integer> offsets = new ArrayList<>();
+
+        BufferedImage page = render(50,
+                                    filled(40, 120, WHITE),
+                                    List.of(element("red", 5, 40, 10, 20)),
+                                    images,
+                                    offsets);
+
+        assertEquals(List.of(0, 50, 100), offsets);
+        assertEquals(RED, page.getRGB(5, 40));
+        assertEquals(RED, page.getRGB(5, 49));
+        assertEquals(RED, page.getRGB(5, 50));
+        assertEquals(RED, page.getRGB(14, 59));
+        assertEquals(WHITE, page.getRGB(5, 60));
+        assertEquals(WHITE, page.getRGB(5, 39));
+    }
+
+    @Test
+    void overlappingElementsAreDrawnInListOrder() throws IOException {
+        Map<String, BufferedImage> images = new HashMap<>();
+        images.put("red", filled(20, 20, RED));
+        images.put("blue", filled(20, 20, BLUE));
+        List<ElementState> elements = new ArrayList<>();
+        //the later element starts higher, so it is fetched first but still drawn last
+        elements.add(element("red", 0, 30, 20, 20));
+        elements.add(element("blue", 10, 25, 20, 20));
+
+        BufferedImage page = render(32, filled(40, 100, WHITE), elements, images, new ArrayList<>());
+
+        assertEquals(RED, page.getRGB(5, 35));
+        assertEquals(BLUE, page.getRGB(15, 35));
+        assertEquals(BLUE, page.getRGB(25, 26));
+        assertEquals(RED, page.getRGB(5, 49));
+        assertEquals(WHITE, page.getRGB(25, 48));
+    }
+
+    @Test
+    void lastTileIsCutToThePageHeight() throws IOException {
+        List<Integer> heights = new ArrayList<>();
+
+        int tiles = new TiledCompositeRenderer(64, 1, url -> null)
+                .render(filled(8, 150, WHITE), List.of(), 8, 150, (index, y_offset, tile) -> heights.add(tile.getHeight()));
+
+        assertEquals(3, tiles);
+        assertEquals(List.of(64, 64, 22), heights);
+    }
+
+    @Test
+    void failedDownloadsLeaveTheOnloadScreenshot() throws IOException {
+        BufferedImage page = render(50,
+                                    filled(40, 80, WHITE),
+                                    List.of(element("missing", 0, 10, 10, 10)),
+                                    new HashMap<>(),
+                                    new ArrayList<>());
+
+        assertEquals(WHITE, page.getRGB(5, 15));
+    }
+
+    @Test
+    void viewportCapturesAreReusedAcrossTilesAndClampedToThePageBottom() throws IOException {
+        //the page has a red band at rows 90 to 99; the browser can't scroll past row 70
+        BufferedImage full_page = filled(8, 130, WHITE);
+        Graphics2D band = full_page.createGraphics();
+        band.setColor(new Color(RED, true));
+        band.fillRect(0, 90, 8, 10);
+        band.dispose();
+        List<Integer> requested = new ArrayList<>();
+        ViewportCaptures captures = new ViewportCaptures(130, y_offset -> {
+            requested.add(y_offset);
+            int top = Math.min(y_offset, 130 - 60);
+            return full_page.getSubimage(0, top, 8, 60);
+        });
+
+        BufferedImage page = new BufferedImage(8, 130, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = page.createGraphics();
+        new TiledCompositeRenderer(50, 1, url -> null)
+                .render(captures, List.of(), 8, 130, (index, y_offset, tile) -> graphics.drawImage(tile, 0, y_offset, null));
+        graphics.dispose();
+
+        assertEquals(List.of(0, 60, 120), requested);
+        assertEquals(WHITE, page.getRGB(3, 89));
+        assertEquals(RED, page.getRGB(3, 90));
+        assertEquals(RED, page.getRGB(3, 99));
+        assertEquals(WHITE, page.getRGB(3, 129));
+    }
+}
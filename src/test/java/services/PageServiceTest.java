@@ -15,6 +15,7 @@ import com.looksee.models.repository.PageRepository;
 import com.looksee.models.repository.PageStateRepository;
 import com.looksee.models.repository.PerformanceInsightRepository;
 import com.looksee.services.PageService;
+import com.looksee.services.PageStateService;
 import java.util.Collections;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -34,6 +35,9 @@ class PageServiceTest {
     @Mock
     private PerformanceInsightRepository performanceInsightRepository;
 
+    @Mock
+    private PageStateService pageStateService;
+
     @InjectMocks
     private PageService pageService;
 
@@ -101,7 +105,7 @@ class PageServiceTest {
 
 
     @Test
-    void addPageStatePersistsStateAndPageWhenTargetPageExists() {
+    void addPageStatePersistsStateAndPageWhenTargetPageExists() throws Exception {
         String userId = "user-1";
         String pageKey = "page-key";
 
@@ -117,6 +121,7 @@ class PageServiceTest {
 
         pageService.addPageState(userId, pageKey, pageState);
 
+        verify(pageStateService).storeSources(pageState);
         verify(pageStateRepository).save(pageState);
         verify(pageRepository).save(page);
     }